@@ -389,11 +389,34 @@ public class Constants {
         "azkaban.activeexecutor.refresh.flowinterval";
     public static final String EXECUTORINFO_REFRESH_MAX_THREADS =
         "azkaban.executorinfo.refresh.maxThreads";
+    // Max number of executors whose running executions are updated concurrently, and how long the
+    // update call to a single executor may take before it is treated as failed.
+    public static final String EXECUTION_UPDATE_MAX_THREADS =
+        "azkaban.execution.update.maxThreads";
+    public static final String EXECUTION_UPDATE_TIMEOUT_MS =
+        "azkaban.execution.update.timeout.ms";
+    // When enabled, the executor persists only the nodes of a running flow that changed since the
+    // previous update, and rewrites the whole flow_data every compaction.interval updates and when
+    // the flow finishes. Must be set on the web server as well, which applies the updates when it
+    // reads the flows.
+    public static final String FLOW_INCREMENTAL_UPDATE_ENABLED =
+        "azkaban.flow.incremental.update.enabled";
+    public static final String FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL =
+        "azkaban.flow.incremental.update.compaction.interval";
+    // When enabled, a running flow is persisted by a background thread of the flow runner, and the
+    // updates requested while a write is in progress are coalesced into the next write.
+    public static final String FLOW_ASYNC_UPDATE_ENABLED = "azkaban.flow.async.update.enabled";
     public static final String MAX_DISPATCHING_ERRORS_PERMITTED = "azkaban.maxDispatchingErrors";
     public static final String EXECUTOR_SELECTOR_FILTERS = "azkaban.executorselector.filters";
     public static final String EXECUTOR_SELECTOR_COMPARATOR_PREFIX =
         "azkaban.executorselector.comparator.";
     public static final String QUEUEPROCESSING_ENABLED = "azkaban.queueprocessing.enabled";
+    // Max number of queued flows placed against one snapshot of the active executors and
+    // dispatched concurrently by the queue processor, and the number of dispatching threads.
+    public static final String QUEUEPROCESSING_DISPATCH_BATCH_SIZE =
+        "azkaban.queueprocessing.dispatch.batch.size";
+    public static final String QUEUEPROCESSING_DISPATCH_THREADS =
+        "azkaban.queueprocessing.dispatch.threads";
     public static final String QUEUE_PROCESSOR_WAIT_IN_MS = "azkaban.queue.processor.wait.in.ms";
 
     public static final String SESSION_TIME_TO_LIVE = "session.time.to.live";
@@ -409,6 +432,14 @@ public class Constants {
     public static final String PROJECT_CACHE_THROTTLE_PERCENTAGE =
         "azkaban.project_cache_throttle_percentage";
 
+    // share the class loader of a jobtype between its jobs running against the same cluster
+    public static final String JOBTYPE_CLASSLOADER_CACHE_ENABLED =
+        "azkaban.jobtype.classloader.cache.enabled";
+
+    // store the files of cached projects once, with project dirs hard-linking to them
+    public static final String PROJECT_CACHE_DEDUP_ENABLED =
+        "azkaban.project_cache_dedup_enabled";
+
     // how many older versions of project files are kept in DB before deleting them
     public static final String PROJECT_VERSION_RETENTION = "project.version.retention";
 
@@ -441,6 +472,31 @@ public class Constants {
         "execution.logs.cleanup.interval.seconds";
     public static final String EXECUTION_LOGS_CLEANUP_RECORD_LIMIT =
         "execution.logs.cleanup.record.limit";
+    // Group commit of the job logs uploaded concurrently by the executor: the max number of log
+    // parts inserted by one batch, and the max compressed bytes queued and not yet committed.
+    public static final String EXECUTION_LOGS_BATCH_UPLOAD_ENABLED =
+        "execution.logs.batch.upload.enabled";
+    public static final String EXECUTION_LOGS_BATCH_UPLOAD_MAX_ROWS =
+        "execution.logs.batch.upload.max.rows";
+    public static final String EXECUTION_LOGS_BATCH_UPLOAD_MAX_INFLIGHT_BYTES =
+        "execution.logs.batch.upload.max.inflight.bytes";
+    // Max decoded bytes of log parts kept in memory to serve repeated log reads, 0 to disable.
+    public static final String EXECUTION_LOGS_CHUNK_CACHE_MAX_BYTES =
+        "execution.logs.chunk.cache.max.bytes";
+    // Storage of the finished job and flow logs outside of the db: LOCAL or HDFS. Logs of at least
+    // min.bytes are written there as segmented gzip files with a single index row in the db.
+    public static final String EXECUTION_LOGS_STORAGE_TYPE = "execution.logs.storage.type";
+    public static final String EXECUTION_LOGS_STORAGE_MIN_BYTES =
+        "execution.logs.storage.min.bytes";
+    public static final String EXECUTION_LOGS_STORAGE_LOCAL_BASEDIR =
+        "execution.logs.storage.local.basedir";
+    public static final String EXECUTION_LOGS_STORAGE_HDFS_ROOT_URI =
+        "execution.logs.storage.hdfs.root.uri";
+
+    // Web server trigger scheduler: the number of shards the triggers are spread across, each
+    // checked by its own thread, and the number of threads running the trigger actions.
+    public static final String TRIGGER_SCHEDULER_SHARDS = "azkaban.trigger.scheduler.shards";
+    public static final String TRIGGER_ACTION_THREADS = "azkaban.trigger.action.threads";
 
     // Oauth2.0 configuration keys. If missing, no OAuth will be attempted, and the old
     // username/password{+2FA} prompt will be given for interactive login:
@@ -468,6 +524,20 @@ public class Constants {
     public static final String EXECUTOR_CLIENT_TRUSTSTORE_PATH = "azkaban.executor.client.truststore";
     public static final String EXECUTOR_CLIENT_TRUSTSTORE_PASSWORD = "azkaban.executor.client.trustpassword";
 
+    // Executor client connection pool properties
+    public static final String EXECUTOR_CLIENT_MAX_CONNECTIONS =
+        "azkaban.executor.client.max.connections";
+    public static final String EXECUTOR_CLIENT_MAX_CONNECTIONS_PER_ROUTE =
+        "azkaban.executor.client.max.connections.per.route";
+    public static final String EXECUTOR_CLIENT_CONNECT_TIMEOUT_MS =
+        "azkaban.executor.client.connect.timeout.ms";
+    public static final String EXECUTOR_CLIENT_SOCKET_TIMEOUT_MS =
+        "azkaban.executor.client.socket.timeout.ms";
+    public static final String EXECUTOR_CLIENT_CONNECTION_REQUEST_TIMEOUT_MS =
+        "azkaban.executor.client.connection.request.timeout.ms";
+    public static final String EXECUTOR_CLIENT_IDLE_CONNECTION_TIMEOUT_MS =
+        "azkaban.executor.client.idle.connection.timeout.ms";
+
     public static final String AZKABAN_EXECUTOR_REVERSE_PROXY_ENABLED =
         "azkaban.executor.reverse.proxy.enabled";
     public static final String AZKABAN_EXECUTOR_REVERSE_PROXY_HOSTNAME =
@@ -588,6 +658,18 @@ public class Constants {
         AZKABAN_CONTAINERIZED_PREFIX + "jobtype.allowlist";
     public static final String CONTAINERIZED_PROXY_USER_DENYLIST =
         AZKABAN_CONTAINERIZED_PREFIX + "proxy.user.denylist";
+    // Bounds of the adaptive backoff used by the queue processor when no execution is queued.
+    // Submissions on the same web server wake the processor up immediately, the backoff is the
+    // safety net for executions queued by other web servers.
+    public static final String CONTAINERIZED_QUEUE_PROCESSOR_MIN_BACKOFF_MS =
+        AZKABAN_CONTAINERIZED_PREFIX + "queue.processor.min.backoff.ms";
+    public static final String CONTAINERIZED_QUEUE_PROCESSOR_MAX_BACKOFF_MS =
+        AZKABAN_CONTAINERIZED_PREFIX + "queue.processor.max.backoff.ms";
+    // Time to live of the cached image types, versions and rampups used to build version sets.
+    // The cache is dropped on writes through the image management API of this web server, the
+    // ttl bounds how long the writes made through other web servers are missed. 0 disables it.
+    public static final String CONTAINERIZED_IMAGE_CACHE_TTL_SECONDS =
+        AZKABAN_CONTAINERIZED_PREFIX + "image.cache.ttl.seconds";
 
     // Kubernetes related properties
     public static final String AZKABAN_KUBERNETES_PREFIX = "azkaban.kubernetes.";
@@ -655,10 +737,36 @@ public class Constants {
     public static final String CONTAINERIZED_STALE_EXECUTION_CLEANUP_INTERVAL_MIN =
         AZKABAN_CONTAINERIZED_PREFIX + "stale.execution.cleanup.interval.min";
 
+    // Pool of pre-started flow container pods, waiting for an execution to be assigned to them.
+    public static final String CONTAINERIZED_WARM_POOL_PREFIX =
+        AZKABAN_CONTAINERIZED_PREFIX + "warm.pool.";
+    public static final String CONTAINERIZED_WARM_POOL_ENABLED =
+        CONTAINERIZED_WARM_POOL_PREFIX + "enabled";
+    // Upper bound of the number of warm pods, across all the version sets.
+    public static final String CONTAINERIZED_WARM_POOL_MAX_SIZE =
+        CONTAINERIZED_WARM_POOL_PREFIX + "max.size";
+    // Window over which the dispatch rate of each version set is measured.
+    public static final String CONTAINERIZED_WARM_POOL_RATE_WINDOW_SECONDS =
+        CONTAINERIZED_WARM_POOL_PREFIX + "rate.window.seconds";
+    // Time taken by a new pod to be ready. The pool holds the pods needed by the dispatches
+    // expected during this time.
+    public static final String CONTAINERIZED_WARM_POOL_LEAD_TIME_SECONDS =
+        CONTAINERIZED_WARM_POOL_PREFIX + "lead.time.seconds";
+    public static final String CONTAINERIZED_WARM_POOL_REFILL_INTERVAL_SECONDS =
+        CONTAINERIZED_WARM_POOL_PREFIX + "refill.interval.seconds";
+    // Value of the owner label of the warm pods of this web server, which only lists, sizes and
+    // assigns its own pods. Required when the warm pool is enabled. It must differ between the web
+    // servers of a cluster and stay the same when a web server is restarted or moved to another
+    // host, or its warm pods are left running.
+    public static final String CONTAINERIZED_WARM_POOL_OWNER =
+        CONTAINERIZED_WARM_POOL_PREFIX + "owner";
+
     public static final String ENV_VERSION_SET_ID = "VERSION_SET_ID";
     public static final String ENV_FLOW_EXECUTION_ID = "FLOW_EXECUTION_ID";
     public static final String ENV_JAVA_ENABLE_DEBUG = "JAVA_ENABLE_DEBUG";
     public static final String ENV_ENABLE_DEV_POD = "ENABLE_DEV_POD";
+    // Set on warm pods, which wait for an execution to be assigned instead of reading its id.
+    public static final String ENV_WARM_POD = "WARM_POD";
   }
 
   public static class ImageMgmtConstants {
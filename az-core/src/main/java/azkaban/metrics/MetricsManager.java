@@ -102,6 +102,13 @@ public class MetricsManager {
     return this.registry.histogram(name);
   }
 
+  /**
+   * Removes the metric of the given name, if any.
+   */
+  public void removeMetric(final String name) {
+    this.registry.remove(name);
+  }
+
   /**
    * A {@link Timer} measures both the rate that a particular piece of code is called and the
    * distribution of its duration.
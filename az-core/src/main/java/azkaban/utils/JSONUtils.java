@@ -30,7 +30,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import org.apache.commons.io.IOUtils;
-import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -42,6 +43,10 @@ public class JSONUtils {
 
   private static final Logger log = LoggerFactory.getLogger(JSONUtils.class);
 
+  // ObjectMapper is thread safe once configured, and expensive to create. It is shared by all the
+  // methods of this class and must not be reconfigured.
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   /**
    * The constructor. Cannot construct this class.
    */
@@ -53,14 +58,12 @@ public class JSONUtils {
   }
 
   public static String toJSON(final Object obj, final boolean prettyPrint) {
-    final ObjectMapper mapper = new ObjectMapper();
-
     try {
       if (prettyPrint) {
-        final ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+        final ObjectWriter writer = MAPPER.writerWithDefaultPrettyPrinter();
         return writer.writeValueAsString(obj);
       }
-      return mapper.writeValueAsString(obj);
+      return MAPPER.writeValueAsString(obj);
     } catch (final Exception e) {
       throw new RuntimeException(e);
     }
@@ -72,19 +75,27 @@ public class JSONUtils {
 
   public static void toJSON(final Object obj, final OutputStream stream,
       final boolean prettyPrint) {
-    final ObjectMapper mapper = new ObjectMapper();
     try {
       if (prettyPrint) {
-        final ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+        final ObjectWriter writer = MAPPER.writerWithDefaultPrettyPrinter();
         writer.writeValue(stream, obj);
         return;
       }
-      mapper.writeValue(stream, obj);
+      MAPPER.writeValue(stream, obj);
     } catch (final Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Creates a UTF-8 json generator writing to the stream, backed by the shared object mapper so
+   * that {@link JsonGenerator#writeObject(Object)} can be used for nested maps and lists. Closing
+   * the generator closes the stream.
+   */
+  public static JsonGenerator createJsonGenerator(final OutputStream stream) throws IOException {
+    return MAPPER.getJsonFactory().createJsonGenerator(stream, JsonEncoding.UTF8);
+  }
+
   public static void toJSON(final Object obj, final File file) throws IOException {
     toJSON(obj, file, false);
   }
@@ -110,28 +121,22 @@ public class JSONUtils {
   }
 
   public static Object parseJSONFromString(final String json) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(json);
-    final JsonNode node = mapper.readTree(parser);
+    final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(json);
+    final JsonNode node = MAPPER.readTree(parser);
 
     return toObjectFromJSONNode(node);
   }
 
   public static Object parseJSONFromFile(final File file) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(file);
-    final JsonNode node = mapper.readTree(parser);
+    final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(file);
+    final JsonNode node = MAPPER.readTree(parser);
 
     return toObjectFromJSONNode(node);
   }
 
   public static Object parseJSONFromReader(final Reader reader) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(reader);
-    final JsonNode node = mapper.readTree(parser);
+    final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(reader);
+    final JsonNode node = MAPPER.readTree(parser);
 
     return toObjectFromJSONNode(node);
   }
@@ -311,10 +316,8 @@ public class JSONUtils {
    * @throws IOException
    */
   public static JsonNode readJsonString(final String json) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(json);
-    final JsonNode node = mapper.readTree(parser);
+    final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(json);
+    final JsonNode node = MAPPER.readTree(parser);
     return node;
   }
 
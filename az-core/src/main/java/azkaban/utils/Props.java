@@ -44,9 +44,14 @@ import org.apache.log4j.Logger;
  */
 public class Props {
 
-  private final Map<String, String> _current;
+  private Map<String, String> _current;
+  // The local values are shared with a snapshot, they are copied on the first change.
+  private boolean copyOnWrite = false;
   private Props _parent;
   private String source = null;
+  // Incremented on every change of the local values or of the parent, see snapshot()
+  private int modCount = 0;
+  private volatile PropsSnapshot snapshot;
 
   /**
    * Constructor for empty props with empty parent.
@@ -128,6 +133,16 @@ public class Props {
     }
   }
 
+  /**
+   * Create a Props with the values of the snapshot. The values are shared with the snapshot until
+   * this Props is changed, so that the Props created from the same snapshot don't copy them.
+   */
+  public Props(final Props parent, final PropsSnapshot snapshot) {
+    this._current = snapshot.toMap();
+    this.copyOnWrite = true;
+    this._parent = parent;
+  }
+
   /**
    * Create a Props with a null parent from a list of key value pairing. i.e. [key1, value1, key2,
    * value2 ...]
@@ -232,7 +247,7 @@ public class Props {
    * Clear the current Props, but leaves the parent untouched.
    */
   public void clearLocal() {
-    this._current.clear();
+    currentForWrite().clear();
   }
 
   /**
@@ -268,7 +283,7 @@ public class Props {
    * Get the key set from the current Props
    */
   public Set<String> localKeySet() {
-    return this._current.keySet();
+    return Collections.unmodifiableSet(this._current.keySet());
   }
 
   /**
@@ -280,6 +295,41 @@ public class Props {
 
   public void setParent(final Props prop) {
     this._parent = prop;
+    this.modCount++;
+  }
+
+  /**
+   * Returns an immutable view of the values of this Props and of its parents. The snapshot is
+   * built on the first call and kept until this Props or one of its parents is changed. The
+   * snapshots of the children of a Props share the flattened values of that Props.
+   */
+  public PropsSnapshot snapshot() {
+    final PropsSnapshot parentSnapshot =
+        this._parent == null ? PropsSnapshot.empty() : this._parent.snapshot();
+    final PropsSnapshot current = this.snapshot;
+    if (current != null && current.getModCount() == this.modCount
+        && current.getParent() == parentSnapshot) {
+      return current;
+    }
+
+    final Map<String, String> local =
+        this.copyOnWrite ? this._current : new HashMap<>(this._current);
+    final PropsSnapshot newSnapshot = new PropsSnapshot(local, parentSnapshot, this.modCount);
+    this.snapshot = newSnapshot;
+    return newSnapshot;
+  }
+
+  /**
+   * Returns the local values for a change, copying them first if they are shared with a
+   * snapshot.
+   */
+  private Map<String, String> currentForWrite() {
+    if (this.copyOnWrite) {
+      this._current = new HashMap<>(this._current);
+      this.copyOnWrite = false;
+    }
+    this.modCount++;
+    return this._current;
   }
 
   /**
@@ -292,7 +342,7 @@ public class Props {
    * this Props.
    */
   public String put(final String key, final String value) {
-    return this._current.put(key, value);
+    return currentForWrite().put(key, value);
   }
 
   /**
@@ -305,8 +355,9 @@ public class Props {
    * this Props.
    */
   public void put(final Properties properties) {
+    final Map<String, String> current = currentForWrite();
     for (final String propName : properties.stringPropertyNames()) {
-      this._current.put(propName, properties.getProperty(propName));
+      current.put(propName, properties.getProperty(propName));
     }
   }
 
@@ -314,21 +365,21 @@ public class Props {
    * Put integer
    */
   public String put(final String key, final Integer value) {
-    return this._current.put(key, value.toString());
+    return currentForWrite().put(key, value.toString());
   }
 
   /**
    * Put Long. Stores as String.
    */
   public String put(final String key, final Long value) {
-    return this._current.put(key, value.toString());
+    return currentForWrite().put(key, value.toString());
   }
 
   /**
    * Put Double. Stores as String.
    */
   public String put(final String key, final Double value) {
-    return this._current.put(key, value.toString());
+    return currentForWrite().put(key, value.toString());
   }
 
   /**
@@ -370,7 +421,7 @@ public class Props {
    * Remove only the local value of key s, and not the parents.
    */
   public String removeLocal(final Object s) {
-    return this._current.remove(s);
+    return currentForWrite().remove(s);
   }
 
   /**
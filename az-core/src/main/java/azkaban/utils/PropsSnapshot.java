@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.utils;
+
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of the values of a {@link Props} and of its parents, see {@link
+ * Props#snapshot()}.
+ *
+ * <p>A snapshot holds a copy of the local values of its Props, and shares the flattened values
+ * of the parents with the snapshots of the other children of the same parent. A lookup is a
+ * lookup in the local values and then in the flattened values of the parents.
+ */
+public final class PropsSnapshot {
+
+  private static final PropsSnapshot EMPTY =
+      new PropsSnapshot(Collections.emptyMap(), null, 0);
+
+  private final Map<String, String> local;
+  // Flattened values of the parents, shared by the snapshots of their children
+  private final Map<String, String> parentValues;
+  // Used by the Props to check if the snapshot is still up to date
+  private final PropsSnapshot parent;
+  private final int modCount;
+  private volatile Map<String, String> flattened;
+
+  PropsSnapshot(final Map<String, String> local, final PropsSnapshot parent,
+      final int modCount) {
+    this.local = local;
+    this.parent = parent;
+    this.parentValues = parent == null ? Collections.emptyMap() : parent.toMap();
+    this.modCount = modCount;
+  }
+
+  static PropsSnapshot empty() {
+    return EMPTY;
+  }
+
+  PropsSnapshot getParent() {
+    return this.parent;
+  }
+
+  int getModCount() {
+    return this.modCount;
+  }
+
+  public String get(final String key) {
+    if (this.local.containsKey(key)) {
+      return this.local.get(key);
+    }
+    return this.parentValues.get(key);
+  }
+
+  public boolean containsKey(final String key) {
+    return this.local.containsKey(key) || this.parentValues.containsKey(key);
+  }
+
+  /**
+   * @return the keys of the Props and of its parents
+   */
+  public Set<String> keySet() {
+    if (this.local.isEmpty()) {
+      return this.parentValues.keySet();
+    } else if (this.parentValues.isEmpty()) {
+      return this.local.keySet();
+    }
+    return Sets.union(this.local.keySet(), this.parentValues.keySet());
+  }
+
+  /**
+   * @return an unmodifiable map of the values of the Props and of its parents, built on the first
+   * call
+   */
+  public Map<String, String> toMap() {
+    Map<String, String> flattened = this.flattened;
+    if (flattened == null) {
+      if (this.local.isEmpty()) {
+        flattened = this.parentValues;
+      } else if (this.parentValues.isEmpty()) {
+        flattened = Collections.unmodifiableMap(this.local);
+      } else {
+        final Map<String, String> values = new HashMap<>(this.parentValues);
+        values.putAll(this.local);
+        flattened = Collections.unmodifiableMap(values);
+      }
+      this.flattened = flattened;
+    }
+    return flattened;
+  }
+}
@@ -15,16 +15,18 @@
  */
 package azkaban.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.jexl2.Expression;
@@ -44,6 +46,13 @@ public class PropsUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(PropsUtils.class);
   private static final Pattern VARIABLE_REPLACEMENT_PATTERN = Pattern
       .compile("\\$\\{([a-zA-Z_.0-9]+)\\}");
+  private static final int TEMPLATE_CACHE_SIZE = 10000;
+  private static final int EXPRESSION_CACHE_SIZE = 1024;
+  // Values with variables to replace, parsed once and shared by all resolutions
+  private static final Cache<String, Template> TEMPLATE_CACHE =
+      CacheBuilder.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).build();
+  // Thread safe once configured, it caches the parsed expressions.
+  private static final JexlEngine JEXL_ENGINE = createJexlEngine();
 
   /**
    * Private constructor.
@@ -207,8 +216,15 @@ public class PropsUtils {
     return matcher.matches();
   }
 
+  private static JexlEngine createJexlEngine() {
+    final JexlEngine jexl = new JexlEngine();
+    jexl.setCache(EXPRESSION_CACHE_SIZE);
+    return jexl;
+  }
+
   /**
-   * Resolve Props
+   * Resolve Props. Each variable is resolved once, and its value is reused by all the values
+   * referring to it.
    *
    * @param props props
    * @return resolved props
@@ -220,18 +236,28 @@ public class PropsUtils {
 
     final Props resolvedProps = new Props();
 
+    final PropsSnapshot snapshot = props.snapshot();
+    // Resolved values of the variables, by variable name
+    final Map<String, String> resolvedVariables = new HashMap<>();
     final LinkedHashSet<String> visitedVariables = new LinkedHashSet<>();
-    for (final String key : props.getKeySet()) {
-      String value = props.get(key);
-      if (value == null) {
-        LOGGER.warn("Null value in props for key '" + key + "'. Replacing with empty string.");
-        value = "";
-      }
+    for (final String key : snapshot.keySet()) {
+      String replacedValue = resolvedVariables.get(key);
+      if (replacedValue == null) {
+        String value = snapshot.get(key);
+        if (value == null) {
+          LOGGER.warn("Null value in props for key '" + key + "'. Replacing with empty string.");
+          value = "";
+        }
 
-      visitedVariables.add(key);
-      final String replacedValue =
-          resolveVariableReplacement(value, props, visitedVariables);
-      visitedVariables.clear();
+        visitedVariables.add(key);
+        replacedValue =
+            resolveVariableReplacement(value, snapshot, resolvedVariables, visitedVariables);
+        visitedVariables.clear();
+        // A variable with a null value is still undefined for the values referring to it.
+        if (snapshot.get(key) != null) {
+          resolvedVariables.put(key, replacedValue);
+        }
+      }
 
       resolvedProps.put(key, replacedValue);
     }
@@ -277,53 +303,71 @@ public class PropsUtils {
     }
   }
 
-  private static String resolveVariableReplacement(final String value, final Props props,
+  private static String resolveVariableReplacement(final String value,
+      final PropsSnapshot snapshot, final Map<String, String> resolvedVariables,
       final LinkedHashSet<String> visitedVariables) {
-    final StringBuffer buffer = new StringBuffer();
-    int startIndex = 0;
+    final Template template = getTemplate(value);
+    if (template == null) {
+      return value;
+    }
 
-    final Matcher matcher = VARIABLE_REPLACEMENT_PATTERN.matcher(value);
-    while (matcher.find(startIndex)) {
-      if (startIndex < matcher.start()) {
-        // Copy everything up front to the buffer
-        buffer.append(value.substring(startIndex, matcher.start()));
-      }
+    final StringBuilder builder = new StringBuilder(value.length());
+    for (int i = 0; i < template.variables.length; i++) {
+      // Copy everything up front to the builder
+      builder.append(template.literals[i]);
+
+      final String subVariable = template.variables[i];
+      String replacement = resolvedVariables.get(subVariable);
+      if (replacement == null) {
+        // Detected a cycle
+        if (visitedVariables.contains(subVariable)) {
+          throw new IllegalArgumentException(String.format(
+              "Circular variable substitution found: [%s] -> [%s]",
+              StringUtils.join(visitedVariables, "->"), subVariable));
+        }
 
-      final String subVariable = matcher.group(1);
-      // Detected a cycle
-      if (visitedVariables.contains(subVariable)) {
-        throw new IllegalArgumentException(String.format(
-            "Circular variable substitution found: [%s] -> [%s]",
-            StringUtils.join(visitedVariables, "->"), subVariable));
-      } else {
         // Add substitute variable and recurse.
-        final String replacement = props.get(subVariable);
+        final String subValue = snapshot.get(subVariable);
         visitedVariables.add(subVariable);
 
-        if (replacement == null) {
+        if (subValue == null) {
           throw new UndefinedPropertyException(String.format(
               "Could not find variable substitution for variable(s) [%s]",
               StringUtils.join(visitedVariables, "->")));
         }
 
-        buffer.append(resolveVariableReplacement(replacement, props,
-            visitedVariables));
+        replacement =
+            resolveVariableReplacement(subValue, snapshot, resolvedVariables, visitedVariables);
         visitedVariables.remove(subVariable);
+        resolvedVariables.put(subVariable, replacement);
       }
-
-      startIndex = matcher.end();
+      builder.append(replacement);
     }
+    builder.append(template.literals[template.variables.length]);
 
-    if (startIndex < value.length()) {
-      buffer.append(value.substring(startIndex));
-    }
+    return builder.toString();
+  }
 
-    return buffer.toString();
+  /**
+   * @return the parsed value, or null if the value has no variable to replace
+   */
+  private static Template getTemplate(final String value) {
+    if (!value.contains("${")) {
+      return null;
+    }
+    Template template = TEMPLATE_CACHE.getIfPresent(value);
+    if (template == null) {
+      template = Template.parse(value);
+      TEMPLATE_CACHE.put(value, template);
+    }
+    return template;
   }
 
   private static String resolveVariableExpression(final String value) {
-    final JexlEngine jexl = new JexlEngine();
-    return resolveVariableExpression(value, value.length(), jexl);
+    if (!value.contains("$(")) {
+      return value;
+    }
+    return resolveVariableExpression(value, value.length(), JEXL_ENGINE);
   }
 
   /**
@@ -398,10 +442,12 @@ public class PropsUtils {
    * @return String Map of props
    */
   public static Map<String, String> toStringMap(final Props props, final boolean localOnly) {
-    final HashMap<String, String> map = new HashMap<>();
-    final Set<String> keyset = localOnly ? props.localKeySet() : props.getKeySet();
+    if (!localOnly) {
+      return new HashMap<>(props.snapshot().toMap());
+    }
 
-    for (final String key : keyset) {
+    final HashMap<String, String> map = new HashMap<>();
+    for (final String key : props.localKeySet()) {
       final String value = props.get(key);
       map.put(key, value);
     }
@@ -513,4 +559,33 @@ public class PropsUtils {
     }
     return builder.toString();
   }
+
+  /**
+   * A value split on its ${variable} references: the variables, and the literals before, between
+   * and after them.
+   */
+  private static final class Template {
+
+    private final String[] literals;
+    private final String[] variables;
+
+    private Template(final List<String> literals, final List<String> variables) {
+      this.literals = literals.toArray(new String[0]);
+      this.variables = variables.toArray(new String[0]);
+    }
+
+    private static Template parse(final String value) {
+      final List<String> literals = new ArrayList<>();
+      final List<String> variables = new ArrayList<>();
+      int startIndex = 0;
+      final Matcher matcher = VARIABLE_REPLACEMENT_PATTERN.matcher(value);
+      while (matcher.find(startIndex)) {
+        literals.add(value.substring(startIndex, matcher.start()));
+        variables.add(matcher.group(1));
+        startIndex = matcher.end();
+      }
+      literals.add(value.substring(startIndex));
+      return new Template(literals, variables);
+    }
+  }
 }
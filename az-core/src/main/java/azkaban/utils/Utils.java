@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -36,6 +37,10 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.Random;
 import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -204,30 +209,79 @@ public class Utils {
     final Enumeration<?> entries = source.entries();
     while (entries.hasMoreElements()) {
       final ZipEntry entry = (ZipEntry) entries.nextElement();
-      final File newFile = new File(dest, entry.getName());
-      if (!newFile.getCanonicalPath().startsWith(dest.getCanonicalPath())) {
-        throw new IOException(
-            "Extracting zip entry would have resulted in a file outside the specified destination"
-                + " directory.");
-      }
-
+      final File newFile = getUnzippedFile(entry, dest);
       if (entry.isDirectory()) {
         newFile.mkdirs();
       } else {
-        newFile.getParentFile().mkdirs();
-        final InputStream src = source.getInputStream(entry);
-        try {
-          final OutputStream output =
-              new BufferedOutputStream(new FileOutputStream(newFile));
-          try {
-            IOUtils.copy(src, output);
-          } finally {
-            output.close();
-          }
-        } finally {
-          src.close();
+        extractEntry(source, entry, newFile);
+      }
+    }
+  }
+
+  /**
+   * Extracts the zip file into the destination dir like {@link #unzip(ZipFile, File)}, with the
+   * file entries extracted in parallel on the given executor. The zip file must be kept open until
+   * the returned future is complete.
+   *
+   * @return a future of the number of bytes extracted, completed once all the entries are
+   * extracted. It fails with an {@link UncheckedIOException} if an entry can't be extracted.
+   * @throws IOException if an entry would be extracted outside the destination dir. The entries
+   * already submitted are cancelled and awaited before it is thrown.
+   */
+  public static CompletableFuture<Long> unzipAsync(final ZipFile source, final File dest,
+      final Executor executor) throws IOException {
+    final List<CompletableFuture<Long>> extractions = new ArrayList<>();
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    try {
+      final Enumeration<?> entries = source.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = (ZipEntry) entries.nextElement();
+        final File newFile = getUnzippedFile(entry, dest);
+        if (entry.isDirectory()) {
+          newFile.mkdirs();
+        } else {
+          extractions.add(CompletableFuture.supplyAsync(() -> {
+            if (cancelled.get()) {
+              throw new CancellationException("Extraction of " + entry.getName() + " cancelled");
+            }
+            try {
+              return extractEntry(source, entry, newFile);
+            } catch (final IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }, executor));
         }
       }
+    } catch (final IOException | RuntimeException e) {
+      // Don't leave entries being written after the caller gives up on the destination dir.
+      cancelled.set(true);
+      CompletableFuture.allOf(extractions.toArray(new CompletableFuture[0]))
+          .handle((v, t) -> v).join();
+      throw e;
+    }
+    return CompletableFuture.allOf(extractions.toArray(new CompletableFuture[0]))
+        .thenApply(v -> extractions.stream().mapToLong(CompletableFuture::join).sum());
+  }
+
+  private static File getUnzippedFile(final ZipEntry entry, final File dest) throws IOException {
+    final File newFile = new File(dest, entry.getName());
+    if (!newFile.getCanonicalPath().startsWith(dest.getCanonicalPath())) {
+      throw new IOException(
+          "Extracting zip entry would have resulted in a file outside the specified destination"
+              + " directory.");
+    }
+    return newFile;
+  }
+
+  /**
+   * @return the number of bytes extracted
+   */
+  private static long extractEntry(final ZipFile source, final ZipEntry entry,
+      final File newFile) throws IOException {
+    newFile.getParentFile().mkdirs();
+    try (final InputStream src = source.getInputStream(entry);
+        final OutputStream output = new BufferedOutputStream(new FileOutputStream(newFile))) {
+      return IOUtils.copyLarge(src, output);
     }
   }
 
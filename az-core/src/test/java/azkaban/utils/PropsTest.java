@@ -18,6 +18,7 @@ package azkaban.utils;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
@@ -58,4 +59,64 @@ public class PropsTest {
     Props props = new Props(parent, file);
     Assert.assertNull(props.getSource());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSnapshot() {
+    final Props grandParent = Props.of("a", "1", "b", "1");
+    final Props parent = Props.of(grandParent, "b", "2", "c", "2");
+    final Props child1 = Props.of(parent, "c", "3");
+    final Props child2 = Props.of(parent, "d", "4");
+
+    final PropsSnapshot snapshot1 = child1.snapshot();
+    Assert.assertEquals("1", snapshot1.get("a"));
+    Assert.assertEquals("2", snapshot1.get("b"));
+    Assert.assertEquals("3", snapshot1.get("c"));
+    Assert.assertNull(snapshot1.get("d"));
+    Assert.assertEquals(child1.getKeySet(), snapshot1.keySet());
+    Assert.assertEquals(child1.getFlattened(), snapshot1.toMap());
+    Assert.assertSame(snapshot1, child1.snapshot());
+    // The children share the snapshot of their parent.
+    Assert.assertSame(snapshot1.getParent(), child2.snapshot().getParent());
+
+    // A change of a parent makes a new snapshot, the previous one doesn't change.
+    grandParent.put("a", "5");
+    final PropsSnapshot snapshot2 = child1.snapshot();
+    Assert.assertNotSame(snapshot1, snapshot2);
+    Assert.assertEquals("1", snapshot1.get("a"));
+    Assert.assertEquals("5", snapshot2.get("a"));
+    child1.setParent(null);
+    Assert.assertEquals(Collections.singleton("c"), child1.snapshot().keySet());
+  }
+
+  @Test
+  public void testPropsFromSnapshotCopyOnWrite() {
+    final Props parent = Props.of("a", "1");
+    final PropsSnapshot snapshot = Props.of(parent, "b", "2").snapshot();
+    final Props props1 = new Props(null, snapshot);
+    final Props props2 = new Props(null, snapshot);
+
+    props1.put("a", "3");
+    props1.removeLocal("b");
+    Assert.assertEquals("3", props1.get("a"));
+    Assert.assertNull(props1.get("b"));
+    Assert.assertEquals("1", props2.get("a"));
+    Assert.assertEquals("2", props2.get("b"));
+    Assert.assertEquals("1", snapshot.get("a"));
+    Assert.assertEquals("2", snapshot.get("b"));
+  }
+
+  @Test
+  public void testLocalKeySetIsUnmodifiable() {
+    final Props props = new Props();
+    props.put("a", "1");
+    final PropsSnapshot snapshot = props.snapshot();
+    try {
+      props.localKeySet().remove("a");
+      Assert.fail("The local key set can be changed");
+    } catch (final UnsupportedOperationException e) {
+      // Expected
+    }
+    Assert.assertEquals("1", props.get("a"));
+    Assert.assertSame(snapshot, props.snapshot());
+  }
+}
@@ -65,6 +65,28 @@ public class PropsUtilsTest {
     Assert.assertEquals("name ears", resolved.get("res7"));
   }
 
+  @Test
+  public void testSharedVariablesResolution() throws IOException {
+    final Props propsParent = new Props();
+    final Props props = new Props(propsParent);
+
+    // Each level refers twice to the level below, which is resolved once.
+    propsParent.put("level0", "x");
+    for (int i = 1; i <= 16; i++) {
+      propsParent.put("level" + i, "${level" + (i - 1) + "}${level" + (i - 1) + "}");
+    }
+    props.put("top", "$(\"${level2}\" + 1)");
+    props.put("same1", "${level3} ${level2}");
+    props.put("same2", "${level3} ${level2}");
+
+    final Props resolved = PropsUtils.resolveProps(props);
+    Assert.assertEquals(1 << 16, resolved.get("level16").length());
+    Assert.assertEquals("xxxxxxxxxxxxxxxx", resolved.get("level4"));
+    Assert.assertEquals("xxxx1", resolved.get("top"));
+    Assert.assertEquals("xxxxxxxx xxxx", resolved.get("same1"));
+    Assert.assertEquals("xxxxxxxx xxxx", resolved.get("same2"));
+  }
+
   @Test
   public void testInvalidSyntax() throws Exception {
     final Props propsGrandParent = new Props();
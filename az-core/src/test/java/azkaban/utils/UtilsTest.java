@@ -15,12 +15,18 @@
  */
 package azkaban.utils;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -61,6 +67,71 @@ public class UtilsTest {
     }
   }
 
+  @Test
+  public void testUnzipAsync() throws Exception {
+    final File zipFile = new File("myAsyncTest.zip");
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      try (final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+        out.putNextEntry(new ZipEntry("dir/"));
+        for (int i = 0; i < 5; i++) {
+          out.putNextEntry(new ZipEntry("dir/file" + i + ".txt"));
+          out.write(("content" + i).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+
+      final File dest = Utils.createTempDir();
+      try (final ZipFile source = new ZipFile(zipFile)) {
+        assertThat(Utils.unzipAsync(source, dest, executor).get()).isEqualTo(5L * 8);
+      }
+      for (int i = 0; i < 5; i++) {
+        assertThat(new String(Files.readAllBytes(new File(dest, "dir/file" + i + ".txt").toPath()),
+            StandardCharsets.UTF_8)).isEqualTo("content" + i);
+      }
+    } finally {
+      executor.shutdownNow();
+      if (zipFile.exists()) {
+        zipFile.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testUnzipAsyncInsecureFileCancelsExtractions() throws Exception {
+    final File zipFile = new File("myAsyncInsecureTest.zip");
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    // Delays the extractions so that they are only started after the insecure entry is seen.
+    final Executor executor = task -> pool.execute(() -> {
+      try {
+        Thread.sleep(500);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      task.run();
+    });
+    try {
+      try (final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+        for (int i = 0; i < 5; i++) {
+          out.putNextEntry(new ZipEntry("file" + i + ".txt"));
+          out.write(("content" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        out.putNextEntry(new ZipEntry("../../../../../evil.txt"));
+      }
+
+      final File dest = Utils.createTempDir();
+      try (final ZipFile source = new ZipFile(zipFile)) {
+        assertThatThrownBy(() -> Utils.unzipAsync(source, dest, executor))
+            .isInstanceOf(IOException.class);
+      }
+      assertThat(dest.list()).isEmpty();
+    } finally {
+      pool.shutdownNow();
+      if (zipFile.exists()) {
+        zipFile.delete();
+      }
+    }
+  }
+
   @Test
   public void testRunProcess() throws IOException, InterruptedException {
     ArrayList<String> result =
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.db.EncodingType;
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.project.Project;
+import azkaban.utils.GZIPUtils;
+import azkaban.utils.JSONUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the map based flow_data encoding with the streaming {@link ExecutableFlowEncoder}.
+ * Run with the -prof gc option to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutableFlowEncoderBenchmark {
+
+  @Param({"100", "1000", "5000"})
+  private int numNodes;
+
+  private ExecutableFlow flow;
+
+  @Setup
+  public void setUp() {
+    final Flow flow = new Flow("benchmarkFlow");
+    for (int i = 0; i < this.numNodes; i++) {
+      final Node node = new Node("job" + i);
+      node.setType("command");
+      node.setJobSource("job" + i + ".job");
+      flow.addNode(node);
+      if (i > 0) {
+        // Binary tree of jobs, so that most jobs have both in and out nodes.
+        flow.addEdge(new Edge("job" + (i - 1) / 2, "job" + i));
+      }
+    }
+    flow.initialize();
+    this.flow = new ExecutableFlow(new Project(1, "benchmarkProject"), flow);
+    this.flow.setExecutionId(1);
+    this.flow.setSubmitUser("benchmark");
+  }
+
+  @Benchmark
+  public byte[] mapSerialization() throws IOException {
+    final String json = JSONUtils.toJSON(this.flow.toObject());
+    return GZIPUtils.gzipBytes(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public byte[] streamingSerialization() throws IOException {
+    return ExecutableFlowEncoder.encode(this.flow, EncodingType.GZIP);
+  }
+}
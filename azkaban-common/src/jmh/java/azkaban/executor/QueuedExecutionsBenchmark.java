@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.DispatchMethod;
+import azkaban.utils.Pair;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link QueuedExecutions} with the previous map and {@link PriorityBlockingQueue} pair
+ * on a mix of enqueues, cancels and dispatches of the queue head, with queueSize flows queued.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueuedExecutionsBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int queueSize;
+
+  private Pair<ExecutionReference, ExecutableFlow>[] flows;
+  private QueuedExecutions queuedExecutions;
+  private MapAndPriorityQueue mapAndPriorityQueue;
+  private Random random;
+
+  @Setup(Level.Iteration)
+  @SuppressWarnings("unchecked")
+  public void setUp() throws ExecutorManagerException {
+    this.random = new Random(42);
+    // Half of the flows are queued, the other half is enqueued and canceled by the benchmark.
+    this.flows = new Pair[this.queueSize * 2];
+    this.queuedExecutions = new QueuedExecutions(this.flows.length);
+    this.mapAndPriorityQueue = new MapAndPriorityQueue();
+    for (int execId = 0; execId < this.flows.length; execId++) {
+      final ExecutableFlow flow = new ExecutableFlow();
+      flow.setExecutionId(execId);
+      flow.setUpdateTime(this.random.nextInt(1000));
+      final ExecutionOptions options = new ExecutionOptions();
+      options.getFlowParameters()
+          .put(ExecutionOptions.FLOW_PRIORITY, String.valueOf(this.random.nextInt(10)));
+      flow.setExecutionOptions(options);
+      this.flows[execId] = new Pair<>(new ExecutionReference(execId, DispatchMethod.POLL), flow);
+      if (execId % 2 == 0) {
+        this.queuedExecutions.enqueue(flow, this.flows[execId].getFirst());
+        this.mapAndPriorityQueue.enqueue(this.flows[execId]);
+      }
+    }
+  }
+
+  @Benchmark
+  public Object queuedExecutions() throws Exception {
+    final Pair<ExecutionReference, ExecutableFlow> pair =
+        this.flows[this.random.nextInt(this.flows.length)];
+    final int execId = pair.getSecond().getExecutionId();
+    if (this.queuedExecutions.hasExecution(execId)) {
+      this.queuedExecutions.dequeue(execId);
+    } else {
+      this.queuedExecutions.enqueue(pair.getSecond(), pair.getFirst());
+    }
+    // The dispatch of the head, put back so that the queue size stays the same.
+    final Pair<ExecutionReference, ExecutableFlow> head = this.queuedExecutions.fetchHead();
+    this.queuedExecutions.enqueue(head.getSecond(), head.getFirst());
+    return head;
+  }
+
+  @Benchmark
+  public Object mapAndPriorityQueue() throws Exception {
+    final Pair<ExecutionReference, ExecutableFlow> pair =
+        this.flows[this.random.nextInt(this.flows.length)];
+    final int execId = pair.getSecond().getExecutionId();
+    if (this.mapAndPriorityQueue.map.containsKey(execId)) {
+      this.mapAndPriorityQueue.dequeue(execId);
+    } else {
+      this.mapAndPriorityQueue.enqueue(pair);
+    }
+    final Pair<ExecutionReference, ExecutableFlow> head = this.mapAndPriorityQueue.fetchHead();
+    this.mapAndPriorityQueue.enqueue(head);
+    return head;
+  }
+
+  /**
+   * The structure previously used by QueuedExecutions, which removes by a linear scan.
+   */
+  private static class MapAndPriorityQueue {
+
+    private final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> map =
+        new ConcurrentHashMap<>();
+    private final BlockingQueue<Pair<ExecutionReference, ExecutableFlow>> queue =
+        new PriorityBlockingQueue<>(10, new ExecutableFlowPriorityComparator());
+
+    void enqueue(final Pair<ExecutionReference, ExecutableFlow> pair) {
+      this.map.put(pair.getSecond().getExecutionId(), pair);
+      this.queue.add(pair);
+    }
+
+    void dequeue(final int execId) {
+      final Pair<ExecutionReference, ExecutableFlow> pair = this.map.remove(execId);
+      if (pair != null) {
+        this.queue.remove(pair);
+      }
+    }
+
+    Pair<ExecutionReference, ExecutableFlow> fetchHead() throws InterruptedException {
+      final Pair<ExecutionReference, ExecutableFlow> pair = this.queue.take();
+      this.map.remove(pair.getSecond().getExecutionId());
+      return pair;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package azkaban.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the lookups in a chain of depth Props holding numKeys keys in total with the lookups in
+ * its {@link PropsSnapshot}, and the copy of the chain for a job by {@link Props#clone(Props)}
+ * with a Props created from the snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PropsBenchmark {
+
+  @Param({"3", "10"})
+  private int depth;
+
+  @Param({"1000"})
+  private int numKeys;
+
+  private Props props;
+  private String[] keys;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.keys = new String[this.numKeys];
+    for (int i = 0; i < this.numKeys; i++) {
+      this.keys[i] = "azkaban.prop." + i;
+    }
+
+    // The keys are spread over the levels, with the first level holding most of them like the
+    // server properties do, and some keys overridden by the levels below.
+    Props parent = null;
+    for (int level = 0; level < this.depth; level++) {
+      final Props current = new Props(parent);
+      for (int i = 0; i < this.numKeys; i++) {
+        if (level == 0 ? i % this.depth != 1 : i % this.depth == level || i % 50 == level) {
+          current.put(this.keys[i], "value-" + level + "-" + i);
+        }
+      }
+      parent = current;
+    }
+    this.props = parent;
+  }
+
+  @Benchmark
+  public void getAllFromChain(final Blackhole blackhole) {
+    for (final String key : this.keys) {
+      blackhole.consume(this.props.get(key));
+    }
+  }
+
+  @Benchmark
+  public void getAllFromSnapshot(final Blackhole blackhole) {
+    final PropsSnapshot snapshot = this.props.snapshot();
+    for (final String key : this.keys) {
+      blackhole.consume(snapshot.get(key));
+    }
+  }
+
+  @Benchmark
+  public Object getKeySetFromChain() {
+    return this.props.getKeySet();
+  }
+
+  @Benchmark
+  public Object getKeySetFromSnapshot() {
+    return this.props.snapshot().keySet();
+  }
+
+  @Benchmark
+  public Props cloneChain() {
+    return Props.clone(this.props);
+  }
+
+  @Benchmark
+  public Props propsFromSnapshot() {
+    return new Props(null, this.props.snapshot());
+  }
+}
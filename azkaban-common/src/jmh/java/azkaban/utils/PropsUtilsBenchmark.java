@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package azkaban.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolves the properties of a job, in a hierarchy like the one built for a job by the flow
+ * runner: the server properties, the shared properties of the project and the job properties,
+ * with numKeys keys in total. A third of the values refer to other properties, some through
+ * chains of variables, and a few are expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PropsUtilsBenchmark {
+
+  @Param({"1000", "5000"})
+  private int numKeys;
+
+  private Props jobProps;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Random random = new Random(42);
+    final Props serverProps = new Props();
+    final Props sharedProps = new Props(serverProps);
+    this.jobProps = new Props(sharedProps);
+
+    // 60% of the keys are server properties, 30% shared and 10% job properties.
+    final int numServerKeys = this.numKeys * 6 / 10;
+    final int numSharedKeys = this.numKeys * 3 / 10;
+    for (int i = 0; i < this.numKeys; i++) {
+      final String key = "azkaban.prop." + i;
+      final String value;
+      if (i == 0 || random.nextInt(3) != 0) {
+        value = "/export/apps/value/" + i;
+      } else if (random.nextInt(20) == 0) {
+        value = "$(\"${azkaban.prop." + random.nextInt(i) + "}\" + \"-" + i + "\")";
+      } else {
+        // Refers to the previous key half of the time, which builds chains of variables.
+        final int ref = random.nextBoolean() ? i - 1 : random.nextInt(i);
+        value = "${azkaban.prop." + ref + "}/sub/${azkaban.prop." + random.nextInt(i) + "}";
+      }
+
+      if (i < numServerKeys) {
+        serverProps.put(key, value);
+      } else if (i < numServerKeys + numSharedKeys) {
+        sharedProps.put(key, value);
+      } else {
+        this.jobProps.put(key, value);
+      }
+    }
+  }
+
+  @Benchmark
+  public Props resolveProps() {
+    return PropsUtils.resolveProps(this.jobProps);
+  }
+}
@@ -49,8 +49,10 @@ import azkaban.project.JdbcProjectImpl;
 import azkaban.project.ProjectCache;
 import azkaban.project.ProjectLoader;
 import azkaban.spi.AzkabanEventReporter;
+import azkaban.spi.LogStorage;
 import azkaban.spi.Storage;
 import azkaban.spi.StorageException;
+import azkaban.storage.LogStorageImplementationType;
 import azkaban.storage.StorageImplementationType;
 import azkaban.trigger.JdbcTriggerImpl;
 import azkaban.trigger.TriggerLoader;
@@ -60,6 +62,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.name.Names;
+import com.google.inject.util.Providers;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import javax.inject.Inject;
@@ -80,6 +83,7 @@ public class AzkabanCommonModule extends AbstractModule {
 
   private final Props props;
   private final AzkabanCommonModuleConfig config;
+  private boolean hadoopModuleInstalled = false;
 
   public AzkabanCommonModule(final Props props) {
     this.props = props;
@@ -90,6 +94,7 @@ public class AzkabanCommonModule extends AbstractModule {
   protected void configure() {
     install(new AzkabanCoreModule(this.props));
     bind(Storage.class).to(resolveStorageClassType());
+    bindLogStorage();
     bind(AzkabanDataSource.class).to(resolveDataSourceType());
     bind(TriggerLoader.class).to(JdbcTriggerImpl.class);
     bind(ProjectLoader.class).to(JdbcProjectImpl.class);
@@ -111,7 +116,7 @@ public class AzkabanCommonModule extends AbstractModule {
     final StorageImplementationType type = StorageImplementationType
         .from(this.config.getStorageImplementation());
     if (type == StorageImplementationType.HDFS || type == StorageImplementationType.LOCAL_HADOOP) {
-      install(new HadoopModule());
+      installHadoopModule();
     }
     if (type != null) {
       return type.getImplementationClass();
@@ -120,6 +125,33 @@ public class AzkabanCommonModule extends AbstractModule {
     }
   }
 
+  /**
+   * Binds the {@link LogStorage} to null when the logs are only kept in the database.
+   */
+  private void bindLogStorage() {
+    final String logStorageImplementation = this.config.getLogStorageImplementation();
+    if (logStorageImplementation == null) {
+      bind(LogStorage.class).toProvider(Providers.of(null));
+      return;
+    }
+    final LogStorageImplementationType type =
+        LogStorageImplementationType.from(logStorageImplementation);
+    if (type == null) {
+      throw new StorageException("Unknown log storage type: " + logStorageImplementation);
+    }
+    if (type == LogStorageImplementationType.HDFS) {
+      installHadoopModule();
+    }
+    bind(LogStorage.class).to(type.getImplementationClass());
+  }
+
+  private void installHadoopModule() {
+    if (!this.hadoopModuleInstalled) {
+      install(new HadoopModule());
+      this.hadoopModuleInstalled = true;
+    }
+  }
+
   private Class<? extends Storage> loadCustomStorageClass(final String storageImplementation) {
     try {
       return (Class<? extends Storage>) Class.forName(storageImplementation);
@@ -20,6 +20,7 @@ package azkaban;
 import static azkaban.Constants.ConfigurationKeys.*;
 import static azkaban.storage.StorageImplementationType.DATABASE;
 
+import azkaban.storage.LogStorageImplementationType;
 import azkaban.storage.StorageImplementationType;
 import azkaban.utils.Props;
 import javax.inject.Inject;
@@ -45,6 +46,13 @@ public class AzkabanCommonModuleConfig {
    */
   private String storageImplementation = DATABASE.name();
   private String localStorageBaseDirPath = "./local/storage";
+  /**
+   * Log storage implementation, any of the {@link LogStorageImplementationType} values. Logs are
+   * only kept in the database when not set.
+   */
+  private final String logStorageImplementation;
+  private String localLogStorageBaseDirPath = "./local/logs";
+  private final URI hdfsLogRootUri;
 
   @Inject
   public AzkabanCommonModuleConfig(final Props props) {
@@ -56,6 +64,10 @@ public class AzkabanCommonModuleConfig {
     this.cacheDependencyRootUri = props.getUri(AZKABAN_STORAGE_CACHE_DEPENDENCY_ROOT_URI, null, true);
     this.originDependencyRootUri = props.getUri(AZKABAN_STORAGE_ORIGIN_DEPENDENCY_ROOT_URI, null, true);
     this.dependencyCachingEnabled = props.getBoolean(AZKABAN_STORAGE_CACHE_DEPENDENCY_ENABLED, true);
+    this.logStorageImplementation = props.getString(EXECUTION_LOGS_STORAGE_TYPE, null);
+    this.localLogStorageBaseDirPath = props.getString(EXECUTION_LOGS_STORAGE_LOCAL_BASEDIR,
+        this.localLogStorageBaseDirPath);
+    this.hdfsLogRootUri = props.getUri(EXECUTION_LOGS_STORAGE_HDFS_ROOT_URI, null, true);
   }
 
   public Props getProps() {
@@ -82,6 +94,18 @@ public class AzkabanCommonModuleConfig {
     return this.originDependencyRootUri;
   }
 
+  public String getLogStorageImplementation() {
+    return this.logStorageImplementation;
+  }
+
+  public String getLocalLogStorageBaseDirPath() {
+    return this.localLogStorageBaseDirPath;
+  }
+
+  public URI getHdfsLogRootUri() {
+    return this.hdfsLogRootUri;
+  }
+
   public boolean getDependencyCachingEnabled() {
     return this.dependencyCachingEnabled; }
 }
@@ -49,11 +49,16 @@ import java.util.stream.Collectors;
  *
  * The template must have only one non-init container. Azkaban k8s design is such that
  * flow-container will be the only non-init container.
+ *
+ * The template file is parsed once and parsed again only when it is modified or another file is
+ * used.
  */
 public class AzKubernetesV1PodTemplate {
 
   public static final int FLOW_CONTAINER_INDEX = 0;
-  private V1Pod podFromTemplate;
+  private final V1Pod podFromTemplate;
+  private final String templatePath;
+  private final long lastModified;
   private static AzKubernetesV1PodTemplate instance;
 
   /**
@@ -62,20 +67,24 @@ public class AzKubernetesV1PodTemplate {
    * @param templatePath th where the template file is located.
    * @throws IOException If unable to read the template file.
    */
-  private AzKubernetesV1PodTemplate(String templatePath) throws IOException {
+  private AzKubernetesV1PodTemplate(String templatePath, long lastModified) throws IOException {
     File templateFile = Paths.get(templatePath).toFile();
     this.podFromTemplate = (V1Pod) Yaml.load(templateFile);
+    this.templatePath = templatePath;
+    this.lastModified = lastModified;
   }
 
   /**
    * @param templatePath Path where the template file is located.
-   * @return Singleton instance of this class.
+   * @return Singleton instance of this class, replaced when the template file is modified.
    * @throws IOException If unable to read the template file.
    */
   public static synchronized AzKubernetesV1PodTemplate getInstance(String templatePath)
       throws IOException {
-    if (null == instance) {
-      instance = new AzKubernetesV1PodTemplate(templatePath);
+    long lastModified = Paths.get(templatePath).toFile().lastModified();
+    if (null == instance || !instance.templatePath.equals(templatePath)
+        || instance.lastModified != lastModified) {
+      instance = new AzKubernetesV1PodTemplate(templatePath, lastModified);
     }
     return instance;
   }
@@ -23,6 +23,7 @@ import azkaban.sla.SlaOption;
 import azkaban.utils.Props;
 import azkaban.utils.TypedMapWrapper;
 import com.sun.istack.NotNull;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.codehaus.jackson.JsonGenerator;
 
 
 public class ExecutableFlow extends ExecutableFlowBase {
@@ -326,6 +328,59 @@ public class ExecutableFlow extends ExecutableFlowBase {
     return flowObj;
   }
 
+  /**
+   * Streaming counterpart of {@link #toObject()}. Both must write the same fields.
+   */
+  @Override
+  protected void writeJsonFields(final JsonGenerator generator) throws IOException {
+    super.writeJsonFields(generator);
+
+    generator.writeNumberField(EXECUTIONID_PARAM, this.executionId);
+    generator.writeStringField(EXECUTIONPATH_PARAM, this.executionPath);
+    generator.writeNumberField(PROJECTID_PARAM, this.projectId);
+    generator.writeStringField(PROJECTNAME_PARAM, this.projectName);
+
+    if (this.scheduleId >= 0) {
+      generator.writeNumberField(SCHEDULEID_PARAM, this.scheduleId);
+    }
+
+    generator.writeStringField(SUBMITUSER_PARAM, this.submitUser);
+    generator.writeStringField(EXECUTION_SOURCE, this.executionSource);
+    generator.writeNumberField(VERSION_PARAM, this.version);
+    generator.writeNumberField(LASTMODIFIEDTIME_PARAM, this.lastModifiedTimestamp);
+    generator.writeStringField(LASTMODIFIEDUSER_PARAM, this.lastModifiedUser);
+    generator.writeNumberField(AZKABANFLOWVERSION_PARAM, this.azkabanFlowVersion);
+
+    generator.writeObjectField(EXECUTIONOPTIONS_PARAM, this.executionOptions.toObject());
+
+    generator.writeArrayFieldStart(PROXYUSERS_PARAM);
+    for (final String proxyUser : this.proxyUsers) {
+      generator.writeString(proxyUser);
+    }
+    generator.writeEndArray();
+
+    generator.writeNumberField(SUBMITTIME_PARAM, this.submitTime);
+
+    generator.writeArrayFieldStart(SLAOPTIONS_PARAM);
+    final List<SlaOption> slaOptionList = this.executionOptions.getSlaOptions();
+    if (slaOptionList != null) {
+      for (final SlaOption slaOption : slaOptionList) {
+        generator.writeObject(slaOption.toObject());
+      }
+    }
+    generator.writeEndArray();
+
+    generator.writeBooleanField(IS_LOCKED_PARAM, this.isLocked);
+    generator.writeStringField(FLOW_LOCK_ERROR_MESSAGE_PARAM, this.flowLockErrorMessage);
+    generator.writeNumberField(FLOW_DISPATCH_METHOD, getDispatchMethod().getNumVal());
+
+    if (this.versionSet != null) {
+      generator.writeStringField(VERSIONSET_JSON_PARAM, this.versionSet.getVersionSetJsonString());
+      generator.writeStringField(VERSIONSET_MD5HEX_PARAM, this.versionSet.getVersionSetMd5Hex());
+      generator.writeNumberField(VERSIONSET_ID_PARAM, this.versionSet.getVersionSetId());
+    }
+  }
+
   @Override
   public void fillExecutableFromMapObject(
       final TypedMapWrapper<String, Object> flowObj) {
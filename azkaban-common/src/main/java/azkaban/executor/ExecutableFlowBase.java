@@ -22,11 +22,13 @@ import azkaban.flow.Node;
 import azkaban.flow.SpecialJobTypes;
 import azkaban.project.Project;
 import azkaban.utils.TypedMapWrapper;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.codehaus.jackson.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -259,6 +261,31 @@ public class ExecutableFlowBase extends ExecutableNode {
     flowObjMap.put(PROPERTIES_PARAM, props);
   }
 
+  @Override
+  protected void writeJsonFields(final JsonGenerator generator) throws IOException {
+    super.writeJsonFields(generator);
+
+    generator.writeStringField(FLOW_ID_PARAM, this.flowId);
+
+    generator.writeArrayFieldStart(NODES_PARAM);
+    for (final ExecutableNode node : this.executableNodes.values()) {
+      node.writeJson(generator);
+    }
+    generator.writeEndArray();
+
+    // Flow properties
+    generator.writeArrayFieldStart(PROPERTIES_PARAM);
+    for (final FlowProps fprop : this.flowProps.values()) {
+      generator.writeStartObject();
+      generator.writeStringField(SOURCE_PARAM, fprop.getSource());
+      if (fprop.getInheritedSource() != null) {
+        generator.writeStringField(INHERITED_PARAM, fprop.getInheritedSource());
+      }
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+  }
+
   @Override
   public void fillExecutableFromMapObject(
       final TypedMapWrapper<String, Object> flowObjMap) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.db.EncodingType;
+import azkaban.utils.JSONUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.codehaus.jackson.JsonGenerator;
+
+/**
+ * Encodes an {@link ExecutableFlow} into the flow_data column format.
+ *
+ * <p>The json is streamed straight into the (optionally gzipped) output instead of first building
+ * the {@link ExecutableFlow#toObject()} map, the json string and its byte copy. The output buffer
+ * is reused per thread, since flow updates happen on a small number of long lived threads.
+ */
+public final class ExecutableFlowEncoder {
+
+  // Buffers grown beyond this size by a very large flow are not kept around.
+  private static final int MAX_CACHED_BUFFER_SIZE = 4 * 1024 * 1024;
+  private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+  private static final ThreadLocal<ReusableByteArrayOutputStream> BUFFER =
+      ThreadLocal.withInitial(() -> new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE));
+
+  private ExecutableFlowEncoder() {
+  }
+
+  /**
+   * Returns the json of {@code flow}, gzipped if {@code encType} is {@link EncodingType#GZIP}.
+   * The result is equivalent to {@code JSONUtils.toJSON(flow.toObject())} encoded with the
+   * same encoding type.
+   */
+  public static byte[] encode(final ExecutableFlow flow, final EncodingType encType)
+      throws IOException {
+    final ReusableByteArrayOutputStream buffer = BUFFER.get();
+    buffer.reset();
+    try {
+      final OutputStream out =
+          encType == EncodingType.GZIP ? new GZIPOutputStream(buffer) : buffer;
+      // Closing the generator closes the gzip stream, which writes the gzip trailer.
+      try (final JsonGenerator generator = JSONUtils.createJsonGenerator(out)) {
+        flow.writeJson(generator);
+      }
+      return buffer.toByteArray();
+    } finally {
+      if (buffer.capacity() > MAX_CACHED_BUFFER_SIZE) {
+        BUFFER.remove();
+      }
+    }
+  }
+
+  /**
+   * Byte array output stream that exposes its capacity; closing it is a no-op as for the parent.
+   */
+  private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    ReusableByteArrayOutputStream(final int size) {
+      super(size);
+    }
+
+    int capacity() {
+      return this.buf.length;
+    }
+  }
+}
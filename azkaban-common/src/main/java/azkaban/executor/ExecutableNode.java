@@ -21,6 +21,7 @@ import azkaban.flow.Node;
 import azkaban.utils.Props;
 import azkaban.utils.PropsUtils;
 import azkaban.utils.TypedMapWrapper;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,6 +32,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import org.codehaus.jackson.JsonGenerator;
 
 /**
  * Base Executable that nodes and flows are based.
@@ -356,6 +358,72 @@ public class ExecutableNode {
     }
   }
 
+  /**
+   * Writes the same json object as {@link #toObject()}, without building the intermediate map.
+   */
+  public void writeJson(final JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    writeJsonFields(generator);
+    generator.writeEndObject();
+  }
+
+  /**
+   * Streaming counterpart of {@link #fillMapFromExecutable(Map)}. Both must write the same fields.
+   */
+  protected void writeJsonFields(final JsonGenerator generator) throws IOException {
+    generator.writeStringField(ID_PARAM, this.id);
+    generator.writeStringField(STATUS_PARAM, this.status.toString());
+    generator.writeNumberField(START_TIME_PARAM, this.startTime);
+    generator.writeNumberField(END_TIME_PARAM, this.endTime);
+    generator.writeNumberField(UPDATE_TIME_PARAM, this.updateTime);
+    generator.writeStringField(TYPE_PARAM, this.type);
+    generator.writeStringField(CONDITION_PARAM, this.condition);
+    if (this.clusterInfo != null) {
+      generator.writeObjectField(CLUSTER_PARAM, ClusterInfo.toObject(this.clusterInfo));
+    }
+    if (this.conditionOnJobStatus != null) {
+      generator.writeStringField(CONDITION_ON_JOB_STATUS_PARAM,
+          this.conditionOnJobStatus.toString());
+    }
+    generator.writeNumberField(ATTEMPT_PARAM, this.attempt.get());
+
+    if (this.inNodes != null && !this.inNodes.isEmpty()) {
+      writeStringArrayField(generator, IN_NODES_PARAM, this.inNodes);
+    }
+    if (this.outNodes != null && !this.outNodes.isEmpty()) {
+      writeStringArrayField(generator, OUT_NODES_PARAM, this.outNodes);
+    }
+
+    if (hasPropsSource()) {
+      generator.writeStringField(PROPS_SOURCE_PARAM, this.propsSource);
+    }
+    if (hasJobSource()) {
+      generator.writeStringField(JOB_SOURCE_PARAM, this.jobSource);
+    }
+
+    if (this.outputProps != null && this.outputProps.size() > 0) {
+      generator.writeObjectField(OUTPUT_PROPS_PARAM,
+          PropsUtils.toStringMap(this.outputProps, true));
+    }
+
+    if (this.pastAttempts != null) {
+      generator.writeArrayFieldStart(PAST_ATTEMPTS_PARAM);
+      for (final ExecutionAttempt attempts : this.pastAttempts) {
+        generator.writeObject(attempts.toObject());
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  private static void writeStringArrayField(final JsonGenerator generator, final String fieldName,
+      final Collection<String> values) throws IOException {
+    generator.writeArrayFieldStart(fieldName);
+    for (final String value : values) {
+      generator.writeString(value);
+    }
+    generator.writeEndArray();
+  }
+
   public void fillExecutableFromMapObject(final TypedMapWrapper<String, Object> wrappedMap) {
     this.id = wrappedMap.getString(ID_PARAM);
     this.type = wrappedMap.getString(TYPE_PARAM);
@@ -20,6 +20,8 @@ import azkaban.DispatchMethod;
 import azkaban.db.DatabaseOperator;
 import azkaban.db.EncodingType;
 import azkaban.db.SQLTransaction;
+import azkaban.imagemgmt.version.JdbcVersionSetLoader.VersionSetHandler;
+import azkaban.imagemgmt.version.VersionSet;
 import azkaban.utils.GZIPUtils;
 import azkaban.utils.JSONUtils;
 import azkaban.utils.Pair;
@@ -32,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -48,14 +51,27 @@ public class ExecutionFlowDao {
   private static final Logger logger = Logger.getLogger(ExecutionFlowDao.class);
   private final DatabaseOperator dbOperator;
   private final MysqlNamedLock mysqlNamedLock;
+  private final ExecutionFlowUpdatesDao flowUpdatesDao;
 
   private static final String POLLING_LOCK_NAME = "execution_flows_polling";
   private static final int GET_LOCK_TIMEOUT_IN_SECONDS = 5;
+  private static final String UPDATE_EXECUTABLE_FLOW_DATA =
+      "UPDATE execution_flows "
+          + "SET status=?,update_time=?,start_time=?,end_time=?,enc_type=?,flow_data=? "
+          + "WHERE exec_id=?";
+  private static final String DELETE_EXECUTABLE_FLOW_UPDATES =
+      "DELETE FROM execution_flow_updates WHERE exec_id=? AND update_time<=?";
 
-  @Inject
   public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock) {
+    this(dbOperator, mysqlNamedLock, new ExecutionFlowUpdatesDao(dbOperator));
+  }
+
+  @Inject
+  public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock,
+      final ExecutionFlowUpdatesDao flowUpdatesDao) {
     this.dbOperator = dbOperator;
     this.mysqlNamedLock = mysqlNamedLock;
+    this.flowUpdatesDao = flowUpdatesDao;
   }
 
   public void uploadExecutableFlow(final ExecutableFlow flow)
@@ -106,7 +122,7 @@ public class ExecutionFlowDao {
   List<ExecutableFlow> fetchFlowHistory(final int skip, final int num)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchExecutableFlows.FETCH_ALL_EXECUTABLE_FLOW_HISTORY,
+      return queryFlows(FetchExecutableFlows.FETCH_ALL_EXECUTABLE_FLOW_HISTORY,
           new FetchExecutableFlows(), skip, num);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching flow History", e);
@@ -117,7 +133,7 @@ public class ExecutionFlowDao {
       final int skip, final int num)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_HISTORY,
+      return queryFlows(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_HISTORY,
           new FetchExecutableFlows(), projectId, flowId, skip, num);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching flow history", e);
@@ -127,7 +143,7 @@ public class ExecutionFlowDao {
   public List<ExecutableFlow> fetchAgedQueuedFlows(final Duration minAge)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchExecutableFlows.FETCH_FLOWS_QUEUED_FOR_LONG_TIME,
+      return queryFlows(FetchExecutableFlows.FETCH_FLOWS_QUEUED_FOR_LONG_TIME,
           new FetchExecutableFlows(), System.currentTimeMillis() - minAge.toMillis());
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching aged queued flows", e);
@@ -137,8 +153,11 @@ public class ExecutionFlowDao {
   public List<Pair<ExecutionReference, ExecutableFlow>> fetchQueuedFlows(final Status status)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchQueuedExecutableFlows.FETCH_QUEUED_EXECUTABLE_FLOW,
+      final List<Pair<ExecutionReference, ExecutableFlow>> flows = this.dbOperator.query(
+          FetchQueuedExecutableFlows.FETCH_QUEUED_EXECUTABLE_FLOW,
           new FetchQueuedExecutableFlows(), status.getNumVal());
+      this.flowUpdatesDao.applyUpdatesToPairs(flows);
+      return flows;
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flows", e);
     }
@@ -158,7 +177,7 @@ public class ExecutionFlowDao {
     query.append(")");
 
     try {
-      return this.dbOperator.query(query.toString(), new FetchExecutableFlows(), beforeInMillis);
+      return queryFlows(query.toString(), new FetchExecutableFlows(), beforeInMillis);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching stale flows", e);
     }
@@ -178,7 +197,7 @@ public class ExecutionFlowDao {
   public List<ExecutableFlow> fetchFlowHistory(final int projectId, final String flowId, final
   long startTime) throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_BY_START_TIME,
+      return queryFlows(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_BY_START_TIME,
           new FetchExecutableFlows(), projectId, flowId, startTime);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching historic flows", e);
@@ -189,7 +208,7 @@ public class ExecutionFlowDao {
       final int skip, final int num, final Status status)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_BY_STATUS,
+      return queryFlows(FetchExecutableFlows.FETCH_EXECUTABLE_FLOW_BY_STATUS,
           new FetchExecutableFlows(), projectId, flowId, status.getNumVal(), skip, num);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flows", e);
@@ -199,7 +218,7 @@ public class ExecutionFlowDao {
   List<ExecutableFlow> fetchRecentlyFinishedFlows(final Duration maxAge)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchRecentlyFinishedFlows.FETCH_RECENTLY_FINISHED_FLOW,
+      return queryFlows(FetchRecentlyFinishedFlows.FETCH_RECENTLY_FINISHED_FLOW,
           new FetchRecentlyFinishedFlows(), System.currentTimeMillis() - maxAge.toMillis(),
           Status.SUCCEEDED.getNumVal(), Status.KILLED.getNumVal(),
           Status.FAILED.getNumVal());
@@ -285,33 +304,119 @@ public class ExecutionFlowDao {
     }
 
     try {
-      return this.dbOperator.query(query, new FetchExecutableFlows(), params.toArray());
+      return queryFlows(query, new FetchExecutableFlows(), params.toArray());
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flows", e);
     }
   }
 
+  /**
+   * Reads the flows of the query and applies their incremental updates.
+   */
+  private List<ExecutableFlow> queryFlows(final String query,
+      final ResultSetHandler<List<ExecutableFlow>> handler, final Object... params)
+      throws SQLException, ExecutorManagerException {
+    final List<ExecutableFlow> flows = this.dbOperator.query(query, handler, params);
+    this.flowUpdatesDao.applyUpdates(flows);
+    return flows;
+  }
+
+  /**
+   * Stores the whole flow. The incremental updates it supersedes are dropped, so that they aren't
+   * applied on top of a flow finalized by the web server.
+   */
   void updateExecutableFlow(final ExecutableFlow flow) throws ExecutorManagerException {
+    if (this.flowUpdatesDao.isEnabled()) {
+      compactExecutableFlow(flow);
+      return;
+    }
     updateExecutableFlow(flow, EncodingType.GZIP);
   }
 
   private void updateExecutableFlow(final ExecutableFlow flow, final EncodingType encType)
       throws ExecutorManagerException {
-    final String UPDATE_EXECUTABLE_FLOW_DATA =
-        "UPDATE execution_flows "
-            + "SET status=?,update_time=?,start_time=?,end_time=?,enc_type=?,flow_data=? "
+    final byte[] data = encodeExecutableFlow(flow, encType);
+
+    try {
+      this.dbOperator.update(UPDATE_EXECUTABLE_FLOW_DATA, flow.getStatus()
+          .getNumVal(), flow.getUpdateTime(), flow.getStartTime(), flow
+          .getEndTime(), encType.getNumVal(), data, flow.getExecutionId());
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error updating flow.", e);
+    }
+  }
+
+  /**
+   * Rewrites flow_data with the full flow and drops the incremental updates it supersedes.
+   *
+   * @see #appendExecutableFlowUpdate(ExecutableFlow, long)
+   */
+  void compactExecutableFlow(final ExecutableFlow flow) throws ExecutorManagerException {
+    final EncodingType encType = EncodingType.GZIP;
+    final byte[] data = encodeExecutableFlow(flow, encType);
+
+    final SQLTransaction<Integer> updateAndCompact = transOperator -> {
+      transOperator.update(UPDATE_EXECUTABLE_FLOW_DATA, flow.getStatus().getNumVal(),
+          flow.getUpdateTime(), flow.getStartTime(), flow.getEndTime(), encType.getNumVal(), data,
+          flow.getExecutionId());
+      return transOperator.update(DELETE_EXECUTABLE_FLOW_UPDATES, flow.getExecutionId(),
+          flow.getUpdateTime());
+    };
+
+    try {
+      this.dbOperator.transaction(updateAndCompact);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error compacting flow.", e);
+    }
+  }
+
+  /**
+   * Persists only the nodes of the flow that changed after {@code lastUpdateTime}, instead of
+   * rewriting the whole flow_data. The flow level status and times are updated as well, so that
+   * queries on execution_flows columns stay accurate.
+   *
+   * <p>The appended updates are applied on top of flow_data by the fetch methods, through
+   * {@link ExecutionFlowUpdatesDao}, and removed by {@link #compactExecutableFlow(ExecutableFlow)}.
+   * Values not carried by {@link ExecutableFlow#toUpdateObject(long)}, such as output props, only
+   * reach flow_data on compaction.
+   */
+  void appendExecutableFlowUpdate(final ExecutableFlow flow, final long lastUpdateTime)
+      throws ExecutorManagerException {
+    final String INSERT_EXECUTABLE_FLOW_UPDATE = "INSERT INTO execution_flow_updates "
+        + "(exec_id, update_time, enc_type, update_data) VALUES (?,?,?,?)";
+    final String UPDATE_EXECUTABLE_FLOW_STATUS =
+        "UPDATE execution_flows SET status=?,update_time=?,start_time=?,end_time=? "
             + "WHERE exec_id=?";
 
+    final EncodingType encType = EncodingType.GZIP;
+    final byte[] data;
+    try {
+      data = GZIPUtils.gzipString(JSONUtils.toJSON(flow.toUpdateObject(lastUpdateTime)), "UTF-8");
+    } catch (final IOException | RuntimeException e) {
+      throw new ExecutorManagerException("Error encoding the update of execution flow. "
+          + "Execution Id  = " + flow.getExecutionId(), e);
+    }
+
+    final SQLTransaction<Integer> appendUpdate = transOperator -> {
+      transOperator.update(INSERT_EXECUTABLE_FLOW_UPDATE, flow.getExecutionId(),
+          flow.getUpdateTime(), encType.getNumVal(), data);
+      return transOperator.update(UPDATE_EXECUTABLE_FLOW_STATUS, flow.getStatus().getNumVal(),
+          flow.getUpdateTime(), flow.getStartTime(), flow.getEndTime(), flow.getExecutionId());
+    };
+
+    try {
+      this.dbOperator.transaction(appendUpdate);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error appending flow update.", e);
+    }
+  }
+
+  private byte[] encodeExecutableFlow(final ExecutableFlow flow, final EncodingType encType)
+      throws ExecutorManagerException {
     byte[] data = null;
     try {
       // If this action fails, the execution must be failed.
-      final String json = JSONUtils.toJSON(flow.toObject());
-      final byte[] stringData = json.getBytes("UTF-8");
-      data = stringData;
-      // Todo kunkun-tang: use a common method to transform stringData to data.
-      if (encType == EncodingType.GZIP) {
-        data = GZIPUtils.gzipBytes(stringData);
-      }
+      data = ExecutableFlowEncoder.encode(flow, encType);
     } catch (final IOException e) {
       flow.setStatus(Status.FAILED);
       updateExecutableFlowStatusInDB(flow);
@@ -328,14 +433,7 @@ public class ExecutionFlowDao {
       throw new ExecutorManagerException("Error encoding the execution flow due to "
           + "RuntimeException. Execution Id  = " + flow.getExecutionId(), re);
     }
-
-    try {
-      this.dbOperator.update(UPDATE_EXECUTABLE_FLOW_DATA, flow.getStatus()
-          .getNumVal(), flow.getUpdateTime(), flow.getStartTime(), flow
-          .getEndTime(), encType.getNumVal(), data, flow.getExecutionId());
-    } catch (final SQLException e) {
-      throw new ExecutorManagerException("Error updating flow.", e);
-    }
+    return data;
   }
 
   private void updateExecutableFlowStatusInDB(final ExecutableFlow flow)
@@ -359,7 +457,9 @@ public class ExecutionFlowDao {
       if (properties.isEmpty()) {
         return null;
       } else {
-        return properties.get(0);
+        final ExecutableFlow flow = properties.get(0);
+        this.flowUpdatesDao.applyUpdates(flow);
+        return flow;
       }
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching flow id " + execId, e);
@@ -546,6 +646,41 @@ public class ExecutionFlowDao {
     }
   }
 
+  /**
+   * Updates the version set id and the status of the given executionId, without rewriting its
+   * flow_data. Used once the container of the execution is requested, the version set is then
+   * read back with {@link #fetchVersionSet(int)}.
+   */
+  public int updateVersionSetIdAndStatus(final int executionId, final int versionSetId,
+      final Status status) throws ExecutorManagerException {
+    final String UPDATE_VERSION_SET_ID_AND_STATUS = "UPDATE execution_flows SET "
+        + "version_set_id = ?, status = ?, update_time = ? where exec_id = ?";
+    try {
+      return this.dbOperator.update(UPDATE_VERSION_SET_ID_AND_STATUS, versionSetId,
+          status.getNumVal(), System.currentTimeMillis(), executionId);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException(String.format("Error while updating version set id and "
+          + "status for execId: %d", executionId), e);
+    }
+  }
+
+  /**
+   * Fetches the version set referenced by the version_set_id of the given executionId.
+   */
+  public Optional<VersionSet> fetchVersionSet(final int executionId)
+      throws ExecutorManagerException {
+    final String FETCH_VERSION_SET = "SELECT vs.id, vs.md5, vs.json FROM execution_flows ef "
+        + "JOIN version_set vs ON vs.id = ef.version_set_id WHERE ef.exec_id = ?";
+    try {
+      final List<VersionSet> versionSets = this.dbOperator.query(FETCH_VERSION_SET,
+          new VersionSetHandler(), executionId);
+      return versionSets.isEmpty() ? Optional.empty() : Optional.of(versionSets.get(0));
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException(String.format("Error while fetching version set for "
+          + "execId: %d", executionId), e);
+    }
+  }
+
   public static class SelectFromExecutionFlows implements
       ResultSetHandler<List<Integer>> {
 
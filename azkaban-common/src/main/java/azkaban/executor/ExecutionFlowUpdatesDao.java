@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.db.EncodingType;
+import azkaban.utils.GZIPUtils;
+import azkaban.utils.Pair;
+import azkaban.utils.Props;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.commons.dbutils.ResultSetHandler;
+
+/**
+ * Reads the incremental updates of running flows, appended to execution_flow_updates by the
+ * executors when {@link ConfigurationKeys#FLOW_INCREMENTAL_UPDATE_ENABLED} is set, and applies
+ * them on top of the flows read from execution_flows.flow_data. Nothing is read when incremental
+ * updates are disabled.
+ */
+@Singleton
+public class ExecutionFlowUpdatesDao {
+
+  // Number of flows whose updates are fetched with one query.
+  private static final int MAX_FLOWS_PER_QUERY = 500;
+
+  private final DatabaseOperator dbOperator;
+  private final boolean enabled;
+
+  ExecutionFlowUpdatesDao(final DatabaseOperator dbOperator) {
+    this(dbOperator, new Props());
+  }
+
+  @Inject
+  public ExecutionFlowUpdatesDao(final DatabaseOperator dbOperator, final Props props) {
+    this.dbOperator = dbOperator;
+    this.enabled = props.getBoolean(ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_ENABLED, false);
+  }
+
+  boolean isEnabled() {
+    return this.enabled;
+  }
+
+  void applyUpdates(final ExecutableFlow flow) throws ExecutorManagerException {
+    applyUpdates(Collections.singletonList(flow));
+  }
+
+  /**
+   * Applies the updates appended after the flow_data of each flow was written, in order.
+   */
+  void applyUpdates(final Collection<ExecutableFlow> flows) throws ExecutorManagerException {
+    if (!this.enabled || flows.isEmpty()) {
+      return;
+    }
+    final List<ExecutableFlow> flowList = new ArrayList<>(flows);
+    for (int i = 0; i < flowList.size(); i += MAX_FLOWS_PER_QUERY) {
+      final List<ExecutableFlow> chunk =
+          flowList.subList(i, Math.min(i + MAX_FLOWS_PER_QUERY, flowList.size()));
+      final Map<Integer, List<Pair<Long, Object>>> updates = fetchUpdates(chunk);
+      for (final ExecutableFlow flow : chunk) {
+        applyUpdates(flow, updates.getOrDefault(flow.getExecutionId(), Collections.emptyList()));
+      }
+    }
+  }
+
+  /**
+   * Applies the updates of {@link #applyUpdates(Collection)} to the flows of the pairs.
+   */
+  <K> void applyUpdatesToPairs(final Collection<Pair<K, ExecutableFlow>> pairs)
+      throws ExecutorManagerException {
+    if (this.enabled) {
+      applyUpdates(pairs.stream().map(Pair::getSecond).collect(Collectors.toList()));
+    }
+  }
+
+  private Map<Integer, List<Pair<Long, Object>>> fetchUpdates(final List<ExecutableFlow> flows)
+      throws ExecutorManagerException {
+    final String query = FetchExecutableFlowUpdates.FETCH_EXECUTABLE_FLOW_UPDATES
+        + flows.stream().map(flow -> "?").collect(Collectors.joining(",", "(", ")"))
+        + " ORDER BY exec_id, update_time";
+    try {
+      return this.dbOperator.query(query, new FetchExecutableFlowUpdates(),
+          flows.stream().map(ExecutableFlow::getExecutionId).toArray());
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching flow updates", e);
+    }
+  }
+
+  private static void applyUpdates(final ExecutableFlow flow,
+      final List<Pair<Long, Object>> updates) {
+    // The status column is authoritative, it may have been changed without a flow update.
+    final Status status = flow.getStatus();
+    final long flowUpdateTime = flow.getUpdateTime();
+    for (final Pair<Long, Object> update : updates) {
+      if (update.getFirst() > flowUpdateTime) {
+        flow.applyUpdateObject((Map<String, Object>) update.getSecond());
+      }
+    }
+    flow.setStatus(status);
+  }
+
+  /**
+   * JDBC ResultSetHandler to fetch the incremental updates of flows by execution id, oldest first
+   */
+  private static class FetchExecutableFlowUpdates implements
+      ResultSetHandler<Map<Integer, List<Pair<Long, Object>>>> {
+
+    private static final String FETCH_EXECUTABLE_FLOW_UPDATES =
+        "SELECT exec_id, update_time, enc_type, update_data FROM execution_flow_updates "
+            + "WHERE exec_id IN ";
+
+    @Override
+    public Map<Integer, List<Pair<Long, Object>>> handle(final ResultSet rs)
+        throws SQLException {
+      final Map<Integer, List<Pair<Long, Object>>> updates = new HashMap<>();
+      while (rs.next()) {
+        final int execId = rs.getInt(1);
+        final long updateTime = rs.getLong(2);
+        final EncodingType encType = EncodingType.fromInteger(rs.getInt(3));
+        final byte[] data = rs.getBytes(4);
+        if (data != null) {
+          try {
+            updates.computeIfAbsent(execId, id -> new ArrayList<>()).add(
+                new Pair<>(updateTime, GZIPUtils.transformBytesToObject(data, encType)));
+          } catch (final IOException e) {
+            throw new SQLException("Error retrieving update data of flow " + execId, e);
+          }
+        }
+      }
+      return updates;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.metrics.CommonMetrics;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import org.apache.log4j.Logger;
+
+/**
+ * Group commits the log parts uploaded concurrently by many jobs.
+ *
+ * <p>Uploads are queued and a single writer thread inserts the parts of as many queued uploads as
+ * fit in one batch, with one statement batch in one transaction, instead of one transaction per
+ * upload. Callers still wait for their upload to be committed, so that an upload is never lost
+ * and failures are reported to the caller as before. The compressed bytes queued and not yet
+ * committed are bounded: an upload reserves the most bytes its rows can take before creating
+ * them, and blocks until they fit. Uploads larger than a fraction of the bound are not grouped.
+ */
+class ExecutionLogsBatchWriter {
+
+  private static final Logger logger = Logger.getLogger(ExecutionLogsBatchWriter.class);
+  // An upload may take this fraction of the in-flight bound at most, so that several are grouped.
+  private static final int MAX_UPLOAD_FRACTION = 4;
+
+  private final DatabaseOperator dbOperator;
+  private final CommonMetrics commonMetrics;
+  private final String insertSql;
+  private final int maxBatchRows;
+  private final int maxInFlightBytes;
+  private final Semaphore inFlightBytes;
+  private final BlockingQueue<PendingUpload> queue = new LinkedBlockingQueue<>();
+  private Thread writerThread;
+
+  ExecutionLogsBatchWriter(final DatabaseOperator dbOperator, final CommonMetrics commonMetrics,
+      final String insertSql, final int maxBatchRows, final int maxInFlightBytes) {
+    this.dbOperator = dbOperator;
+    this.commonMetrics = commonMetrics;
+    this.insertSql = insertSql;
+    this.maxBatchRows = maxBatchRows;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.inFlightBytes = new Semaphore(maxInFlightBytes);
+    this.commonMetrics.addExecutionLogUploadMetrics(this.queue::size,
+        () -> this.maxInFlightBytes - this.inFlightBytes.availablePermits());
+  }
+
+  /**
+   * @return true if an upload of rows of at most this size can be grouped with others
+   */
+  boolean canBatch(final long maxNumBytes) {
+    return maxNumBytes <= this.maxInFlightBytes / MAX_UPLOAD_FRACTION;
+  }
+
+  /**
+   * Reserves the bytes of the upload, creates its rows, queues them for insertion and waits until
+   * they are committed.
+   *
+   * @param maxNumBytes the most bytes the rows can take, counted against the in-flight bound
+   * @param source creates the rows, the parameters of the insert statement, one array per row
+   */
+  void write(final int maxNumBytes, final RowSource source) throws ExecutorManagerException {
+    try {
+      this.inFlightBytes.acquire(maxNumBytes);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorManagerException("Interrupted while waiting to upload logs.", e);
+    }
+    final List<Object[]> rows = new ArrayList<>();
+    final int numBytes;
+    try {
+      numBytes = source.createRows(rows);
+    } catch (final Exception e) {
+      this.inFlightBytes.release(maxNumBytes);
+      throw new ExecutorManagerException("uploadLogFile failed.", e);
+    }
+    if (rows.isEmpty()) {
+      this.inFlightBytes.release(maxNumBytes);
+      return;
+    }
+    final PendingUpload upload = new PendingUpload(rows, numBytes, maxNumBytes);
+    ensureWriterStarted();
+    this.queue.add(upload);
+
+    try {
+      upload.result.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorManagerException("Interrupted while uploading logs.", e);
+    } catch (final ExecutionException e) {
+      throw new ExecutorManagerException("uploadLogFile failed.", e.getCause());
+    }
+  }
+
+  private synchronized void ensureWriterStarted() {
+    if (this.writerThread == null) {
+      this.writerThread = new Thread(this::writeLoop, "azk-execution-logs-writer");
+      this.writerThread.setDaemon(true);
+      this.writerThread.start();
+    }
+  }
+
+  private void writeLoop() {
+    final List<PendingUpload> batch = new ArrayList<>();
+    while (true) {
+      try {
+        batch.add(this.queue.take());
+      } catch (final InterruptedException e) {
+        logger.warn("Execution logs writer interrupted, stopping.");
+        return;
+      }
+      int numRows = batch.get(0).rows.size();
+      PendingUpload next;
+      while (numRows < this.maxBatchRows && (next = this.queue.poll()) != null) {
+        batch.add(next);
+        numRows += next.rows.size();
+      }
+      commit(batch);
+      batch.clear();
+    }
+  }
+
+  private void commit(final List<PendingUpload> batch) {
+    try {
+      insert(batch);
+      for (final PendingUpload upload : batch) {
+        complete(upload, null);
+      }
+    } catch (final SQLException | RuntimeException e) {
+      if (batch.size() == 1) {
+        complete(batch.get(0), e);
+        return;
+      }
+      // One bad upload must not fail the uploads it was grouped with.
+      logger.warn("Batch insert of " + batch.size() + " log uploads failed, retrying them one by "
+          + "one.", e);
+      for (final PendingUpload upload : batch) {
+        try {
+          insert(Collections.singletonList(upload));
+          complete(upload, null);
+        } catch (final SQLException | RuntimeException retryException) {
+          complete(upload, retryException);
+        }
+      }
+    }
+  }
+
+  private void insert(final List<PendingUpload> uploads) throws SQLException {
+    final List<Object[]> rows = new ArrayList<>();
+    for (final PendingUpload upload : uploads) {
+      rows.addAll(upload.rows);
+    }
+    this.dbOperator.transaction(transOperator -> {
+      transOperator.batch(this.insertSql, rows.toArray(new Object[rows.size()][]));
+      return rows.size();
+    });
+  }
+
+  private void complete(final PendingUpload upload, final Exception exception) {
+    this.inFlightBytes.release(upload.permits);
+    if (exception == null) {
+      this.commonMetrics.markExecutionLogUploadBytes(upload.numBytes);
+      upload.result.complete(null);
+    } else {
+      logger.error("Error writing log parts.", exception);
+      this.commonMetrics.markExecutionLogUploadFail();
+      upload.result.completeExceptionally(exception);
+    }
+  }
+
+  /**
+   * Creates the rows of an upload.
+   */
+  @FunctionalInterface
+  interface RowSource {
+
+    /**
+     * @param rows receives the rows
+     * @return the size of the rows
+     */
+    int createRows(List<Object[]> rows) throws Exception;
+  }
+
+  private static class PendingUpload {
+
+    private final List<Object[]> rows;
+    private final int numBytes;
+    private final int permits;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    PendingUpload(final List<Object[]> rows, final int numBytes, final int permits) {
+      this.rows = rows;
+      this.numBytes = numBytes;
+      this.permits = permits;
+    }
+  }
+}
@@ -16,23 +16,37 @@
 
 package azkaban.executor;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
-import azkaban.db.DatabaseTransOperator;
 import azkaban.db.EncodingType;
 import azkaban.db.SQLTransaction;
+import azkaban.metrics.CommonMetrics;
+import azkaban.spi.LogStorage;
 import azkaban.utils.FileIOUtils;
 import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.GZIPUtils;
+import azkaban.utils.GZIPUtils.GzipCompressor;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.commons.dbutils.ResultSetHandler;
@@ -45,32 +59,286 @@ import org.joda.time.DateTime;
 public class ExecutionLogsDao {
 
   private static final Logger logger = Logger.getLogger(ExecutionLogsDao.class);
+  private static final String INSERT_EXECUTION_LOGS = "INSERT INTO execution_logs "
+      + "(exec_id, name, attempt, enc_type, start_byte, end_byte, "
+      + "log, upload_time) VALUES (?,?,?,?,?,?,?,?)";
+  // 50K buffer... if logs are greater than this, we chunk.
+  // However, we better prevent large log files from being uploaded somehow
+  private static final int LOG_PART_SIZE = 50 * 1024;
+  private static final String INSERT_EXECUTION_LOG_INDEX = "INSERT INTO execution_log_index "
+      + "(exec_id, name, attempt, storage_key, log_length, segment_size, segment_offsets, "
+      + "upload_time) VALUES (?,?,?,?,?,?,?,?)";
+  private static final String DELETE_EXECUTION_LOG_INDEX =
+      "DELETE FROM execution_log_index WHERE exec_id=? AND name=? AND attempt=?";
+  // Logs kept in the log storage are decoded by segments of this size.
+  private static final int LOG_SEGMENT_SIZE = 256 * 1024;
+  private static final long DEFAULT_LOG_STORAGE_MIN_BYTES = 1024 * 1024;
+  private static final int DEFAULT_BATCH_UPLOAD_MAX_ROWS = 200;
+  private static final int DEFAULT_BATCH_UPLOAD_MAX_INFLIGHT_BYTES = 64 * 1024 * 1024;
+  private static final long DEFAULT_CHUNK_CACHE_MAX_BYTES = 32 * 1024 * 1024;
+  private static final long CHUNK_CACHE_EXPIRE_MINUTES = 10;
+
   private final DatabaseOperator dbOperator;
   private final EncodingType defaultEncodingType = EncodingType.GZIP;
+  // Null unless the batch upload is enabled
+  private final ExecutionLogsBatchWriter batchWriter;
+  // Decoded log parts recently read. The parts are never modified once uploaded. Null if disabled.
+  private final Cache<LogPartKey, byte[]> logPartCache;
+  // Null if the logs are only kept in the DB
+  private final LogStorage logStorage;
+  private final long logStorageMinBytes;
 
-  @Inject
   ExecutionLogsDao(final DatabaseOperator dbOperator) {
+    this(dbOperator, new Props(), null, null);
+  }
+
+  @Inject
+  ExecutionLogsDao(final DatabaseOperator dbOperator, final Props props,
+      final CommonMetrics commonMetrics, @Nullable final LogStorage logStorage) {
     this.dbOperator = dbOperator;
+    this.logStorage = logStorage;
+    this.logStorageMinBytes = props.getLong(ConfigurationKeys.EXECUTION_LOGS_STORAGE_MIN_BYTES,
+        DEFAULT_LOG_STORAGE_MIN_BYTES);
+    if (props.getBoolean(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_ENABLED, false)) {
+      this.batchWriter = new ExecutionLogsBatchWriter(dbOperator, commonMetrics,
+          INSERT_EXECUTION_LOGS,
+          props.getInt(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_MAX_ROWS,
+              DEFAULT_BATCH_UPLOAD_MAX_ROWS),
+          props.getInt(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_MAX_INFLIGHT_BYTES,
+              DEFAULT_BATCH_UPLOAD_MAX_INFLIGHT_BYTES));
+    } else {
+      this.batchWriter = null;
+    }
+
+    final long cacheMaxBytes = props.getLong(ConfigurationKeys.EXECUTION_LOGS_CHUNK_CACHE_MAX_BYTES,
+        DEFAULT_CHUNK_CACHE_MAX_BYTES);
+    if (cacheMaxBytes > 0) {
+      this.logPartCache = CacheBuilder.newBuilder()
+          .maximumWeight(cacheMaxBytes)
+          .weigher((final LogPartKey key, final byte[] value) -> value.length)
+          .expireAfterAccess(CHUNK_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+          .build();
+    } else {
+      this.logPartCache = null;
+    }
   }
 
+  /**
+   * Returns the logs in [startByte, startByte + length), trimmed to whole utf-8 characters.
+   *
+   * <p>The start and end of the log parts overlapping the range are looked up first, without
+   * their data. Only the parts that are not in the cache are then read and decoded, one read per
+   * run of consecutive missing parts. Logs kept in the log storage are read the same way, by
+   * segments, from their index row.
+   */
   // TODO kunkun-tang: the interface's parameter is called endByte, but actually is length.
   LogData fetchLogs(final int execId, final String name, final int attempt,
       final int startByte,
       final int length) throws ExecutorManagerException {
-    final FetchLogsHandler handler = new FetchLogsHandler(startByte, length + startByte);
+    final int endByte = startByte + length;
     try {
-      return this.dbOperator.query(FetchLogsHandler.FETCH_LOGS, handler,
-          execId, name, attempt, startByte, startByte + length);
+      if (this.logStorage != null) {
+        final Pair<String, SegmentedLogFile> storedLog = this.dbOperator.query(
+            FetchLogIndexHandler.FETCH_LOG_INDEX, new FetchLogIndexHandler(),
+            execId, name, attempt);
+        if (storedLog != null) {
+          return fetchStoredLogs(storedLog.getFirst(), storedLog.getSecond(), execId, name,
+              attempt, startByte, endByte);
+        }
+      }
+
+      final List<Pair<Integer, Integer>> logParts = this.dbOperator.query(
+          FetchLogPartsHandler.FETCH_LOG_PARTS, new FetchLogPartsHandler(),
+          execId, name, attempt, startByte, endByte);
+      if (logParts.isEmpty()) {
+        return null;
+      }
+
+      final Map<Integer, byte[]> partData = new HashMap<>();
+      int firstMissing = -1;
+      int lastMissing = -1;
+      for (final Pair<Integer, Integer> logPart : logParts) {
+        final int partStart = logPart.getFirst();
+        final byte[] cached = this.logPartCache == null ? null
+            : this.logPartCache.getIfPresent(new LogPartKey(execId, name, attempt, partStart));
+        if (cached != null) {
+          partData.put(partStart, cached);
+          if (firstMissing >= 0) {
+            fetchLogParts(execId, name, attempt, firstMissing, lastMissing, partData);
+            firstMissing = -1;
+          }
+        } else {
+          if (firstMissing < 0) {
+            firstMissing = partStart;
+          }
+          lastMissing = partStart;
+        }
+      }
+      if (firstMissing >= 0) {
+        fetchLogParts(execId, name, attempt, firstMissing, lastMissing, partData);
+      }
+
+      return toLogData(logParts, partData, startByte, endByte);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching logs " + execId
           + " : " + name, e);
     }
   }
 
+  private LogData fetchStoredLogs(final String key, final SegmentedLogFile storedLog,
+      final int execId, final String name, final int attempt, final int startByte,
+      final int endByte) throws ExecutorManagerException, SQLException {
+    final int end = Math.min(endByte, storedLog.getLogLength());
+    if (startByte >= end) {
+      return null;
+    }
+
+    final List<Pair<Integer, Integer>> logParts = new ArrayList<>();
+    final Map<Integer, byte[]> partData = new HashMap<>();
+    int firstMissing = -1;
+    int lastMissing = -1;
+    for (int segment = storedLog.getSegment(startByte); segment <= storedLog.getSegment(end - 1);
+        segment++) {
+      final int segmentStart = storedLog.getSegmentStart(segment);
+      logParts.add(new Pair<>(segmentStart, storedLog.getSegmentEnd(segment)));
+      final byte[] cached = this.logPartCache == null ? null
+          : this.logPartCache.getIfPresent(new LogPartKey(execId, name, attempt, segmentStart));
+      if (cached != null) {
+        partData.put(segmentStart, cached);
+        if (firstMissing >= 0) {
+          readStoredSegments(key, storedLog, execId, name, attempt, firstMissing, lastMissing,
+              partData);
+          firstMissing = -1;
+        }
+      } else {
+        if (firstMissing < 0) {
+          firstMissing = segment;
+        }
+        lastMissing = segment;
+      }
+    }
+    if (firstMissing >= 0) {
+      readStoredSegments(key, storedLog, execId, name, attempt, firstMissing, lastMissing,
+          partData);
+    }
+
+    return toLogData(logParts, partData, startByte, end);
+  }
+
+  /**
+   * Reads the log parts starting in [firstStart, lastStart] from the db, caching them.
+   */
+  private void fetchLogParts(final int execId, final String name, final int attempt,
+      final int firstStart, final int lastStart, final Map<Integer, byte[]> partData)
+      throws SQLException {
+    final Map<Integer, byte[]> fetched = this.dbOperator.query(
+        FetchLogDataHandler.FETCH_LOG_DATA, new FetchLogDataHandler(),
+        execId, name, attempt, firstStart, lastStart);
+    for (final Map.Entry<Integer, byte[]> entry : fetched.entrySet()) {
+      partData.putIfAbsent(entry.getKey(), entry.getValue());
+      if (this.logPartCache != null) {
+        this.logPartCache.put(new LogPartKey(execId, name, attempt, entry.getKey()),
+            entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Reads segments firstSegment to lastSegment of a stored log with a single read, caching them.
+   */
+  private void readStoredSegments(final String key, final SegmentedLogFile storedLog,
+      final int execId, final String name, final int attempt, final int firstSegment,
+      final int lastSegment, final Map<Integer, byte[]> partData)
+      throws ExecutorManagerException {
+    final long offset = storedLog.getOffset(firstSegment);
+    final byte[] compressed =
+        new byte[(int) (storedLog.getOffset(lastSegment + 1) - offset)];
+    try (final InputStream in = this.logStorage.getLog(key, offset)) {
+      IOUtils.readFully(in, compressed);
+      for (int segment = firstSegment; segment <= lastSegment; segment++) {
+        final byte[] data = storedLog.decodeSegment(compressed, firstSegment, segment);
+        final int segmentStart = storedLog.getSegmentStart(segment);
+        partData.put(segmentStart, data);
+        if (this.logPartCache != null) {
+          this.logPartCache.put(new LogPartKey(execId, name, attempt, segmentStart), data);
+        }
+      }
+    } catch (final IOException e) {
+      throw new ExecutorManagerException("Error reading stored logs " + execId
+          + " : " + name + " from " + key, e);
+    }
+  }
+
+  /**
+   * Copies the slices of the log parts that fall in [startByte, endByte) into a single buffer.
+   */
+  private static LogData toLogData(final List<Pair<Integer, Integer>> logParts,
+      final Map<Integer, byte[]> partData, final int startByte, final int endByte)
+      throws SQLException {
+    int size = 0;
+    for (final Pair<Integer, Integer> logPart : logParts) {
+      size += sliceLength(logPart, startByte, endByte);
+    }
+
+    final byte[] buffer = new byte[size];
+    int pos = 0;
+    for (final Pair<Integer, Integer> logPart : logParts) {
+      final byte[] data = partData.get(logPart.getFirst());
+      if (data == null) {
+        throw new SQLException("Log part starting at byte " + logPart.getFirst()
+            + " disappeared while fetching logs");
+      }
+      final int offset = startByte > logPart.getFirst() ? startByte - logPart.getFirst() : 0;
+      final int length = sliceLength(logPart, startByte, endByte);
+      System.arraycopy(data, offset, buffer, pos, length);
+      pos += length;
+    }
+
+    final Pair<Integer, Integer> result = FileIOUtils.getUtf8Range(buffer, 0, buffer.length);
+    return new LogData(startByte + result.getFirst(), result.getSecond(),
+        new String(buffer, result.getFirst(), result.getSecond(), StandardCharsets.UTF_8));
+  }
+
+  private static int sliceLength(final Pair<Integer, Integer> logPart, final int startByte,
+      final int endByte) {
+    final int partStart = logPart.getFirst();
+    final int partEnd = logPart.getSecond();
+    final int offset = startByte > partStart ? startByte - partStart : 0;
+    return endByte < partEnd ? endByte - partStart - offset : partEnd - partStart - offset;
+  }
+
+  /**
+   * Uploads the files as consecutive log parts, in one transaction. With the batch upload enabled,
+   * the parts of concurrent uploads are grouped in one transaction by the
+   * {@link ExecutionLogsBatchWriter}; uploads too large to be grouped are streamed part by part as
+   * without batching. Logs of at least the configured size are written to the log storage
+   * instead, when there is one, with only an index row in the DB.
+   */
   public void uploadLogFile(final int execId, final String name, final int attempt,
       final File... files) throws ExecutorManagerException {
+    final long totalLength = totalLength(files);
+    if (this.logStorage != null && totalLength >= this.logStorageMinBytes) {
+      uploadToLogStorage(execId, name, attempt, files);
+      return;
+    }
+
+    final long maxNumBytes = maxEncodedLength(totalLength);
+    if (this.batchWriter != null && this.batchWriter.canBatch(maxNumBytes)) {
+      // Only the length known now is read, it's what the bytes reserved in the writer cover.
+      this.batchWriter.write((int) maxNumBytes,
+          logParts -> createLogParts(execId, name, attempt, files, this.defaultEncodingType,
+              totalLength, logParts::add));
+      return;
+    }
+
     final SQLTransaction<Integer> transaction = transOperator -> {
-      uploadLogFile(transOperator, execId, name, attempt, files, this.defaultEncodingType);
+      try {
+        createLogParts(execId, name, attempt, files, this.defaultEncodingType, Long.MAX_VALUE,
+            logPart -> transOperator.update(INSERT_EXECUTION_LOGS, logPart));
+      } catch (final IOException e) {
+        logger.error("Error chunking.", e);
+        throw new SQLException("Error chunking", e);
+      }
       transOperator.getConnection().commit();
       return 1;
     };
@@ -82,57 +350,92 @@ public class ExecutionLogsDao {
     }
   }
 
-  private void uploadLogFile(final DatabaseTransOperator transOperator, final int execId,
-      final String name,
-      final int attempt, final File[] files, final EncodingType encType)
-      throws SQLException {
-    // 50K buffer... if logs are greater than this, we chunk.
-    // However, we better prevent large log files from being uploaded somehow
-    final byte[] buffer = new byte[50 * 1024];
-    int pos = 0;
-    int length = buffer.length;
-    int startByte = 0;
+  private void uploadToLogStorage(final int execId, final String name, final int attempt,
+      final File[] files) throws ExecutorManagerException {
+    File segmentedFile = null;
     try {
-      for (int i = 0; i < files.length; ++i) {
-        final File file = files[i];
+      final String key = execId + "/" + URLEncoder.encode(name, StandardCharsets.UTF_8.name())
+          + "." + attempt + ".log.gz";
+      segmentedFile = File.createTempFile("azkaban-log-" + execId + "-", ".log.gz");
+      final SegmentedLogFile storedLog =
+          SegmentedLogFile.write(files, segmentedFile, LOG_SEGMENT_SIZE);
+      if (storedLog.getLogLength() == 0) {
+        return;
+      }
+      this.logStorage.putLog(key, segmentedFile);
+      this.dbOperator.update(INSERT_EXECUTION_LOG_INDEX, execId, name, attempt, key,
+          storedLog.getLogLength(), storedLog.getSegmentSize(), storedLog.encodeOffsets(),
+          DateTime.now().getMillis());
+    } catch (final IOException | SQLException e) {
+      logger.error("uploadLogFile to log storage failed.", e);
+      throw new ExecutorManagerException("uploadLogFile failed.", e);
+    } finally {
+      if (segmentedFile != null) {
+        segmentedFile.delete();
+      }
+    }
+  }
 
-        final BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(file));
-        try {
-          int size = bufferedStream.read(buffer, pos, length);
-          while (size >= 0) {
-            if (pos + size == buffer.length) {
-              // Flush here.
-              uploadLogPart(transOperator, execId, name, attempt, startByte,
-                  startByte + buffer.length, encType, buffer, buffer.length);
+  private static long totalLength(final File[] files) {
+    long length = 0;
+    for (final File file : files) {
+      length += file.length();
+    }
+    return length;
+  }
 
-              pos = 0;
-              length = buffer.length;
+  /**
+   * Upper bound of the size of the log parts encoding the given number of bytes, gzip adds a few
+   * bytes per part even when it can't compress.
+   */
+  private static long maxEncodedLength(final long length) {
+    final long numParts = (length + LOG_PART_SIZE - 1) / LOG_PART_SIZE;
+    return length + (length >> 10) + numParts * 64;
+  }
+
+  /**
+   * Splits the files into log parts of LOG_PART_SIZE bytes, encoded with one compressor. Each
+   * part is handed to the consumer as soon as it's encoded, only one part is held at a time.
+   *
+   * @param maxLength the number of bytes of the files to read at most
+   * @param consumer receives the parameters of the insert statement of each part
+   * @return the total size of the encoded parts
+   */
+  private int createLogParts(final int execId, final String name, final int attempt,
+      final File[] files, final EncodingType encType, final long maxLength,
+      final LogPartConsumer consumer) throws IOException, SQLException {
+    final byte[] buffer = new byte[LOG_PART_SIZE];
+    int pos = 0;
+    int startByte = 0;
+    int numBytes = 0;
+    long remaining = maxLength;
+    try (final GzipCompressor compressor = new GzipCompressor()) {
+      for (final File file : files) {
+        try (final BufferedInputStream bufferedStream =
+            new BufferedInputStream(new FileInputStream(file))) {
+          int size;
+          while (remaining > 0 && (size = bufferedStream
+              .read(buffer, pos, (int) Math.min(buffer.length - pos, remaining))) >= 0) {
+            pos += size;
+            remaining -= size;
+            if (pos == buffer.length) {
+              // Flush here.
+              numBytes += addLogPart(consumer, compressor, execId, name, attempt, startByte,
+                  encType, buffer, buffer.length);
               startByte += buffer.length;
-            } else {
-              // Usually end of file.
-              pos += size;
-              length = buffer.length - pos;
+              pos = 0;
             }
-            size = bufferedStream.read(buffer, pos, length);
           }
-        } finally {
-          IOUtils.closeQuietly(bufferedStream);
         }
       }
 
-      // Final commit of buffer.
+      // Final part of buffer.
       if (pos > 0) {
-        uploadLogPart(transOperator, execId, name, attempt, startByte, startByte
-            + pos, encType, buffer, pos);
+        numBytes += addLogPart(consumer, compressor, execId, name, attempt, startByte, encType,
+            buffer, pos);
       }
-    } catch (final SQLException e) {
-      logger.error("Error writing log part.", e);
-      throw new SQLException("Error writing log part", e);
-    } catch (final IOException e) {
-      logger.error("Error chunking.", e);
-      throw new SQLException("Error chunking", e);
     }
+    return numBytes;
   }
 
   int removeExecutionLogsByTime(final long millis, final int recordCleanupLimit)
@@ -151,9 +454,46 @@ public class ExecutionLogsDao {
         logger.error("Execution logs cleanup thread's sleep was interrupted.", e);
       }
     } while (removedRecords == recordCleanupLimit);
+
+    if (this.logStorage != null) {
+      do {
+        removedRecords = removeStoredLogsBatch(millis, recordCleanupLimit);
+        totalRecordsRemoved = totalRecordsRemoved + removedRecords;
+      } while (removedRecords == recordCleanupLimit);
+    }
     return totalRecordsRemoved;
   }
 
+  /**
+   * Deletes the stored logs uploaded before millis, then their index rows.
+   */
+  private int removeStoredLogsBatch(final long millis, final int recordCleanupLimit)
+      throws ExecutorManagerException {
+    try {
+      final List<Pair<String, Object[]>> storedLogs = this.dbOperator.query(
+          FetchOldLogIndexHandler.FETCH_OLD_LOG_INDEX, new FetchOldLogIndexHandler(), millis,
+          recordCleanupLimit);
+      if (storedLogs.isEmpty()) {
+        return 0;
+      }
+      final Object[][] indexRows = new Object[storedLogs.size()][];
+      for (int i = 0; i < storedLogs.size(); i++) {
+        // The index row is removed even if the delete fails, the log is unreachable without it.
+        this.logStorage.deleteLog(storedLogs.get(i).getFirst());
+        indexRows[i] = storedLogs.get(i).getSecond();
+      }
+      this.dbOperator.transaction(transOperator -> {
+        transOperator.batch(DELETE_EXECUTION_LOG_INDEX, indexRows);
+        return indexRows.length;
+      });
+      return indexRows.length;
+    } catch (final SQLException e) {
+      logger.error("delete stored execution logs failed", e);
+      throw new ExecutorManagerException(
+          "Error deleting old stored execution logs before " + millis, e);
+    }
+  }
+
   int removeExecutionLogsBatch(final long millis, final int recordCleanupLimit)
       throws ExecutorManagerException {
     final String DELETE_BY_TIME =
@@ -167,85 +507,150 @@ public class ExecutionLogsDao {
     }
   }
 
-  private void uploadLogPart(final DatabaseTransOperator transOperator, final int execId,
-      final String name,
-      final int attempt, final int startByte, final int endByte,
-      final EncodingType encType,
-      final byte[] buffer, final int length)
-      throws SQLException, IOException {
-    final String INSERT_EXECUTION_LOGS = "INSERT INTO execution_logs "
-        + "(exec_id, name, attempt, enc_type, start_byte, end_byte, "
-        + "log, upload_time) VALUES (?,?,?,?,?,?,?,?)";
-
-    byte[] buf = buffer;
+  private static int addLogPart(final LogPartConsumer consumer, final GzipCompressor compressor,
+      final int execId, final String name, final int attempt, final int startByte,
+      final EncodingType encType, final byte[] buffer, final int length) throws SQLException {
+    final byte[] buf;
     if (encType == EncodingType.GZIP) {
-      buf = GZIPUtils.gzipBytes(buf, 0, length);
-    } else if (length < buf.length) {
+      buf = compressor.gzip(buffer, 0, length);
+    } else {
       buf = Arrays.copyOf(buffer, length);
     }
 
-    transOperator.update(INSERT_EXECUTION_LOGS, execId, name, attempt,
-        encType.getNumVal(), startByte, startByte + length, buf, DateTime.now()
-            .getMillis());
+    consumer.accept(new Object[]{execId, name, attempt, encType.getNumVal(), startByte,
+        startByte + length, buf, DateTime.now().getMillis()});
+    return buf.length;
   }
 
-  private static class FetchLogsHandler implements ResultSetHandler<LogData> {
+  /**
+   * Receives the parameters of the insert statement of a log part.
+   */
+  @FunctionalInterface
+  private interface LogPartConsumer {
 
-    private static final String FETCH_LOGS =
-        "SELECT exec_id, name, attempt, enc_type, start_byte, end_byte, log "
-            + "FROM execution_logs "
+    void accept(Object[] logPart) throws SQLException;
+  }
+
+  /**
+   * JDBC ResultSetHandler to fetch the start and end byte of the log parts in a range
+   */
+  private static class FetchLogPartsHandler implements
+      ResultSetHandler<List<Pair<Integer, Integer>>> {
+
+    private static final String FETCH_LOG_PARTS =
+        "SELECT start_byte, end_byte FROM execution_logs "
             + "WHERE exec_id=? AND name=? AND attempt=? AND end_byte > ? "
             + "AND start_byte <= ? ORDER BY start_byte";
 
-    private final int startByte;
-    private final int endByte;
+    @Override
+    public List<Pair<Integer, Integer>> handle(final ResultSet rs) throws SQLException {
+      final List<Pair<Integer, Integer>> logParts = new ArrayList<>();
+      while (rs.next()) {
+        logParts.add(new Pair<>(rs.getInt(1), rs.getInt(2)));
+      }
+      return logParts;
+    }
+  }
 
-    FetchLogsHandler(final int startByte, final int endByte) {
-      this.startByte = startByte;
-      this.endByte = endByte;
+  /**
+   * JDBC ResultSetHandler to fetch the decoded data of the log parts, keyed by start byte
+   */
+  private static class FetchLogDataHandler implements ResultSetHandler<Map<Integer, byte[]>> {
+
+    private static final String FETCH_LOG_DATA =
+        "SELECT start_byte, enc_type, log FROM execution_logs "
+            + "WHERE exec_id=? AND name=? AND attempt=? AND start_byte >= ? "
+            + "AND start_byte <= ?";
+
+    @Override
+    public Map<Integer, byte[]> handle(final ResultSet rs) throws SQLException {
+      final Map<Integer, byte[]> partData = new HashMap<>();
+      while (rs.next()) {
+        final int startByte = rs.getInt(1);
+        final EncodingType encType = EncodingType.fromInteger(rs.getInt(2));
+        final byte[] data = rs.getBytes(3);
+        try {
+          partData.put(startByte,
+              encType == EncodingType.GZIP ? GZIPUtils.unGzipBytes(data) : data);
+        } catch (final IOException e) {
+          throw new SQLException(e);
+        }
+      }
+      return partData;
     }
+  }
+
+  /**
+   * JDBC ResultSetHandler to fetch the storage key and layout of a log kept in the log storage
+   */
+  private static class FetchLogIndexHandler implements
+      ResultSetHandler<Pair<String, SegmentedLogFile>> {
+
+    private static final String FETCH_LOG_INDEX =
+        "SELECT storage_key, log_length, segment_size, segment_offsets FROM execution_log_index "
+            + "WHERE exec_id=? AND name=? AND attempt=?";
 
     @Override
-    public LogData handle(final ResultSet rs) throws SQLException {
+    public Pair<String, SegmentedLogFile> handle(final ResultSet rs) throws SQLException {
       if (!rs.next()) {
         return null;
       }
+      return new Pair<>(rs.getString(1),
+          SegmentedLogFile.fromIndex(rs.getInt(2), rs.getInt(3), rs.getBytes(4)));
+    }
+  }
 
-      final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+  /**
+   * JDBC ResultSetHandler to fetch the storage key and primary key of old stored logs
+   */
+  private static class FetchOldLogIndexHandler implements
+      ResultSetHandler<List<Pair<String, Object[]>>> {
 
-      do {
-        // int execId = rs.getInt(1);
-        // String name = rs.getString(2);
-        final int attempt = rs.getInt(3);
-        final EncodingType encType = EncodingType.fromInteger(rs.getInt(4));
-        final int startByte = rs.getInt(5);
-        final int endByte = rs.getInt(6);
-
-        final byte[] data = rs.getBytes(7);
-
-        final int offset =
-            this.startByte > startByte ? this.startByte - startByte : 0;
-        final int length =
-            this.endByte < endByte ? this.endByte - startByte - offset
-                : endByte - startByte - offset;
-        try {
-          byte[] buffer = data;
-          if (encType == EncodingType.GZIP) {
-            buffer = GZIPUtils.unGzipBytes(data);
-          }
+    private static final String FETCH_OLD_LOG_INDEX =
+        "SELECT storage_key, exec_id, name, attempt FROM execution_log_index "
+            + "WHERE upload_time < ? LIMIT ?";
 
-          byteStream.write(buffer, offset, length);
-        } catch (final IOException e) {
-          throw new SQLException(e);
-        }
-      } while (rs.next());
+    @Override
+    public List<Pair<String, Object[]>> handle(final ResultSet rs) throws SQLException {
+      final List<Pair<String, Object[]>> storedLogs = new ArrayList<>();
+      while (rs.next()) {
+        storedLogs.add(new Pair<>(rs.getString(1),
+            new Object[]{rs.getInt(2), rs.getString(3), rs.getInt(4)}));
+      }
+      return storedLogs;
+    }
+  }
+
+  private static class LogPartKey {
 
-      final byte[] buffer = byteStream.toByteArray();
-      final Pair<Integer, Integer> result =
-          FileIOUtils.getUtf8Range(buffer, 0, buffer.length);
+    private final int execId;
+    private final String name;
+    private final int attempt;
+    private final int startByte;
 
-      return new LogData(this.startByte + result.getFirst(), result.getSecond(),
-          new String(buffer, result.getFirst(), result.getSecond(), StandardCharsets.UTF_8));
+    LogPartKey(final int execId, final String name, final int attempt, final int startByte) {
+      this.execId = execId;
+      this.name = name;
+      this.attempt = attempt;
+      this.startByte = startByte;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final LogPartKey that = (LogPartKey) o;
+      return this.execId == that.execId && this.attempt == that.attempt
+          && this.startByte == that.startByte && Objects.equals(this.name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.execId, this.name, this.attempt, this.startByte);
     }
   }
 }
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import azkaban.Constants.ConfigurationKeys;
 import azkaban.DispatchMethod;
+import azkaban.metrics.CommonMetrics;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import azkaban.utils.RestfulApiClient;
@@ -36,19 +37,25 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.net.ssl.SSLContext;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
 import org.apache.http.util.EntityUtils;
@@ -57,7 +64,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Client class that will be used to handle all Restful API calls between Executor and the host
- * application.
+ * application. All the calls share a single pool of keep-alive connections, bounded in total and
+ * per executor (route), with idle connections evicted in the background.
  */
 @Singleton
 public class ExecutorApiClient extends RestfulApiClient<String> {
@@ -65,6 +73,15 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
   private final static Logger logger = LoggerFactory.getLogger(ExecutorApiClient.class);
   private final static String DEFAULT_CLIENT_TRUSTSTORE_PATH = "keystore";
   private final static String DEFAULT_CLIENT_TRUSTSTORE_PASSWORD = "changeit";
+  private final static int DEFAULT_MAX_CONNECTIONS = 200;
+  private final static int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  private final static int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+  // A negative value leaves the socket timeout undefined, i.e. reads never time out.
+  private final static int DEFAULT_SOCKET_TIMEOUT_MS = -1;
+  private final static int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS = 10000;
+  private final static long DEFAULT_IDLE_CONNECTION_TIMEOUT_MS = 30000;
+  // Pooled connections idle for longer than this are checked for staleness before being reused.
+  private final static int VALIDATE_AFTER_INACTIVITY_MS = 2000;
 
   private final boolean isReverseProxyEnabled;
   private final Optional<String> reverseProxyHost;
@@ -73,8 +90,16 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
   private final String truststorePath;
   private final String truststorePassword;
   private SSLConnectionSocketFactory tlsSocketFactory;
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final RequestConfig requestConfig;
+  private final long idleConnectionTimeoutMs;
 
   @Inject
+  public ExecutorApiClient(final Props azkProps, final CommonMetrics commonMetrics) {
+    this(azkProps);
+    commonMetrics.addExecutorClientPoolMetrics(this.connectionManager::getTotalStats);
+  }
+
   public ExecutorApiClient(final Props azkProps) {
     super();
     isReverseProxyEnabled =
@@ -113,6 +138,43 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
     if (this.isTlsEnabled) {
       setupTlsSocketFactory();
     }
+
+    this.connectionManager = createConnectionManager(azkProps);
+    this.requestConfig = RequestConfig.custom()
+        .setConnectTimeout(azkProps.getInt(ConfigurationKeys.EXECUTOR_CLIENT_CONNECT_TIMEOUT_MS,
+            DEFAULT_CONNECT_TIMEOUT_MS))
+        .setSocketTimeout(azkProps.getInt(ConfigurationKeys.EXECUTOR_CLIENT_SOCKET_TIMEOUT_MS,
+            DEFAULT_SOCKET_TIMEOUT_MS))
+        .setConnectionRequestTimeout(
+            azkProps.getInt(ConfigurationKeys.EXECUTOR_CLIENT_CONNECTION_REQUEST_TIMEOUT_MS,
+                DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS))
+        .build();
+    this.idleConnectionTimeoutMs = azkProps.getLong(
+        ConfigurationKeys.EXECUTOR_CLIENT_IDLE_CONNECTION_TIMEOUT_MS,
+        DEFAULT_IDLE_CONNECTION_TIMEOUT_MS);
+  }
+
+  /**
+   * Create the connection pool shared by all the requests. Https connections use the TLS socket
+   * factory if TLS is enabled, and the default one otherwise.
+   */
+  private PoolingHttpClientConnectionManager createConnectionManager(final Props azkProps) {
+    final Registry<ConnectionSocketFactory> socketFactoryRegistry =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", this.tlsSocketFactory != null ? this.tlsSocketFactory
+                : SSLConnectionSocketFactory.getSocketFactory())
+            .build();
+    final PoolingHttpClientConnectionManager manager =
+        new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+    manager.setMaxTotal(
+        azkProps.getInt(ConfigurationKeys.EXECUTOR_CLIENT_MAX_CONNECTIONS,
+            DEFAULT_MAX_CONNECTIONS));
+    manager.setDefaultMaxPerRoute(
+        azkProps.getInt(ConfigurationKeys.EXECUTOR_CLIENT_MAX_CONNECTIONS_PER_ROUTE,
+            DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+    manager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+    return manager;
   }
 
   /**
@@ -162,6 +224,11 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
     return this.tlsSocketFactory;
   }
 
+  @VisibleForTesting
+  PoolingHttpClientConnectionManager getConnectionManager() {
+    return this.connectionManager;
+  }
+
   public boolean isReverseProxyEnabled() {
     return isReverseProxyEnabled;
   }
@@ -177,15 +244,30 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
   }
 
   /**
-   * Overrides the parent implementation to provide a TLS enabled http client if requested,
-   * otherwise returns the http client by invoking the parent class method.
+   * Overrides the parent implementation to provide an http client backed by the shared connection
+   * pool. The client evicts expired connections and connections idle for longer than the
+   * configured timeout.
+   *
+   * @return http client
+   */
+  @Override
+  protected CloseableHttpClient createHttpClient() {
+    return HttpClients.custom()
+        .setConnectionManager(this.connectionManager)
+        .setDefaultRequestConfig(this.requestConfig)
+        .evictExpiredConnections()
+        .evictIdleConnections(this.idleConnectionTimeoutMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Provides the TLS enabled http client if requested. Https connections of the shared pool are
+   * created with the TLS socket factory, so this is the same client used for http requests.
    *
    * @return http client
    */
   protected CloseableHttpClient createHttpsClient() {
-    final HttpClientBuilder httpClientBuilder = HttpClients.custom()
-        .setSSLSocketFactory(this.tlsSocketFactory);
-    return httpClientBuilder.build();
+    return this.getHttpClient();
   }
 
   /**
@@ -224,9 +306,7 @@ public class ExecutorApiClient extends RestfulApiClient<String> {
    */
   protected String sendAndReturnHttps(final HttpUriRequest request)
           throws IOException {
-    try (final CloseableHttpClient client = this.createHttpsClient()) {
-      return this.parseResponse(client.execute(request));
-    }
+    return this.sendAndReturn(this.createHttpsClient(), request);
   }
 
   /**
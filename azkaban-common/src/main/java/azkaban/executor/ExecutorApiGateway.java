@@ -93,6 +93,25 @@ public class ExecutorApiGateway {
         ref.getExecId(), user, ref.getDispatchMethod(), params);
   }
 
+  /**
+   * Call the flow container listening on the given host and port directly, bypassing the reverse
+   * proxy. This reaches the pods which are not routable by execution id yet, such as the warm pods
+   * an execution is being assigned to.
+   */
+  public Map<String, Object> callContainerDirectly(final String host, final int port,
+      final String action, final int executionId) throws ExecutorManagerException {
+    final List<Pair<String, String>> paramList = new ArrayList<>();
+    paramList.add(new Pair<>(ConnectorParams.ACTION_PARAM, action));
+    paramList.add(new Pair<>(ConnectorParams.EXECID_PARAM, String.valueOf(executionId)));
+    try {
+      // Only the CONTAINERIZED dispatch method is routed through the reverse proxy.
+      return callForJsonObjectMap(host, port, "/" + CONTAINERIZED_EXECUTION_RESOURCE,
+          DispatchMethod.PUSH, paramList);
+    } catch (final IOException e) {
+      throw new ExecutorManagerException(e.getMessage(), e);
+    }
+  }
+
   @VisibleForTesting
   public String getClusterName() {
     return this.clusterName;
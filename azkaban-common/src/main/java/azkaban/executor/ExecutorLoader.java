@@ -17,6 +17,7 @@ package azkaban.executor;
 
 import azkaban.DispatchMethod;
 import azkaban.executor.ExecutorLogEvent.EventType;
+import azkaban.imagemgmt.version.VersionSet;
 import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
@@ -24,6 +25,7 @@ import java.io.File;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 
@@ -273,6 +275,21 @@ public interface ExecutorLoader {
   void updateExecutableFlow(ExecutableFlow flow)
       throws ExecutorManagerException;
 
+  /**
+   * Persists only the nodes of the flow that changed after lastUpdateTime. The update is visible
+   * to {@link #fetchExecutableFlow(int)} and is folded into the stored flow by
+   * {@link #compactExecutableFlow(ExecutableFlow)}.
+   */
+  void appendExecutableFlowUpdate(ExecutableFlow flow, long lastUpdateTime)
+      throws ExecutorManagerException;
+
+  /**
+   * Stores the whole flow and drops the updates appended by
+   * {@link #appendExecutableFlowUpdate(ExecutableFlow, long)}.
+   */
+  void compactExecutableFlow(ExecutableFlow flow)
+      throws ExecutorManagerException;
+
   void uploadExecutableNode(ExecutableNode node, Props inputParams)
       throws ExecutorManagerException;
 
@@ -364,4 +381,24 @@ public interface ExecutorLoader {
    */
   int updateVersionSetId(final int executionId, final int versionSetId)
       throws ExecutorManagerException;
+
+  /**
+   * Update version set id and status for the given execution id, leaving the rest of the flow
+   * unchanged.
+   * @param executionId
+   * @param versionSetId
+   * @param status
+   * @return int
+   * @throws ExecutorManagerException
+   */
+  int updateVersionSetIdAndStatus(final int executionId, final int versionSetId,
+      final Status status) throws ExecutorManagerException;
+
+  /**
+   * Fetch the version set referenced by the given execution id.
+   * @param executionId
+   * @return Optional<VersionSet>
+   * @throws ExecutorManagerException
+   */
+  Optional<VersionSet> fetchVersionSet(final int executionId) throws ExecutorManagerException;
 }
@@ -27,7 +27,6 @@ import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.lang.Thread.State;
@@ -36,17 +35,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.commons.lang.StringUtils;
@@ -73,7 +77,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
   QueuedExecutions queuedFlows;
   File cacheDir;
   private QueueProcessorThread queueProcessor;
-  private volatile Pair<ExecutionReference, ExecutableFlow> runningCandidate = null;
+  // Executions taken from the queue and not yet dispatched or put back, keyed by execution id
+  private final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> dispatchingFlows =
+      new ConcurrentHashMap<>();
   private List<String> filterList;
   private Map<String, Integer> comparatorWeightsMap;
   private long lastSuccessfulExecutorInfoRefresh;
@@ -133,7 +139,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
         this.azkProps.getInt(
             Constants.ConfigurationKeys.MAX_DISPATCHING_ERRORS_PERMITTED,
             this.activeExecutors.getAll().size()),
-        this.sleepAfterDispatchFailure);
+        this.sleepAfterDispatchFailure,
+        this.azkProps.getInt(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_BATCH_SIZE, 1),
+        this.azkProps.getInt(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_THREADS, 5));
   }
 
   private void setupExecutorComparatorWeightsMap() {
@@ -171,7 +179,18 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
   @Override
   public void setupExecutors() throws ExecutorManagerException {
     checkMultiExecutorMode();
+    final Collection<Executor> previousExecutors = this.activeExecutors.getAll();
     this.activeExecutors.setupExecutors();
+    if (previousExecutors != null) {
+      // Drop the metrics of the executors which are no longer active.
+      final Set<Integer> activeExecutorIds = this.activeExecutors.getAll().stream()
+          .map(Executor::getId).collect(Collectors.toSet());
+      for (final Executor executor : previousExecutors) {
+        if (!activeExecutorIds.contains(executor.getId())) {
+          this.commonMetrics.removeExecutionUpdateLatency(executor.getId());
+        }
+      }
+    }
   }
 
   // TODO Enforced for now to ensure that users migrate to multi-executor mode acknowledgingly.
@@ -385,14 +404,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     final List<Integer> executionIds = new ArrayList<>();
     executionIds.addAll(ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
         this.queuedFlows.getAllEntries()));
-    // it's possible an execution is runningCandidate, meaning it's in dispatching state neither in queuedFlows nor runningFlows,
-    // so checks the runningCandidate as well.
-    if (this.runningCandidate != null) {
-      executionIds
-          .addAll(
-              ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
-                  Lists.newArrayList(this.runningCandidate)));
-    }
+    // it's possible an execution is being dispatched, meaning it's neither in queuedFlows nor runningFlows,
+    // so checks the dispatchingFlows as well.
+    executionIds.addAll(ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
+        this.dispatchingFlows.values()));
     executionIds.addAll(ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
         this.runningExecutions.get().values()));
     Collections.sort(executionIds);
@@ -643,6 +658,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
 
         this.executorLoader.addActiveExecutableReference(reference);
         this.queuedFlows.enqueue(exflow, reference);
+        if (this.queueProcessor != null) {
+          this.queueProcessor.wakeUp();
+        }
         message += "Execution queued successfully with exec id " + exflow.getExecutionId();
         this.commonMetrics.markSubmitFlowSuccess();
       }
@@ -716,6 +734,17 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     private final long activeExecutorRefreshWindowInMillisec;
     private final int activeExecutorRefreshWindowInFlows;
     private final Duration sleepAfterDispatchFailure;
+    private final int dispatchBatchSize;
+    private final ExecutorService dispatcherService;
+    // Executions put back in the queue because no executor could take them, since the last
+    // refresh of the executors. They are not tried again before the next refresh.
+    private final Set<Integer> requeuedSinceRefresh = ConcurrentHashMap.newKeySet();
+    // Notified when a flow is submitted, to stop waiting for the next refresh of the executors.
+    private final Object submitMonitor = new Object();
+    // Whether a flow was submitted since the last wait on the submitMonitor. Guarded by it.
+    private boolean flowSubmitted = false;
+    // Guards the capacity reserved in the ExecutorInfo of the executors by the placements.
+    private final Object reservationLock = new Object();
 
     private volatile boolean shutdown = false;
     private volatile boolean isActive = true;
@@ -724,7 +753,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
         final long activeExecutorRefreshWindowInTime,
         final int activeExecutorRefreshWindowInFlows,
         final int maxDispatchingErrors,
-        final Duration sleepAfterDispatchFailure) {
+        final Duration sleepAfterDispatchFailure,
+        final int dispatchBatchSize,
+        final int dispatchThreads) {
       setActive(isActive);
       this.maxDispatchingErrors = maxDispatchingErrors;
       this.activeExecutorRefreshWindowInFlows =
@@ -732,6 +763,11 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       this.activeExecutorRefreshWindowInMillisec =
           activeExecutorRefreshWindowInTime;
       this.sleepAfterDispatchFailure = sleepAfterDispatchFailure;
+      this.dispatchBatchSize = Math.max(1, dispatchBatchSize);
+      this.dispatcherService = Executors.newFixedThreadPool(
+          Math.max(1, Math.min(dispatchThreads, this.dispatchBatchSize)),
+          new ThreadFactoryBuilder().setNameFormat("azk-dispatcher-pool-%d").setDaemon(true)
+              .build());
       this.setName("AzkabanWebServer-QueueProcessor-Thread");
     }
 
@@ -746,9 +782,17 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
 
     public void shutdown() {
       this.shutdown = true;
+      this.dispatcherService.shutdownNow();
       this.interrupt();
     }
 
+    public void wakeUp() {
+      synchronized (this.submitMonitor) {
+        this.flowSubmitted = true;
+        this.submitMonitor.notifyAll();
+      }
+    }
+
     @Override
     public void run() {
       // Loops till QueueProcessorThread is shutdown
@@ -769,17 +813,41 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       }
     }
 
-    /* Method responsible for processing the non-dispatched flows */
+    /**
+     * Method responsible for processing the non-dispatched flows.
+     *
+     * <p>Takes up to dispatchBatchSize flows from the head of the queue, places them one by one
+     * against the same snapshot of the active executors, reserving the capacity taken by each
+     * placement, and dispatches them concurrently. The next batch is taken once all the flows of
+     * the batch are dispatched or put back in the queue.
+     */
     private void processQueuedFlows(final long activeExecutorsRefreshWindow,
         final int maxContinuousFlowProcessed) throws InterruptedException,
         ExecutorManagerException {
       long lastExecutorRefreshTime = 0;
       int currentContinuousFlowProcessed = 0;
 
-      while (isActive() && (ExecutorManager.this.runningCandidate = ExecutorManager.this.queuedFlows
-          .fetchHead()) != null) {
-        final ExecutionReference reference = ExecutorManager.this.runningCandidate.getFirst();
-        final ExecutableFlow exflow = ExecutorManager.this.runningCandidate.getSecond();
+      while (isActive()) {
+        /**
+         * <pre>
+         *  TODO: Work around till we improve Filters to have a notion of GlobalSystemState.
+         *        Currently we try each queued flow once to infer a global busy state
+         * Possible improvements:-
+         *   1. Move system level filters in refreshExecutors and sleep if we have all executors busy after refresh
+         *   2. Implement GlobalSystemState in selector or in a third place to manage system filters. Basically
+         *      taking out all the filters which do not depend on the flow but are still being part of Selector.
+         * Assumptions:-
+         *   1. re-attempting a flow (which has been tried before) is considered as all executors are busy
+         * </pre>
+         */
+        // Flows put back since the last refresh stay queued, so that the flows behind them,
+        // such as newly submitted ones, are still taken.
+        final List<Pair<ExecutionReference, ExecutableFlow>> batch =
+            ExecutorManager.this.queuedFlows.fetchHeads(this.dispatchBatchSize,
+                this.requeuedSinceRefresh::contains);
+        for (final Pair<ExecutionReference, ExecutableFlow> pair : batch) {
+          ExecutorManager.this.dispatchingFlows.put(pair.getSecond().getExecutionId(), pair);
+        }
         final long currentTime = System.currentTimeMillis();
 
         // if we have dispatched more than maxContinuousFlowProcessed or
@@ -790,56 +858,109 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
             || currentContinuousFlowProcessed >= maxContinuousFlowProcessed) {
           // Refresh executorInfo for all activeExecutors
           refreshExecutors();
+          this.requeuedSinceRefresh.clear();
           lastExecutorRefreshTime = currentTime;
           currentContinuousFlowProcessed = 0;
+        } else if (batch.isEmpty()) {
+          // Only flows already tried since the last refresh are queued: wait till next executor
+          // refresh, or till a new flow is submitted.
+          final long waitInterval =
+              activeExecutorsRefreshWindow - (System.currentTimeMillis() - lastExecutorRefreshTime);
+          awaitSubmit(waitInterval);
+          continue;
         }
 
-        /**
-         * <pre>
-         *  TODO: Work around till we improve Filters to have a notion of GlobalSystemState.
-         *        Currently we try each queued flow once to infer a global busy state
-         * Possible improvements:-
-         *   1. Move system level filters in refreshExecutors and sleep if we have all executors busy after refresh
-         *   2. Implement GlobalSystemState in selector or in a third place to manage system filters. Basically
-         *      taking out all the filters which do not depend on the flow but are still being part of Selector.
-         * Assumptions:-
-         *   1. no one else except QueueProcessor is updating ExecutableFlow update time
-         *   2. re-attempting a flow (which has been tried before) is considered as all executors are busy
-         * </pre>
-         */
-        if (exflow.getUpdateTime() > lastExecutorRefreshTime) {
-          // put back in the queue
-          ExecutorManager.this.queuedFlows.enqueue(exflow, reference);
-          ExecutorManager.this.runningCandidate = null;
-          final long sleepInterval =
-              activeExecutorsRefreshWindow
-                  - (currentTime - lastExecutorRefreshTime);
-          // wait till next executor refresh
-          Thread.sleep(sleepInterval);
-        } else {
-          exflow.setUpdateTime(currentTime);
-          // process flow with current snapshot of activeExecutors
-          selectExecutorAndDispatchFlow(reference, exflow);
-          ExecutorManager.this.runningCandidate = null;
+        final Map<Integer, Future<?>> dispatches = new HashMap<>();
+        try {
+          final Collection<Executor> executors = ExecutorManager.this.activeExecutors.getAll();
+          final ExecutorSelector selector = new ExecutorSelector(ExecutorManager.this.filterList,
+              ExecutorManager.this.comparatorWeightsMap);
+          for (final Pair<ExecutionReference, ExecutableFlow> pair : batch) {
+            final ExecutionReference reference = pair.getFirst();
+            final ExecutableFlow exflow = pair.getSecond();
+            exflow.setUpdateTime(currentTime);
+            // place flow with current snapshot of activeExecutors
+            final Executor selectedExecutor = selectExecutor(selector, exflow, executors);
+            if (selectedExecutor == null) {
+              ExecutorManager.this.commonMetrics.markDispatchFail();
+              handleNoExecutorSelectedCase(reference, exflow);
+              ExecutorManager.this.dispatchingFlows.remove(exflow.getExecutionId());
+              continue;
+            }
+            dispatches.put(exflow.getExecutionId(), this.dispatcherService.submit(() -> {
+              try {
+                selectExecutorAndDispatchFlow(reference, exflow, selectedExecutor);
+              } finally {
+                ExecutorManager.this.dispatchingFlows.remove(exflow.getExecutionId());
+              }
+              return null;
+            }));
+          }
+
+          for (final Map.Entry<Integer, Future<?>> dispatch : dispatches.entrySet()) {
+            final int executionId = dispatch.getKey();
+            try {
+              dispatch.getValue().get();
+            } catch (final ExecutionException e) {
+              ExecutorManager.logger.error("Failed to dispatch exec " + executionId, e.getCause());
+            }
+            // do not count failed flow processing (flows still in queue)
+            if (ExecutorManager.this.queuedFlows.getFlow(executionId) == null) {
+              currentContinuousFlowProcessed++;
+            }
+          }
+        } catch (final InterruptedException | RejectedExecutionException e) {
+          // Shutting down: the dispatches not started won't run, put their flows back in the queue.
+          requeueUndispatched(batch, dispatches);
+          throw e;
         }
+      }
+    }
 
-        // do not count failed flow processing (flows still in queue)
-        if (ExecutorManager.this.queuedFlows.getFlow(exflow.getExecutionId()) == null) {
-          currentContinuousFlowProcessed++;
+    /**
+     * Waits up to waitInterval for a flow to be submitted, unless one was submitted since the last
+     * wait.
+     */
+    private void awaitSubmit(final long waitInterval) throws InterruptedException {
+      synchronized (this.submitMonitor) {
+        if (!this.flowSubmitted && waitInterval > 0) {
+          this.submitMonitor.wait(waitInterval);
         }
+        this.flowSubmitted = false;
       }
     }
 
-    /* process flow with a snapshot of available Executors */
+    /* Put back in the queue the flows of the batch whose dispatch didn't start */
+    private void requeueUndispatched(final List<Pair<ExecutionReference, ExecutableFlow>> batch,
+        final Map<Integer, Future<?>> dispatches) throws ExecutorManagerException {
+      for (final Pair<ExecutionReference, ExecutableFlow> pair : batch) {
+        final ExecutableFlow exflow = pair.getSecond();
+        final Future<?> dispatch = dispatches.get(exflow.getExecutionId());
+        // A running dispatch completes on its own, the flows with no executor are already queued.
+        if ((dispatch == null || dispatch.cancel(false))
+            && ExecutorManager.this.dispatchingFlows.remove(exflow.getExecutionId()) != null) {
+          ExecutorManager.logger.info("Putting back in the queue exec " + exflow.getExecutionId()
+              + " whose dispatch didn't start");
+          ExecutorManager.this.queuedFlows.enqueue(exflow, pair.getFirst());
+        }
+      }
+    }
+
+    /* dispatch flow to the executor placed, or to the other available Executors on failure */
     private void selectExecutorAndDispatchFlow(final ExecutionReference reference,
-        final ExecutableFlow exflow)
+        final ExecutableFlow exflow, final Executor placedExecutor)
         throws ExecutorManagerException {
       final Set<Executor> remainingExecutors = new HashSet<>(
           ExecutorManager.this.activeExecutors.getAll());
       Throwable lastError;
+      Executor selectedExecutor = placedExecutor;
       synchronized (exflow) {
         do {
-          final Executor selectedExecutor = selectExecutor(exflow, remainingExecutors);
+          if (selectedExecutor == null) {
+            selectedExecutor = selectExecutor(new ExecutorSelector(
+                    ExecutorManager.this.filterList, ExecutorManager.this.comparatorWeightsMap),
+                exflow, remainingExecutors);
+          }
           if (selectedExecutor == null) {
             ExecutorManager.this.commonMetrics.markDispatchFail();
             handleNoExecutorSelectedCase(reference, exflow);
@@ -849,15 +970,19 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
             try {
               dispatch(reference, exflow, selectedExecutor);
               ExecutorManager.this.commonMetrics.markDispatchSuccess();
+              ExecutorManager.this.commonMetrics
+                  .addQueueWait(System.currentTimeMillis() - exflow.getSubmitTime());
               // SUCCESS - exit
               return;
             } catch (final ExecutorManagerException e) {
               lastError = e;
+              releaseReservation(selectedExecutor);
               logFailedDispatchAttempt(reference, exflow, selectedExecutor, e);
               ExecutorManager.this.commonMetrics.markDispatchFail();
               reference.setNumErrors(reference.getNumErrors() + 1);
               // FAILED ATTEMPT - try other executors except selectedExecutor
               updateRemainingExecutorsAndSleep(remainingExecutors, selectedExecutor);
+              selectedExecutor = null;
             }
           }
         } while (reference.getNumErrors() < this.maxDispatchingErrors);
@@ -935,9 +1060,12 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       return executor;
     }
 
-    /* Choose Executor for exflow among the available executors */
-    private Executor selectExecutor(final ExecutableFlow exflow,
-        final Set<Executor> availableExecutors) {
+    /**
+     * Choose Executor for exflow among the available executors, and reserve the capacity the flow
+     * takes on it until the next refresh of the executors.
+     */
+    private Executor selectExecutor(final ExecutorSelector selector, final ExecutableFlow exflow,
+        final Collection<Executor> availableExecutors) {
       Executor choosenExecutor =
           getUserSpecifiedExecutor(exflow.getExecutionOptions(),
               exflow.getExecutionId());
@@ -946,13 +1074,38 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       if (choosenExecutor == null) {
         ExecutorManager.logger.info("Using dispatcher for execution id :"
             + exflow.getExecutionId());
-        final ExecutorSelector selector = new ExecutorSelector(ExecutorManager.this.filterList,
-            ExecutorManager.this.comparatorWeightsMap);
-        choosenExecutor = selector.getBest(availableExecutors, exflow);
+        // Placements of the concurrent dispatches see each other's reservations.
+        synchronized (this.reservationLock) {
+          choosenExecutor = selector.getBest(availableExecutors, exflow);
+          reserve(choosenExecutor);
+        }
+      } else {
+        synchronized (this.reservationLock) {
+          reserve(choosenExecutor);
+        }
       }
       return choosenExecutor;
     }
 
+    private void reserve(final Executor executor) {
+      final ExecutorInfo executorInfo = executor == null ? null : executor.getExecutorInfo();
+      if (executorInfo != null) {
+        executorInfo.setRemainingFlowCapacity(executorInfo.getRemainingFlowCapacity() - 1);
+        executorInfo.setNumberOfAssignedFlows(executorInfo.getNumberOfAssignedFlows() + 1);
+        executorInfo.setLastDispatchedTime(System.currentTimeMillis());
+      }
+    }
+
+    private void releaseReservation(final Executor executor) {
+      synchronized (this.reservationLock) {
+        final ExecutorInfo executorInfo = executor.getExecutorInfo();
+        if (executorInfo != null) {
+          executorInfo.setRemainingFlowCapacity(executorInfo.getRemainingFlowCapacity() + 1);
+          executorInfo.setNumberOfAssignedFlows(executorInfo.getNumberOfAssignedFlows() - 1);
+        }
+      }
+    }
+
     private void handleNoExecutorSelectedCase(final ExecutionReference reference,
         final ExecutableFlow exflow) throws ExecutorManagerException {
       ExecutorManager.logger
@@ -962,6 +1115,7 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
                   exflow.getExecutionId(), reference.getNumErrors()));
       // TODO: handle scenario where a high priority flow failing to get
       // schedule can starve all others
+      this.requeuedSinceRefresh.add(exflow.getExecutionId());
       ExecutorManager.this.queuedFlows.enqueue(exflow, reference);
     }
   }
@@ -40,10 +40,17 @@ public class FetchActiveFlowDao {
   private static final Logger logger = Logger.getLogger(FetchActiveFlowDao.class);
 
   private final DatabaseOperator dbOperator;
+  private final ExecutionFlowUpdatesDao flowUpdatesDao;
 
-  @Inject
   public FetchActiveFlowDao(final DatabaseOperator dbOperator) {
+    this(dbOperator, new ExecutionFlowUpdatesDao(dbOperator));
+  }
+
+  @Inject
+  public FetchActiveFlowDao(final DatabaseOperator dbOperator,
+      final ExecutionFlowUpdatesDao flowUpdatesDao) {
     this.dbOperator = dbOperator;
+    this.flowUpdatesDao = flowUpdatesDao;
   }
 
   private static Pair<ExecutionReference, ExecutableFlow> getExecutableFlowHelper(
@@ -114,8 +121,11 @@ public class FetchActiveFlowDao {
   Map<Integer, Pair<ExecutionReference, ExecutableFlow>> fetchUnfinishedFlows()
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchActiveExecutableFlows.FETCH_UNFINISHED_EXECUTABLE_FLOWS,
+      final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> flows = this.dbOperator.query(
+          FetchActiveExecutableFlows.FETCH_UNFINISHED_EXECUTABLE_FLOWS,
           new FetchActiveExecutableFlows());
+      this.flowUpdatesDao.applyUpdatesToPairs(flows.values());
+      return flows;
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching unfinished flows", e);
     }
@@ -146,8 +156,11 @@ public class FetchActiveFlowDao {
   Map<Integer, Pair<ExecutionReference, ExecutableFlow>> fetchActiveFlows()
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchActiveExecutableFlows.FETCH_ACTIVE_EXECUTABLE_FLOWS,
+      final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> flows = this.dbOperator.query(
+          FetchActiveExecutableFlows.FETCH_ACTIVE_EXECUTABLE_FLOWS,
           new FetchActiveExecutableFlows());
+      this.flowUpdatesDao.applyUpdatesToPairs(flows.values());
+      return flows;
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flows", e);
     }
@@ -162,9 +175,13 @@ public class FetchActiveFlowDao {
   Pair<ExecutionReference, ExecutableFlow> fetchActiveFlowByExecId(final int execId)
       throws ExecutorManagerException {
     try {
-      return this.dbOperator.query(FetchActiveExecutableFlow
-              .FETCH_ACTIVE_EXECUTABLE_FLOW_BY_EXEC_ID,
+      final Pair<ExecutionReference, ExecutableFlow> flow = this.dbOperator.query(
+          FetchActiveExecutableFlow.FETCH_ACTIVE_EXECUTABLE_FLOW_BY_EXEC_ID,
           new FetchActiveExecutableFlow(), execId);
+      if (flow != null) {
+        this.flowUpdatesDao.applyUpdates(flow.getSecond());
+      }
+      return flow;
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flow by exec id" + execId, e);
     }
@@ -17,6 +17,7 @@ package azkaban.executor;
 
 import azkaban.DispatchMethod;
 import azkaban.executor.ExecutorLogEvent.EventType;
+import azkaban.imagemgmt.version.VersionSet;
 import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
@@ -24,6 +25,7 @@ import java.io.File;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -77,6 +79,18 @@ public class JdbcExecutorLoader implements ExecutorLoader {
     this.executionFlowDao.updateExecutableFlow(flow);
   }
 
+  @Override
+  public void appendExecutableFlowUpdate(final ExecutableFlow flow, final long lastUpdateTime)
+      throws ExecutorManagerException {
+    this.executionFlowDao.appendExecutableFlowUpdate(flow, lastUpdateTime);
+  }
+
+  @Override
+  public void compactExecutableFlow(final ExecutableFlow flow)
+      throws ExecutorManagerException {
+    this.executionFlowDao.compactExecutableFlow(flow);
+  }
+
   @Override
   public ExecutableFlow fetchExecutableFlow(final int id)
       throws ExecutorManagerException {
@@ -440,4 +454,16 @@ public class JdbcExecutorLoader implements ExecutorLoader {
       throws ExecutorManagerException {
     return this.executionFlowDao.updateVersionSetId(executionId, versionSetId);
   }
+
+  @Override
+  public int updateVersionSetIdAndStatus(final int executionId, final int versionSetId,
+      final Status status) throws ExecutorManagerException {
+    return this.executionFlowDao.updateVersionSetIdAndStatus(executionId, versionSetId, status);
+  }
+
+  @Override
+  public Optional<VersionSet> fetchVersionSet(final int executionId)
+      throws ExecutorManagerException {
+    return this.executionFlowDao.fetchVersionSet(executionId);
+  }
 }
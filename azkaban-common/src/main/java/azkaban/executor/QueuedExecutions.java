@@ -1,57 +1,144 @@
 package azkaban.executor;
 
 import azkaban.utils.Pair;
+import com.google.common.collect.Collections2;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
-import org.apache.log4j.Logger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
  * <pre>
  * Composite data structure to represent non-dispatched flows in webserver.
- * This data structure wraps a blocking queue and a concurrent hashmap.
+ * This data structure wraps an indexed priority queue and a concurrent hashmap.
  * </pre>
+ *
+ * <p>The queue is a binary heap ordered by {@link ExecutableFlowPriorityComparator} whose entries
+ * know their position in the heap, so that removing or reprioritizing a queued execution is
+ * O(log n) instead of a linear scan of the queue. Lookups only read the concurrent hashmap and
+ * never take the queue lock.
  */
 public class QueuedExecutions {
 
-  private static final Logger logger = Logger.getLogger(QueuedExecutions.class);
+  private static final int INITIAL_HEAP_CAPACITY = 16;
   final long capacity;
 
   /* map to easily access queued flows */
-  final private ConcurrentHashMap<Integer, Pair<ExecutionReference, ExecutableFlow>> queuedFlowMap;
+  final private ConcurrentHashMap<Integer, QueuedEntry> queuedFlowMap;
+  final private ExecutableFlowPriorityComparator comparator =
+      new ExecutableFlowPriorityComparator();
+  /* guards the heap, and the map updates so that both always hold the same executions */
+  final private ReentrantLock lock = new ReentrantLock();
+  final private Condition notEmpty = this.lock.newCondition();
   /* actual queue */
-  final private BlockingQueue<Pair<ExecutionReference, ExecutableFlow>> queuedFlowList;
+  private QueuedEntry[] heap = new QueuedEntry[INITIAL_HEAP_CAPACITY];
+  private volatile int heapSize = 0;
 
   public QueuedExecutions(final long capacity) {
     this.capacity = capacity;
     this.queuedFlowMap =
         new ConcurrentHashMap<>();
-    this.queuedFlowList =
-        new PriorityBlockingQueue<>(10,
-            new ExecutableFlowPriorityComparator());
   }
 
   /**
-   * Wraps BoundedQueue Take method to have a corresponding update in queuedFlowMap lookup table
+   * Removes the head of the queue, waiting for an execution to be queued if it is empty
    */
   public Pair<ExecutionReference, ExecutableFlow> fetchHead()
       throws InterruptedException {
-    final Pair<ExecutionReference, ExecutableFlow> pair = this.queuedFlowList.take();
-    if (pair != null && pair.getFirst() != null) {
-      this.queuedFlowMap.remove(pair.getFirst().getExecId());
+    this.lock.lockInterruptibly();
+    try {
+      while (this.heapSize == 0) {
+        this.notEmpty.await();
+      }
+      final QueuedEntry entry = removeAt(0);
+      this.queuedFlowMap.remove(entry.execId);
+      return entry.pair;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes up to maxCount executions from the head of the queue, in priority order, waiting for
+   * an execution to be queued if it is empty
+   */
+  public List<Pair<ExecutionReference, ExecutableFlow>> fetchHeads(final int maxCount)
+      throws InterruptedException {
+    return fetchHeads(maxCount, executionId -> false);
+  }
+
+  /**
+   * Removes up to maxCount executions from the head of the queue, in priority order, passing over
+   * the executions to skip, which stay queued. Waits for an execution to be queued if it is empty,
+   * and returns an empty list if all the queued executions are skipped.
+   */
+  public List<Pair<ExecutionReference, ExecutableFlow>> fetchHeads(final int maxCount,
+      final Predicate<Integer> skip) throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      while (this.heapSize == 0) {
+        this.notEmpty.await();
+      }
+      final List<Pair<ExecutionReference, ExecutableFlow>> heads =
+          new ArrayList<>(Math.min(maxCount, this.heapSize));
+      final List<QueuedEntry> skipped = new ArrayList<>();
+      while (heads.size() < maxCount && this.heapSize > 0) {
+        final QueuedEntry entry = removeAt(0);
+        if (skip.test(entry.execId)) {
+          skipped.add(entry);
+        } else {
+          this.queuedFlowMap.remove(entry.execId);
+          heads.add(entry.pair);
+        }
+      }
+      // The skipped entries were kept in the map, only their place in the heap is restored.
+      for (final QueuedEntry entry : skipped) {
+        final int index = this.heapSize;
+        this.heapSize = index + 1;
+        siftUp(index, entry);
+      }
+      return heads;
+    } finally {
+      this.lock.unlock();
     }
-    return pair;
   }
 
   /**
    * Helper method to have a single point of deletion in the queued flows
    */
   public void dequeue(final int executionId) {
-    if (this.queuedFlowMap.containsKey(executionId)) {
-      this.queuedFlowList.remove(this.queuedFlowMap.get(executionId));
-      this.queuedFlowMap.remove(executionId);
+    this.lock.lock();
+    try {
+      final QueuedEntry entry = this.queuedFlowMap.remove(executionId);
+      if (entry != null) {
+        removeAt(entry.heapIndex);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Restores the position of a queued execution after a change of its priority or update time.
+   * Does nothing if the execution is not queued.
+   */
+  public void reprioritize(final int executionId) {
+    this.lock.lock();
+    try {
+      final QueuedEntry entry = this.queuedFlowMap.get(executionId);
+      if (entry != null) {
+        siftDown(entry.heapIndex, entry);
+        if (this.heap[entry.heapIndex] == entry) {
+          siftUp(entry.heapIndex, entry);
+        }
+      }
+    } finally {
+      this.lock.unlock();
     }
   }
 
@@ -64,28 +151,26 @@ public class QueuedExecutions {
    * @param ref
    *          reference to be enqueued
    * @throws ExecutorManagerException
-   *           case 1: if blocking queue put method fails due to
-   *           InterruptedException
-   *           case 2: if there already an element with
-   *           same execution Id
+   *           if there already an element with same execution Id
    * </pre>
    */
   public void enqueue(final ExecutableFlow exflow, final ExecutionReference ref)
       throws ExecutorManagerException {
-    if (hasExecution(exflow.getExecutionId())) {
-      final String errMsg = "Flow already in queue " + exflow.getExecutionId();
-      throw new ExecutorManagerException(errMsg);
-    }
-
-    final Pair<ExecutionReference, ExecutableFlow> pair =
-        new Pair<>(ref, exflow);
+    final QueuedEntry entry = new QueuedEntry(new Pair<>(ref, exflow));
+    this.lock.lock();
     try {
-      this.queuedFlowMap.put(exflow.getExecutionId(), pair);
-      this.queuedFlowList.put(pair);
-    } catch (final InterruptedException e) {
-      final String errMsg = "Failed to insert flow " + exflow.getExecutionId();
-      logger.error(errMsg, e);
-      throw new ExecutorManagerException(errMsg);
+      if (this.queuedFlowMap.putIfAbsent(entry.execId, entry) != null) {
+        throw new ExecutorManagerException("Flow already in queue " + entry.execId);
+      }
+      if (this.heapSize == this.heap.length) {
+        this.heap = Arrays.copyOf(this.heap, this.heap.length * 2);
+      }
+      final int index = this.heapSize;
+      this.heapSize = index + 1;
+      siftUp(index, entry);
+      this.notEmpty.signal();
+    } finally {
+      this.lock.unlock();
     }
   }
 
@@ -96,10 +181,7 @@ public class QueuedExecutions {
    * @param collection
    *
    * @throws ExecutorManagerException
-   *           case 1: if blocking queue put method fails due to
-   *           InterruptedException
-   *           case 2: if there already an element with
-   *           same execution Id
+   *           if there already an element with same execution Id
    * </pre>
    */
   public void enqueueAll(
@@ -114,7 +196,8 @@ public class QueuedExecutions {
    * Returns a read only collection of all the queued (flows, reference) pairs
    */
   public Collection<Pair<ExecutionReference, ExecutableFlow>> getAllEntries() {
-    return Collections.unmodifiableCollection(this.queuedFlowMap.values());
+    return Collections.unmodifiableCollection(
+        Collections2.transform(this.queuedFlowMap.values(), entry -> entry.pair));
   }
 
   /**
@@ -128,27 +211,23 @@ public class QueuedExecutions {
    * Fetch flow for an execution. Returns null, if execution not in queue
    */
   public ExecutableFlow getFlow(final int executionId) {
-    if (hasExecution(executionId)) {
-      return this.queuedFlowMap.get(executionId).getSecond();
-    }
-    return null;
+    final QueuedEntry entry = this.queuedFlowMap.get(executionId);
+    return entry == null ? null : entry.pair.getSecond();
   }
 
   /**
    * Fetch Activereference for an execution. Returns null, if execution not in queue
    */
   public ExecutionReference getReference(final int executionId) {
-    if (hasExecution(executionId)) {
-      return this.queuedFlowMap.get(executionId).getFirst();
-    }
-    return null;
+    final QueuedEntry entry = this.queuedFlowMap.get(executionId);
+    return entry == null ? null : entry.pair.getFirst();
   }
 
   /**
    * Size of the queue
    */
   public long size() {
-    return this.queuedFlowList.size();
+    return this.heapSize;
   }
 
   /**
@@ -162,15 +241,88 @@ public class QueuedExecutions {
    * Verify, if queue is empty or not
    */
   public boolean isEmpty() {
-    return this.queuedFlowList.isEmpty() && this.queuedFlowMap.isEmpty();
+    return this.heapSize == 0 && this.queuedFlowMap.isEmpty();
   }
 
   /**
    * Empties queue by dequeuing all the elements
    */
   public void clear() {
-    for (final Pair<ExecutionReference, ExecutableFlow> pair : this.queuedFlowMap.values()) {
-      dequeue(pair.getFirst().getExecId());
+    this.lock.lock();
+    try {
+      Arrays.fill(this.heap, 0, this.heapSize, null);
+      this.heapSize = 0;
+      this.queuedFlowMap.clear();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /* Removes the entry at index from the heap. Must hold the lock. */
+  private QueuedEntry removeAt(final int index) {
+    final QueuedEntry removed = this.heap[index];
+    final int last = this.heapSize - 1;
+    final QueuedEntry moved = this.heap[last];
+    this.heap[last] = null;
+    this.heapSize = last;
+    if (index != last) {
+      siftDown(index, moved);
+      if (this.heap[index] == moved) {
+        siftUp(index, moved);
+      }
+    }
+    removed.heapIndex = -1;
+    return removed;
+  }
+
+  /* Moves entry up from index to its place. Must hold the lock. */
+  private void siftUp(int index, final QueuedEntry entry) {
+    while (index > 0) {
+      final int parent = (index - 1) >>> 1;
+      final QueuedEntry parentEntry = this.heap[parent];
+      if (this.comparator.compare(entry.pair, parentEntry.pair) >= 0) {
+        break;
+      }
+      place(index, parentEntry);
+      index = parent;
+    }
+    place(index, entry);
+  }
+
+  /* Moves entry down from index to its place. Must hold the lock. */
+  private void siftDown(int index, final QueuedEntry entry) {
+    final int half = this.heapSize >>> 1;
+    while (index < half) {
+      int child = (index << 1) + 1;
+      final int right = child + 1;
+      if (right < this.heapSize
+          && this.comparator.compare(this.heap[right].pair, this.heap[child].pair) < 0) {
+        child = right;
+      }
+      if (this.comparator.compare(entry.pair, this.heap[child].pair) <= 0) {
+        break;
+      }
+      place(index, this.heap[child]);
+      index = child;
+    }
+    place(index, entry);
+  }
+
+  private void place(final int index, final QueuedEntry entry) {
+    this.heap[index] = entry;
+    entry.heapIndex = index;
+  }
+
+  /* A queued (reference, flow) pair and its current position in the heap */
+  private static class QueuedEntry {
+
+    private final Pair<ExecutionReference, ExecutableFlow> pair;
+    private final int execId;
+    private int heapIndex = -1;
+
+    QueuedEntry(final Pair<ExecutionReference, ExecutableFlow> pair) {
+      this.pair = pair;
+      this.execId = pair.getSecond().getExecutionId();
     }
   }
 }
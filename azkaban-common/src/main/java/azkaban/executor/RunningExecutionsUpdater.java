@@ -16,21 +16,32 @@
 
 package azkaban.executor;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.alert.Alerter;
 import azkaban.metrics.CommonMetrics;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
 import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 
 /**
- * Updates running executions.
+ * Updates running executions. The executors are called concurrently, each call bounded by its own
+ * deadline, so that one slow executor doesn't delay the updates of the executions running on the
+ * others.
  */
 public class RunningExecutionsUpdater {
 
@@ -48,12 +59,24 @@ public class RunningExecutionsUpdater {
   private final RunningExecutions runningExecutions;
   private final ExecutionFinalizer executionFinalizer;
   private final ExecutorLoader executorLoader;
+  private final ExecutorService updaterService;
+  private final long updateTimeoutMs;
+  // Update calls which may still be running with the flows they update, by executor id. Only
+  // accessed by the updater thread.
+  private final Map<Integer, Pair<List<ExecutableFlow>, Future<Map<String, Object>>>>
+      inFlightUpdates = new HashMap<>();
 
   @Inject
-  public RunningExecutionsUpdater(final ExecutorManagerUpdaterStage updaterStage,
+  public RunningExecutionsUpdater(final Props azkProps,
+      final ExecutorManagerUpdaterStage updaterStage,
       final AlerterHolder alerterHolder, final CommonMetrics commonMetrics,
       final ExecutorApiGateway apiGateway, final RunningExecutions runningExecutions,
       final ExecutionFinalizer executionFinalizer, final ExecutorLoader executorLoader) {
+    this.updaterService = Executors.newFixedThreadPool(
+        azkProps.getInt(ConfigurationKeys.EXECUTION_UPDATE_MAX_THREADS, 10),
+        new ThreadFactoryBuilder().setNameFormat("azk-execution-updater-pool-%d").setDaemon(true)
+            .build());
+    this.updateTimeoutMs = azkProps.getLong(ConfigurationKeys.EXECUTION_UPDATE_TIMEOUT_MS, 30000L);
     this.updaterStage = updaterStage;
     this.alerterHolder = alerterHolder;
     this.commonMetrics = commonMetrics;
@@ -73,6 +96,9 @@ public class RunningExecutionsUpdater {
     final ArrayList<ExecutableFlow> finalizeFlows =
         new ArrayList<>();
 
+    final List<Pair<Entry<Optional<Executor>, List<ExecutableFlow>>, Future<Map<String, Object>>>>
+        futures = new ArrayList<>();
+    final long deadline = System.currentTimeMillis() + this.updateTimeoutMs;
     for (final Map.Entry<Optional<Executor>, List<ExecutableFlow>> entry : exFlowMap
         .entrySet()) {
 
@@ -89,10 +115,18 @@ public class RunningExecutionsUpdater {
 
       this.updaterStage.set("Starting update flows on " + executor.getHost() + ":"
           + executor.getPort());
+      futures.add(new Pair<>(entry, submitUpdate(executor, entry.getValue())));
+    }
+
+    // Results are merged on this thread only, the pool threads just call the executors.
+    for (final Pair<Entry<Optional<Executor>, List<ExecutableFlow>>, Future<Map<String, Object>>>
+        updatePair : futures) {
+      final Entry<Optional<Executor>, List<ExecutableFlow>> entry = updatePair.getFirst();
+      final Executor executor = entry.getKey().get();
 
       Map<String, Object> results = null;
       try {
-        results = this.apiGateway.updateExecutions(executor, entry.getValue());
+        results = getUpdateResults(executor, updatePair.getSecond(), deadline);
       } catch (final ExecutorManagerException e) {
         handleException(entry, executor, e, finalizeFlows);
       }
@@ -133,6 +167,79 @@ public class RunningExecutionsUpdater {
     this.updaterStage.set("Updated all active flows. Waiting for next round.");
   }
 
+  /**
+   * Stops the update calls still running.
+   */
+  public void shutdown() {
+    this.updaterService.shutdownNow();
+  }
+
+  /**
+   * Submit the update call to the executor on the updater pool. If the previous call to the same
+   * executor is still running, its result is awaited instead, so that pool threads don't pile up
+   * on a hung executor. The flows that call doesn't update, such as those which started running
+   * since, are only updated in a later round.
+   */
+  private Future<Map<String, Object>> submitUpdate(final Executor executor,
+      final List<ExecutableFlow> flows) {
+    final Pair<List<ExecutableFlow>, Future<Map<String, Object>>> inFlight =
+        this.inFlightUpdates.get(executor.getId());
+    if (inFlight != null && !inFlight.getSecond().isDone()) {
+      final List<Integer> skippedExecIds = new ArrayList<>();
+      for (final ExecutableFlow flow : flows) {
+        if (!inFlight.getFirst().contains(flow)) {
+          skippedExecIds.add(flow.getExecutionId());
+        }
+      }
+      if (!skippedExecIds.isEmpty()) {
+        logger.info("Not updating executions " + skippedExecIds + " on executor "
+            + executor.getHost() + ":" + executor.getPort()
+            + " in this round, its previous update call is still running");
+      }
+      return inFlight.getSecond();
+    }
+    final Future<Map<String, Object>> future = this.updaterService.submit(() -> {
+      final long startTime = System.currentTimeMillis();
+      try {
+        return this.apiGateway.updateExecutions(executor, flows);
+      } finally {
+        this.commonMetrics.addExecutionUpdateLatency(executor.getId(),
+            System.currentTimeMillis() - startTime);
+      }
+    });
+    this.inFlightUpdates.put(executor.getId(), new Pair<>(flows, future));
+    return future;
+  }
+
+  /**
+   * Wait for the update call to the executor to return, at most until the deadline.
+   */
+  private Map<String, Object> getUpdateResults(final Executor executor,
+      final Future<Map<String, Object>> future, final long deadline)
+      throws ExecutorManagerException {
+    try {
+      final Map<String, Object> results =
+          future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      this.inFlightUpdates.remove(executor.getId());
+      return results;
+    } catch (final TimeoutException e) {
+      // Keep the future in flight, the executor isn't called again until this call returns.
+      throw new ExecutorManagerException("Timed out while waiting for update from executor "
+          + executor.getHost() + ":" + executor.getPort(), e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorManagerException("Interrupted while waiting for update from executor "
+          + executor.getHost() + ":" + executor.getPort(), e);
+    } catch (final ExecutionException e) {
+      this.inFlightUpdates.remove(executor.getId());
+      if (e.getCause() instanceof ExecutorManagerException) {
+        throw (ExecutorManagerException) e.getCause();
+      }
+      throw new ExecutorManagerException("Failed to get update from executor "
+          + executor.getHost() + ":" + executor.getPort(), e.getCause());
+    }
+  }
+
   private void handleException(final Entry<Optional<Executor>, List<ExecutableFlow>> entry,
       final Executor executor, final ExecutorManagerException e,
       final ArrayList<ExecutableFlow> finalizeFlows) {
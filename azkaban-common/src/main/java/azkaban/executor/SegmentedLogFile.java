@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.utils.GZIPUtils;
+import azkaban.utils.GZIPUtils.GzipCompressor;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Layout of a log kept in a {@link azkaban.spi.LogStorage}.
+ *
+ * <p>The log is split in segments of segmentSize bytes, the last one possibly shorter. Each
+ * segment is compressed as an independent gzip member and the members are concatenated, so the
+ * file is still readable as a whole by any gzip reader. The offsets of the members are kept in the
+ * index row of the log, which allows reading and decoding only the segments of a byte range.
+ */
+final class SegmentedLogFile {
+
+  private final int logLength;
+  private final int segmentSize;
+  // Offset of each segment in the file, followed by the length of the file.
+  private final long[] offsets;
+
+  SegmentedLogFile(final int logLength, final int segmentSize, final long[] offsets) {
+    this.logLength = logLength;
+    this.segmentSize = segmentSize;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Writes the concatenated files to target.
+   */
+  static SegmentedLogFile write(final File[] files, final File target, final int segmentSize)
+      throws IOException {
+    final byte[] buffer = new byte[segmentSize];
+    long[] offsets = new long[segmentsOf(totalLength(files), segmentSize) + 1];
+    int numSegments = 0;
+    int logLength = 0;
+    long offset = 0;
+    try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(target));
+        final GzipCompressor compressor = new GzipCompressor()) {
+      int pos = 0;
+      for (final File file : files) {
+        try (final InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+          int size = in.read(buffer, pos, buffer.length - pos);
+          while (size >= 0) {
+            pos += size;
+            if (pos == buffer.length) {
+              offsets = ensureCapacity(offsets, numSegments + 1);
+              offsets[numSegments++] = offset;
+              offset += writeSegment(out, compressor, buffer, pos);
+              logLength += pos;
+              pos = 0;
+            }
+            size = in.read(buffer, pos, buffer.length - pos);
+          }
+        }
+      }
+      if (pos > 0) {
+        offsets = ensureCapacity(offsets, numSegments + 1);
+        offsets[numSegments++] = offset;
+        offset += writeSegment(out, compressor, buffer, pos);
+        logLength += pos;
+      }
+    }
+    offsets = ensureCapacity(offsets, numSegments + 1);
+    offsets[numSegments] = offset;
+    return new SegmentedLogFile(logLength, segmentSize, Arrays.copyOf(offsets, numSegments + 1));
+  }
+
+  private static int writeSegment(final OutputStream out, final GzipCompressor compressor,
+      final byte[] buffer, final int length) throws IOException {
+    final byte[] compressed = compressor.gzip(buffer, 0, length);
+    out.write(compressed);
+    return compressed.length;
+  }
+
+  // The files are not expected to grow while uploaded, but their initial length is only a hint.
+  private static long[] ensureCapacity(final long[] offsets, final int index) {
+    return index < offsets.length ? offsets : Arrays.copyOf(offsets, offsets.length * 2 + 1);
+  }
+
+  private static long totalLength(final File[] files) {
+    long length = 0;
+    for (final File file : files) {
+      length += file.length();
+    }
+    return length;
+  }
+
+  private static int segmentsOf(final long length, final int segmentSize) {
+    return (int) ((length + segmentSize - 1) / segmentSize);
+  }
+
+  /**
+   * Restores the layout from the index row written along with the file.
+   */
+  static SegmentedLogFile fromIndex(final int logLength, final int segmentSize,
+      final byte[] encodedOffsets) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encodedOffsets);
+    final long[] offsets = new long[encodedOffsets.length / Long.BYTES];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = buffer.getLong();
+    }
+    return new SegmentedLogFile(logLength, segmentSize, offsets);
+  }
+
+  byte[] encodeOffsets() {
+    final ByteBuffer buffer = ByteBuffer.allocate(this.offsets.length * Long.BYTES);
+    for (final long offset : this.offsets) {
+      buffer.putLong(offset);
+    }
+    return buffer.array();
+  }
+
+  int getLogLength() {
+    return this.logLength;
+  }
+
+  int getSegmentSize() {
+    return this.segmentSize;
+  }
+
+  int getSegment(final int byteOffset) {
+    return byteOffset / this.segmentSize;
+  }
+
+  int getSegmentStart(final int segment) {
+    return segment * this.segmentSize;
+  }
+
+  int getSegmentEnd(final int segment) {
+    return Math.min(this.logLength, (segment + 1) * this.segmentSize);
+  }
+
+  long getOffset(final int segment) {
+    return this.offsets[segment];
+  }
+
+  /**
+   * Decodes a segment out of the compressed bytes read from the offset of segment firstSegment.
+   */
+  byte[] decodeSegment(final byte[] compressed, final int firstSegment, final int segment)
+      throws IOException {
+    final int from = (int) (this.offsets[segment] - this.offsets[firstSegment]);
+    final int to = (int) (this.offsets[segment + 1] - this.offsets[firstSegment]);
+    return GZIPUtils.unGzipBytes(Arrays.copyOfRange(compressed, from, to));
+  }
+}
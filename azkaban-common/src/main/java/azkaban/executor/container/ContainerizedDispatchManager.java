@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -223,6 +224,20 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
     }
   }
 
+  /**
+   * Submit the flow to the database queue and wake up the queue processor, so that a
+   * containerized execution is picked up right away instead of on the next poll.
+   */
+  @Override
+  public String submitExecutableFlow(final ExecutableFlow exflow, final String userId)
+      throws ExecutorManagerException {
+    final String message = super.submitExecutableFlow(exflow, userId);
+    if (exflow.getDispatchMethod() == DispatchMethod.CONTAINERIZED && this.queueProcessor != null) {
+      this.queueProcessor.wakeUp();
+    }
+    return message;
+  }
+
   private QueueProcessorThread setupQueueProcessor() {
     return new QueueProcessorThread(
         this.azkProps, this.executorLoader);
@@ -264,6 +279,7 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
     if (null != this.queueProcessor) {
       this.queueProcessor.shutdown();
     }
+    this.containerizedImpl.shutdown();
 
     if (this.azkProps.getBoolean(ContainerizedDispatchManagerProperties.KUBERNETES_WATCH_ENABLED,
         false) && containerizedWatch.isPresent()) {
@@ -302,10 +318,19 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
 
   /**
    * This QueueProcessorThread will fetch executions from database in batch/single execution at a
-   * time and dispatch it in container.
+   * time and dispatch it in container. When the queue is empty, the thread waits until it is woken
+   * up by a submission or until a jittered poll interval elapses. The poll interval doubles on
+   * every idle poll, from the configured minimum up to the configured maximum, and is reset as
+   * soon as an execution is dispatched.
    */
   private class QueueProcessorThread extends Thread {
 
+    private static final long DEFAULT_MIN_BACKOFF_MS = 100;
+    private static final long DEFAULT_MAX_BACKOFF_MS = 5000;
+    // Fraction of the poll interval added as random jitter, so that the web servers sharing the
+    // queue don't lock it at the same time.
+    private static final double POLL_JITTER_FRACTION = 0.2;
+
     private final Props azkProps;
     private volatile boolean shutdown = false;
     private volatile boolean isActive = true;
@@ -313,6 +338,11 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
     private ExecutorLoader executorLoader;
     private boolean executionsBatchProcessingEnabled;
     private int executionsBatchSize;
+    private final long minBackoffMs;
+    private final long maxBackoffMs;
+    private final Object wakeUpMonitor = new Object();
+    // Guarded by wakeUpMonitor
+    private boolean wakeUpRequested = false;
 
     public QueueProcessorThread(final Props azkProps, final ExecutorLoader executorLoader) {
       this.azkProps = azkProps;
@@ -329,33 +359,102 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
       this.executorService = Executors.newFixedThreadPool(azkProps.getInt(
           ContainerizedDispatchManagerProperties.CONTAINERIZED_EXECUTION_PROCESSING_THREAD_POOL_SIZE,
           10));
+      this.minBackoffMs = Math.max(1, azkProps
+          .getLong(ContainerizedDispatchManagerProperties.CONTAINERIZED_QUEUE_PROCESSOR_MIN_BACKOFF_MS,
+              DEFAULT_MIN_BACKOFF_MS));
+      this.maxBackoffMs = Math.max(this.minBackoffMs, azkProps
+          .getLong(ContainerizedDispatchManagerProperties.CONTAINERIZED_QUEUE_PROCESSOR_MAX_BACKOFF_MS,
+              DEFAULT_MAX_BACKOFF_MS));
       this.setName("Containerized-QueueProcessor-Thread");
     }
 
     @Override
     public void run() {
+      long backoffMs = this.minBackoffMs;
+      boolean wokenUp = false;
       // Loops till QueueProcessorThread is shutdown
       while (!this.shutdown) {
         try {
           // Start processing queue if active, otherwise wait for sometime
           if (this.isActive) {
-            processQueuedFlows();
+            if (processQueuedFlows() > 0) {
+              // Keep draining the queue without waiting while there is work
+              backoffMs = this.minBackoffMs;
+              wokenUp = false;
+              continue;
+            }
+            if (wokenUp) {
+              ContainerizedDispatchManager.this.commonMetrics.markQueueProcessorIdleWakeup();
+            }
+          }
+          if (waitForWakeUp(withJitter(backoffMs))) {
+            backoffMs = this.minBackoffMs;
+          } else {
+            backoffMs = Math.min(backoffMs * 2, this.maxBackoffMs);
           }
+          wokenUp = true;
+        } catch (final InterruptedException e) {
+          ContainerizedDispatchManager.logger.info(
+              "QueueProcessorThread Interrupted. Probably to shut down.");
         } catch (final Exception e) {
           ContainerizedDispatchManager.logger.error(
-              "QueueProcessorThread Interrupted. Probably to shut down.", e);
+              "QueueProcessorThread failed to process queued flows.", e);
+          // Avoid hammering the database while it keeps failing
+          backoffMs = Math.min(backoffMs * 2, this.maxBackoffMs);
+          wokenUp = false;
+          try {
+            waitForWakeUp(withJitter(backoffMs));
+          } catch (final InterruptedException ie) {
+            ContainerizedDispatchManager.logger.info(
+                "QueueProcessorThread Interrupted. Probably to shut down.");
+          }
         }
       }
     }
 
+    /**
+     * Wake up the thread if it is waiting for executions to be queued.
+     */
+    public void wakeUp() {
+      synchronized (this.wakeUpMonitor) {
+        this.wakeUpRequested = true;
+        this.wakeUpMonitor.notifyAll();
+      }
+    }
+
+    /**
+     * Wait until {@link #wakeUp()} is called or the timeout elapses.
+     *
+     * @return true if the thread was woken up, false if the timeout elapsed.
+     */
+    private boolean waitForWakeUp(final long timeoutMs) throws InterruptedException {
+      final long deadline = System.currentTimeMillis() + timeoutMs;
+      synchronized (this.wakeUpMonitor) {
+        long remaining = timeoutMs;
+        while (!this.wakeUpRequested && !this.shutdown && remaining > 0) {
+          this.wakeUpMonitor.wait(remaining);
+          remaining = deadline - System.currentTimeMillis();
+        }
+        final boolean signalled = this.wakeUpRequested;
+        this.wakeUpRequested = false;
+        return signalled;
+      }
+    }
+
+    private long withJitter(final long intervalMs) {
+      return intervalMs
+          + (long) (ThreadLocalRandom.current().nextDouble() * POLL_JITTER_FRACTION * intervalMs);
+    }
+
     /**
      * This method is responsible for dispatching the executions in queue in READY state. It will
      * fetch single execution or in batch based on the property. The batch size can also be defined
      * in property.
      *
+     * @return the number of executions picked up for dispatch
      * @throws ExecutorManagerException
      */
-    private void processQueuedFlows() throws ExecutorManagerException {
+    private int processQueuedFlows() throws ExecutorManagerException {
       final Set<Integer> executionIds =
           executorLoader.selectAndUpdateExecutionWithLocking(this.executionsBatchProcessingEnabled,
               this.executionsBatchSize,
@@ -364,15 +463,19 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
       for (final int executionId : executionIds) {
         rateLimiter.acquire();
         logger.info("Starting dispatch for {} execution.", executionId);
-        Runnable worker = new ExecutionDispatcher(executionId);
-        // Fetch an executable flow based on execution id and report an dispatching event
+        // Fetch an executable flow based on execution id and report an dispatching event. The
+        // same flow is used to create the container.
         final ExecutableFlow flow = this.executorLoader.fetchExecutableFlow(executionId);
+        Runnable worker = new ExecutionDispatcher(flow);
+        ContainerizedDispatchManager.this.commonMetrics
+            .addQueueWait(System.currentTimeMillis() - flow.getSubmitTime());
         ContainerizedDispatchManager.this.fireEventListeners(Event.create(flow,
             EventType.FLOW_STATUS_CHANGED,
             new EventData(flow)));
 
         executorService.execute(worker);
       }
+      return executionIds.size();
     }
 
     public boolean isActive() {
@@ -383,6 +486,9 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
       this.isActive = isActive;
       ContainerizedDispatchManager.logger
           .info("QueueProcessorThread turned " + this.isActive);
+      if (isActive) {
+        wakeUp();
+      }
     }
 
     /**
@@ -391,6 +497,7 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
     public void shutdown() {
       this.shutdown = true;
       this.executorService.shutdown();
+      wakeUp();
       this.interrupt();
     }
   }
@@ -400,10 +507,12 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
    */
   private class ExecutionDispatcher implements Runnable {
 
+    private final ExecutableFlow flow;
     private final int executionId;
 
-    ExecutionDispatcher(final int executionId) {
-      this.executionId = executionId;
+    ExecutionDispatcher(final ExecutableFlow flow) {
+      this.flow = flow;
+      this.executionId = flow.getExecutionId();
     }
 
     @Override
@@ -414,7 +523,7 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
         // Create a container for execution id. The container creation will throw exception if it
         //is not able read template files, unable to parse files, unable to replace dynamic
         //variables etc.
-        ContainerizedDispatchManager.this.containerizedImpl.createContainer(executionId);
+        ContainerizedDispatchManager.this.containerizedImpl.createContainer(this.flow);
         logger.info("Time taken to dispatch a container for {} is {} seconds", executionId,
             (System.currentTimeMillis() - startTime) / 1000);
       } catch (ExecutorManagerException e) {
@@ -15,9 +15,19 @@
  */
 package azkaban.executor.container;
 
+import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutorManagerException;
 
 public interface ContainerizedImpl {
   void createContainer(final int executionId) throws ExecutorManagerException;
+  /**
+   * Creates the container of an execution already loaded by the caller, saving a fetch of the
+   * flow.
+   */
+  void createContainer(final ExecutableFlow flow) throws ExecutorManagerException;
   void deleteContainer(final int executionId) throws ExecutorManagerException;
+  /**
+   * Stops the background work of the implementation, called when the web server shuts down.
+   */
+  void shutdown();
 }
@@ -34,10 +34,13 @@ import azkaban.event.Event;
 import azkaban.event.EventData;
 import azkaban.event.EventHandler;
 import azkaban.event.EventListener;
+import azkaban.executor.ConnectorParams;
 import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorApiGateway;
 import azkaban.executor.ExecutorLoader;
 import azkaban.executor.ExecutorManagerException;
 import azkaban.executor.Status;
+import azkaban.executor.container.WarmPodPool.WarmPod;
 import azkaban.executor.container.watch.KubernetesWatch;
 import azkaban.imagemgmt.models.ImageVersion.State;
 import azkaban.imagemgmt.rampup.ImageRampupManager;
@@ -45,34 +48,48 @@ import azkaban.imagemgmt.version.VersionInfo;
 import azkaban.imagemgmt.version.VersionSet;
 import azkaban.imagemgmt.version.VersionSetBuilder;
 import azkaban.imagemgmt.version.VersionSetLoader;
+import azkaban.metrics.ContainerizationMetrics;
 import azkaban.spi.EventType;
 import azkaban.utils.Props;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.custom.IntOrString;
+import io.kubernetes.client.custom.V1Patch;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1DeleteOptions;
 import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
 import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.openapi.models.V1Probe;
 import io.kubernetes.client.openapi.models.V1Service;
 import io.kubernetes.client.openapi.models.V1Status;
+import io.kubernetes.client.openapi.models.V1TCPSocketAction;
 import io.kubernetes.client.util.ClientBuilder;
 import io.kubernetes.client.util.KubeConfig;
+import io.kubernetes.client.util.PatchUtils;
 import io.kubernetes.client.util.Yaml;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.apache.commons.lang.RandomStringUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,6 +131,15 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
   public static final String APP_LABEL_NAME = "app";
   public static final String EXECUTION_ID_LABEL_NAME = "execution-id";
   public static final String EXECUTION_ID_LABEL_PREFIX = "execid-";
+  public static final String WARM_POD_APPLICATION_TAG = "azkaban-warm-flow-container";
+  public static final String VERSION_SET_ID_LABEL_NAME = "version-set-id";
+  public static final String WARM_POOL_OWNER_LABEL_NAME = "warm-pool-owner";
+  private static final int MAX_LABEL_VALUE_LENGTH = 63;
+  public static final int DEFAULT_WARM_POOL_MAX_SIZE = 10;
+  public static final long DEFAULT_WARM_POOL_RATE_WINDOW_SECONDS = 600;
+  public static final long DEFAULT_WARM_POOL_LEAD_TIME_SECONDS = 120;
+  public static final long DEFAULT_WARM_POOL_REFILL_INTERVAL_SECONDS = 30;
+  private static final int WARM_POD_READINESS_PERIOD_SECONDS = 2;
 
   private final String namespace;
   private final ApiClient client;
@@ -145,7 +171,14 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
   private final String secretMountpath;
   private final String podTemplatePath;
   private final EventListener eventListener;
-
+  private final ContainerizationMetrics containerizationMetrics;
+  private final ExecutorApiGateway apiGateway;
+  // Null unless the warm pool is enabled
+  private final WarmPodPool warmPodPool;
+  private final String warmPoolOwner;
+  private ScheduledExecutorService warmPoolRefiller;
+  // Last pod template used, to tell whether the template had to be parsed again.
+  private AzKubernetesV1PodTemplate podTemplate;
 
   private static final Logger logger = LoggerFactory
       .getLogger(KubernetesContainerizedImpl.class);
@@ -155,7 +188,9 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
       final ExecutorLoader executorLoader,
       final VersionSetLoader versionSetLoader,
       final ImageRampupManager imageRampupManager,
-      final KubernetesWatch kubernetesWatch, EventListener eventListener)
+      final KubernetesWatch kubernetesWatch, EventListener eventListener,
+      final ContainerizationMetrics containerizationMetrics,
+      final ExecutorApiGateway apiGateway)
       throws ExecutorManagerException {
     this.azkProps = azkProps;
     this.executorLoader = executorLoader;
@@ -163,6 +198,8 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     this.imageRampupManager = imageRampupManager;
     this.kubernetesWatch = kubernetesWatch;
     this.eventListener = eventListener;
+    this.containerizationMetrics = containerizationMetrics;
+    this.apiGateway = apiGateway;
     this.addListener(this.eventListener);
     this.namespace = this.azkProps
         .getString(ContainerizedDispatchManagerProperties.KUBERNETES_NAMESPACE);
@@ -248,6 +285,77 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     }
     // Add all the job types that are readily available as part of azkaban base image.
     this.addIncludedJobTypes();
+
+    if (this.azkProps
+        .getBoolean(ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_ENABLED,
+            false)) {
+      this.warmPodPool = new WarmPodPool(
+          this.azkProps.getInt(
+              ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_MAX_SIZE,
+              DEFAULT_WARM_POOL_MAX_SIZE),
+          TimeUnit.SECONDS.toMillis(this.azkProps.getLong(
+              ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_RATE_WINDOW_SECONDS,
+              DEFAULT_WARM_POOL_RATE_WINDOW_SECONDS)),
+          TimeUnit.SECONDS.toMillis(this.azkProps.getLong(
+              ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_LEAD_TIME_SECONDS,
+              DEFAULT_WARM_POOL_LEAD_TIME_SECONDS)));
+      // Only the pool of the same owner ever lists and deletes the warm pods, so the owner must
+      // outlive the host of the web server.
+      final String warmPoolOwner = this.azkProps.getString(
+          ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_OWNER, null);
+      if (StringUtils.isBlank(warmPoolOwner)) {
+        throw new ExecutorManagerException(
+            ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_OWNER
+                + " must be set when the warm pool is enabled");
+      }
+      this.warmPoolOwner = toLabelValue(warmPoolOwner);
+      startWarmPoolRefiller();
+    } else {
+      this.warmPodPool = null;
+      this.warmPoolOwner = null;
+    }
+  }
+
+  /**
+   * Periodically brings the warm pool to the size expected from the recent dispatch rate.
+   */
+  private void startWarmPoolRefiller() {
+    final long refillIntervalSeconds = this.azkProps.getLong(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_REFILL_INTERVAL_SECONDS,
+        DEFAULT_WARM_POOL_REFILL_INTERVAL_SECONDS);
+    this.warmPoolRefiller = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-warm-pool-refiller-%d").setDaemon(true)
+            .build());
+    this.warmPoolRefiller.scheduleWithFixedDelay(this::refillWarmPool, refillIntervalSeconds,
+        refillIntervalSeconds, TimeUnit.SECONDS);
+    logger.info("Warm pool refiller started, owner: {}, refill interval: {} seconds",
+        this.warmPoolOwner, refillIntervalSeconds);
+  }
+
+  /**
+   * Stops refilling the warm pool. The warm pods are left running on purpose: the owner is a
+   * configured name rather than the host name, so the web server taking over this owner, such as
+   * this one once restarted, lists and assigns them without waiting for new pods to start. A web
+   * server retired for good must have its warm pods deleted by their owner label.
+   */
+  @Override
+  public void shutdown() {
+    if (this.warmPoolRefiller != null) {
+      logger.info("Shutting down warm pool refiller");
+      this.warmPoolRefiller.shutdownNow();
+    }
+  }
+
+  /**
+   * Turns a name into a valid label value: at most 63 alphanumeric characters, '-', '_' or '.',
+   * starting and ending with an alphanumeric character.
+   */
+  @VisibleForTesting
+  static String toLabelValue(final String name) {
+    String value = name.toLowerCase().replaceAll("[^a-z0-9._-]", "-");
+    value = StringUtils.left(value, MAX_LABEL_VALUE_LENGTH);
+    value = value.replaceAll("^[^a-z0-9]+", "").replaceAll("[^a-z0-9]+$", "");
+    return value.isEmpty() ? "unknown" : value;
   }
 
   /**
@@ -325,9 +433,14 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
    */
   @Override
   public void createContainer(final int executionId) throws ExecutorManagerException {
-    createPod(executionId);
+    createContainer(this.executorLoader.fetchExecutableFlow(executionId));
+  }
+
+  @Override
+  public void createContainer(final ExecutableFlow flow) throws ExecutorManagerException {
+    createPod(flow);
     if (isServiceRequired()) {
-      createService(executionId);
+      createService(flow.getExecutionId());
     }
   }
 
@@ -496,6 +609,15 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
   V1PodSpec createPodSpec(final int executionId, final VersionSet versionSet,
       final SortedSet<String> jobTypes, final Map<String, String> flowParam)
       throws ExecutorManagerException {
+    final Map<String, String> envVariables = new HashMap<>();
+    envVariables.put(ContainerizedDispatchManagerProperties.ENV_FLOW_EXECUTION_ID,
+        String.valueOf(executionId));
+    return createPodSpec(envVariables, versionSet, jobTypes, flowParam);
+  }
+
+  private V1PodSpec createPodSpec(final Map<String, String> envVariables,
+      final VersionSet versionSet, final SortedSet<String> jobTypes,
+      final Map<String, String> flowParam) throws ExecutorManagerException {
     // Gets azkaban base image full path containing version.
     final String azkabanBaseImageFullPath = getAzkabanBaseImageFullPath(versionSet);
     // TODO: check if we need full path for config as well.
@@ -513,11 +635,8 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     // Add volume for nscd-socket
     addNscdSocketInVolume(v1SpecBuilder);
 
-    final Map<String, String> envVariables = new HashMap<>();
     envVariables.put(ContainerizedDispatchManagerProperties.ENV_VERSION_SET_ID,
         String.valueOf(versionSet.getVersionSetId()));
-    envVariables.put(ContainerizedDispatchManagerProperties.ENV_FLOW_EXECUTION_ID,
-        String.valueOf(executionId));
     setupJavaRemoteDebug(envVariables, flowParam);
     setupDevPod(envVariables, flowParam);
     setupPodEnvVariables(envVariables, flowParam);
@@ -525,7 +644,7 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     addEnvVariablesToSpecBuilder(v1SpecBuilder, envVariables);
 
     // Create init container yaml file for each jobType
-    addInitContainerForAllJobTypes(executionId, jobTypes, v1SpecBuilder, versionSet);
+    addInitContainerForAllJobTypes(jobTypes, v1SpecBuilder, versionSet);
 
     // Add volume with secrets mounted
     addSecretVolume(v1SpecBuilder);
@@ -680,12 +799,11 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
    * 7. Insert version set into execution_flows tables for a reference 8. Emit version set as a part
    * of flow life cycle event.
    *
-   * @param executionId
+   * @param flow
    * @throws ExecutorManagerException
    */
-  private void createPod(final int executionId) throws ExecutorManagerException {
-    // Fetch execution flow from execution Id.
-    final ExecutableFlow flow = this.executorLoader.fetchExecutableFlow(executionId);
+  private void createPod(final ExecutableFlow flow) throws ExecutorManagerException {
+    final int executionId = flow.getExecutionId();
     // Step 1: Fetch set of jobTypes for a flow from executionId
     final TreeSet<String> jobTypes = ContainerImplUtils.getJobTypesForFlow(flow);
     logger
@@ -705,15 +823,16 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     allImageTypes.add(AZKABAN_CONFIG);
     allImageTypes.addAll(jobTypes);
     final VersionSet versionSet = fetchVersionSet(executionId, flowParam, allImageTypes, flow);
+    if (this.warmPodPool != null && assignToWarmPod(flow, versionSet, flowParam)) {
+      return;
+    }
     final V1PodSpec podSpec = createPodSpec(executionId, versionSet, jobTypes, flowParam);
     disableSATokenAutomount(podSpec);
 
     // If a pod-template is provided, merge its component definitions into the podSpec.
     if (StringUtils.isNotEmpty(this.podTemplatePath)) {
       try {
-        final AzKubernetesV1PodTemplate podTemplate = AzKubernetesV1PodTemplate
-            .getInstance(this.podTemplatePath);
-        PodTemplateMergeUtils.mergePodSpec(podSpec, podTemplate);
+        PodTemplateMergeUtils.mergePodSpec(podSpec, getPodTemplate());
       } catch (final IOException e) {
         logger.info("ExecId: {}, Failed to create k8s pod from template: {}", executionId,
             e.getMessage());
@@ -730,14 +849,260 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
       logger.error("ExecId: {}, Unable to create Pod: {}", executionId, e.getResponseBody());
       throw new ExecutorManagerException(e);
     }
-    // Store version set id in execution_flows for execution_id
-    this.executorLoader.updateVersionSetId(executionId, versionSet.getVersionSetId());
-    // Marking flow as PREPARING from DISPATCHING as POD creation request is submitted
+    // Marking flow as PREPARING from DISPATCHING as POD creation request is submitted.
+    updateStatusToPreparing(flow, versionSet);
+    // Emit preparing flow event with version set
+    this.fireEventListeners(Event.create(flow, EventType.FLOW_STATUS_CHANGED, new EventData(flow)));
+  }
+
+  /**
+   * Only the status and version set id columns are updated, the flow container reads the version
+   * set through the id.
+   *
+   * @param flow
+   * @param versionSet
+   * @throws ExecutorManagerException
+   */
+  private void updateStatusToPreparing(final ExecutableFlow flow, final VersionSet versionSet)
+      throws ExecutorManagerException {
     flow.setStatus(Status.PREPARING);
     flow.setVersionSet(versionSet);
-    this.executorLoader.updateExecutableFlow(flow);
-    // Emit preparing flow event with version set
+    this.executorLoader.updateVersionSetIdAndStatus(flow.getExecutionId(),
+        versionSet.getVersionSetId(), Status.PREPARING);
+  }
+
+  /**
+   * This method is used to assign an execution to a ready warm pod of its version set. The flow
+   * parameters customizing the pod rule out warm pods, as they are started without them. The
+   * execution is marked PREPARING before it is handed to the pod, which then runs it like a pod
+   * created for it. The pod is finally relabeled with the execution id, for the watch, the service
+   * and the deletion of the pod to find it.
+   *
+   * @param flow
+   * @param versionSet
+   * @param flowParam
+   * @return false if the execution was not assigned and a pod must be created for it.
+   * @throws ExecutorManagerException
+   */
+  @VisibleForTesting
+  boolean assignToWarmPod(final ExecutableFlow flow, final VersionSet versionSet,
+      final Map<String, String> flowParam) throws ExecutorManagerException {
+    if (isPodCustomized(flowParam)) {
+      return false;
+    }
+    final int executionId = flow.getExecutionId();
+    this.warmPodPool.recordDispatch(versionSet.getVersionSetId(), System.currentTimeMillis());
+    final Optional<WarmPod> warmPod = this.warmPodPool.claim(versionSet.getVersionSetId());
+    if (!warmPod.isPresent()) {
+      this.containerizationMetrics.markWarmPodMiss();
+      return false;
+    }
+    final String podName = warmPod.get().getName();
+    updateStatusToPreparing(flow, versionSet);
+    try {
+      this.apiGateway.callContainerDirectly(warmPod.get().getPodIp(), this.servicePort,
+          ConnectorParams.ASSIGN_ACTION, executionId);
+    } catch (final ExecutorManagerException e) {
+      logger.warn("ExecId: {}, Unable to assign execution to warm pod {}, a pod will be created. "
+          + "Msg: {}", executionId, podName, e.getMessage());
+      deleteWarmPod(podName);
+      this.containerizationMetrics.markWarmPodMiss();
+      return false;
+    }
+    try {
+      relabelWarmPod(podName, executionId);
+    } catch (final ApiException e) {
+      logger.error("ExecId: {}, Unable to relabel warm pod {}: {}", executionId, podName,
+          e.getResponseBody());
+      deleteWarmPod(podName);
+      throw new ExecutorManagerException(e);
+    }
+    this.containerizationMetrics.markWarmPodHit();
+    logger.info("ExecId: {}, Assigned execution to warm pod {}.", executionId, podName);
     this.fireEventListeners(Event.create(flow, EventType.FLOW_STATUS_CHANGED, new EventData(flow)));
+    return true;
+  }
+
+  /**
+   * Check if the flow parameters change the pod spec, which then can't be a warm pod.
+   *
+   * @param flowParam
+   * @return boolean
+   */
+  private boolean isPodCustomized(final Map<String, String> flowParam) {
+    if (flowParam == null) {
+      return false;
+    }
+    return flowParam.keySet().stream().anyMatch(
+        key -> key.equals(FlowParameters.FLOW_PARAM_FLOW_CONTAINER_CPU_REQUEST)
+            || key.equals(FlowParameters.FLOW_PARAM_FLOW_CONTAINER_MEMORY_REQUEST)
+            || key.equals(FlowParameters.FLOW_PARAM_JAVA_ENABLE_DEBUG)
+            || key.equals(FlowParameters.FLOW_PARAM_ENABLE_DEV_POD)
+            || key.startsWith(FlowParameters.FLOW_PARAM_POD_ENV_VAR));
+  }
+
+  /**
+   * Replace the labels of a warm pod with the ones of a pod created for the execution.
+   *
+   * @param podName
+   * @param executionId
+   * @throws ApiException
+   */
+  @VisibleForTesting
+  void relabelWarmPod(final String podName, final int executionId) throws ApiException {
+    final V1Patch patch = new V1Patch(this.client.getJSON().serialize(
+        ImmutableMap.of("metadata", ImmutableMap.of("labels", getLabelsForPod(executionId)))));
+    PatchUtils.patch(V1Pod.class,
+        () -> this.coreV1Api.patchNamespacedPodCall(podName, this.namespace, patch, null, null,
+            null, null, null),
+        V1Patch.PATCH_FORMAT_STRATEGIC_MERGE_PATCH, this.client);
+  }
+
+  /**
+   * This method lists the warm pods and brings the pool to the size expected from the recent
+   * dispatch rate. The terminated and surplus pods are deleted, and the missing ones are created.
+   */
+  @VisibleForTesting
+  void refillWarmPool() {
+    try {
+      final List<WarmPod> warmPods = listPods(getWarmPodLabelSelector()).stream()
+          .filter(pod -> pod.getMetadata().getDeletionTimestamp() == null)
+          .map(this::toWarmPod)
+          .collect(Collectors.toList());
+      final WarmPodPool.Refill refill =
+          this.warmPodPool.refresh(warmPods, System.currentTimeMillis());
+      refill.getPodsToDelete().forEach(this::deleteWarmPod);
+      for (final Map.Entry<Integer, Integer> entry : refill.getPodsToCreate().entrySet()) {
+        for (int i = 0; i < entry.getValue(); i++) {
+          try {
+            createWarmPod(entry.getKey());
+          } catch (final ExecutorManagerException e) {
+            // The other version sets are still refilled, the pod is created again by the next
+            // refill.
+            logger.error("Unable to create warm pod for version set {}", entry.getKey(), e);
+          }
+        }
+      }
+    } catch (final ApiException e) {
+      logger.error("Unable to list warm pods: {}", e.getResponseBody());
+    } catch (final Exception e) {
+      // The refiller is not scheduled anymore if an exception is thrown.
+      logger.error("Unable to refill warm pool", e);
+    }
+  }
+
+  private WarmPod toWarmPod(final V1Pod pod) {
+    final String podName = pod.getMetadata().getName();
+    final int versionSetId =
+        Integer.parseInt(pod.getMetadata().getLabels().get(VERSION_SET_ID_LABEL_NAME));
+    final V1PodStatus status = pod.getStatus();
+    final String phase = status == null ? null : status.getPhase();
+    final boolean terminated = "Succeeded".equals(phase) || "Failed".equals(phase);
+    final boolean ready = "Running".equals(phase) && status.getConditions() != null
+        && status.getConditions().stream()
+        .anyMatch(c -> "Ready".equals(c.getType()) && "True".equals(c.getStatus()));
+    return new WarmPod(podName, versionSetId, ready ? status.getPodIP() : null, terminated);
+  }
+
+  /**
+   * This method is used to create a warm pod for a version set. Its flow container is started
+   * without execution id and waits for one to be assigned. The pod has the init containers of all
+   * the job types of the version set.
+   *
+   * @param versionSetId
+   * @throws ExecutorManagerException
+   */
+  @VisibleForTesting
+  void createWarmPod(final int versionSetId) throws ExecutorManagerException {
+    final Optional<VersionSet> versionSet = this.versionSetLoader.getVersionSetById(versionSetId);
+    if (!versionSet.isPresent()) {
+      throw new ExecutorManagerException("Version set not found: " + versionSetId);
+    }
+    final SortedSet<String> jobTypes =
+        new TreeSet<>(versionSet.get().getImageToVersionMap().keySet());
+    jobTypes.remove(AZKABAN_BASE_IMAGE);
+    jobTypes.remove(AZKABAN_CONFIG);
+    final V1PodSpec podSpec = createWarmPodSpec(versionSet.get(), jobTypes);
+    final String podName = String.join("-", this.podPrefix, this.clusterName, "warm",
+        String.valueOf(versionSetId), RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+    final V1Pod pod = new AzKubernetesV1PodBuilder(podName, this.namespace, podSpec)
+        .withPodLabels(getLabelsForWarmPod(versionSetId))
+        .withPodAnnotations(getAnnotationsForPod())
+        .build();
+    try {
+      this.coreV1Api.createNamespacedPod(this.namespace, pod, null, null, null);
+      logger.info("Created warm pod {} for version set {}.", podName, versionSetId);
+    } catch (final ApiException e) {
+      logger.error("Unable to create warm pod for version set {}: {}", versionSetId,
+          e.getResponseBody());
+      throw new ExecutorManagerException(e);
+    }
+  }
+
+  /**
+   * Create the pod spec of a warm pod. Its flow container is only ready once it accepts
+   * connections on the service port, as the JVM starting doesn't make the pod ready to be
+   * assigned an execution. A readiness probe of the pod template still takes precedence.
+   *
+   * @param versionSet
+   * @param jobTypes
+   * @return V1PodSpec
+   * @throws ExecutorManagerException
+   */
+  @VisibleForTesting
+  V1PodSpec createWarmPodSpec(final VersionSet versionSet, final SortedSet<String> jobTypes)
+      throws ExecutorManagerException {
+    final Map<String, String> envVariables = new HashMap<>();
+    envVariables.put(ContainerizedDispatchManagerProperties.ENV_WARM_POD, "true");
+    final V1PodSpec podSpec = createPodSpec(envVariables, versionSet, jobTypes, null);
+    disableSATokenAutomount(podSpec);
+    podSpec.getContainers().get(AzKubernetesV1PodTemplate.FLOW_CONTAINER_INDEX)
+        .setReadinessProbe(new V1Probe()
+            .tcpSocket(new V1TCPSocketAction().port(new IntOrString(this.servicePort)))
+            .periodSeconds(WARM_POD_READINESS_PERIOD_SECONDS));
+    if (StringUtils.isNotEmpty(this.podTemplatePath)) {
+      try {
+        PodTemplateMergeUtils.mergePodSpec(podSpec, getPodTemplate());
+      } catch (final IOException e) {
+        throw new ExecutorManagerException(e);
+      }
+    }
+    return podSpec;
+  }
+
+  /**
+   * This method is used to delete a warm pod. Failures are only logged, the pod is deleted again
+   * by the next refill of the pool if it's still there.
+   *
+   * @param podName
+   */
+  @VisibleForTesting
+  void deleteWarmPod(final String podName) {
+    try {
+      this.coreV1Api.deleteNamespacedPod(podName, this.namespace, null, null,
+          null, null, null, new V1DeleteOptions());
+      logger.info("Action: Warm Pod Deletion, Pod Name: {}", podName);
+    } catch (final ApiException e) {
+      logger.warn("Unable to delete warm pod {}: {}", podName, e.getResponseBody());
+    }
+  }
+
+  /**
+   * Gets the pod template, which is parsed again only when its file is modified.
+   *
+   * @return AzKubernetesV1PodTemplate
+   * @throws IOException If unable to read the template file.
+   */
+  private synchronized AzKubernetesV1PodTemplate getPodTemplate() throws IOException {
+    final AzKubernetesV1PodTemplate template =
+        AzKubernetesV1PodTemplate.getInstance(this.podTemplatePath);
+    if (template == this.podTemplate) {
+      this.containerizationMetrics.markPodTemplateCacheHit();
+    } else {
+      this.containerizationMetrics.markPodTemplateCacheMiss();
+      this.podTemplate = template;
+    }
+    return template;
   }
 
   /**
@@ -791,6 +1156,47 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     return mapBuilder.build();
   }
 
+  /**
+   * Create labels that should be applied to a warm pod. They don't match the label selector of the
+   * flow container pods until the pod is assigned an execution. The owner label keeps the pools of
+   * the web servers of a cluster apart.
+   *
+   * @return
+   */
+  private ImmutableMap getLabelsForWarmPod(final int versionSetId) {
+    return ImmutableMap.of(
+        CLUSTER_LABEL_NAME, this.clusterName,
+        APP_LABEL_NAME, WARM_POD_APPLICATION_TAG,
+        WARM_POOL_OWNER_LABEL_NAME, this.warmPoolOwner,
+        VERSION_SET_ID_LABEL_NAME, String.valueOf(versionSetId));
+  }
+
+  /**
+   * Get a {@code labelSelector} listing the warm pods of this web server.
+   *   Example Selector: 'cluster=cluster1,app=azkaban-warm-flow-container,warm-pool-owner=host1'
+   *
+   * @return label selector
+   */
+  @VisibleForTesting
+  String getWarmPodLabelSelector() {
+    return CLUSTER_LABEL_NAME + "=" + this.clusterName + "," + APP_LABEL_NAME + "="
+        + WARM_POD_APPLICATION_TAG + "," + WARM_POOL_OWNER_LABEL_NAME + "=" + this.warmPoolOwner;
+  }
+
+  /**
+   * This method is used to list the pods of the namespace matching a label selector.
+   *
+   * @param labelSelector
+   * @return
+   * @throws ApiException
+   */
+  @VisibleForTesting
+  List<V1Pod> listPods(final String labelSelector) throws ApiException {
+    final V1PodList podList = this.coreV1Api.listNamespacedPod(this.namespace, null, null,
+        null, null, labelSelector, null, null, null, null);
+    return podList.getItems();
+  }
+
   /**
    * Get a {@code lableSelector} that can be used to list all the flow-container-pods for the
    * current namespace.
@@ -824,13 +1230,12 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
   /**
    * TODO: Check if we need to turn everything into lower case?
    *
-   * @param executionId
    * @param jobTypes
    * @param v1SpecBuilder
    * @param versionSet
    * @throws ExecutorManagerException
    */
-  private void addInitContainerForAllJobTypes(final int executionId,
+  private void addInitContainerForAllJobTypes(
       final Set<String> jobTypes, final AzKubernetesV1SpecBuilder v1SpecBuilder,
       final VersionSet versionSet)
       throws ExecutorManagerException {
@@ -909,7 +1314,7 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
    */
   private void deletePod(final int executionId) throws ExecutorManagerException {
     try {
-      final String podName = getPodName(executionId);
+      final String podName = findPodName(executionId);
       this.coreV1Api.deleteNamespacedPod(podName, this.namespace, null, null,
           null, null, null, new V1DeleteOptions());
       logger.info("ExecId: {}, Action: Pod Deletion, Pod Name: {}", executionId, podName);
@@ -920,6 +1325,27 @@ public class KubernetesContainerizedImpl extends EventHandler implements Contain
     }
   }
 
+  /**
+   * This method is used to find the name of the pod of an execution. The pods created for the
+   * execution follow the naming convention, the warm pods it was assigned to are looked up by
+   * label.
+   *
+   * @param executionId
+   * @return
+   * @throws ApiException
+   */
+  @VisibleForTesting
+  String findPodName(final int executionId) throws ApiException {
+    if (this.warmPodPool != null) {
+      final List<V1Pod> pods = listPods(CLUSTER_LABEL_NAME + "=" + this.clusterName + ","
+          + EXECUTION_ID_LABEL_NAME + "=" + EXECUTION_ID_LABEL_PREFIX + executionId);
+      if (!pods.isEmpty()) {
+        return pods.get(0).getMetadata().getName();
+      }
+    }
+    return getPodName(executionId);
+  }
+
   /**
    * This method is used to delete service in Kubernetes which is created for Pod.
    *
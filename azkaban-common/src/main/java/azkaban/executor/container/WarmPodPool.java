@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor.container;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bookkeeping of the warm pods: flow container pods started for a version set ahead of time, which
+ * wait for an execution to be assigned to them. The pods themselves are listed, created and deleted
+ * by {@link KubernetesContainerizedImpl}.
+ *
+ * <p>The pool is sized from the recent dispatch rate of each version set. A version set gets as
+ * many pods as dispatches are expected for it while a new pod starts, i.e. its dispatch rate times
+ * the lead time, rounded up. Version sets dispatched only once in the window are not considered
+ * common and get no pod. When the total exceeds the max size, the most dispatched version sets are
+ * served first.
+ */
+class WarmPodPool {
+
+  private static final int MIN_DISPATCHES_FOR_WARM_POD = 2;
+
+  private final int maxSize;
+  private final long rateWindowMillis;
+  private final long leadTimeMillis;
+  // Dispatch times within the rate window, by version set id
+  private final Map<Integer, Deque<Long>> dispatchTimes = new HashMap<>();
+  // Pods ready to be assigned an execution, by version set id
+  private Map<Integer, Deque<WarmPod>> readyPods = new HashMap<>();
+  // Pods handed out which may still be listed as warm pods
+  private final Set<String> claimedPodNames = new HashSet<>();
+
+  WarmPodPool(final int maxSize, final long rateWindowMillis, final long leadTimeMillis) {
+    Preconditions.checkArgument(maxSize >= 0);
+    Preconditions.checkArgument(rateWindowMillis > 0);
+    Preconditions.checkArgument(leadTimeMillis > 0);
+    this.maxSize = maxSize;
+    this.rateWindowMillis = rateWindowMillis;
+    this.leadTimeMillis = leadTimeMillis;
+  }
+
+  /**
+   * Records the dispatch of an execution which could run in a warm pod of the version set.
+   */
+  synchronized void recordDispatch(final int versionSetId, final long now) {
+    this.dispatchTimes.computeIfAbsent(versionSetId, k -> new ArrayDeque<>()).add(now);
+    evictDispatches(now);
+  }
+
+  /**
+   * Takes a ready pod of the version set out of the pool.
+   *
+   * @return the pod, or empty if none is ready
+   */
+  synchronized Optional<WarmPod> claim(final int versionSetId) {
+    final Deque<WarmPod> pods = this.readyPods.get(versionSetId);
+    if (pods == null || pods.isEmpty()) {
+      return Optional.empty();
+    }
+    final WarmPod pod = pods.poll();
+    this.claimedPodNames.add(pod.getName());
+    return Optional.of(pod);
+  }
+
+  /**
+   * Replaces the pool with the warm pods currently listed, and computes how to bring it to its
+   * target size.
+   *
+   * @param pods all the warm pods, ready or not
+   * @return the pods to create by version set id, and the names of the pods to delete
+   */
+  synchronized Refill refresh(final Collection<WarmPod> pods, final long now) {
+    final Map<Integer, Integer> targetSizes = getTargetSizes(now);
+    final Map<Integer, Integer> sizes = new HashMap<>();
+    final Map<Integer, Deque<WarmPod>> ready = new HashMap<>();
+    final List<String> podsToDelete = new ArrayList<>();
+    final Set<String> listedPodNames = new HashSet<>();
+    for (final WarmPod pod : pods) {
+      listedPodNames.add(pod.getName());
+      if (this.claimedPodNames.contains(pod.getName())) {
+        continue;
+      }
+      if (pod.isTerminated()) {
+        podsToDelete.add(pod.getName());
+        continue;
+      }
+      final int size = sizes.getOrDefault(pod.getVersionSetId(), 0);
+      if (size >= targetSizes.getOrDefault(pod.getVersionSetId(), 0)) {
+        podsToDelete.add(pod.getName());
+        continue;
+      }
+      sizes.put(pod.getVersionSetId(), size + 1);
+      if (pod.isReady()) {
+        ready.computeIfAbsent(pod.getVersionSetId(), k -> new ArrayDeque<>()).add(pod);
+      }
+    }
+    // Claimed pods are relabeled or deleted, they are not listed anymore once it's done.
+    this.claimedPodNames.retainAll(listedPodNames);
+    this.readyPods = ready;
+
+    final Map<Integer, Integer> podsToCreate = new HashMap<>();
+    targetSizes.forEach((versionSetId, targetSize) -> {
+      final int missing = targetSize - sizes.getOrDefault(versionSetId, 0);
+      if (missing > 0) {
+        podsToCreate.put(versionSetId, missing);
+      }
+    });
+    return new Refill(podsToCreate, podsToDelete);
+  }
+
+  /**
+   * @return the number of pods to keep warm, by version set id
+   */
+  synchronized Map<Integer, Integer> getTargetSizes(final long now) {
+    evictDispatches(now);
+    final List<Map.Entry<Integer, Deque<Long>>> byRate = new ArrayList<>(
+        this.dispatchTimes.entrySet());
+    byRate.sort(Comparator.comparingInt(
+        (Map.Entry<Integer, Deque<Long>> e) -> e.getValue().size()).reversed());
+    final Map<Integer, Integer> targetSizes = new HashMap<>();
+    int remaining = this.maxSize;
+    for (final Map.Entry<Integer, Deque<Long>> entry : byRate) {
+      final int dispatches = entry.getValue().size();
+      if (remaining == 0 || dispatches < MIN_DISPATCHES_FOR_WARM_POD) {
+        break;
+      }
+      final int expected = (int) Math.ceil(
+          (double) dispatches * this.leadTimeMillis / this.rateWindowMillis);
+      final int targetSize = Math.min(expected, remaining);
+      targetSizes.put(entry.getKey(), targetSize);
+      remaining -= targetSize;
+    }
+    return targetSizes;
+  }
+
+  private void evictDispatches(final long now) {
+    final Iterator<Deque<Long>> it = this.dispatchTimes.values().iterator();
+    while (it.hasNext()) {
+      final Deque<Long> times = it.next();
+      while (!times.isEmpty() && times.peek() <= now - this.rateWindowMillis) {
+        times.poll();
+      }
+      if (times.isEmpty()) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * A warm pod, as listed from Kubernetes.
+   */
+  static class WarmPod {
+
+    private final String name;
+    private final int versionSetId;
+    // Address of the pod once it's ready to be assigned an execution, null before
+    private final String podIp;
+    private final boolean terminated;
+
+    WarmPod(final String name, final int versionSetId, final String podIp,
+        final boolean terminated) {
+      this.name = name;
+      this.versionSetId = versionSetId;
+      this.podIp = podIp;
+      this.terminated = terminated;
+    }
+
+    String getName() {
+      return this.name;
+    }
+
+    int getVersionSetId() {
+      return this.versionSetId;
+    }
+
+    String getPodIp() {
+      return this.podIp;
+    }
+
+    boolean isReady() {
+      return this.podIp != null && !this.terminated;
+    }
+
+    boolean isTerminated() {
+      return this.terminated;
+    }
+  }
+
+  /**
+   * Changes bringing the pool to its target size.
+   */
+  static class Refill {
+
+    private final Map<Integer, Integer> podsToCreate;
+    private final List<String> podsToDelete;
+
+    Refill(final Map<Integer, Integer> podsToCreate, final List<String> podsToDelete) {
+      this.podsToCreate = Collections.unmodifiableMap(podsToCreate);
+      this.podsToDelete = Collections.unmodifiableList(podsToDelete);
+    }
+
+    Map<Integer, Integer> getPodsToCreate() {
+      return this.podsToCreate;
+    }
+
+    List<String> getPodsToDelete() {
+      return this.podsToDelete;
+    }
+  }
+}
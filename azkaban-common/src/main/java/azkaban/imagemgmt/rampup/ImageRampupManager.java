@@ -87,4 +87,9 @@ public interface ImageRampupManager {
       final ExecutableFlow executableFlow, final VersionSet versionSet)
       throws ImageMgmtException;
 
+  /**
+   * Drops the cached image types, versions and rampups. Must be called after they are modified so
+   * that the next version selection reads them from the database.
+   */
+  public void invalidateCache();
 }
@@ -15,6 +15,7 @@
  */
 package azkaban.imagemgmt.rampup;
 
+import azkaban.Constants.ContainerizedDispatchManagerProperties;
 import azkaban.Constants.ImageMgmtConstants;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.container.ContainerImplUtils;
@@ -30,6 +31,12 @@ import azkaban.imagemgmt.models.ImageVersion.State;
 import azkaban.imagemgmt.models.ImageVersionMetadata;
 import azkaban.imagemgmt.version.VersionInfo;
 import azkaban.imagemgmt.version.VersionSet;
+import azkaban.metrics.ContainerizationMetrics;
+import azkaban.utils.Props;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -39,6 +46,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -62,6 +71,10 @@ import org.slf4j.LoggerFactory;
  * version in the image_versions table, it will throw appropriate error message mentioning could not
  * select version for the image type and the whole process would fail. 8. Follow the rampup
  * procedure to elect a new version from the image_versions table for the failed image type.
+ * <p>
+ * The image types, versions and rampups read from the database are cached, so that dispatching a
+ * flow doesn't query them again. The cache is dropped when they are modified through {@link
+ * #invalidateCache()}, and its entries expire after a configurable ttl.
  */
 @Singleton
 public class ImageRampupManagerImpl implements ImageRampupManager {
@@ -79,22 +92,35 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
       + "and ACTIVE version.";
   private static final String MSG_IMAGE_TYPE_WITHOUT_VERSION = "This image type does not have a "
       + "version yet.";
+  private static final long DEFAULT_CACHE_TTL_SECONDS = 60;
+  private static final int CACHE_MAX_ENTRIES = 10000;
+  private final ContainerizationMetrics containerizationMetrics;
+  private final long cacheTtlSeconds;
+  // Replaced on invalidation rather than cleared, so that a lookup racing with a modification
+  // can't put the values it read before the modification in the new cache.
+  private volatile Cache<List<Object>, Object> cache;
 
   @Inject
   public ImageRampupManagerImpl(final ImageRampupDao imageRampupDao,
       final ImageVersionDao imageVersionDao,
-      final ImageTypeDao imageTypeDao) {
+      final ImageTypeDao imageTypeDao,
+      final Props azkProps,
+      final ContainerizationMetrics containerizationMetrics) {
     this.imageRampupDao = imageRampupDao;
     this.imageVersionDao = imageVersionDao;
     this.imageTypeDao = imageTypeDao;
+    this.containerizationMetrics = containerizationMetrics;
+    this.cacheTtlSeconds = azkProps.getLong(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_IMAGE_CACHE_TTL_SECONDS,
+        DEFAULT_CACHE_TTL_SECONDS);
+    this.cache = newCache();
   }
 
   @Override
   public Map<String, VersionInfo> getVersionForAllImageTypes(final ExecutableFlow flow)
       throws ImageMgmtException {
-    final Map<String, List<ImageRampup>> imageTypeRampups = this.imageRampupDao
-        .getRampupForAllImageTypes();
-    final List<ImageType> imageTypeList = this.imageTypeDao.getAllImageTypes();
+    final Map<String, List<ImageRampup>> imageTypeRampups = this.getRampupForAllImageTypes();
+    final List<ImageType> imageTypeList = this.getAllImageTypes();
     final Set<String> imageTypes = new TreeSet<>();
     for (final ImageType imageType : imageTypeList) {
       imageTypes.add(imageType.getName());
@@ -114,9 +140,8 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
   @Override
   public Map<String, ImageVersionMetadata> getVersionMetadataForAllImageTypes()
       throws ImageMgmtException {
-    final Map<String, List<ImageRampup>> imageTypeRampups = this.imageRampupDao
-        .getRampupForAllImageTypes();
-    final List<ImageType> imageTypeList = this.imageTypeDao.getAllImageTypes();
+    final Map<String, List<ImageRampup>> imageTypeRampups = this.getRampupForAllImageTypes();
+    final List<ImageType> imageTypeList = this.getAllImageTypes();
     final Set<String> imageTypes = new TreeSet<>();
     for (final ImageType imageType : imageTypeList) {
       imageTypes.add(imageType.getName());
@@ -146,8 +171,7 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
     // Find the image types for which version is either invalid or not exists
     final Set<String> imageTypesWithInvalidVersion = versionSet.getImageToVersionMap().entrySet()
         .stream()
-        .filter(map -> this.imageVersionDao.isInvalidVersion(
-            map.getKey(), map.getValue().getVersion()))
+        .filter(map -> this.isInvalidVersion(map.getKey(), map.getValue().getVersion()))
         .map(map -> map.getKey())
         .collect(Collectors.toSet());
     final Map<String, VersionInfo> updatedVersionInfoMap = new TreeMap<>(
@@ -167,8 +191,7 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
   public Map<String, VersionInfo> getVersionByImageTypes(final ExecutableFlow flow,
       final Set<String> imageTypes)
       throws ImageMgmtException {
-    final Map<String, List<ImageRampup>> imageTypeRampups = this.imageRampupDao
-        .getRampupByImageTypes(imageTypes);
+    final Map<String, List<ImageRampup>> imageTypeRampups = this.getRampupByImageTypes(imageTypes);
     final Set<String> remainingImageTypes = new TreeSet<>();
     final Map<String, ImageVersionMetadata> imageTypeVersionMap =
         this.processAndGetVersionForImageTypes(flow, imageTypes, imageTypeRampups,
@@ -336,8 +359,7 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
     final Map<String, ImageVersion> imageTypeActiveVersionMap =
         new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     if (!CollectionUtils.isEmpty(imageTypes)) {
-      final List<ImageVersion> imageVersions =
-          this.imageVersionDao.getActiveVersionByImageTypes(imageTypes);
+      final List<ImageVersion> imageVersions = this.getActiveVersionByImageTypes(imageTypes);
       log.debug("Active image versions fetched: {} ", imageVersions);
       if (imageVersions != null && !imageVersions.isEmpty()) {
         for (final ImageVersion imageVersion : imageVersions) {
@@ -383,6 +405,12 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
    */
   private Optional<ImageVersion> fetchImageVersion(final String imageType,
       final String imageVersion) {
+    return this.getCached(Arrays.asList("imageVersion", imageType, imageVersion),
+        () -> this.loadImageVersion(imageType, imageVersion));
+  }
+
+  private Optional<ImageVersion> loadImageVersion(final String imageType,
+      final String imageVersion) {
     final ImageMetadataRequest imageMetadataRequest = ImageMetadataRequest.newBuilder()
         .addParam(ImageMgmtConstants.IMAGE_TYPE, imageType)
         .addParam(ImageMgmtConstants.IMAGE_VERSION, imageVersion)
@@ -425,4 +453,64 @@ public class ImageRampupManagerImpl implements ImageRampupManager {
   private Comparator<ImageRampup> getRampupPercentageComparator() {
     return Comparator.comparingInt(ImageRampup::getRampupPercentage);
   }
+
+  @Override
+  public void invalidateCache() {
+    this.cache = newCache();
+    log.info("Dropped the cached image types, versions and rampups.");
+  }
+
+  private Map<String, List<ImageRampup>> getRampupForAllImageTypes() {
+    return this.getCached(Arrays.asList("rampupForAllImageTypes"),
+        this.imageRampupDao::getRampupForAllImageTypes);
+  }
+
+  private Map<String, List<ImageRampup>> getRampupByImageTypes(final Set<String> imageTypes) {
+    return this.getCached(Arrays.asList("rampupByImageTypes", ImmutableSet.copyOf(imageTypes)),
+        () -> this.imageRampupDao.getRampupByImageTypes(imageTypes));
+  }
+
+  private List<ImageType> getAllImageTypes() {
+    return this.getCached(Arrays.asList("allImageTypes"), this.imageTypeDao::getAllImageTypes);
+  }
+
+  private List<ImageVersion> getActiveVersionByImageTypes(final Set<String> imageTypes) {
+    return this.getCached(
+        Arrays.asList("activeVersionByImageTypes", ImmutableSet.copyOf(imageTypes)),
+        () -> this.imageVersionDao.getActiveVersionByImageTypes(imageTypes));
+  }
+
+  private boolean isInvalidVersion(final String imageType, final String imageVersion) {
+    return this.getCached(Arrays.asList("invalidVersion", imageType, imageVersion),
+        () -> this.imageVersionDao.isInvalidVersion(imageType, imageVersion));
+  }
+
+  /**
+   * Returns the cached value for the key, or loads and caches it. Null values are not cached.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getCached(final List<Object> key, final Supplier<T> loader) {
+    if (this.cacheTtlSeconds <= 0) {
+      return loader.get();
+    }
+    final Cache<List<Object>, Object> currentCache = this.cache;
+    final T cachedValue = (T) currentCache.getIfPresent(key);
+    if (cachedValue != null) {
+      this.containerizationMetrics.markImageCacheHit();
+      return cachedValue;
+    }
+    this.containerizationMetrics.markImageCacheMiss();
+    final T value = loader.get();
+    if (value != null) {
+      currentCache.put(key, value);
+    }
+    return value;
+  }
+
+  private Cache<List<Object>, Object> newCache() {
+    return CacheBuilder.newBuilder()
+        .expireAfterWrite(Math.max(this.cacheTtlSeconds, 0), TimeUnit.SECONDS)
+        .maximumSize(CACHE_MAX_ENTRIES)
+        .build();
+  }
 }
@@ -313,7 +313,8 @@ public class ProcessJob extends AbstractProcessJob {
       } finally {
         info("Process with id " + this.process.getProcessId() + " completed "
             + (this.success ? "successfully" : "unsuccessfully") + " in "
-            + ((System.currentTimeMillis() - startMs) / 1000) + " seconds.");
+            + ((System.currentTimeMillis() - startMs) / 1000) + " seconds, logging "
+            + this.process.getBytesLogged() + " bytes of output.");
       }
     }
 
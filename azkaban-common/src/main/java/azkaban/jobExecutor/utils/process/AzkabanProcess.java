@@ -16,13 +16,11 @@
 
 package azkaban.jobExecutor.utils.process;
 
-import azkaban.utils.LogGobbler;
+import azkaban.jobExecutor.utils.process.ProcessOutputPump.OutputReader;
 import com.google.common.base.Joiner;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.reflect.Field;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -34,7 +32,8 @@ import org.apache.log4j.Logger;
 /**
  * An improved version of java.lang.Process.
  *
- * Output is read by separate threads to avoid deadlock and logged to log4j loggers.
+ * Output is read by the threads of the shared {@link ProcessOutputPump} to avoid deadlock and
+ * logged to log4j loggers.
  */
 public class AzkabanProcess {
 
@@ -49,6 +48,8 @@ public class AzkabanProcess {
 
   private volatile int processId;
   private volatile Process process;
+  private volatile OutputReader outputReader;
+  private volatile OutputReader errorReader;
 
   private boolean isExecuteAsUser = false;
   private String executeAsUserBinary = null;
@@ -97,17 +98,12 @@ public class AzkabanProcess {
 
       this.startupLatch.countDown();
 
-      final LogGobbler outputGobbler =
-          new LogGobbler(
-              new InputStreamReader(this.process.getInputStream(), StandardCharsets.UTF_8),
-              this.logger, Level.INFO, 30);
-      final LogGobbler errorGobbler =
-          new LogGobbler(
-              new InputStreamReader(this.process.getErrorStream(), StandardCharsets.UTF_8),
-              this.logger, Level.ERROR, 30);
-
-      outputGobbler.start();
-      errorGobbler.start();
+      final ProcessOutputPump outputPump = ProcessOutputPump.getInstance();
+      this.outputReader = outputPump
+          .register(this.process, this.process.getInputStream(), this.logger, Level.INFO, 30);
+      this.errorReader = outputPump
+          .register(this.process, this.process.getErrorStream(), this.logger, Level.ERROR, 30);
+
       int exitCode = -1;
       try {
         exitCode = this.process.waitFor();
@@ -118,8 +114,8 @@ public class AzkabanProcess {
       this.completeLatch.countDown();
 
       // try to wait for everything to get logged out before exiting
-      outputGobbler.awaitCompletion(5000);
-      errorGobbler.awaitCompletion(5000);
+      this.outputReader.awaitCompletion(5000);
+      this.errorReader.awaitCompletion(5000);
 
       if (exitCode != 0) {
         throw new ProcessFailureException(exitCode);
@@ -162,6 +158,20 @@ public class AzkabanProcess {
     return this.processId;
   }
 
+  /**
+   * @return the number of bytes the process has output so far
+   */
+  public long getBytesLogged() {
+    long bytesLogged = 0;
+    if (this.outputReader != null) {
+      bytesLogged += this.outputReader.getBytesRead();
+    }
+    if (this.errorReader != null) {
+      bytesLogged += this.errorReader.getBytesRead();
+    }
+    return bytesLogged;
+  }
+
   /**
    * Attempt to kill the process, waiting up to the given time for it to die
    *
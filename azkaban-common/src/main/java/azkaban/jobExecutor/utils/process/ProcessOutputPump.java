@@ -0,0 +1,407 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.jobExecutor.utils.process;
+
+import azkaban.utils.CircularBuffer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Pumps the output of the job processes into their loggers, on a few threads shared by all the
+ * processes instead of two threads per process.
+ *
+ * <p>The output streams of a process can't be selected on, so each thread polls the streams it
+ * was given for available bytes, and backs off while none of them has any. Once the process has
+ * exited and no bytes are left, the rest of the stream is read until its end on a thread of a
+ * cached pool, since background processes may still have it open. Note that on Unix the JDK
+ * itself drains and closes the stream of a process once it exits, unless it's being read at the
+ * time, so the output they write after that is lost.
+ *
+ * <p>As with {@link azkaban.utils.LogGobbler}, the output is logged line by line at the level of
+ * the stream, and the last lines are kept. The lines are logged on the cached pool too, so that a
+ * slow appender only holds up the output of its own process: the stream isn't read while too many
+ * of its lines are waiting to be logged.
+ */
+public class ProcessOutputPump {
+
+  private static final Logger LOGGER = Logger.getLogger(ProcessOutputPump.class);
+  private static final int DEFAULT_NUM_THREADS = 2;
+  private static final int READ_BUFFER_SIZE = 8192;
+  // Bytes read from a stream before moving to the next one, so that a chatty process can't starve
+  // the others
+  private static final int MAX_BYTES_PER_TURN = 64 * 1024;
+  private static final long MAX_IDLE_SLEEP_MS = 50;
+  private static final int MAX_PENDING_LINES = 1000;
+  private static ProcessOutputPump instance;
+
+  private final PumpThread[] threads;
+  private final AtomicInteger nextThread = new AtomicInteger();
+  // Logs the lines, and reads the streams until their end once their process has exited
+  private final ExecutorService outputExecutor = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("azk-process-output-%d").setDaemon(true).build());
+
+  @VisibleForTesting
+  ProcessOutputPump(final int numThreads) {
+    this.threads = new PumpThread[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      this.threads[i] = new PumpThread("azk-process-output-pump-" + i);
+      this.threads[i].start();
+    }
+  }
+
+  /**
+   * @return the pump shared by all the processes
+   */
+  public static synchronized ProcessOutputPump getInstance() {
+    if (instance == null) {
+      instance = new ProcessOutputPump(DEFAULT_NUM_THREADS);
+    }
+    return instance;
+  }
+
+  /**
+   * Starts pumping an output stream of the process.
+   *
+   * @param level level the lines of output are logged at
+   * @param bufferLines number of last lines kept
+   */
+  public OutputReader register(final Process process, final InputStream stream,
+      final Logger logger, final Level level, final int bufferLines) {
+    final OutputReader reader = new OutputReader(process, stream, logger, level, bufferLines,
+        this.outputExecutor);
+    this.threads[Math.floorMod(this.nextThread.getAndIncrement(), this.threads.length)]
+        .add(reader);
+    return reader;
+  }
+
+  @VisibleForTesting
+  void shutdown() {
+    for (final PumpThread thread : this.threads) {
+      thread.shutdown();
+    }
+    this.outputExecutor.shutdownNow();
+  }
+
+  /**
+   * An output stream of a process, read by a single pump thread until its process exits.
+   */
+  public static class OutputReader {
+
+    private final Process process;
+    private final InputStream stream;
+    private final Logger logger;
+    private final Level level;
+    private final CircularBuffer<String> buffer;
+    private final ExecutorService outputExecutor;
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // Accessed by the thread reading the stream only
+    private ByteBuffer undecodedBytes = ByteBuffer.allocate(0);
+    private final StringBuilder line = new StringBuilder();
+    private boolean skipLF = false;
+    private boolean handedOff = false;
+    private volatile long bytesRead = 0;
+    // Lines read but not logged yet, logged by one thread at a time
+    private final Queue<String> pendingLines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numPendingLines = new AtomicInteger();
+    private final AtomicBoolean logging = new AtomicBoolean();
+    private volatile boolean endOfStream = false;
+
+    private OutputReader(final Process process, final InputStream stream, final Logger logger,
+        final Level level, final int bufferLines, final ExecutorService outputExecutor) {
+      this.process = process;
+      this.stream = stream;
+      this.logger = logger;
+      this.level = level;
+      this.buffer = new CircularBuffer<>(bufferLines);
+      this.outputExecutor = outputExecutor;
+    }
+
+    /**
+     * Reads the bytes available without blocking. Once the process has exited and no bytes are
+     * left, hands the stream off to be read until its end.
+     *
+     * @return the number of bytes read
+     */
+    private int pump(final byte[] readBuffer) {
+      if (this.numPendingLines.get() >= MAX_PENDING_LINES) {
+        return 0;
+      }
+      // Checked first, the output written before the process exited is available after.
+      final boolean exited = !this.process.isAlive();
+      int total = 0;
+      try {
+        int available = 0;
+        while (total < MAX_BYTES_PER_TURN && (available = this.stream.available()) > 0) {
+          final int read = this.stream.read(readBuffer, 0, Math.min(available, readBuffer.length));
+          if (read < 0) {
+            complete();
+            return total;
+          }
+          consume(readBuffer, read, false);
+          total += read;
+        }
+        if (exited && available <= 0) {
+          this.handedOff = true;
+          this.outputExecutor.execute(this::readToEnd);
+        }
+      } catch (final IOException e) {
+        if (this.logger != null) {
+          this.logger.error("Error reading from logging stream:", e);
+        }
+        complete();
+      }
+      return total;
+    }
+
+    /**
+     * Reads the stream until its end, blocking while it's still open by background processes.
+     */
+    private void readToEnd() {
+      final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+      try {
+        int read;
+        while ((read = this.stream.read(readBuffer)) >= 0) {
+          consume(readBuffer, read, false);
+        }
+      } catch (final IOException e) {
+        if (this.logger != null) {
+          this.logger.error("Error reading from logging stream:", e);
+        }
+      } catch (final RuntimeException e) {
+        LOGGER.error("Error reading process output, dropping the rest of it", e);
+      }
+      complete();
+    }
+
+    private void consume(final byte[] bytes, final int length, final boolean endOfInput) {
+      this.bytesRead += length;
+      final ByteBuffer in = ByteBuffer.allocate(this.undecodedBytes.remaining() + length);
+      in.put(this.undecodedBytes).put(bytes, 0, length).flip();
+      final CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+      this.decoder.decode(in, out, endOfInput);
+      if (endOfInput) {
+        this.decoder.flush(out);
+      }
+      this.undecodedBytes = in.slice();
+      out.flip();
+      while (out.hasRemaining()) {
+        final char c = out.get();
+        // Same line terminators as BufferedReader.readLine: \n, \r or \r\n
+        if (c == '\n' && this.skipLF) {
+          this.skipLF = false;
+          continue;
+        }
+        this.skipLF = c == '\r';
+        if (c == '\n' || c == '\r') {
+          logLine();
+        } else {
+          this.line.append(c);
+        }
+      }
+    }
+
+    private void complete() {
+      if (this.endOfStream) {
+        return;
+      }
+      this.handedOff = true;
+      consume(new byte[0], 0, true);
+      if (this.line.length() > 0) {
+        logLine();
+      }
+      this.endOfStream = true;
+      scheduleLogging();
+    }
+
+    private void logLine() {
+      final String message = this.line.toString();
+      this.line.setLength(0);
+      synchronized (this.buffer) {
+        this.buffer.append(message);
+      }
+      if (this.logger != null) {
+        this.pendingLines.add(message);
+        this.numPendingLines.incrementAndGet();
+        scheduleLogging();
+      }
+    }
+
+    private void scheduleLogging() {
+      if (this.logging.compareAndSet(false, true)) {
+        try {
+          this.outputExecutor.execute(this::logPendingLines);
+        } catch (final RejectedExecutionException e) {
+          // Shutting down
+          this.completion.countDown();
+        }
+      }
+    }
+
+    private void logPendingLines() {
+      while (true) {
+        String message;
+        while ((message = this.pendingLines.poll()) != null) {
+          this.numPendingLines.decrementAndGet();
+          this.logger.log(this.level, message);
+        }
+        if (this.endOfStream && this.pendingLines.isEmpty()) {
+          this.completion.countDown();
+          return;
+        }
+        this.logging.set(false);
+        // Lines added before the flag was cleared are logged by this thread.
+        if ((this.pendingLines.isEmpty() && !this.endOfStream)
+            || !this.logging.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * @return whether the pump thread is done with the stream
+     */
+    private boolean isHandedOff() {
+      return this.handedOff;
+    }
+
+    /**
+     * Waits until the whole output of the process is logged, for up to the given time.
+     *
+     * @return whether the whole output was logged
+     */
+    public boolean awaitCompletion(final long waitMs) {
+      try {
+        return this.completion.await(waitMs, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        if (this.logger != null) {
+          this.logger.info("I/O thread interrupted.", e);
+        }
+        return false;
+      }
+    }
+
+    public String getRecentLog() {
+      synchronized (this.buffer) {
+        return Joiner.on(System.getProperty("line.separator")).join(this.buffer);
+      }
+    }
+
+    /**
+     * @return the number of bytes of output read so far
+     */
+    public long getBytesRead() {
+      return this.bytesRead;
+    }
+  }
+
+  private static class PumpThread extends Thread {
+
+    private final Queue<OutputReader> addedReaders = new ConcurrentLinkedQueue<>();
+    // Accessed by this thread only
+    private final List<OutputReader> readers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private PumpThread(final String name) {
+      super(name);
+      setDaemon(true);
+    }
+
+    private void add(final OutputReader reader) {
+      this.addedReaders.add(reader);
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    private void shutdown() {
+      this.running = false;
+      interrupt();
+    }
+
+    @Override
+    public void run() {
+      final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+      long idleSleepMs = 1;
+      while (this.running) {
+        try {
+          OutputReader added;
+          while ((added = this.addedReaders.poll()) != null) {
+            this.readers.add(added);
+          }
+          if (this.readers.isEmpty()) {
+            synchronized (this) {
+              while (this.addedReaders.isEmpty() && this.running) {
+                wait();
+              }
+            }
+            continue;
+          }
+
+          boolean idle = true;
+          for (final Iterator<OutputReader> it = this.readers.iterator(); it.hasNext(); ) {
+            final OutputReader reader = it.next();
+            try {
+              if (reader.pump(readBuffer) > 0) {
+                idle = false;
+              }
+            } catch (final RuntimeException e) {
+              LOGGER.error("Error pumping process output, dropping the rest of it", e);
+              reader.handedOff = true;
+              reader.completion.countDown();
+            }
+            if (reader.isHandedOff()) {
+              it.remove();
+            }
+          }
+          if (idle) {
+            Thread.sleep(idleSleepMs);
+            idleSleepMs = Math.min(idleSleepMs * 2, MAX_IDLE_SLEEP_MS);
+          } else {
+            idleSleepMs = 1;
+          }
+        } catch (final InterruptedException e) {
+          // Shutting down
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.jobtype;
+
+import azkaban.jobExecutor.JobClassLoader;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.log4j.Logger;
+
+/**
+ * Cache of the class loaders of the jobtype plugins, shared by the jobs of a jobtype that use the
+ * same parent class loader, i.e. that run against the same cluster.
+ *
+ * <p>The loaders are reference counted by the jobs using them. A loader is evicted when the plugins
+ * are reloaded, and closed once the last job using it releases it.
+ */
+class JobClassLoaderCache {
+
+  private static final Logger LOGGER = Logger.getLogger(JobClassLoaderCache.class);
+
+  private final Map<Key, CachedJobClassLoader> loaders = new HashMap<>();
+  // The plugin set the cached loaders were created for
+  private JobTypePluginSet pluginSet;
+
+  /**
+   * Gets the loader of the jobtype, creating it if it isn't cached. It must be released once the
+   * job is done with it.
+   */
+  synchronized CachedJobClassLoader acquire(final JobTypePluginSet pluginSet, final String jobType,
+      final ClassLoader parent) {
+    if (pluginSet != this.pluginSet) {
+      // Plugins reloaded since the job got its plugin set, the loader is used by this job only.
+      final CachedJobClassLoader loader = create(pluginSet, jobType, parent);
+      loader.evicted = true;
+      loader.refCount++;
+      return loader;
+    }
+    final CachedJobClassLoader loader = this.loaders
+        .computeIfAbsent(new Key(jobType, parent), key -> create(pluginSet, jobType, parent));
+    loader.refCount++;
+    return loader;
+  }
+
+  private static CachedJobClassLoader create(final JobTypePluginSet pluginSet,
+      final String jobType, final ClassLoader parent) {
+    LOGGER.info("Creating class loader of jobtype " + jobType);
+    return new CachedJobClassLoader(
+        new JobClassLoader(pluginSet.getPluginClassLoaderURLs(jobType), parent, jobType));
+  }
+
+  synchronized void release(final CachedJobClassLoader loader) {
+    if (--loader.refCount == 0 && loader.evicted) {
+      close(loader);
+    }
+  }
+
+  /**
+   * Evicts the loaders of the previous plugin set, closing the unused ones.
+   */
+  synchronized void setPluginSet(final JobTypePluginSet pluginSet) {
+    this.pluginSet = pluginSet;
+    for (final CachedJobClassLoader loader : this.loaders.values()) {
+      loader.evicted = true;
+      if (loader.refCount == 0) {
+        close(loader);
+      }
+    }
+    this.loaders.clear();
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return this.loaders.size();
+  }
+
+  private static void close(final CachedJobClassLoader loader) {
+    try {
+      loader.classLoader.close();
+    } catch (final IOException e) {
+      LOGGER.warn("Failed to close job class loader", e);
+    }
+  }
+
+  /**
+   * A cached loader, with the number of jobs using it. Accessed under the cache lock.
+   */
+  static class CachedJobClassLoader {
+
+    final JobClassLoader classLoader;
+    private int refCount = 0;
+    private boolean evicted = false;
+
+    private CachedJobClassLoader(final JobClassLoader classLoader) {
+      this.classLoader = classLoader;
+    }
+  }
+
+  private static class Key {
+
+    private final String jobType;
+    private final ClassLoader parent;
+
+    private Key(final String jobType, final ClassLoader parent) {
+      this.jobType = jobType;
+      this.parent = parent;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return this.jobType.equals(key.jobType) && this.parent == key.parent;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.jobType, System.identityHashCode(this.parent));
+    }
+  }
+}
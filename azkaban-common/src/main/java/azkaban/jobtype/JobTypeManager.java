@@ -27,6 +27,7 @@ import azkaban.jobExecutor.JobClassLoader;
 import azkaban.jobExecutor.NoopJob;
 import azkaban.jobExecutor.ProcessJob;
 import azkaban.jobExecutor.utils.JobExecutionException;
+import azkaban.jobtype.JobClassLoaderCache.CachedJobClassLoader;
 import azkaban.utils.Props;
 import azkaban.utils.PropsUtils;
 import azkaban.utils.Utils;
@@ -43,6 +44,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.apache.log4j.Logger;
 
@@ -53,6 +55,8 @@ public class JobTypeManager {
   private final ClassLoader parentLoader;
   private final Props globalProperties;
   private final ClusterRouter clusterRouter;
+  // Null if every job gets its own class loader
+  private final JobClassLoaderCache jobClassLoaderCache;
   private JobTypePluginSet pluginSet;
   // Only used to load keyStore.
   private Props cachedCommonPluginLoadProps;
@@ -65,10 +69,21 @@ public class JobTypeManager {
 
   public JobTypeManager(final String jobtypePluginDir, final Props globalProperties,
     final ClassLoader parentClassLoader, ClusterRouter clusterRouter) {
+    this(jobtypePluginDir, globalProperties, parentClassLoader, clusterRouter, false);
+  }
+
+  /**
+   * @param cacheJobClassLoaders whether the jobs of a jobtype running against the same cluster
+   * share their class loader, instead of each job loading the jobtype classes again
+   */
+  public JobTypeManager(final String jobtypePluginDir, final Props globalProperties,
+      final ClassLoader parentClassLoader, final ClusterRouter clusterRouter,
+      final boolean cacheJobClassLoaders) {
     this.jobTypePluginDir = jobtypePluginDir;
     this.parentLoader = parentClassLoader;
     this.globalProperties = globalProperties;
     this.clusterRouter = clusterRouter;
+    this.jobClassLoaderCache = cacheJobClassLoaders ? new JobClassLoaderCache() : null;
     loadPlugins();
   }
 
@@ -92,6 +107,9 @@ public class JobTypeManager {
     // Swap the plugin set. If exception is thrown, then plugin isn't swapped.
     synchronized (this) {
       this.pluginSet = plugins;
+      if (this.jobClassLoaderCache != null) {
+        this.jobClassLoaderCache.setPluginSet(plugins);
+      }
     }
   }
 
@@ -336,6 +354,7 @@ public class JobTypeManager {
     // This is final because during build phase, you should never need to swap
     // the pluginSet for safety reasons
     final JobTypePluginSet pluginSet = getJobTypePluginSet();
+    CachedJobClassLoader cachedJobClassLoader = null;
 
     try {
       final String jobType = jobProps.getString("type");
@@ -371,14 +390,23 @@ public class JobTypeManager {
       }
       logger.info(String.format("JobClassLoader URLs: %s", jobClassLoaderUrls.stream()
           .map(URL::toString).collect(Collectors.joining(", "))));
-      final ClassLoader jobClassLoader = new JobClassLoader(
-          jobClassLoaderUrls.toArray(new URL[jobClassLoaderUrls.size()]),
-          jobContextClassLoader, jobId);
+      final long classLoadStartMillis = System.currentTimeMillis();
+      final ClassLoader jobClassLoader;
+      if (this.jobClassLoaderCache != null) {
+        cachedJobClassLoader =
+            this.jobClassLoaderCache.acquire(pluginSet, jobType, jobContextClassLoader);
+        jobClassLoader = cachedJobClassLoader.classLoader;
+      } else {
+        jobClassLoader = new JobClassLoader(
+            jobClassLoaderUrls.toArray(new URL[jobClassLoaderUrls.size()]),
+            jobContextClassLoader, jobId);
+      }
 
 
       // load the jobtype from JobClassLoader
       final String jobTypeClassName = pluginSet.getPluginClassName(jobType);
       final Class<? extends Object> jobTypeClass = jobClassLoader.loadClass(jobTypeClassName);
+      final long classLoadTimeMillis = System.currentTimeMillis() - classLoadStartMillis;
       if (jobTypeClass == null) {
         throw new JobExecutionException(String.format("Job type [%s] "
                 + "is unrecognized. Could not construct job [%s] of type [%s].",
@@ -396,13 +424,15 @@ public class JobTypeManager {
       finalProps = PropsUtils.resolveProps(finalProps);
 
       return new JobParams(jobTypeClass, finalProps, pluginSet.getPluginPrivateProps(jobType),
-          pluginLoadProps, jobContextClassLoader);
+          pluginLoadProps, jobContextClassLoader, classLoadTimeMillis, cachedJobClassLoader);
     } catch (final Exception e) {
+      releaseJobClassLoader(cachedJobClassLoader);
       logger.error("Failed to build job executor for job " + jobId
           + e.getMessage());
       throw new JobTypeManagerException("Failed to build job executor for job "
           + jobId, e);
     } catch (final Throwable t) {
+      releaseJobClassLoader(cachedJobClassLoader);
       logger.error(
           "Failed to build job executor for job " + jobId + t.getMessage(), t);
       throw new JobTypeManagerException("Failed to build job executor for job "
@@ -410,6 +440,27 @@ public class JobTypeManager {
     }
   }
 
+  /**
+   * Releases the class loader of the job once the job is done. A no-op if the job has its own
+   * class loader, or if it was released already.
+   */
+  public void releaseJobParams(final JobParams jobParams) {
+    if (jobParams.released.compareAndSet(false, true)) {
+      releaseJobClassLoader(jobParams.cachedJobClassLoader);
+    }
+  }
+
+  private void releaseJobClassLoader(final CachedJobClassLoader cachedJobClassLoader) {
+    if (cachedJobClassLoader != null) {
+      this.jobClassLoaderCache.release(cachedJobClassLoader);
+    }
+  }
+
+  @VisibleForTesting
+  int getNumCachedJobClassLoaders() {
+    return this.jobClassLoaderCache == null ? 0 : this.jobClassLoaderCache.size();
+  }
+
   private static Props getClusterSpecificNonOverridableJobProps(final Props clusterSpecificJobProp) {
     final Props props = new Props();
     final String clusterClasspath =
@@ -497,15 +548,28 @@ public class JobTypeManager {
     public final Props jobProps;
     public final Props pluginLoadProps;
     public final Props pluginPrivateProps;
+    // Time taken to get the job class loader and load the jobtype class
+    public final long classLoadTimeMillis;
+    private final CachedJobClassLoader cachedJobClassLoader;
+    private final AtomicBoolean released = new AtomicBoolean(false);
 
     public JobParams(final Class<? extends Object> jobClass, final Props jobProps,
                      final Props pluginPrivateProps, final Props pluginLoadProps,
                      final ClassLoader contextClassLoader) {
+      this(jobClass, jobProps, pluginPrivateProps, pluginLoadProps, contextClassLoader, 0, null);
+    }
+
+    private JobParams(final Class<? extends Object> jobClass, final Props jobProps,
+                      final Props pluginPrivateProps, final Props pluginLoadProps,
+                      final ClassLoader contextClassLoader, final long classLoadTimeMillis,
+                      final CachedJobClassLoader cachedJobClassLoader) {
       this.jobClass = jobClass;
       this.contextClassLoader = contextClassLoader;
       this.jobProps = jobProps;
       this.pluginLoadProps = pluginLoadProps;
       this.pluginPrivateProps = pluginPrivateProps;
+      this.classLoadTimeMillis = classLoadTimeMillis;
+      this.cachedJobClassLoader = cachedJobClassLoader;
     }
   }
 
@@ -17,9 +17,12 @@
 package azkaban.metrics;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.apache.http.pool.PoolStats;
 
 /**
  * This singleton class CommonMetrics is in charge of collecting varieties of metrics which are
@@ -39,6 +42,24 @@ public class CommonMetrics {
   public static final String OOM_WAITING_JOB_COUNT_NAME = "OOM-waiting-job-count";
   public static final String UPLOAD_FAT_PROJECT_METER_NAME = "upload-fat-project-meter";
   public static final String UPLOAD_THIN_PROJECT_METER_NAME = "upload-thin-project-meter";
+  public static final String QUEUE_PROCESSOR_IDLE_WAKEUP_METER_NAME =
+      "queue-processor-idle-wakeup-meter";
+  public static final String QUEUE_WAIT_HISTOGRAM_NAME = "queue-wait-histogram";
+  public static final String EXECUTION_UPDATE_LATENCY_HISTOGRAM_PREFIX =
+      "execution-update-latency-histogram-";
+  public static final String EXECUTOR_CLIENT_POOL_LEASED_NAME = "executor-client-pool-leased";
+  public static final String EXECUTOR_CLIENT_POOL_AVAILABLE_NAME = "executor-client-pool-available";
+  public static final String EXECUTOR_CLIENT_POOL_PENDING_NAME = "executor-client-pool-pending";
+  public static final String EXECUTOR_CLIENT_POOL_MAX_NAME = "executor-client-pool-max";
+  public static final String EXECUTION_LOG_UPLOAD_QUEUE_DEPTH_NAME =
+      "execution-log-upload-queue-depth";
+  public static final String EXECUTION_LOG_UPLOAD_INFLIGHT_BYTES_NAME =
+      "execution-log-upload-inflight-bytes";
+  public static final String EXECUTION_LOG_UPLOAD_BYTES_METER_NAME =
+      "execution-log-upload-bytes-meter";
+  public static final String EXECUTION_LOG_UPLOAD_FAIL_METER_NAME =
+      "execution-log-upload-fail-meter";
+  public static final String TRIGGER_CHECK_LAG_HISTOGRAM_PREFIX = "trigger-check-lag-shard-";
 
   private Counter OOMWaitingJobCount;
   private final MetricsManager metricsManager;
@@ -52,6 +73,10 @@ public class CommonMetrics {
   private Meter submitFlowSkipMeter;
   private Meter uploadFatProjectMeter;
   private Meter uploadThinProjectMeter;
+  private Meter queueProcessorIdleWakeupMeter;
+  private Histogram queueWaitHistogram;
+  private Meter executionLogUploadBytesMeter;
+  private Meter executionLogUploadFailMeter;
 
   @Inject
   public CommonMetrics(final MetricsManager metricsManager) {
@@ -71,6 +96,13 @@ public class CommonMetrics {
     this.OOMWaitingJobCount = this.metricsManager.addCounter(OOM_WAITING_JOB_COUNT_NAME);
     this.uploadFatProjectMeter = this.metricsManager.addMeter(UPLOAD_FAT_PROJECT_METER_NAME);
     this.uploadThinProjectMeter = this.metricsManager.addMeter(UPLOAD_THIN_PROJECT_METER_NAME);
+    this.queueProcessorIdleWakeupMeter =
+        this.metricsManager.addMeter(QUEUE_PROCESSOR_IDLE_WAKEUP_METER_NAME);
+    this.queueWaitHistogram = this.metricsManager.addHistogram(QUEUE_WAIT_HISTOGRAM_NAME);
+    this.executionLogUploadBytesMeter =
+        this.metricsManager.addMeter(EXECUTION_LOG_UPLOAD_BYTES_METER_NAME);
+    this.executionLogUploadFailMeter =
+        this.metricsManager.addMeter(EXECUTION_LOG_UPLOAD_FAIL_METER_NAME);
   }
 
   /**
@@ -140,6 +172,83 @@ public class CommonMetrics {
    */
   public void markUploadThinProject() { this.uploadThinProjectMeter.mark(); }
 
+  /**
+   * Mark queueProcessorIdleWakeupMeter when the queue processor wakes up and finds no execution
+   * to dispatch.
+   */
+  public void markQueueProcessorIdleWakeup() {
+    this.queueProcessorIdleWakeupMeter.mark();
+  }
+
+  /**
+   * Record the time in milliseconds an execution spent in the queue before it was dispatched.
+   */
+  public void addQueueWait(final long timeInMs) {
+    this.queueWaitHistogram.update(timeInMs);
+  }
+
+  /**
+   * Record the time in milliseconds taken by an executor to answer the update of its running
+   * executions. A histogram is kept per executor, named after its id.
+   */
+  public void addExecutionUpdateLatency(final int executorId, final long timeInMs) {
+    this.metricsManager.addHistogram(EXECUTION_UPDATE_LATENCY_HISTOGRAM_PREFIX + executorId)
+        .update(timeInMs);
+  }
+
+  /**
+   * Remove the update latency histogram of an executor, once it's no longer active.
+   */
+  public void removeExecutionUpdateLatency(final int executorId) {
+    this.metricsManager.removeMetric(EXECUTION_UPDATE_LATENCY_HISTOGRAM_PREFIX + executorId);
+  }
+
+  /**
+   * Expose the statistics of the connection pool used to call executors: the number of leased,
+   * idle (available) and max connections, and the number of requests waiting for a connection.
+   */
+  public void addExecutorClientPoolMetrics(final Supplier<PoolStats> poolStats) {
+    this.metricsManager.addGauge(EXECUTOR_CLIENT_POOL_LEASED_NAME,
+        () -> poolStats.get().getLeased());
+    this.metricsManager.addGauge(EXECUTOR_CLIENT_POOL_AVAILABLE_NAME,
+        () -> poolStats.get().getAvailable());
+    this.metricsManager.addGauge(EXECUTOR_CLIENT_POOL_PENDING_NAME,
+        () -> poolStats.get().getPending());
+    this.metricsManager.addGauge(EXECUTOR_CLIENT_POOL_MAX_NAME, () -> poolStats.get().getMax());
+  }
+
+  /**
+   * Expose the number of job log uploads waiting to be committed and the compressed bytes they
+   * hold.
+   */
+  public void addExecutionLogUploadMetrics(final Supplier<Integer> queueDepth,
+      final Supplier<Integer> inFlightBytes) {
+    this.metricsManager.addGauge(EXECUTION_LOG_UPLOAD_QUEUE_DEPTH_NAME, queueDepth);
+    this.metricsManager.addGauge(EXECUTION_LOG_UPLOAD_INFLIGHT_BYTES_NAME, inFlightBytes);
+  }
+
+  /**
+   * Mark executionLogUploadBytesMeter with the compressed bytes of job logs committed to the DB.
+   */
+  public void markExecutionLogUploadBytes(final long numBytes) {
+    this.executionLogUploadBytesMeter.mark(numBytes);
+  }
+
+  /**
+   * Mark executionLogUploadFailMeter when the upload of a job log fails.
+   */
+  public void markExecutionLogUploadFail() {
+    this.executionLogUploadFailMeter.mark();
+  }
+
+  /**
+   * Record how late, in milliseconds, a trigger was checked after its check time. A histogram is
+   * kept per trigger scheduler shard.
+   */
+  public void addTriggerCheckLag(final int shard, final long timeInMs) {
+    this.metricsManager.addHistogram(TRIGGER_CHECK_LAG_HISTOGRAM_PREFIX + shard).update(timeInMs);
+  }
+
   /**
    * Mark the occurrence of a job waiting event due to OOM
    */
@@ -83,4 +83,33 @@ public interface ContainerizationMetrics {
    */
   void markFlowSubmitToContainer();
 
+  /**
+   * Record a lookup of image types, versions or rampups served from the cache
+   */
+  void markImageCacheHit();
+
+  /**
+   * Record a lookup of image types, versions or rampups which went to the database
+   */
+  void markImageCacheMiss();
+
+  /**
+   * Record a pod template reused as its file didn't change
+   */
+  void markPodTemplateCacheHit();
+
+  /**
+   * Record a pod template (re)loaded from its file
+   */
+  void markPodTemplateCacheMiss();
+
+  /**
+   * Record an execution assigned to a pre-warmed pod
+   */
+  void markWarmPodHit();
+
+  /**
+   * Record an execution for which a new pod had to be created as no pre-warmed pod was available
+   */
+  void markWarmPodMiss();
 }
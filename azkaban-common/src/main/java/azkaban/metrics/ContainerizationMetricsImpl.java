@@ -36,10 +36,19 @@ public class ContainerizationMetricsImpl implements ContainerizationMetrics {
       appContainerStarting, podReady, podInitFailure, podAppFailure;
   private Meter flowSubmitToExecutor, flowSubmitToContainer;
   private Histogram timeToDispatch;
+  private final Meter imageCacheHit, imageCacheMiss, podTemplateCacheHit, podTemplateCacheMiss;
+  private final Meter warmPodHit, warmPodMiss;
 
   @Inject
   public ContainerizationMetricsImpl(MetricsManager metricsManager) {
     this.metricsManager = metricsManager;
+    // The caches are used as soon as flows are dispatched, which may happen before setUp().
+    this.imageCacheHit = this.metricsManager.addMeter("Image-Cache-Hit-Meter");
+    this.imageCacheMiss = this.metricsManager.addMeter("Image-Cache-Miss-Meter");
+    this.podTemplateCacheHit = this.metricsManager.addMeter("Pod-Template-Cache-Hit-Meter");
+    this.podTemplateCacheMiss = this.metricsManager.addMeter("Pod-Template-Cache-Miss-Meter");
+    this.warmPodHit = this.metricsManager.addMeter("Warm-Pod-Hit-Meter");
+    this.warmPodMiss = this.metricsManager.addMeter("Warm-Pod-Miss-Meter");
   }
 
   @Override
@@ -118,4 +127,34 @@ public class ContainerizationMetricsImpl implements ContainerizationMetrics {
   public void markFlowSubmitToContainer() {
     //TODO haqin: implement metric that records number of flows dispatched to a container
   }
+
+  @Override
+  public void markImageCacheHit() {
+    this.imageCacheHit.mark();
+  }
+
+  @Override
+  public void markImageCacheMiss() {
+    this.imageCacheMiss.mark();
+  }
+
+  @Override
+  public void markPodTemplateCacheHit() {
+    this.podTemplateCacheHit.mark();
+  }
+
+  @Override
+  public void markPodTemplateCacheMiss() {
+    this.podTemplateCacheMiss.mark();
+  }
+
+  @Override
+  public void markWarmPodHit() {
+    this.warmPodHit.mark();
+  }
+
+  @Override
+  public void markWarmPodMiss() {
+    this.warmPodMiss.mark();
+  }
 }
@@ -79,4 +79,28 @@ public class DummyContainerizationMetricsImpl implements ContainerizationMetrics
   public void markFlowSubmitToContainer() {
 
   }
+
+  @Override
+  public void markImageCacheHit() {
+  }
+
+  @Override
+  public void markImageCacheMiss() {
+  }
+
+  @Override
+  public void markPodTemplateCacheHit() {
+  }
+
+  @Override
+  public void markPodTemplateCacheMiss() {
+  }
+
+  @Override
+  public void markWarmPodHit() {
+  }
+
+  @Override
+  public void markWarmPodMiss() {
+  }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package azkaban.storage;
+
+import static azkaban.HadoopModule.HADOOP_FILE_CONTEXT;
+import static azkaban.HadoopModule.HADOOP_FS_AUTH;
+import static java.util.Objects.requireNonNull;
+
+import azkaban.AzkabanCommonModuleConfig;
+import azkaban.spi.LogStorage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FsConstants;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+@Singleton
+public class HdfsLogStorage implements LogStorage {
+
+  private static final Logger log = LoggerFactory.getLogger(HdfsLogStorage.class);
+  private static final String TMP_LOG_UPLOAD_SUFFIX = ".tmp";
+
+  private final AbstractHdfsAuth hdfsAuth;
+  private final FileContext hdfsFileContext;
+  private final URI logRootUri;
+
+  @Inject
+  public HdfsLogStorage(final AzkabanCommonModuleConfig config,
+      @Named(HADOOP_FS_AUTH) final AbstractHdfsAuth hdfsAuth,
+      @Named(HADOOP_FILE_CONTEXT) final FileContext hdfsFileContext) {
+    this.hdfsAuth = requireNonNull(hdfsAuth);
+    this.hdfsFileContext = requireNonNull(hdfsFileContext);
+    this.logRootUri = requireNonNull(config.getHdfsLogRootUri(),
+        "HDFS log storage requires the log root uri");
+  }
+
+  @Override
+  public void putLog(final String key, final File localFile) throws IOException {
+    this.hdfsAuth.authorize();
+    final Path targetPath = fullLogPath(key);
+    final Path tmpPath = new Path(targetPath.getParent(),
+        targetPath.getName() + TMP_LOG_UPLOAD_SUFFIX);
+    this.hdfsFileContext.mkdir(targetPath.getParent(), FsPermission.getDefault(), true);
+
+    final Path localFilePath = new Path(localFile.getPath())
+        .makeQualified(FsConstants.LOCAL_FS_URI, null);
+    log.debug("Uploading log " + localFilePath + " to " + targetPath);
+    HdfsUtils.uploadLocalFile(localFilePath, tmpPath, this.hdfsFileContext);
+    this.hdfsFileContext.rename(tmpPath, targetPath, Options.Rename.OVERWRITE);
+  }
+
+  @Override
+  public InputStream getLog(final String key, final long offset) throws IOException {
+    this.hdfsAuth.authorize();
+    final FSDataInputStream in = this.hdfsFileContext.open(fullLogPath(key));
+    try {
+      in.seek(offset);
+    } catch (final IOException e) {
+      in.close();
+      throw e;
+    }
+    return in;
+  }
+
+  @Override
+  public boolean deleteLog(final String key) {
+    this.hdfsAuth.authorize();
+    final Path path = fullLogPath(key);
+    try {
+      return this.hdfsFileContext.delete(path, false);
+    } catch (final IOException e) {
+      log.error("HDFS log file delete failed on " + path, e);
+      return false;
+    }
+  }
+
+  private Path fullLogPath(final String key) {
+    return new Path(this.logRootUri.toString(), key);
+  }
+}
@@ -28,27 +28,20 @@ import azkaban.spi.ProjectStorageMetadata;
 import azkaban.spi.Storage;
 import azkaban.spi.StorageException;
 import azkaban.utils.StorageUtils;
-import com.google.common.annotations.VisibleForTesting;
-import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.util.EnumSet;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
-import org.apache.hadoop.fs.CreateFlag;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileContext;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FsConstants;
 import org.apache.hadoop.fs.Options;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
-import org.apache.hadoop.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,10 +52,6 @@ public class HdfsStorage implements Storage {
   private static final String TMP_PROJECT_UPLOAD_FILENAME = "upload.tmp";
   private static final Logger log = LoggerFactory.getLogger(HdfsStorage.class);
 
-  // Size of the buffer used while transferring data upstream. Value is based on the default
-  // value used in FileSystem.copyFromLocalFile().
-  private static final int UPLOAD_BUFFER_SIZE_BYTES = 4096;
-
   private final AbstractHdfsAuth hdfsAuth;
   private final URI projectRootUri;
   private final URI dependencyRootUri;
@@ -100,61 +89,6 @@ public class HdfsStorage implements Storage {
     return this.hdfsFileContext.open(projectFilePath);
   }
 
-  // IOUtils.closeStreams() is an alternative to this, but it doesn't log exceptions by default
-  // and making it use the log4j Logger could be tricky.
-  private static void closeStreamsQuietly(final Closeable... streams) {
-    for (final Closeable stream : streams) {
-      if (stream == null) {
-        continue;
-      }
-      try {
-        stream.close();
-      } catch (final IOException e) {
-        log.error("Exception while closing stream " + stream, e);
-      }
-    }
-  }
-
-  /**
-   * Copy a file from the local file system to a location given by the file context. {@code
-   * remotePath and remoteFileContext} will typically point to an external location but don't have
-   * to. If {@code remotePath} already exists, it will be overwritten.
-   * <p>
-   * Note that FileSystem includes a convenient {@code copyFromLocalFile} method that can be
-   * directly used in place of this. FileContext does not appear to have a similar functionality
-   * built-in, requiring this implementation.
-   *
-   * @param localPath         location on local disk
-   * @param remotePath        location where the file will be copied to
-   * @param remoteFileContext file context for the remote file path
-   * @throws IOException
-   */
-  @VisibleForTesting
-  static void uploadLocalFile(final Path localPath, final Path remotePath,
-      final FileContext remoteFileContext) throws IOException {
-    FSDataInputStream localStream = null;
-    FSDataOutputStream remoteStream = null;
-
-    final String actionString = String.format("upload of local file %s to remote file %s",
-        localPath, remotePath);
-    log.debug("Starting " + actionString);
-
-    try {
-      final FileContext localFileContext = FileContext.getLocalFSFileContext();
-      localStream = localFileContext.open(localPath);
-      remoteStream = remoteFileContext.create(remotePath,
-          EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE));
-      IOUtils.copyBytes(localStream, remoteStream, UPLOAD_BUFFER_SIZE_BYTES, true);
-    } catch (final IOException e) {
-      log.error("Error during " + actionString, e);
-      throw e;
-    } finally {
-      closeStreamsQuietly(localStream, remoteStream);
-      log.debug("Ending " + actionString);
-      // FileContexts (localFileContext in this case) don't need to be 'closed'
-    }
-  }
-
   @Override
   public String putProject(final ProjectStorageMetadata metadata, final File localFile) {
     this.hdfsAuth.authorize();
@@ -173,7 +107,7 @@ public class HdfsStorage implements Storage {
 
       // Copy file to HDFS
       log.info(String.format("Creating project artifact: meta: %s path: %s", metadata, targetPath));
-      uploadLocalFile(localFilePath, tmpPath, this.hdfsFileContext);
+      HdfsUtils.uploadLocalFile(localFilePath, tmpPath, this.hdfsFileContext);
 
       // Rename the tmp file to the final file and overwrite the final file if it already exists
       // (i.e. if the hash is the same).
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.EnumSet;
+import org.apache.hadoop.fs.CreateFlag;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File transfer helpers shared by the HDFS backed storages ({@link HdfsStorage} and {@link
+ * HdfsLogStorage}).
+ */
+final class HdfsUtils {
+
+  private static final Logger log = LoggerFactory.getLogger(HdfsUtils.class);
+
+  // Size of the buffer used while transferring data upstream. Value is based on the default
+  // value used in FileSystem.copyFromLocalFile().
+  private static final int UPLOAD_BUFFER_SIZE_BYTES = 4096;
+
+  private HdfsUtils() {
+  }
+
+  // IOUtils.closeStreams() is an alternative to this, but it doesn't log exceptions by default
+  // and making it use the log4j Logger could be tricky.
+  private static void closeStreamsQuietly(final Closeable... streams) {
+    for (final Closeable stream : streams) {
+      if (stream == null) {
+        continue;
+      }
+      try {
+        stream.close();
+      } catch (final IOException e) {
+        log.error("Exception while closing stream " + stream, e);
+      }
+    }
+  }
+
+  /**
+   * Copy a file from the local file system to a location given by the file context. {@code
+   * remotePath and remoteFileContext} will typically point to an external location but don't have
+   * to. If {@code remotePath} already exists, it will be overwritten.
+   * <p>
+   * Note that FileSystem includes a convenient {@code copyFromLocalFile} method that can be
+   * directly used in place of this. FileContext does not appear to have a similar functionality
+   * built-in, requiring this implementation.
+   *
+   * @param localPath         location on local disk
+   * @param remotePath        location where the file will be copied to
+   * @param remoteFileContext file context for the remote file path
+   * @throws IOException
+   */
+  static void uploadLocalFile(final Path localPath, final Path remotePath,
+      final FileContext remoteFileContext) throws IOException {
+    FSDataInputStream localStream = null;
+    FSDataOutputStream remoteStream = null;
+
+    final String actionString = String.format("upload of local file %s to remote file %s",
+        localPath, remotePath);
+    log.debug("Starting " + actionString);
+
+    try {
+      final FileContext localFileContext = FileContext.getLocalFSFileContext();
+      localStream = localFileContext.open(localPath);
+      remoteStream = remoteFileContext.create(remotePath,
+          EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE));
+      IOUtils.copyBytes(localStream, remoteStream, UPLOAD_BUFFER_SIZE_BYTES, true);
+    } catch (final IOException e) {
+      log.error("Error during " + actionString, e);
+      throw e;
+    } finally {
+      closeStreamsQuietly(localStream, remoteStream);
+      log.debug("Ending " + actionString);
+      // FileContexts (localFileContext in this case) don't need to be 'closed'
+    }
+  }
+}
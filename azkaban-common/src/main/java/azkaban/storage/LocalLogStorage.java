@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package azkaban.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import azkaban.AzkabanCommonModuleConfig;
+import azkaban.spi.LogStorage;
+import azkaban.utils.FileIOUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the logs in a directory of the local file system, e.g. a mounted network file system
+ * shared by the web server and the executors.
+ */
+@Singleton
+public class LocalLogStorage implements LogStorage {
+
+  private static final Logger log = LoggerFactory.getLogger(LocalLogStorage.class);
+  private static final String TMP_LOG_UPLOAD_SUFFIX = ".tmp";
+
+  final File rootDirectory;
+
+  @Inject
+  public LocalLogStorage(final AzkabanCommonModuleConfig config) {
+    this.rootDirectory = new File(config.getLocalLogStorageBaseDirPath());
+    if (this.rootDirectory.mkdirs()) {
+      log.info("Creating dir: " + this.rootDirectory.getAbsolutePath());
+    }
+    checkArgument(this.rootDirectory.isDirectory());
+    if (!FileIOUtils.isDirWritable(this.rootDirectory)) {
+      throw new IllegalArgumentException("Directory not writable: " + this.rootDirectory);
+    }
+  }
+
+  private File getFileInRoot(final String key) {
+    return new File(this.rootDirectory, key);
+  }
+
+  @Override
+  public void putLog(final String key, final File localFile) throws IOException {
+    final File targetFile = getFileInRoot(key);
+    final File targetDir = targetFile.getParentFile();
+    if (!targetDir.isDirectory() && !targetDir.mkdirs() && !targetDir.isDirectory()) {
+      throw new IOException("Unable to create log dir: " + targetDir.getAbsolutePath());
+    }
+    // Copy to a tmp file first so that readers never see a partially written log.
+    final File tmpFile = new File(targetDir, targetFile.getName() + TMP_LOG_UPLOAD_SUFFIX);
+    FileUtils.copyFile(localFile, tmpFile);
+    Files.move(tmpFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @Override
+  public InputStream getLog(final String key, final long offset) throws IOException {
+    final FileInputStream in = new FileInputStream(getFileInRoot(key));
+    try {
+      in.getChannel().position(offset);
+    } catch (final IOException e) {
+      in.close();
+      throw e;
+    }
+    return in;
+  }
+
+  @Override
+  public boolean deleteLog(final String key) {
+    final File file = getFileInRoot(key);
+    final boolean result = file.exists() && file.delete();
+    if (!result) {
+      log.warn("Unable to delete log file: " + file.getAbsolutePath());
+      return false;
+    }
+    // Remove the dir of the execution once its last log is gone; fails while it is not empty.
+    final File parent = file.getParentFile();
+    if (!parent.equals(this.rootDirectory)) {
+      parent.delete();
+    }
+    return true;
+  }
+}
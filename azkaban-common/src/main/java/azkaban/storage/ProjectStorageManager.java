@@ -34,6 +34,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -166,16 +168,18 @@ public class ProjectStorageManager {
         String.format("URI is null. project ID: %d version: %d",
             pfh.getProjectId(), pfh.getVersion()));
 
-    try (final InputStream is = this.storage.getProject(resourceId)) {
+    final MessageDigest digest = HashUtils.MD5.getDigest();
+    try (final InputStream is = new DigestInputStream(this.storage.getProject(resourceId),
+        digest)) {
       final File file = createTempOutputFile(pfh);
 
-      /* Copy from storage to output stream */
+      /* Copy from storage to output stream, computing the checksum on the way */
       try (final FileOutputStream fos = new FileOutputStream(file)) {
-        IOUtils.copy(is, fos);
+        IOUtils.copyLarge(is, fos);
       }
 
       /* Validate checksum */
-      validateChecksum(file, pfh);
+      validateChecksum(digest.digest(), pfh);
 
       /* Attach file to handler */
       pfh.setLocalFile(file);
@@ -186,8 +190,7 @@ public class ProjectStorageManager {
     }
   }
 
-  private void validateChecksum(final File file, final ProjectFileHandler pfh) throws IOException {
-    final byte[] hash = HashUtils.MD5.getHashBytes(file);
+  private void validateChecksum(final byte[] hash, final ProjectFileHandler pfh) {
     checkState(HashUtils.isSameHash(pfh.getMD5Hash(), hash),
         String.format("MD5 HASH Failed. project ID: %d version: %d Expected: %s Actual: %s",
             pfh.getProjectId(), pfh.getVersion(), HashUtils.bytesHashToString(pfh.getMD5Hash()),
@@ -18,54 +18,98 @@ package azkaban.trigger;
 
 import static java.util.Objects.requireNonNull;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.event.EventHandler;
 import azkaban.executor.ExecutorManagerAdapter;
 import azkaban.executor.ExecutorManagerException;
+import azkaban.metrics.CommonMetrics;
 import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.log4j.Logger;
 
+/**
+ * Checks the triggers when their next check time has passed.
+ *
+ * <p>The triggers are spread across shards by id. Each shard keeps its triggers ordered by check
+ * time and its thread only wakes up when the earliest one is due, instead of scanning every
+ * trigger on every scan interval. The checks, and the trigger actions they run, are done by a
+ * bounded pool of threads; the shard threads run the checks themselves when the pool is saturated.
+ * Triggers without a check time in the future, such as those with checkers not based on time, are
+ * checked every scan interval.
+ */
 @Singleton
 public class TriggerManager extends EventHandler implements
     TriggerManagerAdapter {
 
   public static final long DEFAULT_SCANNER_INTERVAL_MS = 60000;
+  public static final int DEFAULT_SCHEDULER_SHARDS = 4;
+  public static final int DEFAULT_ACTION_THREADS = 8;
+  // Checks waiting for a thread of the pool, the shard threads run the checks once it's full
+  @VisibleForTesting
+  static final int ACTION_QUEUE_CAPACITY = 1000;
+  @VisibleForTesting
+  static final int TRIGGER_LOCK_STRIPES = 256;
   private static final Logger logger = Logger.getLogger(TriggerManager.class);
   private static final Map<Integer, Trigger> triggerIdMap =
       new ConcurrentHashMap<>();
 
-  private final TriggerScannerThread runnerThread;
-  private final Object syncObj = new Object();
+  private final long scannerInterval;
+  private final TriggerShard[] shards;
+  private final ThreadPoolExecutor checkExecutor;
+  // Serializes the check of a trigger with its update and removal
+  private final Striped<Lock> triggerLocks = Striped.lock(TRIGGER_LOCK_STRIPES);
   private final CheckerTypeLoader checkerTypeLoader;
   private final ActionTypeLoader actionTypeLoader;
   private final TriggerLoader triggerLoader;
+  private final CommonMetrics commonMetrics;
   private final LocalTriggerJMX jmxStats = new LocalTriggerJMX();
-  private long lastRunnerThreadCheckTime = -1;
-  private long runnerThreadIdleTime = -1;
-  private String scannerStage = "";
 
   @Inject
   public TriggerManager(final Props props, final TriggerLoader triggerLoader,
-      final ExecutorManagerAdapter executorManagerAdapter) throws TriggerManagerException {
+      final ExecutorManagerAdapter executorManagerAdapter, final CommonMetrics commonMetrics)
+      throws TriggerManagerException {
 
     requireNonNull(props);
     requireNonNull(executorManagerAdapter);
     this.triggerLoader = requireNonNull(triggerLoader);
+    this.commonMetrics = requireNonNull(commonMetrics);
 
-    final long scannerInterval =
+    this.scannerInterval =
         props.getLong("trigger.scan.interval", DEFAULT_SCANNER_INTERVAL_MS);
-    this.runnerThread = new TriggerScannerThread(scannerInterval);
+    final int numShards =
+        props.getInt(ConfigurationKeys.TRIGGER_SCHEDULER_SHARDS, DEFAULT_SCHEDULER_SHARDS);
+    final int numActionThreads =
+        props.getInt(ConfigurationKeys.TRIGGER_ACTION_THREADS, DEFAULT_ACTION_THREADS);
+    if (numShards <= 0 || numActionThreads <= 0) {
+      throw new TriggerManagerException("Invalid trigger scheduler shards " + numShards
+          + " or action threads " + numActionThreads);
+    }
+    this.shards = new TriggerShard[numShards];
+    for (int i = 0; i < numShards; i++) {
+      this.shards[i] = new TriggerShard(i);
+    }
+    this.checkExecutor = new ThreadPoolExecutor(numActionThreads, numActionThreads, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(ACTION_QUEUE_CAPACITY),
+        new ThreadFactoryBuilder().setNameFormat("azk-trigger-action-%d").setDaemon(true).build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
 
     this.checkerTypeLoader = new CheckerTypeLoader();
     this.actionTypeLoader = new ActionTypeLoader();
@@ -80,7 +124,8 @@ public class TriggerManager extends EventHandler implements
     Condition.setCheckerLoader(this.checkerTypeLoader);
     Trigger.setActionTypeLoader(this.actionTypeLoader);
 
-    logger.info("TriggerManager loaded.");
+    logger.info("TriggerManager loaded with " + numShards + " shards and " + numActionThreads
+        + " action threads.");
   }
 
   @Override
@@ -90,15 +135,17 @@ public class TriggerManager extends EventHandler implements
       // expect loader to return valid triggers
       final List<Trigger> triggers = this.triggerLoader.loadTriggers();
       for (final Trigger t : triggers) {
-        this.runnerThread.addTrigger(t);
         triggerIdMap.put(t.getTriggerId(), t);
+        schedule(t);
       }
     } catch (final Exception e) {
       logger.error(e);
       throw new TriggerManagerException(e);
     }
 
-    this.runnerThread.start();
+    for (final TriggerShard shard : this.shards) {
+      shard.start();
+    }
   }
 
   protected CheckerTypeLoader getCheckerLoader() {
@@ -109,47 +156,80 @@ public class TriggerManager extends EventHandler implements
     return this.actionTypeLoader;
   }
 
+  private TriggerShard getShard(final int triggerId) {
+    return this.shards[Math.floorMod(triggerId, this.shards.length)];
+  }
+
+  /**
+   * Schedules the first check of the trigger, replacing any check scheduled for a previous version
+   * of it. A trigger already due is checked right away.
+   */
+  private void schedule(final Trigger t) {
+    t.updateNextCheckTime();
+    final long now = System.currentTimeMillis();
+    final long checkTime = t.getNextCheckTime() >= now ? afterCheckTime(t) : now;
+    getShard(t.getTriggerId()).schedule(t, checkTime);
+  }
+
+  /**
+   * @return the time of the next check of a trigger that was just checked
+   */
+  private long getNextCheckTime(final Trigger t) {
+    final long now = System.currentTimeMillis();
+    return t.getNextCheckTime() >= now ? afterCheckTime(t) : now + this.scannerInterval;
+  }
+
+  /**
+   * BasicTimeChecker is met once the current time is strictly after its check time. A trigger
+   * without time checkers has a next check time of Long.MAX_VALUE and is never due.
+   */
+  private static long afterCheckTime(final Trigger t) {
+    final long nextCheckTime = t.getNextCheckTime();
+    return nextCheckTime == Long.MAX_VALUE ? Long.MAX_VALUE : nextCheckTime + 1;
+  }
+
   public void insertTrigger(final Trigger t) throws TriggerManagerException {
     logger.info("Inserting trigger " + t + " in TriggerManager");
-    synchronized (this.syncObj) {
-      try {
-        this.triggerLoader.addTrigger(t);
-      } catch (final TriggerLoaderException e) {
-        throw new TriggerManagerException(e);
-      }
-      this.runnerThread.addTrigger(t);
-      triggerIdMap.put(t.getTriggerId(), t);
+    try {
+      this.triggerLoader.addTrigger(t);
+    } catch (final TriggerLoaderException e) {
+      throw new TriggerManagerException(e);
     }
+    triggerIdMap.put(t.getTriggerId(), t);
+    schedule(t);
   }
 
   public void removeTrigger(final int id) throws TriggerManagerException {
     logger.info("Removing trigger with id: " + id + " from TriggerManager");
-    synchronized (this.syncObj) {
-      final Trigger t = triggerIdMap.get(id);
-      if (t != null) {
-        removeTrigger(triggerIdMap.get(id));
-      }
+    final Trigger t = triggerIdMap.get(id);
+    if (t != null) {
+      removeTrigger(t);
     }
   }
 
   public void updateTrigger(final Trigger t) throws TriggerManagerException {
     logger.info("Updating trigger " + t + " in TriggerManager");
-    synchronized (this.syncObj) {
-      this.runnerThread.deleteTrigger(triggerIdMap.get(t.getTriggerId()));
-      this.runnerThread.addTrigger(t);
+    final Lock lock = this.triggerLocks.get(t.getTriggerId());
+    lock.lock();
+    try {
+      schedule(t);
       triggerIdMap.put(t.getTriggerId(), t);
       try {
         this.triggerLoader.updateTrigger(t);
       } catch (final TriggerLoaderException e) {
         throw new TriggerManagerException(e);
       }
+    } finally {
+      lock.unlock();
     }
   }
 
   public void removeTrigger(final Trigger t) throws TriggerManagerException {
     logger.info("Removing trigger " + t + " from TriggerManager");
-    synchronized (this.syncObj) {
-      this.runnerThread.deleteTrigger(t);
+    final Lock lock = this.triggerLocks.get(t.getTriggerId());
+    lock.lock();
+    try {
+      getShard(t.getTriggerId()).unschedule(t.getTriggerId());
       triggerIdMap.remove(t.getTriggerId());
       try {
         t.stopCheckers();
@@ -157,6 +237,8 @@ public class TriggerManager extends EventHandler implements
       } catch (final TriggerLoaderException e) {
         throw new TriggerManagerException(e);
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -169,9 +251,7 @@ public class TriggerManager extends EventHandler implements
   }
 
   public Trigger getTrigger(final int triggerId) {
-    synchronized (this.syncObj) {
-      return triggerIdMap.get(triggerId);
-    }
+    return triggerIdMap.get(triggerId);
   }
 
   public void expireTrigger(final int triggerId) {
@@ -234,7 +314,10 @@ public class TriggerManager extends EventHandler implements
 
   @Override
   public void shutdown() {
-    this.runnerThread.shutdown();
+    for (final TriggerShard shard : this.shards) {
+      shard.shutdown();
+    }
+    this.checkExecutor.shutdown();
   }
 
   @Override
@@ -254,189 +337,249 @@ public class TriggerManager extends EventHandler implements
     this.actionTypeLoader.registerActionType(name, action);
   }
 
-  private class TriggerScannerThread extends Thread {
+  private void checkTrigger(final TriggerShard shard, final ScheduledCheck check) {
+    final Trigger t = check.trigger;
+    this.commonMetrics.addTriggerCheckLag(shard.shardId,
+        Math.max(System.currentTimeMillis() - check.checkTime, 0));
+    final Lock lock = this.triggerLocks.get(t.getTriggerId());
+    lock.lock();
+    try {
+      // Updated or removed while waiting for the lock.
+      if (!shard.isScheduled(check)) {
+        return;
+      }
+      shard.stage = "Checking for trigger " + t.getTriggerId();
+
+      if (t.getStatus().equals(TriggerStatus.READY)) {
+
+        /**
+         * Prior to this change, expiration condition should never be called though
+         * we have some related code here. ExpireCondition used the same BasicTimeChecker
+         * as triggerCondition do. As a consequence, we need to figure out a way to distinguish
+         * the previous ExpireCondition and this commit's ExpireCondition.
+         */
+        if (t.getExpireCondition().getExpression().contains("EndTimeChecker") && t
+            .expireConditionMet()) {
+          onTriggerPause(t);
+        } else if (t.triggerConditionMet()) {
+          onTriggerTrigger(t);
+        }
+      }
+      if (t.getStatus().equals(TriggerStatus.EXPIRED) && t.getSource().equals("azkaban")) {
+        removeTrigger(t);
+      } else {
+        t.updateNextCheckTime();
+      }
+    } catch (final Throwable th) {
+      //skip this trigger, moving on to the next one
+      logger.error("Failed to process trigger with id : " + t, th);
+    } finally {
+      // A no-op for a removed trigger.
+      shard.reschedule(check, getNextCheckTime(t));
+      lock.unlock();
+    }
+  }
+
+  private void onTriggerTrigger(final Trigger t) throws TriggerManagerException {
+    final List<TriggerAction> actions = t.getTriggerActions();
+    for (final TriggerAction action : actions) {
+      try {
+        logger.info("Doing trigger actions " + action.getDescription() + " for " + t);
+        action.doAction();
+      } catch (final ExecutorManagerException e) {
+        if (e.getReason() == ExecutorManagerException.Reason.SkippedExecution) {
+          logger.info("Skipped action [" + action.getDescription() + "] for [" + t +
+              "] because: " + e.getMessage());
+        } else {
+          logger.error("Failed to do action [" + action.getDescription() + "] for [" + t + "]",
+              e);
+        }
+      } catch (final Throwable th) {
+        logger.error("Failed to do action [" + action.getDescription() + "] for [" + t + "]", th);
+      }
+    }
+
+    if (t.isResetOnTrigger()) {
+      t.resetTriggerConditions();
+    } else {
+      logger.info("NextCheckTime did not change. Setting status to expired for trigger"
+          + t.getTriggerId());
+      t.setStatus(TriggerStatus.EXPIRED);
+    }
+    try {
+      this.triggerLoader.updateTrigger(t);
+    } catch (final TriggerLoaderException e) {
+      throw new TriggerManagerException(e);
+    }
+  }
+
+  private void onTriggerPause(final Trigger t) throws TriggerManagerException {
+    final List<TriggerAction> expireActions = t.getExpireActions();
+    for (final TriggerAction action : expireActions) {
+      try {
+        logger.info("Doing expire actions for " + action.getDescription() + " for " + t);
+        action.doAction();
+      } catch (final Exception e) {
+        logger.error("Failed to do expire action " + action.getDescription() + " for " + t, e);
+      } catch (final Throwable th) {
+        logger.error("Failed to do expire action " + action.getDescription() + " for " + t, th);
+      }
+    }
+    logger.info("Pausing Trigger " + t.getDescription());
+    t.setStatus(TriggerStatus.PAUSED);
+    try {
+      this.triggerLoader.updateTrigger(t);
+    } catch (final TriggerLoaderException e) {
+      throw new TriggerManagerException(e);
+    }
+  }
+
+  /**
+   * A check of a trigger scheduled at a given time.
+   */
+  private static class ScheduledCheck {
 
-    private final long scannerInterval;
-    private final BlockingQueue<Trigger> triggers;
+    private final Trigger trigger;
+    // Only changed while the check isn't queued
+    private long checkTime;
+
+    private ScheduledCheck(final Trigger trigger, final long checkTime) {
+      this.trigger = trigger;
+      this.checkTime = checkTime;
+    }
+  }
+
+  private class TriggerShard implements Runnable {
+
+    private final int shardId;
+    private final Thread thread;
+    private final PriorityQueue<ScheduledCheck> checks =
+        new PriorityQueue<>(Comparator.comparingLong(check -> check.checkTime));
+    // The current check of each trigger of the shard. The queued checks of updated or removed
+    // triggers are dropped when they reach the head of the queue.
+    private final Map<Integer, ScheduledCheck> scheduledChecks = new HashMap<>();
     private boolean shutdown = false;
+    // Stats of the shard, aggregated across the shards by the JMX bean
+    private volatile long lastCheckTime = -1;
+    private volatile long idleTime = -1;
+    private volatile String stage = "";
+
+    public TriggerShard(final int shardId) {
+      this.shardId = shardId;
+      this.thread = new Thread(this, "TriggerRunnerManager-Trigger-Scanner-Thread-" + shardId);
+    }
 
-    public TriggerScannerThread(final long scannerInterval) {
-      this.triggers = new PriorityBlockingQueue<>(1, new TriggerComparator());
-      this.setName("TriggerRunnerManager-Trigger-Scanner-Thread");
-      this.scannerInterval = scannerInterval;
+    public void start() {
+      this.thread.start();
     }
 
-    public void shutdown() {
-      logger.error("Shutting down trigger manager thread " + this.getName());
+    public boolean isAlive() {
+      return this.thread.isAlive();
+    }
+
+    public synchronized void shutdown() {
+      logger.error("Shutting down trigger manager thread " + this.thread.getName());
       this.shutdown = true;
-      this.interrupt();
+      notifyAll();
     }
 
-    public void addTrigger(final Trigger t) {
-      synchronized (TriggerManager.this.syncObj) {
-        t.updateNextCheckTime();
-        this.triggers.add(t);
-      }
+    private synchronized void schedule(final Trigger t, final long checkTime) {
+      final ScheduledCheck check = new ScheduledCheck(t, checkTime);
+      this.scheduledChecks.put(t.getTriggerId(), check);
+      enqueue(check);
     }
 
-    public void deleteTrigger(final Trigger t) {
-      this.triggers.remove(t);
+    private synchronized void unschedule(final int triggerId) {
+      this.scheduledChecks.remove(triggerId);
     }
 
-    @Override
-    public void run() {
-      while (!this.shutdown) {
-        synchronized (TriggerManager.this.syncObj) {
-          try {
-            TriggerManager.this.lastRunnerThreadCheckTime = System.currentTimeMillis();
-
-            TriggerManager.this.scannerStage =
-                "Ready to start a new scan cycle at "
-                    + TriggerManager.this.lastRunnerThreadCheckTime;
-
-            try {
-              checkAllTriggers();
-            } catch (final Exception e) {
-              e.printStackTrace();
-              logger.error(e.getMessage());
-            } catch (final Throwable t) {
-              t.printStackTrace();
-              logger.error(t.getMessage());
-            }
-
-            TriggerManager.this.scannerStage = "Done flipping all triggers.";
-
-            TriggerManager.this.runnerThreadIdleTime =
-                this.scannerInterval
-                    - (System.currentTimeMillis() - TriggerManager.this.lastRunnerThreadCheckTime);
-
-            if (TriggerManager.this.runnerThreadIdleTime < 0) {
-              logger.error("Trigger manager thread " + this.getName()
-                  + " is too busy!");
-            } else {
-              TriggerManager.this.syncObj.wait(TriggerManager.this.runnerThreadIdleTime);
-            }
-          } catch (final InterruptedException e) {
-            logger.info("Interrupted. Probably to shut down.");
-          }
-        }
+    private synchronized boolean isScheduled(final ScheduledCheck check) {
+      return this.scheduledChecks.get(check.trigger.getTriggerId()) == check;
+    }
+
+    /**
+     * Queues the check again once it's done, unless the trigger was updated or removed since.
+     */
+    private synchronized void reschedule(final ScheduledCheck check, final long checkTime) {
+      if (isScheduled(check)) {
+        check.checkTime = checkTime;
+        enqueue(check);
       }
     }
 
-    private void checkAllTriggers() throws TriggerManagerException {
-      // sweep through the rest of them
-      for (final Trigger t : this.triggers) {
-        try {
-          TriggerManager.this.scannerStage = "Checking for trigger " + t.getTriggerId();
-
-          if (t.getStatus().equals(TriggerStatus.READY)) {
-
-            /**
-             * Prior to this change, expiration condition should never be called though
-             * we have some related code here. ExpireCondition used the same BasicTimeChecker
-             * as triggerCondition do. As a consequence, we need to figure out a way to distinguish
-             * the previous ExpireCondition and this commit's ExpireCondition.
-             */
-            if (t.getExpireCondition().getExpression().contains("EndTimeChecker") && t
-                .expireConditionMet()) {
-              onTriggerPause(t);
-            } else if (t.triggerConditionMet()) {
-              onTriggerTrigger(t);
-            }
-          }
-          if (t.getStatus().equals(TriggerStatus.EXPIRED) && t.getSource().equals("azkaban")) {
-            removeTrigger(t);
-          } else {
-            t.updateNextCheckTime();
-          }
-        } catch (final Throwable th) {
-          //skip this trigger, moving on to the next one
-          logger.error("Failed to process trigger with id : " + t, th);
-        }
+    private void enqueue(final ScheduledCheck check) {
+      this.checks.add(check);
+      // Wake up the thread if the check is due before the one it's waiting for.
+      if (this.checks.peek() == check) {
+        notifyAll();
       }
     }
 
-    private void onTriggerTrigger(final Trigger t) throws TriggerManagerException {
-      final List<TriggerAction> actions = t.getTriggerActions();
-      for (final TriggerAction action : actions) {
-        try {
-          logger.info("Doing trigger actions " + action.getDescription() + " for " + t);
-          action.doAction();
-        } catch (final ExecutorManagerException e) {
-          if (e.getReason() == ExecutorManagerException.Reason.SkippedExecution) {
-            logger.info("Skipped action [" + action.getDescription() + "] for [" + t +
-                "] because: " + e.getMessage());
-          } else {
-            logger.error("Failed to do action [" + action.getDescription() + "] for [" + t + "]",
-                e);
+    /**
+     * Waits until the earliest check is due.
+     *
+     * @return the due check, or null after a shutdown
+     */
+    private synchronized ScheduledCheck takeDueCheck() throws InterruptedException {
+      while (!this.shutdown) {
+        final ScheduledCheck head = this.checks.peek();
+        if (head == null) {
+          wait();
+        } else if (!isScheduled(head)) {
+          this.checks.poll();
+        } else {
+          final long delay = head.checkTime - System.currentTimeMillis();
+          if (delay <= 0) {
+            return this.checks.poll();
           }
-        } catch (final Throwable th) {
-          logger.error("Failed to do action [" + action.getDescription() + "] for [" + t + "]", th);
+          this.idleTime = delay;
+          wait(delay);
         }
       }
-
-      if (t.isResetOnTrigger()) {
-        t.resetTriggerConditions();
-      } else {
-        logger.info("NextCheckTime did not change. Setting status to expired for trigger"
-            + t.getTriggerId());
-        t.setStatus(TriggerStatus.EXPIRED);
-      }
-      try {
-        TriggerManager.this.triggerLoader.updateTrigger(t);
-      } catch (final TriggerLoaderException e) {
-        throw new TriggerManagerException(e);
-      }
+      return null;
     }
 
-    private void onTriggerPause(final Trigger t) throws TriggerManagerException {
-      final List<TriggerAction> expireActions = t.getExpireActions();
-      for (final TriggerAction action : expireActions) {
+    @Override
+    public void run() {
+      while (true) {
+        final ScheduledCheck check;
         try {
-          logger.info("Doing expire actions for " + action.getDescription() + " for " + t);
-          action.doAction();
-        } catch (final Exception e) {
-          logger.error("Failed to do expire action " + action.getDescription() + " for " + t, e);
-        } catch (final Throwable th) {
-          logger.error("Failed to do expire action " + action.getDescription() + " for " + t, th);
+          check = takeDueCheck();
+        } catch (final InterruptedException e) {
+          logger.info("Interrupted. Probably to shut down.");
+          continue;
         }
-      }
-      logger.info("Pausing Trigger " + t.getDescription());
-      t.setStatus(TriggerStatus.PAUSED);
-      try {
-        TriggerManager.this.triggerLoader.updateTrigger(t);
-      } catch (final TriggerLoaderException e) {
-        throw new TriggerManagerException(e);
-      }
-    }
-
-    private class TriggerComparator implements Comparator<Trigger> {
-
-      @Override
-      public int compare(final Trigger arg0, final Trigger arg1) {
-        final long first = arg1.getNextCheckTime();
-        final long second = arg0.getNextCheckTime();
-
-        if (first == second) {
-          return 0;
-        } else if (first < second) {
-          return 1;
+        if (check == null) {
+          return;
         }
-        return -1;
+        this.lastCheckTime = System.currentTimeMillis();
+        TriggerManager.this.checkExecutor.execute(() -> checkTrigger(this, check));
       }
     }
   }
 
   private class LocalTriggerJMX implements TriggerJMX {
 
+    /**
+     * @return the latest time a due check was taken by any of the shards
+     */
     @Override
     public long getLastRunnerThreadCheckTime() {
-      return TriggerManager.this.lastRunnerThreadCheckTime;
+      long lastCheckTime = -1;
+      for (final TriggerShard shard : TriggerManager.this.shards) {
+        lastCheckTime = Math.max(lastCheckTime, shard.lastCheckTime);
+      }
+      return lastCheckTime;
     }
 
     @Override
     public boolean isRunnerThreadActive() {
-      return TriggerManager.this.runnerThread.isAlive();
+      for (final TriggerShard shard : TriggerManager.this.shards) {
+        if (!shard.isAlive()) {
+          return false;
+        }
+      }
+      return true;
     }
 
     @Override
@@ -463,9 +606,19 @@ public class TriggerManager extends EventHandler implements
       return triggerIdMap.keySet().toString();
     }
 
+    /**
+     * @return the shortest of the last waits of the shards for their next due check, or -1 if
+     * none of them waited yet
+     */
     @Override
     public long getScannerIdleTime() {
-      return TriggerManager.this.runnerThreadIdleTime;
+      long idleTime = -1;
+      for (final TriggerShard shard : TriggerManager.this.shards) {
+        if (shard.idleTime >= 0 && (idleTime < 0 || shard.idleTime < idleTime)) {
+          idleTime = shard.idleTime;
+        }
+      }
+      return idleTime;
     }
 
     @Override
@@ -473,9 +626,16 @@ public class TriggerManager extends EventHandler implements
       return new HashMap<>();
     }
 
+    /**
+     * @return the stage of each shard, e.g. "shard 0: Checking for trigger 4; shard 1: "
+     */
     @Override
     public String getScannerThreadStage() {
-      return TriggerManager.this.scannerStage;
+      final StringJoiner stages = new StringJoiner("; ");
+      for (final TriggerShard shard : TriggerManager.this.shards) {
+        stages.add("shard " + shard.shardId + ": " + shard.stage);
+      }
+      return stages.toString();
     }
 
   }
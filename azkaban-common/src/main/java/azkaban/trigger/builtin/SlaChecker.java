@@ -181,6 +181,28 @@ public class SlaChecker implements ConditionChecker {
     return isSlaMissed(flow);
   }
 
+  /**
+   * Checks the SLA against an already fetched flow, without going through a {@link
+   * azkaban.trigger.Condition} expression.
+   *
+   * @param flow the flow of this checker's execution
+   * @return true if the SLA is missed
+   */
+  public boolean isSlaFailed(final ExecutableFlow flow) {
+    return isSlaMissed(flow);
+  }
+
+  /**
+   * Checks the SLA against an already fetched flow, without going through a {@link
+   * azkaban.trigger.Condition} expression.
+   *
+   * @param flow the flow of this checker's execution
+   * @return true if the SLA is met
+   */
+  public boolean isSlaPassed(final ExecutableFlow flow) {
+    return isSlaGood(flow);
+  }
+
   public Object isSlaPassed() {
     final ExecutableFlow flow;
     try {
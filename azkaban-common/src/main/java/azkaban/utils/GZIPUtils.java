@@ -19,7 +19,10 @@ package azkaban.utils;
 import azkaban.db.EncodingType;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
@@ -76,4 +79,50 @@ public class GZIPUtils {
     }
   }
 
+  /**
+   * Compresses buffers into independent gzip members, readable by {@link #unGzipBytes(byte[])}.
+   * Unlike {@link #gzipBytes(byte[])}, one deflater and its native state are reused for all the
+   * buffers. Not thread safe, close it to release the deflater.
+   */
+  public static class GzipCompressor implements Closeable {
+
+    // Same header as GZIPOutputStream: magic number, deflate method, no flags, mtime or os.
+    private static final byte[] HEADER =
+        {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[8 * 1024];
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    public byte[] gzip(final byte[] bytes, final int offset, final int length) {
+      this.deflater.reset();
+      this.crc.reset();
+      this.out.reset();
+
+      this.out.write(HEADER, 0, HEADER.length);
+      this.deflater.setInput(bytes, offset, length);
+      this.deflater.finish();
+      while (!this.deflater.finished()) {
+        final int size = this.deflater.deflate(this.chunk);
+        this.out.write(this.chunk, 0, size);
+      }
+      this.crc.update(bytes, offset, length);
+      writeIntLittleEndian((int) this.crc.getValue());
+      writeIntLittleEndian(length);
+      return this.out.toByteArray();
+    }
+
+    private void writeIntLittleEndian(final int value) {
+      this.out.write(value & 0xff);
+      this.out.write((value >> 8) & 0xff);
+      this.out.write((value >> 16) & 0xff);
+      this.out.write((value >> 24) & 0xff);
+    }
+
+    @Override
+    public void close() {
+      this.deflater.end();
+    }
+  }
 }
@@ -26,6 +26,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -48,6 +49,9 @@ public abstract class RestfulApiClient<T> {
 
   protected static Logger logger = Logger.getLogger(RestfulApiClient.class);
 
+  // Created on first use and shared by all requests so that connections are kept alive and reused.
+  private CloseableHttpClient httpClient;
+
   /**
    * helper function to build a valid URI.
    *
@@ -129,7 +133,8 @@ public abstract class RestfulApiClient<T> {
   /**
    * For returning a HttpClient that will be used for any http requests within this class. This can
    * be overridden by child classes to customize client, for example, for providing a TLS (https)
-   * enabled client.
+   * enabled client. It is invoked once and the returned client is shared by all the requests, so
+   * it must be thread safe.
    *
    * @return an http client instance from default settings.
    */
@@ -138,12 +143,31 @@ public abstract class RestfulApiClient<T> {
   }
 
   /**
-   * function to dispatch the request and pass back the response.
+   * @return the shared http client, created on first use.
+   */
+  protected synchronized CloseableHttpClient getHttpClient() {
+    if (this.httpClient == null) {
+      this.httpClient = this.createHttpClient();
+    }
+    return this.httpClient;
+  }
+
+  /**
+   * function to dispatch the request and pass back the response. The response is closed once
+   * parsed, which releases the connection back to the pool of the shared client.
    */
   protected T sendAndReturn(final HttpUriRequest request)
       throws IOException {
-    try (final CloseableHttpClient client = this.createHttpClient()) {
-      return this.parseResponse(client.execute(request));
+    return this.sendAndReturn(this.getHttpClient(), request);
+  }
+
+  /**
+   * function to dispatch the request with the given client and pass back the response.
+   */
+  protected T sendAndReturn(final CloseableHttpClient client, final HttpUriRequest request)
+      throws IOException {
+    try (final CloseableHttpResponse response = client.execute(request)) {
+      return this.parseResponse(response);
     }
   }
 }
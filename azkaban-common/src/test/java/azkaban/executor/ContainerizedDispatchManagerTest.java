@@ -21,7 +21,11 @@ import static azkaban.executor.ExecutorApiClientTest.REVERSE_PROXY_HOST;
 import static azkaban.executor.ExecutorApiClientTest.REVERSE_PROXY_PORT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -369,6 +373,23 @@ public class ContainerizedDispatchManagerTest {
     this.containerizedDispatchManager.enableQueueProcessorThread();
   }
 
+  /* Test that submitting a flow wakes up the idle queue processor instead of waiting for a poll */
+  @Test
+  public void testSubmitFlowWakesUpQueueProcessor() throws Exception {
+    this.props.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_QUEUE_PROCESSOR_MIN_BACKOFF_MS,
+        60_000L);
+    this.props.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_QUEUE_PROCESSOR_MAX_BACKOFF_MS,
+        60_000L);
+    when(this.loader.selectAndUpdateExecutionWithLocking(anyBoolean(), anyInt(), any(), any()))
+        .thenReturn(ImmutableSet.of())
+        .thenReturn(ImmutableSet.of(this.flow1.getExecutionId()))
+        .thenReturn(ImmutableSet.of());
+    when(this.loader.fetchExecutableFlow(this.flow1.getExecutionId())).thenReturn(this.flow1);
+    initializeContainerizedDispatchImpl();
+    this.containerizedDispatchManager.submitExecutableFlow(this.flow1, this.user.getUserId());
+    verify(this.containerizedImpl, timeout(10_000L)).createContainer(this.flow1);
+  }
+
   /* Test renabling queue process thread to pause restart dispatching */
   @Test
   public void testEnablingQueueProcessThread() throws Exception {
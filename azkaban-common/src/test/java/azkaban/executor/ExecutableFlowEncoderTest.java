@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.db.EncodingType;
+import azkaban.project.DirectoryFlowLoader;
+import azkaban.project.Project;
+import azkaban.test.executions.ExecutionsTestUtil;
+import azkaban.utils.GZIPUtils;
+import azkaban.utils.JSONUtils;
+import azkaban.utils.Props;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutableFlowEncoderTest {
+
+  private ExecutableFlow flow;
+
+  @Before
+  public void setUp() throws Exception {
+    final Project project = new Project(11, "myTestProject");
+    final DirectoryFlowLoader loader = new DirectoryFlowLoader(new Props());
+    loader.loadProjectFlow(project, ExecutionsTestUtil.getFlowDir("embedded"));
+    assertThat(loader.getErrors()).isEmpty();
+    project.setFlows(loader.getFlowMap());
+    project.setVersion(123);
+
+    this.flow = new ExecutableFlow(project, project.getFlow("jobe"));
+    this.flow.setExecutionId(101);
+    this.flow.setSubmitUser("testUser");
+    this.flow.addAllProxyUsers(Arrays.asList("proxyA", "proxyB"));
+    this.flow.setStatus(Status.RUNNING);
+
+    final ExecutableNode joba = this.flow.getExecutableNode("joba");
+    final Props outputProps = new Props();
+    outputProps.put("output.key", "value");
+    joba.setOutputProps(outputProps);
+    joba.setStatus(Status.FAILED);
+    joba.resetForRetry();
+  }
+
+  @Test
+  public void testGzipEncodingMatchesMapSerialization() throws Exception {
+    final byte[] data = ExecutableFlowEncoder.encode(this.flow, EncodingType.GZIP);
+    assertThat(GZIPUtils.transformBytesToObject(data, EncodingType.GZIP))
+        .isEqualTo(JSONUtils.parseJSONFromString(JSONUtils.toJSON(this.flow.toObject())));
+  }
+
+  @Test
+  public void testPlainEncodingMatchesMapSerialization() throws Exception {
+    final byte[] data = ExecutableFlowEncoder.encode(this.flow, EncodingType.PLAIN);
+    assertThat(GZIPUtils.transformBytesToObject(data, EncodingType.PLAIN))
+        .isEqualTo(JSONUtils.parseJSONFromString(JSONUtils.toJSON(this.flow.toObject())));
+  }
+
+  @Test
+  public void testBufferIsReusedAcrossCalls() throws Exception {
+    final byte[] first = ExecutableFlowEncoder.encode(this.flow, EncodingType.PLAIN);
+    final byte[] second = ExecutableFlowEncoder.encode(this.flow, EncodingType.PLAIN);
+    assertThat(second).isEqualTo(first);
+  }
+
+  @Test
+  public void testEncodedFlowCanBeRestored() throws Exception {
+    final byte[] data = ExecutableFlowEncoder.encode(this.flow, EncodingType.GZIP);
+    final ExecutableFlow restored = ExecutableFlow.createExecutableFlow(
+        GZIPUtils.transformBytesToObject(data, EncodingType.GZIP), Status.RUNNING);
+    assertThat(restored.getExecutionId()).isEqualTo(101);
+    assertThat(restored.getProxyUsers()).containsExactlyInAnyOrder("proxyA", "proxyB");
+    assertThat(restored.getExecutableNode("joba").getOutputProps().get("output.key"))
+        .isEqualTo("value");
+    assertThat(restored.getExecutableNode("joba").getPastAttemptList()).hasSize(1);
+  }
+}
@@ -22,9 +22,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.DispatchMethod;
 import azkaban.db.DatabaseOperator;
 import azkaban.db.DatabaseTransOperator;
+import azkaban.imagemgmt.version.JdbcVersionSetLoader;
 import azkaban.imagemgmt.version.VersionSet;
 import azkaban.project.JdbcProjectImpl;
 import azkaban.project.ProjectLoader;
@@ -70,6 +72,9 @@ public class ExecutionFlowDaoTest {
   @BeforeClass
   public static void setUp() throws Exception {
     dbOperator = Utils.initTestDB();
+    // The column is only added by a commented out alter table in the containerization tables.
+    dbOperator.update(
+        "ALTER TABLE execution_flows ADD COLUMN IF NOT EXISTS version_set_id INT DEFAULT NULL");
   }
 
   @AfterClass
@@ -97,6 +102,7 @@ public class ExecutionFlowDaoTest {
   public void clearDB() {
     try {
       dbOperator.update("DELETE FROM execution_flows");
+      dbOperator.update("DELETE FROM execution_flow_updates");
       dbOperator.update("DELETE FROM executors");
       dbOperator.update("DELETE FROM projects");
     } catch (final SQLException e) {
@@ -151,6 +157,102 @@ public class ExecutionFlowDaoTest {
     assertTwoFlowSame(fetchFlow, fetchFlow2);
   }
 
+  @Test
+  public void testAppendAndCompactExecutableFlowUpdates() throws Exception {
+    final ExecutionFlowDao incrementalFlowDao = createIncrementalFlowDao();
+    final ExecutableFlow flow = uploadFlowWithAppendedUpdate(incrementalFlowDao);
+
+    final ExecutableFlow fetchFlow = incrementalFlowDao.fetchExecutableFlow(flow.getExecutionId());
+    assertThat(fetchFlow.getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(fetchFlow.getUpdateTime()).isEqualTo(flow.getUpdateTime());
+    assertThat(fetchFlow.getExecutableNode("job1").getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(fetchFlow.getExecutableNode("job1").getStartTime())
+        .isEqualTo(flow.getExecutableNode("job1").getStartTime());
+    assertThat(fetchFlow.getExecutableNode("job2").getStatus()).isEqualTo(Status.READY);
+
+    incrementalFlowDao.compactExecutableFlow(flow);
+    assertThat(countFlowUpdates()).isEqualTo(0);
+    final ExecutableFlow compactedFlow =
+        incrementalFlowDao.fetchExecutableFlow(flow.getExecutionId());
+    assertTwoFlowSame(fetchFlow, compactedFlow);
+    assertThat(compactedFlow.getExecutableNode("job1").getStatus()).isEqualTo(Status.RUNNING);
+  }
+
+  @Test
+  public void testExecutableFlowUpdatesAppliedByAllFetches() throws Exception {
+    final ExecutionFlowDao incrementalFlowDao = createIncrementalFlowDao();
+    final ExecutableFlow flow = uploadFlowWithAppendedUpdate(incrementalFlowDao);
+
+    assertThat(incrementalFlowDao.fetchFlowHistory(0, 2).get(0)
+        .getExecutableNode("job1").getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(incrementalFlowDao.fetchFlowHistory(flow.getProjectId(), flow.getFlowId(), 0, 2)
+        .get(0).getExecutableNode("job1").getStatus()).isEqualTo(Status.RUNNING);
+    final FetchActiveFlowDao incrementalActiveFlowDao = new FetchActiveFlowDao(dbOperator,
+        new ExecutionFlowUpdatesDao(dbOperator, createIncrementalProps()));
+    assertThat(incrementalActiveFlowDao.fetchUnfinishedFlows().get(flow.getExecutionId())
+        .getSecond().getExecutableNode("job1").getStatus()).isEqualTo(Status.RUNNING);
+
+    // With incremental updates disabled the appended updates aren't read.
+    assertThat(this.executionFlowDao.fetchExecutableFlow(flow.getExecutionId())
+        .getExecutableNode("job1").getStatus()).isEqualTo(Status.READY);
+  }
+
+  @Test
+  public void testUpdateExecutableFlowDropsExecutableFlowUpdates() throws Exception {
+    final ExecutionFlowDao incrementalFlowDao = createIncrementalFlowDao();
+    final ExecutableFlow flow = uploadFlowWithAppendedUpdate(incrementalFlowDao);
+
+    // The web server finalizes the flow as it read it.
+    final ExecutableFlow fetchFlow = incrementalFlowDao.fetchExecutableFlow(flow.getExecutionId());
+    fetchFlow.setStatus(Status.FAILED);
+    fetchFlow.getExecutableNode("job1").setStatus(Status.KILLED);
+    fetchFlow.setUpdateTime(flow.getUpdateTime() + 1);
+    incrementalFlowDao.updateExecutableFlow(fetchFlow);
+
+    assertThat(countFlowUpdates()).isEqualTo(0);
+    final ExecutableFlow finalizedFlow =
+        incrementalFlowDao.fetchExecutableFlow(flow.getExecutionId());
+    assertThat(finalizedFlow.getStatus()).isEqualTo(Status.FAILED);
+    assertThat(finalizedFlow.getExecutableNode("job1").getStatus()).isEqualTo(Status.KILLED);
+  }
+
+  private static Props createIncrementalProps() {
+    final Props incrementalProps = new Props();
+    incrementalProps.put(ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_ENABLED, "true");
+    return incrementalProps;
+  }
+
+  private ExecutionFlowDao createIncrementalFlowDao() {
+    return new ExecutionFlowDao(dbOperator, this.mysqlNamedLock,
+        new ExecutionFlowUpdatesDao(dbOperator, createIncrementalProps()));
+  }
+
+  /**
+   * Uploads a flow and appends an update starting job1.
+   */
+  private ExecutableFlow uploadFlowWithAppendedUpdate(final ExecutionFlowDao flowDao)
+      throws Exception {
+    final ExecutableFlow flow = createTestFlow();
+    final long uploadTime = System.currentTimeMillis();
+    flow.setUpdateTime(uploadTime);
+    flowDao.uploadExecutableFlow(flow);
+
+    final ExecutableNode job = flow.getExecutableNode("job1");
+    job.setStatus(Status.RUNNING);
+    job.setStartTime(uploadTime + 1);
+    job.setUpdateTime(uploadTime + 1);
+    flow.setStatus(Status.RUNNING);
+    flow.setUpdateTime(uploadTime + 2);
+    flowDao.appendExecutableFlowUpdate(flow, uploadTime);
+    assertThat(countFlowUpdates()).isEqualTo(1);
+    return flow;
+  }
+
+  private static int countFlowUpdates() throws SQLException {
+    return dbOperator.query("SELECT COUNT(*) FROM execution_flow_updates",
+        rs -> rs.next() ? rs.getInt(1) : 0);
+  }
+
   @Test
   public void fetchFlowHistory() throws Exception {
     final ExecutableFlow flow = createTestFlow();
@@ -939,6 +1041,43 @@ public class ExecutionFlowDaoTest {
     assertThat(flow.getVersionSet().getImageToVersionMap()).isEqualTo(fetchFlow.getVersionSet().getImageToVersionMap());
   }
 
+  /**
+   * The version set id and the status are set without rewriting the flow data, the version set is
+   * then fetched through the version set id.
+   */
+  @Test
+  public void testUpdateVersionSetIdAndStatus() throws Exception {
+    final ExecutableFlow flow = createTestFlow();
+    this.executionFlowDao.uploadExecutableFlow(flow);
+    final VersionSet createdVersionSet = createVersionSet();
+    final VersionSet versionSet = new JdbcVersionSetLoader(dbOperator)
+        .getVersionSet(createdVersionSet.getVersionSetMd5Hex(),
+            createdVersionSet.getVersionSetJsonString()).get();
+
+    assertThat(this.executionFlowDao.updateVersionSetIdAndStatus(flow.getExecutionId(),
+        versionSet.getVersionSetId(), Status.PREPARING)).isEqualTo(1);
+
+    final ExecutableFlow fetchFlow =
+        this.executionFlowDao.fetchExecutableFlow(flow.getExecutionId());
+    assertThat(fetchFlow.getStatus()).isEqualTo(Status.PREPARING);
+    assertThat(fetchFlow.getVersionSet()).isNull();
+    final Optional<VersionSet> fetchedVersionSet =
+        this.executionFlowDao.fetchVersionSet(flow.getExecutionId());
+    assertThat(fetchedVersionSet).isPresent();
+    assertThat(fetchedVersionSet.get().getVersionSetId()).isEqualTo(versionSet.getVersionSetId());
+    assertThat(fetchedVersionSet.get().getImageToVersionMap())
+        .isEqualTo(versionSet.getImageToVersionMap());
+  }
+
+  @Test
+  public void testFetchVersionSetWithoutVersionSet() throws Exception {
+    final ExecutableFlow flow = createTestFlow();
+    this.executionFlowDao.uploadExecutableFlow(flow);
+    assertThat(this.executionFlowDao.fetchVersionSet(flow.getExecutionId())).isEmpty();
+    // Unknown execution
+    assertThat(this.executionFlowDao.fetchVersionSet(flow.getExecutionId() + 1)).isEmpty();
+  }
+
   /*
    * Updates flow execution status in the DB. After this the value of the status column will be
    * different from the status property in the flow data blob.
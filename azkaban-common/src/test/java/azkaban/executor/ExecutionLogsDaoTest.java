@@ -17,23 +17,42 @@
 package azkaban.executor;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import azkaban.AzkabanCommonModuleConfig;
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
+import azkaban.storage.LocalLogStorage;
 import azkaban.test.Utils;
 import azkaban.test.executions.ExecutionsTestUtil;
 import azkaban.utils.FileIOUtils.LogData;
+import azkaban.utils.Props;
+import com.codahale.metrics.MetricRegistry;
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ExecutionLogsDaoTest {
 
   private static final String LOG_TEST_DIR_NAME = "logtest";
   private static DatabaseOperator dbOperator;
+  @Rule
+  public final TemporaryFolder temp = new TemporaryFolder();
   private ExecutionLogsDao executionLogsDao;
 
   @BeforeClass
@@ -60,6 +79,7 @@ public class ExecutionLogsDaoTest {
   public void clearDB() {
     try {
       dbOperator.update("delete from execution_logs");
+      dbOperator.update("delete from execution_log_index");
     } catch (final SQLException e) {
       e.printStackTrace();
     }
@@ -110,6 +130,146 @@ public class ExecutionLogsDaoTest {
     assertThat(logsResult3.getLength()).isEqualTo(185493);
   }
 
+  @Test
+  public void testFetchLogsReusesDecodedLogParts() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] largelog =
+        {new File(logDir, "largeLog1.log"), new File(logDir, "largeLog2.log"),
+            new File(logDir, "largeLog3.log")};
+    this.executionLogsDao.uploadLogFile(1, "largeFiles", 0, largelog);
+
+    final LogData first = this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 1000, 64000);
+
+    // Any log part read from the DB from now on fails to decode.
+    dbOperator.update("UPDATE execution_logs SET log = ?", new byte[]{1, 2, 3});
+
+    // The parts read above are not read again.
+    final LogData second = this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 1000, 64000);
+    assertThat(second.getOffset()).isEqualTo(first.getOffset());
+    assertThat(second.getData()).isEqualTo(first.getData());
+
+    assertThatThrownBy(() -> this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 150000, 1000))
+        .isInstanceOf(ExecutorManagerException.class);
+  }
+
+  @Test
+  public void testFetchLogsReadsOnlyMissingLogParts() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] largelog =
+        {new File(logDir, "largeLog1.log"), new File(logDir, "largeLog2.log"),
+            new File(logDir, "largeLog3.log")};
+    this.executionLogsDao.uploadLogFile(1, "largeFiles", 0, largelog);
+    final LogData expected = new ExecutionLogsDao(dbOperator)
+        .fetchLogs(1, "largeFiles", 0, 0, 400000);
+
+    // Only the part holding byte 150000 is cached, and then fails to decode from the DB.
+    this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 150000, 1000);
+    dbOperator.update("UPDATE execution_logs SET log = ? WHERE start_byte <= ? AND end_byte > ?",
+        new byte[]{1, 2, 3}, 150000, 150000);
+
+    // The parts before and after the cached one are read without reading it again.
+    final LogData data = this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 0, 400000);
+    assertThat(data.getOffset()).isEqualTo(expected.getOffset());
+    assertThat(data.getData()).isEqualTo(expected.getData());
+  }
+
+  @Test
+  public void testBatchUploadLogConcurrently() throws Exception {
+    // Each upload fits in a batch, but they don't all fit together, so that some of them wait for
+    // others to be committed.
+    uploadLogConcurrently(2000000);
+  }
+
+  @Test
+  public void testBatchUploadLogTooLargeToBatch() throws Exception {
+    // The uploads are larger than what can be batched, they are streamed in their own transaction.
+    uploadLogConcurrently(20000);
+  }
+
+  private void uploadLogConcurrently(final int maxInFlightBytes) throws Exception {
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_ENABLED, "true");
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_MAX_ROWS, "4");
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BATCH_UPLOAD_MAX_INFLIGHT_BYTES,
+        String.valueOf(maxInFlightBytes));
+    final ExecutionLogsDao batchLogsDao = new ExecutionLogsDao(dbOperator, props,
+        new CommonMetrics(new MetricsManager(new MetricRegistry())), null);
+
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] largelog =
+        {new File(logDir, "largeLog1.log"), new File(logDir, "largeLog2.log"),
+            new File(logDir, "largeLog3.log")};
+    this.executionLogsDao.uploadLogFile(1, "largeFiles", 0, largelog);
+    final LogData expected = this.executionLogsDao.fetchLogs(1, "largeFiles", 0, 0, 400000);
+
+    final int numUploads = 8;
+    final ExecutorService executorService = Executors.newFixedThreadPool(numUploads);
+    try {
+      final List<Future<?>> uploads = new ArrayList<>();
+      for (int i = 0; i < numUploads; i++) {
+        final int execId = 100 + i;
+        uploads.add(executorService.submit(() -> {
+          batchLogsDao.uploadLogFile(execId, "largeFiles", 0, largelog);
+          return null;
+        }));
+      }
+      for (final Future<?> upload : uploads) {
+        upload.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    for (int i = 0; i < numUploads; i++) {
+      final LogData data = this.executionLogsDao.fetchLogs(100 + i, "largeFiles", 0, 0, 400000);
+      assertThat(data).isNotNull();
+      assertThat(data.getData()).isEqualTo(expected.getData());
+    }
+  }
+
+  @Test
+  public void testUploadAndFetchLogsFromLogStorage() throws Exception {
+    final File logStorageDir = this.temp.newFolder("logs");
+    final AzkabanCommonModuleConfig config = mock(AzkabanCommonModuleConfig.class);
+    when(config.getLocalLogStorageBaseDirPath()).thenReturn(logStorageDir.getCanonicalPath());
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_LOGS_STORAGE_MIN_BYTES, "100000");
+    final ExecutionLogsDao storedLogsDao = new ExecutionLogsDao(dbOperator, props, null,
+        new LocalLogStorage(config));
+
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] largelog =
+        {new File(logDir, "largeLog1.log"), new File(logDir, "largeLog2.log"),
+            new File(logDir, "largeLog3.log")};
+    final File[] smalllog =
+        {new File(logDir, "log1.log"), new File(logDir, "log2.log"),
+            new File(logDir, "log3.log")};
+    this.executionLogsDao.uploadLogFile(1, "largeFiles", 0, largelog);
+    storedLogsDao.uploadLogFile(2, "largeFiles", 0, largelog);
+    storedLogsDao.uploadLogFile(2, "smallFiles", 0, smalllog);
+
+    // Only the small log is kept in execution_logs.
+    assertThat(dbOperator.query("SELECT COUNT(*) FROM execution_logs WHERE exec_id=2",
+        rs -> rs.next() ? rs.getInt(1) : 0)).isEqualTo(1);
+    assertThat(storedLogsDao.fetchLogs(2, "smallFiles", 0, 0, 50000).getLength()).isEqualTo(53);
+
+    // Ranges within a segment, across segments and past the end of the log.
+    final int[][] ranges = {{0, 64000}, {1000, 64000}, {200000, 100000}, {150000, 250000}};
+    for (final int[] range : ranges) {
+      final LogData expected = this.executionLogsDao.fetchLogs(1, "largeFiles", 0, range[0],
+          range[1]);
+      final LogData stored = storedLogsDao.fetchLogs(2, "largeFiles", 0, range[0], range[1]);
+      assertThat(stored.getOffset()).isEqualTo(expected.getOffset());
+      assertThat(stored.getLength()).isEqualTo(expected.getLength());
+      assertThat(stored.getData()).isEqualTo(expected.getData());
+    }
+    assertThat(storedLogsDao.fetchLogs(2, "largeFiles", 0, 400000, 1000)).isNull();
+
+    storedLogsDao.removeExecutionLogsByTime(System.currentTimeMillis() + 1000, 10);
+    assertThat(storedLogsDao.fetchLogs(2, "largeFiles", 0, 0, 1000)).isNull();
+    assertThat(logStorageDir.list()).isEmpty();
+  }
+
   @Test
   public void testLogCleanup() throws ExecutorManagerException {
     final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
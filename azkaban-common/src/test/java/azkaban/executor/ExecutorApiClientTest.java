@@ -36,6 +36,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -160,6 +161,20 @@ public class ExecutorApiClientTest {
     Assert.assertEquals(SimpleServlet.GET_RESPONSE_STRING, getResponse);
   }
 
+  @Test
+  public void testConnectionsAreReleasedToPool() throws Exception {
+    final ExecutorApiClient tlsEnabledClient = new ExecutorApiClient(this.tlsEnabledProps);
+    for (int i = 0; i < 3; i++) {
+      final String postResponse = tlsEnabledClient
+          .doPost(new URI(SimpleServlet.TLS_ENABLED_URI), DispatchMethod.CONTAINERIZED, null);
+      Assert.assertEquals(SimpleServlet.POST_RESPONSE_STRING, postResponse);
+    }
+    // Sequential requests to the same host never hold more than one connection
+    final PoolStats stats = tlsEnabledClient.getConnectionManager().getTotalStats();
+    Assert.assertEquals(0, stats.getLeased());
+    Assert.assertTrue(stats.getAvailable() <= 1);
+  }
+
   @Test
   public void testCreateDefaultExecutorApiClient() {
     final ExecutorApiClient tlsDisabledClient = new ExecutorApiClient(new Props());
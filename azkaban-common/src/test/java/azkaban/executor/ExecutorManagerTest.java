@@ -64,8 +64,9 @@ import org.mockito.stubbing.Answer;
 public class ExecutorManagerTest {
 
   private final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> activeFlows = new HashMap<>();
+  private final MetricRegistry metricRegistry = new MetricRegistry();
   private final CommonMetrics commonMetrics = new CommonMetrics(
-      new MetricsManager(new MetricRegistry()));
+      new MetricsManager(this.metricRegistry));
   private ExecutorManager manager;
   private ExecutorLoader loader;
   private Props props;
@@ -154,7 +155,7 @@ public class ExecutorManagerTest {
     final ExecutionFinalizer executionFinalizer = new ExecutionFinalizer(this.loader,
         this.updaterStage, this.alertHolder, this.runningExecutions);
     final RunningExecutionsUpdaterThread updaterThread = new RunningExecutionsUpdaterThread(
-        new RunningExecutionsUpdater(
+        new RunningExecutionsUpdater(this.props,
             this.updaterStage, this.alertHolder, this.commonMetrics, this.apiGateway,
             this.runningExecutions, executionFinalizer, this.loader), this.runningExecutions);
     updaterThread.waitTimeIdleMs = 0;
@@ -177,6 +178,10 @@ public class ExecutorManagerTest {
     final ExecutorManager manager = createExecutorManager();
     Assert.assertArrayEquals(manager.getAllActiveExecutors().toArray(),
         new Executor[]{executor1});
+    this.commonMetrics.addExecutionUpdateLatency(executor1.getId(), 10);
+    final String latencyHistogramName =
+        CommonMetrics.EXECUTION_UPDATE_LATENCY_HISTOGRAM_PREFIX + executor1.getId();
+    assertThat(this.metricRegistry.getHistograms()).containsKey(latencyHistogramName);
 
     // mark older executor as inactive
     executor1.setActive(false);
@@ -187,6 +192,8 @@ public class ExecutorManagerTest {
 
     Assert.assertArrayEquals(manager.getAllActiveExecutors().toArray(),
         new Executor[]{executor2, executor3});
+    // The latency histogram of the inactive executor is dropped.
+    assertThat(this.metricRegistry.getHistograms()).doesNotContainKey(latencyHistogramName);
   }
 
   /*
@@ -519,6 +526,31 @@ public class ExecutorManagerTest {
     verify(this.loader, Mockito.times(2)).unassignExecutor(-1);
   }
 
+  /**
+   * Flows taken from the queue in one batch are all dispatched.
+   */
+  @Test
+  public void testBatchDispatch() throws Exception {
+    this.props.put(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_BATCH_SIZE, 3);
+    testSetUpForRunningFlows();
+    final List<ExecutableFlow> flows = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      final ExecutableFlow flow = TestUtils
+          .createTestExecutableFlow("exectest1", "exec" + i, DispatchMethod.PUSH);
+      flow.setExecutionId(200 + i);
+      this.manager.submitExecutableFlow(flow, this.user.getUserId());
+      flows.add(flow);
+    }
+    this.manager.start();
+
+    for (final ExecutableFlow flow : flows) {
+      verify(this.apiGateway, Mockito.timeout(10000))
+          .callWithExecutable(eq(flow), any(), eq(ConnectorParams.EXECUTE_ACTION));
+    }
+    azkaban.test.TestUtils.await().untilAsserted(
+        () -> assertThat(this.manager.getQueuedFlowSize()).isEqualTo(0));
+  }
+
   @Test
   public void testSetFlowLock() throws Exception {
     testSetUpForRunningFlows();
@@ -17,6 +17,7 @@ package azkaban.executor;
 
 import azkaban.DispatchMethod;
 import azkaban.executor.ExecutorLogEvent.EventType;
+import azkaban.imagemgmt.version.VersionSet;
 import azkaban.flow.Flow;
 import azkaban.project.Project;
 import azkaban.utils.FileIOUtils.LogData;
@@ -30,6 +31,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -160,6 +162,21 @@ public class MockExecutorLoader implements ExecutorLoader {
     this.flowUpdateCount++;
   }
 
+  @Override
+  public void appendExecutableFlowUpdate(final ExecutableFlow flow, final long lastUpdateTime)
+      throws ExecutorManagerException {
+    final ExecutableFlow toUpdate = this.flows.get(flow.getExecutionId());
+
+    toUpdate.applyUpdateObject(flow.toUpdateObject(lastUpdateTime));
+    this.flowUpdateCount++;
+  }
+
+  @Override
+  public void compactExecutableFlow(final ExecutableFlow flow)
+      throws ExecutorManagerException {
+    updateExecutableFlow(flow);
+  }
+
   @Override
   public void uploadExecutableNode(final ExecutableNode node, final Props inputParams)
       throws ExecutorManagerException {
@@ -582,6 +599,17 @@ public class MockExecutorLoader implements ExecutorLoader {
     return 0;
   }
 
+  @Override
+  public int updateVersionSetIdAndStatus(int executionId, int versionSetId, Status status)
+      throws ExecutorManagerException {
+    return 0;
+  }
+
+  @Override
+  public Optional<VersionSet> fetchVersionSet(int executionId) throws ExecutorManagerException {
+    return Optional.empty();
+  }
+
   @Override
   public Map<String, String> doRampActions(List<Map<String, Object>> rampActionsMap) throws ExecutorManagerException {
     return null;
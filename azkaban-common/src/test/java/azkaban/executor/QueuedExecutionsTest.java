@@ -21,7 +21,9 @@ import azkaban.utils.Pair;
 import azkaban.utils.TestUtils;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -149,6 +151,33 @@ public class QueuedExecutionsTest {
     Assert.assertEquals(queue.fetchHead(), dataList.get(1));
   }
 
+  /* Test fetchHeads method */
+  @Test
+  public void testFetchHeads() throws IOException, ExecutorManagerException,
+      InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(5);
+    final List<Pair<ExecutionReference, ExecutableFlow>> dataList = getDummyData();
+    queue.enqueueAll(dataList);
+    Assert.assertEquals(dataList.subList(0, 1), queue.fetchHeads(1));
+    Assert.assertEquals(dataList.subList(1, 2), queue.fetchHeads(5));
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /* Test fetchHeads method skipping executions */
+  @Test
+  public void testFetchHeadsSkipping() throws IOException, ExecutorManagerException,
+      InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(5);
+    final List<Pair<ExecutionReference, ExecutableFlow>> dataList = getDummyData();
+    queue.enqueueAll(dataList);
+    final Predicate<Integer> skip = executionId -> executionId == 1;
+    Assert.assertEquals(dataList.subList(1, 2), queue.fetchHeads(1, skip));
+    Assert.assertTrue(queue.fetchHeads(1, skip).isEmpty());
+    Assert.assertTrue(queue.hasExecution(1));
+    Assert.assertEquals(dataList.get(0), queue.fetchHead());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
   /* Test isFull method */
   @Test
   public void testIsFull() throws IOException, ExecutorManagerException,
@@ -199,4 +228,45 @@ public class QueuedExecutionsTest {
           queue.getReference(pair.getFirst().getExecId()));
     }
   }
+
+  /* Test fetchHead order after removals from the middle of the queue */
+  @Test
+  public void testFetchHeadOrderAfterDequeue() throws IOException, ExecutorManagerException,
+      InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(50);
+    final List<Pair<ExecutionReference, ExecutableFlow>> expected = new ArrayList<>();
+    for (int execId = 1; execId <= 30; execId++) {
+      final Pair<ExecutionReference, ExecutableFlow> pair = createExecutablePair("exec1", execId);
+      pair.getSecond().getExecutionOptions().getFlowParameters()
+          .put(ExecutionOptions.FLOW_PRIORITY, String.valueOf(execId % 7));
+      queue.enqueue(pair.getSecond(), pair.getFirst());
+      if (execId % 3 == 0) {
+        queue.dequeue(execId);
+      } else {
+        expected.add(pair);
+      }
+    }
+    Collections.sort(expected, new ExecutableFlowPriorityComparator());
+
+    Assert.assertEquals(expected.size(), queue.size());
+    for (final Pair<ExecutionReference, ExecutableFlow> pair : expected) {
+      Assert.assertEquals(pair, queue.fetchHead());
+    }
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /* Test reprioritize method */
+  @Test
+  public void testReprioritize() throws IOException, ExecutorManagerException,
+      InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(5);
+    final List<Pair<ExecutionReference, ExecutableFlow>> dataList = getDummyData();
+    queue.enqueueAll(dataList);
+
+    dataList.get(1).getSecond().getExecutionOptions().getFlowParameters()
+        .put(ExecutionOptions.FLOW_PRIORITY, "10");
+    queue.reprioritize(2);
+    Assert.assertEquals(dataList.get(1), queue.fetchHead());
+    Assert.assertEquals(dataList.get(0), queue.fetchHead());
+  }
 }
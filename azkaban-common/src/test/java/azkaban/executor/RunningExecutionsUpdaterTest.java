@@ -1,19 +1,26 @@
 package azkaban.executor;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.DispatchMethod;
 import azkaban.alert.Alerter;
 import azkaban.metrics.CommonMetrics;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
 import com.google.common.collect.ImmutableMap;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,7 +67,7 @@ public class RunningExecutionsUpdaterTest {
     this.runningExecutions = new RunningExecutions();
     this.runningExecutions.get().put(EXECUTION_ID_77, new Pair<>(
         new ExecutionReference(EXECUTION_ID_77, this.activeExecutor, DispatchMethod.PUSH), this.execution));
-    this.updater = new RunningExecutionsUpdater(this.updaterStage, this.alerterHolder,
+    this.updater = new RunningExecutionsUpdater(new Props(), this.updaterStage, this.alerterHolder,
         this.commonMetrics, this.apiGateway, this.runningExecutions, this.executionFinalizer,
         this.executorLoader);
     when(this.alerterHolder.get("email")).thenReturn(this.mailAlerter);
@@ -68,6 +75,7 @@ public class RunningExecutionsUpdaterTest {
 
   @After
   public void tearDown() {
+    this.updater.shutdown();
     DateTimeUtils.setCurrentMillisSystem();
   }
 
@@ -117,6 +125,84 @@ public class RunningExecutionsUpdaterTest {
     verifyZeroInteractions(this.executionFinalizer);
   }
 
+  /**
+   * A hung executor shouldn't delay the update of the executions running on other executors.
+   */
+  @Test
+  public void updateExecutionsSlowExecutorTimesOut() throws Exception {
+    final int slowExecutionId = 88;
+    final Executor slowExecutor = new Executor(2, "slowExecutor-2", 9999, true);
+    final ExecutableFlow slowExecution = new ExecutableFlow();
+    slowExecution.setExecutionId(slowExecutionId);
+    final ExecutionReference slowRef =
+        new ExecutionReference(slowExecutionId, slowExecutor, DispatchMethod.PUSH);
+    this.runningExecutions.get().put(slowExecutionId, new Pair<>(slowRef, slowExecution));
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_UPDATE_TIMEOUT_MS, 500L);
+    this.updater.shutdown();
+    this.updater = new RunningExecutionsUpdater(props, this.updaterStage, this.alerterHolder,
+        this.commonMetrics, this.apiGateway, this.runningExecutions, this.executionFinalizer,
+        this.executorLoader);
+    when(this.executorLoader.fetchExecutor(anyInt())).thenReturn(slowExecutor);
+    mockFlowSucceeded();
+    final CountDownLatch hung = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      hung.await();
+      return null;
+    }).when(this.apiGateway).updateExecutions(eq(slowExecutor), any());
+    try {
+      this.updater.updateExecutions();
+      verifyFinalizeFlow();
+      assertThat(slowRef.getNumErrors()).isEqualTo(1);
+    } finally {
+      hung.countDown();
+    }
+  }
+
+  /**
+   * The executor isn't called again while its previous update call is running, the executions
+   * that call doesn't update wait for a later round.
+   */
+  @Test
+  public void updateExecutionsReusesInFlightCall() throws Exception {
+    final Executor slowExecutor = new Executor(2, "slowExecutor-2", 9999, true);
+    final ExecutionReference slowRef = addExecution(88, slowExecutor);
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_UPDATE_TIMEOUT_MS, 200L);
+    this.updater.shutdown();
+    this.updater = new RunningExecutionsUpdater(props, this.updaterStage, this.alerterHolder,
+        this.commonMetrics, this.apiGateway, this.runningExecutions, this.executionFinalizer,
+        this.executorLoader);
+    when(this.executorLoader.fetchExecutor(anyInt())).thenReturn(slowExecutor);
+    mockFlowStillRunning();
+    final CountDownLatch hung = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      hung.await();
+      return null;
+    }).when(this.apiGateway).updateExecutions(eq(slowExecutor), any());
+    try {
+      this.updater.updateExecutions();
+      assertThat(slowRef.getNumErrors()).isEqualTo(1);
+
+      // Started on the slow executor since, while 88 waits for its next check.
+      final ExecutionReference newRef = addExecution(89, slowExecutor);
+      this.updater.updateExecutions();
+      verify(this.apiGateway, times(1)).updateExecutions(eq(slowExecutor), any());
+      assertThat(newRef.getNumErrors()).isEqualTo(1);
+    } finally {
+      hung.countDown();
+    }
+  }
+
+  private ExecutionReference addExecution(final int executionId, final Executor executor) {
+    final ExecutableFlow flow = new ExecutableFlow();
+    flow.setExecutionId(executionId);
+    final ExecutionReference ref =
+        new ExecutionReference(executionId, executor, DispatchMethod.PUSH);
+    this.runningExecutions.get().put(executionId, new Pair<>(ref, flow));
+    return ref;
+  }
+
   /**
    * Should finalize execution if executor doesn't exist in the DB.
    */
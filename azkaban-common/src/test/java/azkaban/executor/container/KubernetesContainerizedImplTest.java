@@ -24,8 +24,18 @@ import static azkaban.Constants.ImageMgmtConstants.AZKABAN_BASE_IMAGE;
 import static azkaban.Constants.ImageMgmtConstants.AZKABAN_CONFIG;
 import static azkaban.ServiceProvider.SERVICE_PROVIDER;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.contains;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import azkaban.AzkabanCommonModule;
@@ -34,9 +44,13 @@ import azkaban.Constants.ContainerizedDispatchManagerProperties;
 import azkaban.Constants.EventReporterConstants;
 import azkaban.Constants.FlowParameters;
 import azkaban.DispatchMethod;
+import azkaban.container.models.AzKubernetesV1PodTemplate;
 import azkaban.db.DatabaseOperator;
+import azkaban.executor.ConnectorParams;
 import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorApiGateway;
 import azkaban.executor.ExecutorLoader;
+import azkaban.executor.ExecutorManagerException;
 import azkaban.executor.FlowStatusChangeEventListener;
 import azkaban.executor.Status;
 import azkaban.imagemgmt.converters.Converter;
@@ -64,15 +78,23 @@ import azkaban.imagemgmt.version.VersionInfo;
 import azkaban.imagemgmt.version.VersionSet;
 import azkaban.imagemgmt.version.VersionSetBuilder;
 import azkaban.imagemgmt.version.VersionSetLoader;
+import azkaban.metrics.DummyContainerizationMetricsImpl;
 import azkaban.spi.ExecutorType;
 import azkaban.test.Utils;
 import azkaban.utils.JSONUtils;
 import azkaban.utils.Props;
 import azkaban.utils.TestUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodCondition;
 import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.openapi.models.V1Probe;
 import io.kubernetes.client.util.Yaml;
 import java.io.IOException;
 import java.sql.SQLException;
@@ -82,6 +104,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.TypeReference;
 import org.junit.AfterClass;
@@ -109,6 +132,8 @@ public class KubernetesContainerizedImplTest {
   private static final String TEST_JSON_DIR = "image_management/k8s_dispatch_test";
   private static final String CPU_REQUESTED_IN_PROPS = "2";
   private static final String MEMORY_REQUESTED_IN_PROPS = "4Gi";
+  private static final String WARM_POD_NAME = "fc-dep-azkaban-warm-1-abcdefgh";
+  private static final String WARM_POD_IP = "10.0.0.1";
   private static Converter<ImageTypeDTO, ImageTypeDTO,
       ImageType> imageTypeConverter;
   private static Converter<ImageVersionDTO, ImageVersionDTO,
@@ -152,7 +177,7 @@ public class KubernetesContainerizedImplTest {
     this.flowStatusChangeEventListener = new FlowStatusChangeEventListener(this.props);
     this.kubernetesContainerizedImpl = new KubernetesContainerizedImpl(this.props,
         this.executorLoader, this.loader, this.imageRampupManager, null,
-        flowStatusChangeEventListener);
+        flowStatusChangeEventListener, new DummyContainerizationMetricsImpl(), null);
   }
 
   /**
@@ -419,6 +444,205 @@ public class KubernetesContainerizedImplTest {
             .get(AZKABAN_BASE_IMAGE).getVersion());
   }
 
+  @Test
+  public void testAssignToWarmPod() throws Exception {
+    final ExecutorApiGateway apiGateway = mock(ExecutorApiGateway.class);
+    final KubernetesContainerizedImpl warmPoolImpl = createWarmPoolImpl(apiGateway);
+    try {
+      final ExecutableFlow flow = createFlowWithMultipleJobtypes();
+      flow.setExecutionId(3);
+      final VersionSet versionSet = fetchVersionSet(warmPoolImpl, flow);
+      fillWarmPool(warmPoolImpl, flow, versionSet);
+
+      // Flow parameters changing the pod rule out the warm pods.
+      assertThat(warmPoolImpl.assignToWarmPod(flow, versionSet,
+          ImmutableMap.of(FlowParameters.FLOW_PARAM_FLOW_CONTAINER_CPU_REQUEST, "3"))).isFalse();
+
+      assertThat(warmPoolImpl.assignToWarmPod(flow, versionSet, null)).isTrue();
+      verify(this.executorLoader).updateVersionSetIdAndStatus(3, versionSet.getVersionSetId(),
+          Status.PREPARING);
+      verify(apiGateway).callContainerDirectly(WARM_POD_IP, 54343, ConnectorParams.ASSIGN_ACTION,
+          3);
+      verify(warmPoolImpl).relabelWarmPod(WARM_POD_NAME, 3);
+      verify(warmPoolImpl, never()).deleteWarmPod(anyString());
+      assertThat(flow.getStatus()).isEqualTo(Status.PREPARING);
+
+      // The pod was taken out of the pool.
+      assertThat(warmPoolImpl.assignToWarmPod(flow, versionSet, null)).isFalse();
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+  }
+
+  @Test
+  public void testAssignToWarmPodFailure() throws Exception {
+    final ExecutorApiGateway apiGateway = mock(ExecutorApiGateway.class);
+    when(apiGateway.callContainerDirectly(anyString(), anyInt(), anyString(), anyInt()))
+        .thenThrow(new ExecutorManagerException("Connection refused"));
+    final KubernetesContainerizedImpl warmPoolImpl = createWarmPoolImpl(apiGateway);
+    try {
+      final ExecutableFlow flow = createFlowWithMultipleJobtypes();
+      flow.setExecutionId(3);
+      final VersionSet versionSet = fetchVersionSet(warmPoolImpl, flow);
+      fillWarmPool(warmPoolImpl, flow, versionSet);
+
+      // A pod is created for the execution instead, the warm pod is deleted.
+      assertThat(warmPoolImpl.assignToWarmPod(flow, versionSet, null)).isFalse();
+      verify(warmPoolImpl).deleteWarmPod(WARM_POD_NAME);
+      verify(warmPoolImpl, never()).relabelWarmPod(anyString(), anyInt());
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+  }
+
+  @Test
+  public void testAssignToWarmPodRelabelFailure() throws Exception {
+    final KubernetesContainerizedImpl warmPoolImpl =
+        createWarmPoolImpl(mock(ExecutorApiGateway.class));
+    try {
+      doThrow(new ApiException("Forbidden")).when(warmPoolImpl)
+          .relabelWarmPod(anyString(), anyInt());
+      final ExecutableFlow flow = createFlowWithMultipleJobtypes();
+      flow.setExecutionId(3);
+      final VersionSet versionSet = fetchVersionSet(warmPoolImpl, flow);
+      fillWarmPool(warmPoolImpl, flow, versionSet);
+
+      // The execution already runs in the pod, which can't be found without its labels.
+      assertThatThrownBy(() -> warmPoolImpl.assignToWarmPod(flow, versionSet, null))
+          .isInstanceOf(ExecutorManagerException.class);
+      verify(warmPoolImpl).deleteWarmPod(WARM_POD_NAME);
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+  }
+
+  @Test
+  public void testFindPodName() throws Exception {
+    // Without warm pool the pod name follows the naming convention, no pod is listed.
+    assertThat(this.kubernetesContainerizedImpl.findPodName(4)).isEqualTo("fc-dep-azkaban-4");
+
+    final KubernetesContainerizedImpl warmPoolImpl =
+        createWarmPoolImpl(mock(ExecutorApiGateway.class));
+    try {
+      doReturn(ImmutableList.of(createWarmPod(WARM_POD_NAME, 1))).when(warmPoolImpl)
+          .listPods(contains("execution-id=execid-3"));
+      doReturn(ImmutableList.of()).when(warmPoolImpl)
+          .listPods(contains("execution-id=execid-4"));
+      assertThat(warmPoolImpl.findPodName(3)).isEqualTo(WARM_POD_NAME);
+      assertThat(warmPoolImpl.findPodName(4)).isEqualTo("fc-dep-azkaban-4");
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+  }
+
+  @Test
+  public void testWarmPodLabelSelector() throws Exception {
+    final KubernetesContainerizedImpl warmPoolImpl =
+        createWarmPoolImpl(mock(ExecutorApiGateway.class));
+    try {
+      assertThat(warmPoolImpl.getWarmPodLabelSelector()).isEqualTo(
+          "cluster=azkaban,app=azkaban-warm-flow-container,warm-pool-owner=webserver-1");
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+    assertThat(KubernetesContainerizedImpl.toLabelValue("Web_Server.Example.com:8443"))
+        .isEqualTo("web_server.example.com-8443");
+    assertThat(KubernetesContainerizedImpl.toLabelValue("-" + StringUtils.repeat("a", 70)))
+        .isEqualTo(StringUtils.repeat("a", 62));
+  }
+
+  @Test
+  public void testWarmPoolRequiresOwner() {
+    final Props warmPoolProps = new Props(this.props);
+    warmPoolProps.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_ENABLED,
+        "true");
+    assertThatThrownBy(() -> new KubernetesContainerizedImpl(warmPoolProps, this.executorLoader,
+        this.loader, this.imageRampupManager, null, flowStatusChangeEventListener,
+        new DummyContainerizationMetricsImpl(), mock(ExecutorApiGateway.class)))
+        .isInstanceOf(ExecutorManagerException.class)
+        .hasMessageContaining(ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_OWNER);
+  }
+
+  /**
+   * A warm pod is only ready to be assigned once its flow container accepts connections.
+   */
+  @Test
+  public void testWarmPodReadinessProbe() throws Exception {
+    final KubernetesContainerizedImpl warmPoolImpl =
+        createWarmPoolImpl(mock(ExecutorApiGateway.class));
+    try {
+      final ExecutableFlow flow = createFlowWithMultipleJobtypes();
+      flow.setExecutionId(5);
+      final VersionSet versionSet = fetchVersionSet(warmPoolImpl, flow);
+      final V1PodSpec podSpec = warmPoolImpl.createWarmPodSpec(versionSet,
+          ContainerImplUtils.getJobTypesForFlow(flow));
+      final V1Probe readinessProbe = podSpec.getContainers()
+          .get(AzKubernetesV1PodTemplate.FLOW_CONTAINER_INDEX).getReadinessProbe();
+      assertThat(readinessProbe).isNotNull();
+      assertThat(readinessProbe.getTcpSocket().getPort().getIntValue()).isEqualTo(54343);
+    } finally {
+      warmPoolImpl.shutdown();
+    }
+  }
+
+  /**
+   * Creates a spy of an implementation with the warm pool enabled, and pods neither created nor
+   * deleted in Kubernetes.
+   */
+  private KubernetesContainerizedImpl createWarmPoolImpl(final ExecutorApiGateway apiGateway)
+      throws Exception {
+    final Props warmPoolProps = new Props(this.props);
+    warmPoolProps.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_ENABLED,
+        "true");
+    warmPoolProps.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_OWNER,
+        "WebServer-1");
+    // The pool is only refilled by the tests.
+    warmPoolProps.put(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_WARM_POOL_REFILL_INTERVAL_SECONDS,
+        "3600");
+    final KubernetesContainerizedImpl warmPoolImpl = spy(new KubernetesContainerizedImpl(
+        warmPoolProps, this.executorLoader, this.loader, this.imageRampupManager, null,
+        flowStatusChangeEventListener, new DummyContainerizationMetricsImpl(), apiGateway));
+    doNothing().when(warmPoolImpl).createWarmPod(anyInt());
+    doNothing().when(warmPoolImpl).deleteWarmPod(anyString());
+    doNothing().when(warmPoolImpl).relabelWarmPod(anyString(), anyInt());
+    return warmPoolImpl;
+  }
+
+  private VersionSet fetchVersionSet(final KubernetesContainerizedImpl impl,
+      final ExecutableFlow flow) throws Exception {
+    when(imageRampupManager.getVersionByImageTypes(any(), any(Set.class)))
+        .thenReturn(getVersionMap());
+    final Set<String> allImageTypes = new TreeSet<>();
+    allImageTypes.add(AZKABAN_BASE_IMAGE);
+    allImageTypes.add(AZKABAN_CONFIG);
+    allImageTypes.addAll(ContainerImplUtils.getJobTypesForFlow(flow));
+    return impl.fetchVersionSet(flow.getExecutionId(), new HashMap<>(), allImageTypes, flow);
+  }
+
+  /**
+   * Dispatches the version set twice, so that the pool keeps a pod warm for it, and refills the
+   * pool with a ready pod.
+   */
+  private void fillWarmPool(final KubernetesContainerizedImpl impl, final ExecutableFlow flow,
+      final VersionSet versionSet) throws Exception {
+    assertThat(impl.assignToWarmPod(flow, versionSet, null)).isFalse();
+    assertThat(impl.assignToWarmPod(flow, versionSet, null)).isFalse();
+    final String warmPodLabelSelector = impl.getWarmPodLabelSelector();
+    doReturn(ImmutableList.of(createWarmPod(WARM_POD_NAME, versionSet.getVersionSetId())))
+        .when(impl).listPods(warmPodLabelSelector);
+    impl.refillWarmPool();
+    verify(impl, never()).createWarmPod(anyInt());
+  }
+
+  private static V1Pod createWarmPod(final String name, final int versionSetId) {
+    return new V1Pod()
+        .metadata(new V1ObjectMeta().name(name).labels(ImmutableMap.of(
+            KubernetesContainerizedImpl.VERSION_SET_ID_LABEL_NAME, String.valueOf(versionSetId))))
+        .status(new V1PodStatus().phase("Running").podIP(WARM_POD_IP)
+            .addConditionsItem(new V1PodCondition().type("Ready").status("True")));
+  }
+
   private ExecutableFlow createTestFlow() throws Exception {
     return TestUtils.createTestExecutableFlow("exectest1", "exec1", DispatchMethod.CONTAINERIZED);
   }
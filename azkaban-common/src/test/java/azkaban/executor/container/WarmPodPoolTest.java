@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.executor.container.WarmPodPool.Refill;
+import azkaban.executor.container.WarmPodPool.WarmPod;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarmPodPoolTest {
+
+  private static final long WINDOW_MS = 100_000;
+  private static final long LEAD_TIME_MS = 10_000;
+
+  private WarmPodPool pool;
+
+  @Before
+  public void setUp() {
+    this.pool = new WarmPodPool(5, WINDOW_MS, LEAD_TIME_MS);
+  }
+
+  private void recordDispatches(final int versionSetId, final int count, final long now) {
+    for (int i = 0; i < count; i++) {
+      this.pool.recordDispatch(versionSetId, now);
+    }
+  }
+
+  @Test
+  public void testTargetSizesFollowDispatchRate() {
+    // 25 dispatches per window of 10 lead times need 3 pods, 1 dispatch is not common.
+    recordDispatches(1, 25, 0);
+    recordDispatches(2, 2, 0);
+    recordDispatches(3, 1, 0);
+    assertThat(this.pool.getTargetSizes(0)).isEqualTo(ImmutableMap.of(1, 3, 2, 1));
+
+    // The most dispatched version sets are served first within the max size.
+    recordDispatches(4, 50, 0);
+    assertThat(this.pool.getTargetSizes(0)).isEqualTo(ImmutableMap.of(4, 5));
+
+    // Dispatches out of the window are not counted anymore.
+    recordDispatches(2, 2, WINDOW_MS / 2);
+    assertThat(this.pool.getTargetSizes(WINDOW_MS)).isEqualTo(ImmutableMap.of(2, 1));
+  }
+
+  @Test
+  public void testRefreshAndClaim() {
+    recordDispatches(1, 25, 0);
+    final WarmPod ready = new WarmPod("ready", 1, "10.0.0.1", false);
+    final WarmPod starting = new WarmPod("starting", 1, null, false);
+    final WarmPod terminated = new WarmPod("terminated", 1, null, true);
+    final WarmPod unused = new WarmPod("unused", 2, "10.0.0.2", false);
+
+    Refill refill = this.pool.refresh(ImmutableList.of(ready, starting, terminated, unused), 0);
+    assertThat(refill.getPodsToCreate()).isEqualTo(ImmutableMap.of(1, 1));
+    assertThat(refill.getPodsToDelete()).containsExactlyInAnyOrder("terminated", "unused");
+
+    assertThat(this.pool.claim(2)).isEmpty();
+    final Optional<WarmPod> claimed = this.pool.claim(1);
+    assertThat(claimed).isPresent();
+    assertThat(claimed.get().getName()).isEqualTo("ready");
+    assertThat(this.pool.claim(1)).isEmpty();
+
+    // A claimed pod still listed is neither handed out again nor counted in the pool.
+    refill = this.pool.refresh(ImmutableList.of(ready, starting), 0);
+    assertThat(refill.getPodsToCreate()).isEqualTo(ImmutableMap.of(1, 2));
+    assertThat(refill.getPodsToDelete()).isEmpty();
+    assertThat(this.pool.claim(1)).isEmpty();
+
+    // Once the pods are not common anymore, they are deleted.
+    refill = this.pool.refresh(Collections.singletonList(starting), WINDOW_MS);
+    assertThat(refill.getPodsToCreate()).isEmpty();
+    assertThat(refill.getPodsToDelete()).containsExactly("starting");
+  }
+}
@@ -17,6 +17,8 @@ package azkaban.imagemgmt.rampup;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import azkaban.DispatchMethod;
@@ -39,7 +41,9 @@ import azkaban.imagemgmt.models.ImageType;
 import azkaban.imagemgmt.models.ImageVersion;
 import azkaban.imagemgmt.utils.ConverterUtils;
 import azkaban.imagemgmt.version.VersionInfo;
+import azkaban.metrics.DummyContainerizationMetricsImpl;
 import azkaban.utils.JSONUtils;
+import azkaban.utils.Props;
 import azkaban.utils.TestUtils;
 import java.io.IOException;
 import java.util.List;
@@ -77,7 +81,7 @@ public class ImageRampupManagerImplTest {
     this.imageVersionConverter = new ImageVersionConverter();
     this.converterUtils = new ConverterUtils(this.objectMapper);
     this.imageRampupManger = new ImageRampupManagerImpl(this.imageRampupDao, this.imageVersionDao,
-        this.imageTypeDao);
+        this.imageTypeDao, new Props(), new DummyContainerizationMetricsImpl());
   }
 
   /**
@@ -126,6 +130,47 @@ public class ImageRampupManagerImplTest {
     Assert.assertEquals("1.1.2", imageTypeVersionMap.get("spark_job").getVersion());
   }
 
+  /**
+   * The test is for reusing the rampups and versions fetched for previous executions until the
+   * cache is invalidated.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testFetchVersionByImageTypesCached() throws Exception {
+    final String jsonInput = JSONUtils.readJsonFileAsString("image_management/image_type_rampups"
+        + ".json");
+    final Map<String, List<ImageRampup>> imageTypeRampups = convertToRampupMap(jsonInput);
+    final String jsonImageTypeNewAndRampupVersion = JSONUtils.readJsonFileAsString(
+        "image_management"
+            + "/all_image_types_new_and_rampup_version.json");
+    final List<ImageVersionDTO> newAndRampupImageVersionDTOs = converterUtils.convertToDTOs(
+        jsonImageTypeNewAndRampupVersion, ImageVersionDTO.class);
+    final List<ImageVersion> newAndRampupImageVersions =
+        this.imageVersionConverter.convertToDataModels(newAndRampupImageVersionDTOs);
+    final Set<String> imageTypes = new TreeSet<>();
+    imageTypes.add("spark_job");
+    imageTypes.add("hive_job");
+    imageTypes.add("azkaban_core");
+    imageTypes.add("azkaban_config");
+    imageTypes.add("azkaban_exec");
+    when(this.imageRampupDao.getRampupByImageTypes(any(Set.class))).thenReturn(imageTypeRampups);
+    when(this.imageVersionDao.findImageVersions(any(ImageMetadataRequest.class))).thenReturn(newAndRampupImageVersions);
+    final ExecutableFlow flow = TestUtils
+        .createTestExecutableFlow("exectest1", "exec1", DispatchMethod.CONTAINERIZED);
+    final Map<String, VersionInfo> imageTypeVersionMap = this.imageRampupManger
+        .getVersionByImageTypes(flow, imageTypes);
+    Assert.assertEquals(imageTypeVersionMap,
+        this.imageRampupManger.getVersionByImageTypes(flow, new TreeSet<>(imageTypes)));
+    verify(this.imageRampupDao, times(1)).getRampupByImageTypes(any(Set.class));
+
+    // The rampups are fetched again once modified.
+    this.imageRampupManger.invalidateCache();
+    Assert.assertEquals(imageTypeVersionMap,
+        this.imageRampupManger.getVersionByImageTypes(flow, imageTypes));
+    verify(this.imageRampupDao, times(2)).getRampupByImageTypes(any(Set.class));
+  }
+
   /**
    * This test is for getting the specified image types version from rampup as well as based on
    * active image version. The image types for which active rampup is present get the version from
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.jobExecutor.utils.process;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import azkaban.jobExecutor.utils.process.ProcessOutputPump.OutputReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessOutputPumpTest {
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+  private ProcessOutputPump pump;
+
+  @Before
+  public void setUp() {
+    this.pump = new ProcessOutputPump(1);
+  }
+
+  @After
+  public void tearDown() {
+    this.pump.shutdown();
+  }
+
+  private Process start(final String script) throws Exception {
+    return new ProcessBuilder("sh", "-c", script).start();
+  }
+
+  @Test
+  public void testLinesAndBytesOfBothStreams() throws Exception {
+    final Process process = start("printf 'a\\nb\\r\\n\\303\\251'; printf 'oops\\n' 1>&2");
+    final OutputReader output =
+        this.pump.register(process, process.getInputStream(), null, Level.INFO, 30);
+    final OutputReader error =
+        this.pump.register(process, process.getErrorStream(), null, Level.ERROR, 30);
+    process.waitFor();
+    output.awaitCompletion(5000);
+    error.awaitCompletion(5000);
+
+    assertThat(output.getRecentLog()).isEqualTo("a" + LINE_SEPARATOR + "b" + LINE_SEPARATOR + "é");
+    assertThat(output.getBytesRead()).isEqualTo(7);
+    assertThat(error.getRecentLog()).isEqualTo("oops");
+    assertThat(error.getBytesRead()).isEqualTo(5);
+  }
+
+  @Test
+  public void testOnlyLastLinesAreKept() throws Exception {
+    final Process process = start("for i in $(seq 1 100); do echo line$i; done");
+    final OutputReader output =
+        this.pump.register(process, process.getInputStream(), null, Level.INFO, 2);
+    process.waitFor();
+    output.awaitCompletion(5000);
+
+    assertThat(output.getRecentLog()).isEqualTo("line99" + LINE_SEPARATOR + "line100");
+  }
+
+  @Test
+  public void testManyProcessesShareOneThread() throws Exception {
+    final List<Process> processes = new ArrayList<>();
+    final List<OutputReader> readers = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      final Process process = start("sleep 0.1; echo done" + i);
+      processes.add(process);
+      readers.add(this.pump.register(process, process.getInputStream(), null, Level.INFO, 30));
+    }
+    for (int i = 0; i < processes.size(); i++) {
+      processes.get(i).waitFor();
+      readers.get(i).awaitCompletion(5000);
+      assertThat(readers.get(i).getRecentLog()).isEqualTo("done" + i);
+    }
+  }
+
+  @Test
+  public void testStreamReadUntilEndAfterProcessExit() throws Exception {
+    // The stream is still open by a background process after the process exited.
+    final Process process = mock(Process.class);
+    when(process.isAlive()).thenReturn(false);
+    final PipedOutputStream background = new PipedOutputStream();
+    final PipedInputStream stream = new PipedInputStream(background);
+    final OutputReader output = this.pump.register(process, stream, null, Level.INFO, 30);
+
+    background.write("early\n".getBytes(StandardCharsets.UTF_8));
+    background.flush();
+    assertThat(output.awaitCompletion(200)).isFalse();
+    assertThat(output.getRecentLog()).isEqualTo("early");
+
+    background.write("late".getBytes(StandardCharsets.UTF_8));
+    background.close();
+    assertThat(output.awaitCompletion(5000)).isTrue();
+    assertThat(output.getRecentLog()).isEqualTo("early" + LINE_SEPARATOR + "late");
+  }
+
+  @Test
+  public void testSlowAppenderDoesNotHoldUpOtherProcesses() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final Logger slowLogger = Logger.getLogger("ProcessOutputPumpTest.slowLogger");
+    slowLogger.setAdditivity(false);
+    final BlockingAppender appender = new BlockingAppender(release);
+    slowLogger.addAppender(appender);
+    try {
+      final Process slowProcess = start("for i in $(seq 1 2000); do echo slow$i; done");
+      final OutputReader slowOutput =
+          this.pump.register(slowProcess, slowProcess.getInputStream(), slowLogger, Level.INFO,
+              30);
+      final Process process = start("sleep 0.1; echo done");
+      final OutputReader output =
+          this.pump.register(process, process.getInputStream(), null, Level.INFO, 30);
+
+      // Both streams are read by the only pump thread.
+      process.waitFor();
+      assertThat(output.awaitCompletion(5000)).isTrue();
+      assertThat(output.getRecentLog()).isEqualTo("done");
+      assertThat(slowOutput.awaitCompletion(0)).isFalse();
+
+      release.countDown();
+      slowProcess.waitFor();
+      assertThat(slowOutput.awaitCompletion(5000)).isTrue();
+      assertThat(slowOutput.getRecentLog()).endsWith("slow2000");
+      assertThat(appender.numEvents).isEqualTo(2000);
+    } finally {
+      release.countDown();
+      slowLogger.removeAppender(appender);
+    }
+  }
+
+  /**
+   * Blocks on the first event until released.
+   */
+  private static class BlockingAppender extends AppenderSkeleton {
+
+    private final CountDownLatch release;
+    private volatile int numEvents = 0;
+
+    private BlockingAppender(final CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    protected void append(final LoggingEvent event) {
+      try {
+        this.release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.numEvents++;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean requiresLayout() {
+      return false;
+    }
+  }
+}
@@ -22,8 +22,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import azkaban.cluster.DisabledClusterRouter;
 import azkaban.flow.CommonJobProperties;
 import azkaban.jobExecutor.Job;
+import azkaban.jobtype.JobTypeManager.JobParams;
 import azkaban.utils.Props;
 import com.google.common.io.Resources;
 import java.io.File;
@@ -208,6 +210,48 @@ public class JobTypeManagerTest {
     assertNull(props.get(CommonJobProperties.TARGET_CLUSTER_NATIVE_LIB));
   }
 
+  /**
+   * Test that the jobs of a jobtype share a cached class loader until the plugins are reloaded
+   */
+  @Test
+  public void testJobClassLoaderCache() throws Exception {
+    final JobTypeManager cachingManager = new JobTypeManager(this.testPluginDirPath, null,
+        this.getClass().getClassLoader(), new DisabledClusterRouter(), true);
+
+    final JobParams params1 = cachingManager
+        .createJobParams("job1", createJobProps("anothertestjob"), this.logger);
+    final JobParams params2 = cachingManager
+        .createJobParams("job2", createJobProps("anothertestjob"), this.logger);
+    final JobParams params3 = cachingManager
+        .createJobParams("job3", createJobProps("testjob"), this.logger);
+    assertEquals(FakeJavaJob.class, params1.jobClass);
+    assertEquals(params1.jobClass, params2.jobClass);
+    assertEquals(FakeJavaJob2.class, params3.jobClass);
+    assertEquals(2, cachingManager.getNumCachedJobClassLoaders());
+
+    cachingManager.releaseJobParams(params1);
+    cachingManager.releaseJobParams(params1);
+    assertEquals(2, cachingManager.getNumCachedJobClassLoaders());
+
+    // Reloading the plugins evicts the loaders, the ones still in use are closed once released.
+    cachingManager.loadPlugins();
+    assertEquals(0, cachingManager.getNumCachedJobClassLoaders());
+    cachingManager.releaseJobParams(params2);
+    cachingManager.releaseJobParams(params3);
+    cachingManager.createJobParams("job4", createJobProps("anothertestjob"), this.logger);
+    assertEquals(1, cachingManager.getNumCachedJobClassLoaders());
+
+    // No job class loader is cached by default.
+    this.manager.createJobParams("job5", createJobProps("anothertestjob"), this.logger);
+    assertEquals(0, this.manager.getNumCachedJobClassLoaders());
+  }
+
+  private static Props createJobProps(final String jobType) {
+    final Props jobProps = new Props();
+    jobProps.put("type", jobType);
+    return jobProps;
+  }
+
   /**
    * Configure a {@link JobPropsProcessor} for a jobtype plugin and verify the JobPropsProcessor
    * are invoked correctly for jobs of that type.
@@ -17,7 +17,6 @@
 
 package azkaban.storage;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -37,7 +36,6 @@ import java.io.File;
 import java.net.URI;
 import java.util.EnumSet;
 import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.hadoop.fs.CreateFlag;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -47,15 +45,10 @@ import org.apache.hadoop.fs.Options;
 import org.apache.hadoop.fs.Path;
 import org.junit.Assert;
 import org.junit.Before;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.TemporaryFolder;
 
 
 public class HdfsStorageTest {
-  @Rule
-  public final TemporaryFolder TEMP_DIR = new TemporaryFolder();
-
   private AbstractHdfsAuth hdfsAuth;
   private HdfsStorage hdfsStorage;
   private FileContext hdfsFileContext;
@@ -113,35 +106,6 @@ public class HdfsStorageTest {
     verify(this.hdfsFileContext).open(new Path(PRJ_ROOT_URI + "/1/1-hash.zip"));
   }
 
-  @Test
-  public void testUploadFile() throws Exception{
-    final File sourceFile = new File(
-        getClass().getClassLoader().getResource("sample_flow_01.zip").getFile());
-    final String sourceHash = new String(Hex.encodeHex(HashUtils.MD5.getHashBytes(sourceFile)));
-    final File tmpUploadDir = TEMP_DIR.newFolder("upload_test_dir");
-    final File destFile = new File(tmpUploadDir, "tmpfile1");
-    final FileContext destFileContext = FileContext.getLocalFSFileContext();
-
-    // A new destination file should be created after this, with same content as the source file.
-    HdfsStorage.uploadLocalFile(new Path(sourceFile.getPath()), new Path(destFile.getPath()),
-        destFileContext);
-    final String destHash = new String(Hex.encodeHex(HashUtils.MD5.getHashBytes(destFile)));
-    Assert.assertEquals(sourceHash, destHash);
-
-    // Verify that copying over an existing destination file works as well.
-    final byte[] newFileContent = "12345".getBytes(UTF_8);
-    final File newSourceFile = new File(tmpUploadDir, "tmpsource1");
-    FileUtils.writeByteArrayToFile(newSourceFile, newFileContent, false);
-
-    // The destination file already exists from previous invocation of uploadLocalFile.
-    HdfsStorage.uploadLocalFile(new Path(newSourceFile.getPath()), new Path(destFile.getPath()),
-        destFileContext);
-    final byte[] destFileContent = FileUtils.readFileToByteArray(destFile);
-    FileUtils.deleteDirectory(tmpUploadDir);
-
-    Assert.assertArrayEquals(newFileContent, destFileContent);
-  }
-
   @Test
   public void testPutProject() throws Exception {
     final File file = new File(
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import azkaban.utils.HashUtils;
+import java.io.File;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class HdfsUtilsTest {
+  @Rule
+  public final TemporaryFolder TEMP_DIR = new TemporaryFolder();
+
+  @Test
+  public void testUploadFile() throws Exception{
+    final File sourceFile = new File(
+        getClass().getClassLoader().getResource("sample_flow_01.zip").getFile());
+    final String sourceHash = new String(Hex.encodeHex(HashUtils.MD5.getHashBytes(sourceFile)));
+    final File tmpUploadDir = TEMP_DIR.newFolder("upload_test_dir");
+    final File destFile = new File(tmpUploadDir, "tmpfile1");
+    final FileContext destFileContext = FileContext.getLocalFSFileContext();
+
+    // A new destination file should be created after this, with same content as the source file.
+    HdfsUtils.uploadLocalFile(new Path(sourceFile.getPath()), new Path(destFile.getPath()),
+        destFileContext);
+    final String destHash = new String(Hex.encodeHex(HashUtils.MD5.getHashBytes(destFile)));
+    Assert.assertEquals(sourceHash, destHash);
+
+    // Verify that copying over an existing destination file works as well.
+    final byte[] newFileContent = "12345".getBytes(UTF_8);
+    final File newSourceFile = new File(tmpUploadDir, "tmpsource1");
+    FileUtils.writeByteArrayToFile(newSourceFile, newFileContent, false);
+
+    // The destination file already exists from previous invocation of uploadLocalFile.
+    HdfsUtils.uploadLocalFile(new Path(newSourceFile.getPath()), new Path(destFile.getPath()),
+        destFileContext);
+    final byte[] destFileContent = FileUtils.readFileToByteArray(destFile);
+    FileUtils.deleteDirectory(tmpUploadDir);
+
+    Assert.assertArrayEquals(newFileContent, destFileContent);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import azkaban.AzkabanCommonModuleConfig;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalLogStorageTest {
+
+  private static final String KEY = "10/flow%3Ajob.0.log.gz";
+
+  @Rule
+  public final TemporaryFolder temp = new TemporaryFolder();
+
+  private File baseDirectory;
+  private LocalLogStorage localLogStorage;
+
+  @Before
+  public void setUp() throws Exception {
+    this.baseDirectory = this.temp.newFolder("TEST_LOCAL_LOG_STORAGE");
+    final AzkabanCommonModuleConfig config = mock(AzkabanCommonModuleConfig.class);
+    when(config.getLocalLogStorageBaseDirPath())
+        .thenReturn(this.baseDirectory.getCanonicalPath());
+    this.localLogStorage = new LocalLogStorage(config);
+  }
+
+  @Test
+  public void testPutGetDeleteLog() throws Exception {
+    final File logFile = this.temp.newFile("job.log");
+    FileUtils.writeStringToFile(logFile, "0123456789", StandardCharsets.UTF_8);
+
+    this.localLogStorage.putLog(KEY, logFile);
+    try (final InputStream in = this.localLogStorage.getLog(KEY, 4)) {
+      assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo("456789");
+    }
+
+    // A new upload replaces the stored log.
+    FileUtils.writeStringToFile(logFile, "abc", StandardCharsets.UTF_8);
+    this.localLogStorage.putLog(KEY, logFile);
+    try (final InputStream in = this.localLogStorage.getLog(KEY, 0)) {
+      assertThat(IOUtils.toString(in, StandardCharsets.UTF_8)).isEqualTo("abc");
+    }
+
+    assertThat(this.localLogStorage.deleteLog(KEY)).isTrue();
+    assertThat(this.localLogStorage.deleteLog(KEY)).isFalse();
+    // The dir of the execution is removed with its last log.
+    assertThat(this.baseDirectory.list()).isEmpty();
+  }
+}
@@ -72,7 +72,8 @@ public class TriggerManagerDeadlockTest {
         this.updaterStage, this.alertHolder, this.runningExecutions);
     this.commonMetrics = new CommonMetrics(new MetricsManager(new MetricRegistry()));
     final ExecutorManager executorManager = getExecutorManager(props);
-    this.triggerManager = new TriggerManager(props, this.loader, executorManager);
+    this.triggerManager = new TriggerManager(props, this.loader, executorManager,
+        this.commonMetrics);
   }
 
   private ExecutorManager getExecutorManager(final Props props) throws ExecutorManagerException {
@@ -84,7 +85,7 @@ public class TriggerManagerDeadlockTest {
   }
 
   private RunningExecutionsUpdaterThread getRunningExecutionsUpdaterThread() {
-    return new RunningExecutionsUpdaterThread(new RunningExecutionsUpdater(
+    return new RunningExecutionsUpdaterThread(new RunningExecutionsUpdater(new Props(),
         this.updaterStage, this.alertHolder, this.commonMetrics, this.apiGateway,
         this.runningExecutions, this.executionFinalizer, this.execLoader), this.runningExecutions);
   }
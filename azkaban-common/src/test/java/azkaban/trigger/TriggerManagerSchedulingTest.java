@@ -0,0 +1,389 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.trigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.executor.ExecutorManagerAdapter;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
+import azkaban.utils.Props;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Striped;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the scheduling of the trigger checks across the shards of {@link TriggerManager}.
+ */
+public class TriggerManagerSchedulingTest {
+
+  private static final long TIMEOUT_MS = 10000;
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private final List<RecordedAction> recordedActions =
+      Collections.synchronizedList(new ArrayList<>());
+  private final ExecutorService testExecutor = Executors.newSingleThreadExecutor();
+  private TriggerManager triggerManager;
+
+  @After
+  public void tearDown() throws Exception {
+    if (this.triggerManager != null) {
+      // The triggers are kept in a static map.
+      for (final Trigger t : this.triggerManager.getTriggers()) {
+        this.triggerManager.removeTrigger(t);
+      }
+      this.triggerManager.shutdown();
+    }
+    this.testExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testChecksOrderedByDueTimeWithinShard() throws Exception {
+    createTriggerManager(1, 1, 60000);
+    final long now = System.currentTimeMillis();
+    final Trigger t1 = insertTrigger(now + 600, false, null);
+    final Trigger t2 = insertTrigger(now + 200, false, null);
+    final Trigger t3 = insertTrigger(now + 400, false, null);
+
+    waitForActions(3);
+    assertThat(getRecordedTriggerIds()).containsExactly(t2.getTriggerId(), t3.getTriggerId(),
+        t1.getTriggerId());
+    for (final RecordedAction action : this.recordedActions) {
+      assertThat(action.time).isGreaterThan(action.checkTime);
+    }
+  }
+
+  @Test
+  public void testTriggersSpreadAcrossShards() throws Exception {
+    final int numShards = 4;
+    createTriggerManager(numShards, numShards, 60000);
+    final List<Integer> triggerIds = new ArrayList<>();
+    for (int i = 0; i < numShards * 2; i++) {
+      triggerIds.add(insertTrigger(0, false, null).getTriggerId());
+    }
+
+    waitForActions(numShards * 2);
+    assertThat(getRecordedTriggerIds()).containsExactlyInAnyOrderElementsOf(triggerIds);
+    // Each shard checked its own 2 triggers.
+    for (int i = 0; i < numShards; i++) {
+      assertThat(this.metricRegistry.histogram(
+          CommonMetrics.TRIGGER_CHECK_LAG_HISTOGRAM_PREFIX + i).getCount()).isEqualTo(2);
+    }
+    assertThat(this.triggerManager.getJMX().getScannerThreadStage())
+        .startsWith("shard 0: Checking for trigger ").contains("; shard 3: Checking for trigger ");
+    assertThat(this.triggerManager.getJMX().getLastRunnerThreadCheckTime()).isPositive();
+  }
+
+  @Test
+  public void testTriggerWithoutCheckTimeNeverChecked() throws Exception {
+    createTriggerManager(1, 1, 60000);
+    insertTrigger(Long.MAX_VALUE, false, null);
+    Thread.sleep(200);
+    final Trigger t = insertTrigger(0, false, null);
+
+    waitForActions(1);
+    assertThat(getRecordedTriggerIds()).containsExactly(t.getTriggerId());
+    // Only the due trigger was checked.
+    assertThat(this.metricRegistry.histogram(
+        CommonMetrics.TRIGGER_CHECK_LAG_HISTOGRAM_PREFIX + 0).getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testUpdateTriggerDuringCheck() throws Exception {
+    createTriggerManager(1, 2, 100);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Trigger t = insertTrigger(0, true, release);
+    waitForActions(1);
+
+    final Trigger updated = createTrigger(System.currentTimeMillis() + TIMEOUT_MS, true, null);
+    updated.setTriggerId(t.getTriggerId());
+    final Future<?> update = this.testExecutor.submit(() -> {
+      this.triggerManager.updateTrigger(updated);
+      return null;
+    });
+    // The update waits for the check of the trigger to finish.
+    assertThatThrownBy(() -> update.get(200, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+    release.countDown();
+    update.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+    // The finished check of the previous version isn't scheduled again, while the updated one
+    // isn't due yet.
+    Thread.sleep(500);
+    assertThat(this.recordedActions).hasSize(1);
+    assertThat(this.triggerManager.getTrigger(t.getTriggerId())).isSameAs(updated);
+  }
+
+  @Test
+  public void testRemoveTriggerDuringCheck() throws Exception {
+    createTriggerManager(1, 2, 100);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Trigger t = insertTrigger(0, true, release);
+    waitForActions(1);
+
+    final Future<?> remove = this.testExecutor.submit(() -> {
+      this.triggerManager.removeTrigger(t);
+      return null;
+    });
+    // The removal waits for the check of the trigger to finish.
+    assertThatThrownBy(() -> remove.get(200, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+    release.countDown();
+    remove.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+    // The trigger is reset on trigger, it would be checked every scan interval if it were still
+    // scheduled.
+    Thread.sleep(500);
+    assertThat(this.recordedActions).hasSize(1);
+    assertThat(this.triggerManager.getTrigger(t.getTriggerId())).isNull();
+  }
+
+  @Test
+  public void testShardRunsChecksWhenActionPoolSaturated() throws Exception {
+    createTriggerManager(1, 1, 60000);
+    final CountDownLatch release = new CountDownLatch(1);
+    // Blocks the only thread of the pool.
+    final Trigger blocked = insertTrigger(0, false, release);
+    waitForActions(1);
+
+    // The triggers sharing the lock stripe of the blocked one are never due, the shard thread
+    // would otherwise wait for the lock when checking one of them itself.
+    final Striped<Lock> triggerLocks = Striped.lock(TriggerManager.TRIGGER_LOCK_STRIPES);
+    final Lock blockedLock = triggerLocks.get(blocked.getTriggerId());
+    final int numTriggers = TriggerManager.ACTION_QUEUE_CAPACITY + 1;
+    int numDueTriggers = 0;
+    // The ids are given in sequence by the loader.
+    for (int id = blocked.getTriggerId() + 1; numDueTriggers < numTriggers; id++) {
+      if (triggerLocks.get(id) == blockedLock) {
+        insertTrigger(Long.MAX_VALUE / 2, false, null);
+      } else {
+        insertTrigger(0, false, null);
+        numDueTriggers++;
+      }
+    }
+    // Once the queue of the pool is full, the shard thread checks the next trigger itself.
+    waitForActions(2);
+    assertThat(this.recordedActions.get(1).threadName)
+        .isEqualTo("TriggerRunnerManager-Trigger-Scanner-Thread-0");
+
+    release.countDown();
+    waitForActions(numTriggers + 1);
+    assertThat(getRecordedTriggerIds()).doesNotHaveDuplicates();
+  }
+
+  private void createTriggerManager(final int numShards, final int numActionThreads,
+      final long scanInterval) throws TriggerManagerException {
+    final Props props = new Props();
+    props.put("trigger.scan.interval", scanInterval);
+    props.put(ConfigurationKeys.TRIGGER_SCHEDULER_SHARDS, numShards);
+    props.put(ConfigurationKeys.TRIGGER_ACTION_THREADS, numActionThreads);
+    this.triggerManager = new TriggerManager(props, new MockTriggerLoader(),
+        mock(ExecutorManagerAdapter.class),
+        new CommonMetrics(new MetricsManager(this.metricRegistry)));
+    this.triggerManager.start();
+  }
+
+  private Trigger insertTrigger(final long checkTime, final boolean resetOnTrigger,
+      final CountDownLatch release) throws TriggerManagerException {
+    final Trigger t = createTrigger(checkTime, resetOnTrigger, release);
+    this.triggerManager.insertTrigger(t);
+    return t;
+  }
+
+  /**
+   * @param checkTime the trigger is met, and its action run, once this time has passed
+   * @param release if not null, the action waits for it to be counted down
+   */
+  private Trigger createTrigger(final long checkTime, final boolean resetOnTrigger,
+      final CountDownLatch release) {
+    final ConditionChecker triggerChecker = new FixedTimeChecker("trigger_checker", checkTime);
+    final ConditionChecker expireChecker = new FixedTimeChecker("expire_checker", Long.MAX_VALUE);
+    final Condition triggerCond = new Condition(
+        ImmutableMap.of(triggerChecker.getId(), triggerChecker), "trigger_checker.eval()");
+    final Condition expireCond = new Condition(
+        ImmutableMap.of(expireChecker.getId(), expireChecker), "expire_checker.eval()");
+    final List<TriggerAction> actions = new ArrayList<>();
+    final Trigger t = new Trigger.TriggerBuilder("test-user", "test", triggerCond, expireCond,
+        actions).build();
+    actions.add(new RecordingAction(t, checkTime, release));
+    t.setResetOnTrigger(resetOnTrigger);
+    return t;
+  }
+
+  private void waitForActions(final int numActions) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (this.recordedActions.size() < numActions) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  private List<Integer> getRecordedTriggerIds() {
+    final List<Integer> triggerIds = new ArrayList<>();
+    synchronized (this.recordedActions) {
+      for (final RecordedAction action : this.recordedActions) {
+        triggerIds.add(action.triggerId);
+      }
+    }
+    return triggerIds;
+  }
+
+  private static class RecordedAction {
+
+    private final int triggerId;
+    private final long checkTime;
+    private final long time = System.currentTimeMillis();
+    private final String threadName = Thread.currentThread().getName();
+
+    private RecordedAction(final int triggerId, final long checkTime) {
+      this.triggerId = triggerId;
+      this.checkTime = checkTime;
+    }
+  }
+
+  /**
+   * A checker met once its check time has passed.
+   */
+  private static class FixedTimeChecker implements ConditionChecker {
+
+    private final String id;
+    private final long checkTime;
+
+    private FixedTimeChecker(final String id, final long checkTime) {
+      this.id = id;
+      this.checkTime = checkTime;
+    }
+
+    @Override
+    public Object eval() {
+      return System.currentTimeMillis() > this.checkTime;
+    }
+
+    @Override
+    public Object getNum() {
+      return null;
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String getId() {
+      return this.id;
+    }
+
+    @Override
+    public String getType() {
+      return "FixedTimeChecker";
+    }
+
+    @Override
+    public ConditionChecker fromJson(final Object obj) {
+      return null;
+    }
+
+    @Override
+    public Object toJson() {
+      return null;
+    }
+
+    @Override
+    public void stopChecker() {
+    }
+
+    @Override
+    public void setContext(final Map<String, Object> context) {
+    }
+
+    @Override
+    public long getNextCheckTime() {
+      return this.checkTime;
+    }
+  }
+
+  /**
+   * Records the runs of the action of a trigger.
+   */
+  private class RecordingAction implements TriggerAction {
+
+    private final Trigger trigger;
+    private final long checkTime;
+    private final CountDownLatch release;
+
+    private RecordingAction(final Trigger trigger, final long checkTime,
+        final CountDownLatch release) {
+      this.trigger = trigger;
+      this.checkTime = checkTime;
+      this.release = release;
+    }
+
+    @Override
+    public void doAction() throws Exception {
+      TriggerManagerSchedulingTest.this.recordedActions.add(
+          new RecordedAction(this.trigger.getTriggerId(), this.checkTime));
+      if (this.release != null) {
+        this.release.await();
+      }
+    }
+
+    @Override
+    public String getId() {
+      return null;
+    }
+
+    @Override
+    public String getType() {
+      return "RecordingAction";
+    }
+
+    @Override
+    public TriggerAction fromJson(final Object obj) {
+      return null;
+    }
+
+    @Override
+    public Object toJson() {
+      return null;
+    }
+
+    @Override
+    public void setContext(final Map<String, Object> context) {
+    }
+
+    @Override
+    public String getDescription() {
+      return "recording action";
+    }
+  }
+}
@@ -107,6 +107,24 @@ public class DatabaseTransOperator {
     }
   }
 
+  /**
+   * Executes the sql statement once per parameter set, as a single JDBC batch.
+   *
+   * @param sqlCommand the sql statement
+   * @param params one array of parameters per execution of the statement
+   * @return the number of rows updated per execution
+   */
+  public int[] batch(final String sqlCommand, final Object[]... params) throws SQLException {
+    try {
+      return this.queryRunner.batch(this.conn, sqlCommand, params);
+    } catch (final SQLException ex) {
+      //RETRY Logic should be implemented here if needed.
+      throw ex;
+    } finally {
+      // Note: CAN NOT CLOSE CONNECTION HERE.
+    }
+  }
+
   /**
    * @return the JDBC connection associated with this operator.
    */
@@ -0,0 +1,13 @@
+-- Incremental updates of running flows. Each row holds the nodes of the flow that changed since
+-- the previous update (ExecutableFlow.toUpdateObject). Rows are applied on top of
+-- execution_flows.flow_data when the flow is fetched and are removed once they are folded into
+-- flow_data.
+CREATE TABLE execution_flow_updates (
+  exec_id     INT NOT NULL,
+  update_time BIGINT NOT NULL,
+  enc_type    TINYINT,
+  update_data LONGBLOB
+);
+
+CREATE INDEX ex_flow_updates_exec_id
+  ON execution_flow_updates (exec_id, update_time);
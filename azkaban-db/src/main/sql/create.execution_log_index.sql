@@ -0,0 +1,17 @@
+-- Index rows of the logs kept in a log storage instead of execution_logs. The log is stored
+-- under storage_key as concatenated gzip members of segment_size bytes each, segment_offsets
+-- holds the offset of each member in the stored file followed by the length of the file.
+CREATE TABLE execution_log_index (
+  exec_id         INT NOT NULL,
+  name            VARCHAR(640),
+  attempt         INT,
+  storage_key     VARCHAR(1024),
+  log_length      INT,
+  segment_size    INT,
+  segment_offsets LONGBLOB,
+  upload_time     BIGINT,
+  PRIMARY KEY (exec_id, name, attempt)
+);
+
+CREATE INDEX ex_log_index_upload_time
+  ON execution_log_index (upload_time);
@@ -0,0 +1,27 @@
+-- DB Migration from release 4.11.0 to 4.12.0
+-- Add the table holding the incremental updates of running flows.
+CREATE TABLE execution_flow_updates (
+  exec_id     INT NOT NULL,
+  update_time BIGINT NOT NULL,
+  enc_type    TINYINT,
+  update_data LONGBLOB
+);
+
+CREATE INDEX ex_flow_updates_exec_id
+  ON execution_flow_updates (exec_id, update_time);
+
+-- Add the table indexing the logs kept in a log storage instead of execution_logs.
+CREATE TABLE execution_log_index (
+  exec_id         INT NOT NULL,
+  name            VARCHAR(640),
+  attempt         INT,
+  storage_key     VARCHAR(1024),
+  log_length      INT,
+  segment_size    INT,
+  segment_offsets LONGBLOB,
+  upload_time     BIGINT,
+  PRIMARY KEY (exec_id, name, attempt)
+);
+
+CREATE INDEX ex_log_index_upload_time
+  ON execution_log_index (upload_time);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package azkaban.execapp;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.execapp.jmx.JmxJobMBeanManager;
+import azkaban.executor.AlerterHolder;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.Status;
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.jobtype.JobTypeManager;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
+import azkaban.project.Project;
+import azkaban.project.ProjectFileHandler;
+import azkaban.project.ProjectLoader;
+import azkaban.test.Utils;
+import azkaban.utils.Props;
+import com.codahale.metrics.MetricRegistry;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a flow of NUM_JOBS noop jobs and reports the number of jobs run per second. Job i depends
+ * on job i - width, so the flow is made of width chains of jobs running in parallel. Each write
+ * of the flow to the DB takes flowUpdateLatencyMs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(FlowRunnerBenchmark.NUM_JOBS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlowRunnerBenchmark {
+
+  static final int NUM_JOBS = 5000;
+  private static final String JOB_FILE_NAME = "noop.job";
+
+  @Param({"10", "100", "1000"})
+  private int width;
+
+  @Param({"0", "2"})
+  private long flowUpdateLatencyMs;
+
+  @Param({"false", "true"})
+  private boolean asyncFlowUpdate;
+
+  private Flow flow;
+  private ExecutorLoader executorLoader;
+  private ProjectLoader projectLoader;
+  private JobTypeManager jobTypeManager;
+  private File execDir;
+  private FlowRunner flowRunner;
+  private int execId = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Utils.initServiceProvider();
+    JmxJobMBeanManager.getInstance().initialize(new Props());
+
+    this.flow = new Flow("benchmark");
+    for (int i = 0; i < NUM_JOBS; i++) {
+      final Node node = new Node("job" + i);
+      node.setType("noop");
+      node.setJobSource(JOB_FILE_NAME);
+      this.flow.addNode(node);
+      if (i >= this.width) {
+        this.flow.addEdge(new Edge("job" + (i - this.width), "job" + i));
+      }
+    }
+    this.flow.initialize();
+
+    this.executorLoader = mock(ExecutorLoader.class);
+    doAnswer(invocation -> {
+      if (this.flowUpdateLatencyMs > 0) {
+        Thread.sleep(this.flowUpdateLatencyMs);
+      }
+      return null;
+    }).when(this.executorLoader).updateExecutableFlow(any());
+    this.projectLoader = mock(ProjectLoader.class);
+    when(this.projectLoader.fetchProjectMetaData(anyInt(), anyInt())).thenReturn(
+        new ProjectFileHandler(1, 1, 1, "testUser", "zip", "test.zip", 1, null, null, null,
+            "111.111.111.111"));
+    when(this.executorLoader.updateExecutableReference(anyInt(), anyLong())).thenReturn(true);
+    this.jobTypeManager = new JobTypeManager(null, null, getClass().getClassLoader());
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpFlowRunner() throws Exception {
+    this.execDir = Files.createTempDirectory("flow-runner-benchmark").toFile();
+    FileUtils.writeStringToFile(new File(this.execDir, JOB_FILE_NAME), "type=noop",
+        StandardCharsets.UTF_8);
+
+    final ExecutableFlow exFlow = new ExecutableFlow(new Project(1, "benchmark"), this.flow);
+    exFlow.setExecutionId(++this.execId);
+    exFlow.setExecutionPath(this.execDir.getPath());
+    final Props azkabanProps = new Props();
+    azkabanProps.put(ConfigurationKeys.FLOW_ASYNC_UPDATE_ENABLED,
+        String.valueOf(this.asyncFlowUpdate));
+    final MetricsManager metricsManager = new MetricsManager(new MetricRegistry());
+    this.flowRunner = new FlowRunner(exFlow, this.executorLoader, this.projectLoader,
+        this.jobTypeManager, azkabanProps, null, mock(AlerterHolder.class),
+        new CommonMetrics(metricsManager), new ExecMetrics(metricsManager));
+    this.flowRunner.setNumJobThreads(Math.min(this.width, 10));
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDownFlowRunner() throws Exception {
+    if (this.flowRunner.getExecutableFlow().getStatus() != Status.SUCCEEDED) {
+      throw new IllegalStateException(
+          "Flow finished with status " + this.flowRunner.getExecutableFlow().getStatus());
+    }
+    FileUtils.deleteDirectory(this.execDir);
+  }
+
+  @Benchmark
+  public void runFlow() throws Exception {
+    // The flow runner renames its thread.
+    final Thread thread = new Thread(this.flowRunner);
+    thread.start();
+    thread.join();
+  }
+}
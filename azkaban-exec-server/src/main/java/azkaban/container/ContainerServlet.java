@@ -98,6 +98,9 @@ public class ContainerServlet extends HttpServlet implements ConnectorParams {
           case ConnectorParams.PING_ACTION:
             handlePing(respMap);
             break;
+          case ConnectorParams.ASSIGN_ACTION:
+            handleAssign(respMap, execid);
+            break;
           case ConnectorParams.LOG_ACTION:
             handleFetchLogEvent(execid, req, resp, respMap);
             break;
@@ -119,6 +122,16 @@ public class ContainerServlet extends HttpServlet implements ConnectorParams {
     respMap.put(ConnectorParams.STATUS_PARAM, ConnectorParams.RESPONSE_ALIVE);
   }
 
+  private void handleAssign(final Map<String, Object> respMap, final int execid) {
+    try {
+      this.flowContainer.assignExecution(execid);
+      respMap.put(ConnectorParams.STATUS_PARAM, ConnectorParams.RESPONSE_SUCCESS);
+    } catch (final ExecutorManagerException e) {
+      logger.error(e.getMessage(), e);
+      respMap.put(ConnectorParams.RESPONSE_ERROR, e.getMessage());
+    }
+  }
+
   private void handleAjaxCancel(final Map<String, Object> respMap, final int execid,
       final String user) {
     if (user == null) {
@@ -79,6 +79,7 @@ import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -150,6 +151,8 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
   private int port; // Listener port for incoming control & log messages (ContainerServlet)
   private FlowRunner flowRunner;
   private Future<?> flowFuture;
+  // Completed with the execution id assigned to a warm pod
+  private final CompletableFuture<Integer> assignedExecId = new CompletableFuture<>();
 
   // Max chunk size is 20MB.
   private final String jobLogChunkSize;
@@ -212,7 +215,9 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
         new JobTypeManager(
             this.azKabanProps.getString(AzkabanExecutorServer.JOBTYPE_PLUGIN_DIR,
                 PluginManager.JOBTYPE_DEFAULTDIR),
-            this.globalProps, getClass().getClassLoader(), clusterRouter);
+            this.globalProps, getClass().getClassLoader(), clusterRouter,
+            this.azKabanProps.getBoolean(
+                Constants.ConfigurationKeys.JOBTYPE_CLASSLOADER_CACHE_ENABLED, false));
 
     this.numJobThreadPerFlow = props.getInt(JOB_THREAD_COUNT, DEFAULT_JOB_TREAD_COUNT);
     if (this.azKabanProps.getBoolean(Constants.USE_IN_MEMORY_KEYSTORE,
@@ -229,7 +234,8 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
   /**
    * The entry point of FlowContainer. Validates the input arguments and submits the flow for
    * execution. It is assumed that AZ_HOME environment variable is set. If it is not set, then it
-   * explicitly sets it to present working directory.
+   * explicitly sets it to present working directory. A warm pod is started without execution id,
+   * it waits for one to be assigned through the ContainerServlet once the jetty server is started.
    *
    * @param args Takes the execution id and Project zip file path as inputs.
    * @throws IOException
@@ -238,8 +244,10 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
   public static void main(final String[] args) throws ExecutorManagerException {
     // Redirect all std out and err messages into slf4j
     StdOutErrRedirect.redirectOutAndErrToLog();
-    // Get the execution ID from the environment
-    final int execId = getExecutionId();
+    // Get the execution ID from the environment, unless it's assigned later to this warm pod.
+    final boolean isWarmPod = Boolean.parseBoolean(
+        System.getenv(Constants.ContainerizedDispatchManagerProperties.ENV_WARM_POD));
+    final int envExecId = isWarmPod ? -1 : getExecutionId();
     final Path currentDir = ContainerizedFlowPreparer.getCurrentDir();
 
     // Set Azkaban props
@@ -257,6 +265,7 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
 
     // Once submitFlow is called, the shutdown must happen for clean exit.
     try {
+      final int execId = isWarmPod ? flowContainer.waitForExecutionAssignment() : envExecId;
       // execute the flow, this is a blocking call until flow finishes
       flowContainer.submitFlow(execId);
     } catch (final ExecutorManagerException e) {
@@ -313,6 +322,10 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
           ". Terminating flow container launch");
     }
 
+    // The dispatcher only stores the id of the version set, not the flow with the version set.
+    if (flow.getVersionSet() == null) {
+      this.executorLoader.fetchVersionSet(execId).ifPresent(flow::setVersionSet);
+    }
     // Log the versionSet for this flow execution
     logVersionSet(flow);
 
@@ -424,6 +437,36 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
     launchCtrlMsgListener(this);
   }
 
+  /**
+   * Assign the execution to run to this warm pod.
+   *
+   * @param execId Execution Id of the flow.
+   * @throws ExecutorManagerException if an execution was already assigned.
+   */
+  public void assignExecution(final int execId) throws ExecutorManagerException {
+    if (!this.assignedExecId.complete(execId)) {
+      throw new ExecutorManagerException("Execution " + this.assignedExecId.getNow(-1)
+          + " is already assigned to this container.");
+    }
+    logger.info("Execution ID assigned: " + execId);
+  }
+
+  /**
+   * Wait for an execution to be assigned to this warm pod.
+   *
+   * @return Execution Id of the flow.
+   * @throws ExecutorManagerException
+   */
+  @VisibleForTesting
+  int waitForExecutionAssignment() throws ExecutorManagerException {
+    logger.info("Waiting for an execution to be assigned.");
+    try {
+      return this.assignedExecId.get();
+    } catch (final InterruptedException | ExecutionException e) {
+      throw new ExecutorManagerException(e);
+    }
+  }
+
   public void cancelFlow(final int execId, final String user)
       throws ExecutorManagerException {
 
@@ -749,6 +792,7 @@ public class FlowContainer implements IMBeanRegistrable, EventListener<Event> {
     if (!result) {
       logger.warn("ExecutorService did not shut down cleanly yet. Ignoring it.");
     }
+    this.flowPreparer.shutdown();
 
     try {
       this.jettyServer.stop();
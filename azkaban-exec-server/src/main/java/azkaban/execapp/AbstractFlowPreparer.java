@@ -29,12 +29,18 @@ import azkaban.utils.FileIOUtils;
 import azkaban.utils.Utils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
@@ -55,6 +61,10 @@ public abstract class AbstractFlowPreparer {
   protected final DependencyTransferManager dependencyTransferManager;
   // Name of the file which keeps project directory size
   public static final String PROJECT_DIR_SIZE_FILE_NAME = "___azkaban_project_dir_size_in_bytes___";
+  // Number of threads extracting project archives, shared by all the projects being prepared
+  private static final int UNZIP_THREAD_NUM =
+      Math.min(8, Runtime.getRuntime().availableProcessors());
+  private final ExecutorService unzipExecutor;
 
   /**
    * Constructor
@@ -69,6 +79,8 @@ public abstract class AbstractFlowPreparer {
 
     this.projectStorageManager = projectStorageManager;
     this.dependencyTransferManager = dependencyTransferManager;
+    this.unzipExecutor = Executors.newFixedThreadPool(UNZIP_THREAD_NUM,
+        new ThreadFactoryBuilder().setNameFormat("azk-unzip-pool-%d").setDaemon(true).build());
   }
 
   /**
@@ -106,6 +118,29 @@ public abstract class AbstractFlowPreparer {
     }
   }
 
+  /**
+   * Save the already known size of a directory to a file.
+   *
+   * @param dir the directory whose size needs to be saved.
+   * @param sizeInByte the size of the dir.
+   */
+  private static void saveDirSize(final File dir, final long sizeInByte) throws IOException {
+    FileIOUtils.dumpNumberToFile(
+        Paths.get(dir.getPath(), AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME), sizeInByte);
+  }
+
+
+  /**
+   * Lets the implementation provide startup dependencies available locally, instead of having them
+   * downloaded from storage.
+   *
+   * @param depFiles the startup dependencies of the project being prepared
+   * @return the dependencies still to download
+   */
+  protected Set<DependencyFile> provideLocalDependencies(final Set<DependencyFile> depFiles)
+      throws IOException {
+    return depFiles;
+  }
 
   @VisibleForTesting
   public void downloadAndUnzipProject(final ProjectDirectoryMetadata proj, final int execId,
@@ -119,22 +154,64 @@ public abstract class AbstractFlowPreparer {
     try {
       checkState("zip".equalsIgnoreCase(projectFileHandler.getFileType()));
       final File zipFile = requireNonNull(projectFileHandler.getLocalFile());
-      final ZipFile zip = new ZipFile(zipFile);
-      Utils.unzip(zip, dest);
-
-      // Download all startup dependencies. If this is a fat archive, it will be an empty set (so we won't download
-      // anything). Note that we are getting our list of startup dependencies from the DB, NOT from the
-      // startup-dependencies.json file contained in the archive. Both should be IDENTICAL, however we chose to get the
-      // list from the DB because this will be consistent with how containerized executions determine the startup
-      // dependency list.
-      downloadAllDependencies(proj, execId, dest, projectFileHandler.getStartupDependencies());
-
-      proj.setDirSizeInByte(calculateDirSizeAndSave(dest));
+      try (final ZipFile zip = new ZipFile(zipFile)) {
+        final long unzipStart = System.currentTimeMillis();
+        final CompletableFuture<Long> unzip = Utils.unzipAsync(zip, dest, this.unzipExecutor);
+
+        // Download all startup dependencies while the archive is being extracted. If this is a fat archive, it will
+        // be an empty set (so we won't download anything). Note that we are getting our list of startup dependencies
+        // from the DB, NOT from the startup-dependencies.json file contained in the archive. Both should be
+        // IDENTICAL, however we chose to get the list from the DB because this will be consistent with how
+        // containerized executions determine the startup dependency list.
+        final Set<DependencyFile> depFiles;
+        try {
+          depFiles = downloadAllDependencies(proj, execId, dest,
+              projectFileHandler.getStartupDependencies());
+        } catch (final IOException | RuntimeException e) {
+          // Don't let the extraction write into the dir after it's cleaned up.
+          unzip.handle((size, unzipException) -> size).join();
+          throw e;
+        }
+
+        // The dir size is counted as the files are written instead of walking the dir.
+        long dirSizeInByte = joinUnzip(unzip);
+        LOGGER.info("Unzipping {} byte(s) of project {} when preparing execution [execid {}] "
+            + "completed in {} msec(s)", dirSizeInByte, proj, execId,
+            System.currentTimeMillis() - unzipStart);
+        for (final DependencyFile depFile : depFiles) {
+          dirSizeInByte += depFile.getFile().length();
+        }
+        saveDirSize(dest, dirSizeInByte);
+        proj.setDirSizeInByte(dirSizeInByte);
+      }
     } finally {
       projectFileHandler.deleteLocalFile();
     }
   }
 
+  /**
+   * Stops the archive extraction threads. The extractions already started are completed.
+   */
+  public void shutdown() {
+    this.unzipExecutor.shutdown();
+  }
+
+  /**
+   * Wait for the archive extraction to complete.
+   *
+   * @return the number of bytes extracted
+   */
+  private static long joinUnzip(final CompletableFuture<Long> unzip) throws IOException {
+    try {
+      return unzip.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
   /**
    * Download necessary JAR dependencies from storage
    *
@@ -142,23 +219,26 @@ public abstract class AbstractFlowPreparer {
    * @param execId execution id number
    * @param folder root of unzipped project
    * @param dependencies the set of dependencies to download
+   * @return the files of all the dependencies, downloaded or provided locally
    */
-  private void downloadAllDependencies(final ProjectDirectoryMetadata proj, final int execId,
-      final File folder, final Set<Dependency> dependencies) {
+  private Set<DependencyFile> downloadAllDependencies(final ProjectDirectoryMetadata proj,
+      final int execId, final File folder, final Set<Dependency> dependencies) throws IOException {
     // Download all of the dependencies from storage
     LOGGER.info("Downloading {} JAR dependencies... Project: {}, ExecId: {}",
             dependencies.size(), proj, execId);
-    final Set<DependencyFile> depFiles = dependencies
+    final Set<DependencyFile> allDepFiles = dependencies
             .stream()
             .map(d -> getDependencyFile(folder, d))
             .collect(Collectors.toSet());
+    final Set<DependencyFile> depFiles = provideLocalDependencies(allDepFiles);
 
     try {
       final long start = System.currentTimeMillis();
       this.dependencyTransferManager.downloadAllDependencies(depFiles);
       LOGGER.info("Downloading {} JAR dependencies for project {} when preparing "
                       + "execution [execid {}] completed in {} second(s)",
-              dependencies.size(), proj, execId, (System.currentTimeMillis() - start) / 1000);
+              depFiles.size(), proj, execId, (System.currentTimeMillis() - start) / 1000);
+      return allDepFiles;
     } catch (final DependencyTransferException e) {
       LOGGER.error("Unable to download one or more dependencies when preparing execId {} for " +
               "project {}.", execId, proj);
@@ -44,6 +44,12 @@ public class ExecMetrics {
   public static final String JOB_SUCCESS_METER_NAME = "job-success-meter";
   public static final String JOB_KILLED_METER_NAME = "job-killed-meter";
   public static final String POLLING_FREQUENCY_METER_NAME = "polling-frequency-meter";
+  public static final String FLOW_PREP_DOWNLOAD_HISTOGRAM_NAME = "flow-prep-download-time";
+  public static final String FLOW_PREP_CACHE_CLEANUP_HISTOGRAM_NAME =
+      "flow-prep-cache-cleanup-time";
+  public static final String FLOW_PREP_INSTALL_HISTOGRAM_NAME = "flow-prep-install-time";
+  public static final String FLOW_PREP_EXEC_DIR_HISTOGRAM_NAME = "flow-prep-exec-dir-time";
+  public static final String JOB_CLASS_LOAD_HISTOGRAM_NAME = "job-class-load-time";
 
   private final MetricsManager metricsManager;
   private final Timer flowSetupTimer;
@@ -57,6 +63,11 @@ public class ExecMetrics {
   private final Meter jobSuccessMeter;
   private final Meter jobKilledMeter;
   private final Meter pollingFrequencyMeter;
+  private final Histogram flowPrepDownloadHistogram;
+  private final Histogram flowPrepCacheCleanupHistogram;
+  private final Histogram flowPrepInstallHistogram;
+  private final Histogram flowPrepExecDirHistogram;
+  private final Histogram jobClassLoadHistogram;
   // TODO ypadron-in: add metrics to measure the time between flow submission and flow execution
   // preparation/start after clock skew issues in execution times are resolved.
 
@@ -78,6 +89,15 @@ public class ExecMetrics {
     this.jobSuccessMeter = this.metricsManager.addMeter(JOB_SUCCESS_METER_NAME);
     this.jobKilledMeter = this.metricsManager.addMeter(JOB_KILLED_METER_NAME);
     this.pollingFrequencyMeter = this.metricsManager.addMeter(POLLING_FREQUENCY_METER_NAME);
+    this.flowPrepDownloadHistogram =
+        this.metricsManager.addHistogram(FLOW_PREP_DOWNLOAD_HISTOGRAM_NAME);
+    this.flowPrepCacheCleanupHistogram =
+        this.metricsManager.addHistogram(FLOW_PREP_CACHE_CLEANUP_HISTOGRAM_NAME);
+    this.flowPrepInstallHistogram =
+        this.metricsManager.addHistogram(FLOW_PREP_INSTALL_HISTOGRAM_NAME);
+    this.flowPrepExecDirHistogram =
+        this.metricsManager.addHistogram(FLOW_PREP_EXEC_DIR_HISTOGRAM_NAME);
+    this.jobClassLoadHistogram = this.metricsManager.addHistogram(JOB_CLASS_LOAD_HISTOGRAM_NAME);
   }
 
   ProjectCacheHitRatio getProjectCacheHitRatio() {
@@ -170,4 +190,50 @@ public class ExecMetrics {
     this.pollingFrequencyMeter.mark();
   }
 
+  /**
+   * Add the time it took to download and unzip a project not found in the project cache.
+   *
+   * @param time download time in milliseconds
+   */
+  public void addFlowPrepDownloadTime(final long time) {
+    this.flowPrepDownloadHistogram.update(time);
+  }
+
+  /**
+   * Add the time it took to make room in the project cache for a downloaded project.
+   *
+   * @param time cache clean-up time in milliseconds
+   */
+  public void addFlowPrepCacheCleanupTime(final long time) {
+    this.flowPrepCacheCleanupHistogram.update(time);
+  }
+
+  /**
+   * Add the time it took to install a downloaded project in the project cache, including the
+   * wait for the project lock.
+   *
+   * @param time install time in milliseconds
+   */
+  public void addFlowPrepInstallTime(final long time) {
+    this.flowPrepInstallHistogram.update(time);
+  }
+
+  /**
+   * Add the time it took to hard-link the project into the execution dir.
+   *
+   * @param time execution dir setup time in milliseconds
+   */
+  public void addFlowPrepExecDirTime(final long time) {
+    this.flowPrepExecDirHistogram.update(time);
+  }
+
+  /**
+   * Add the time it took to get the class loader of a starting job and load its jobtype class.
+   *
+   * @param time class load time in milliseconds
+   */
+  public void addJobClassLoadTime(final long time) {
+    this.jobClassLoadHistogram.update(time);
+  }
+
 }
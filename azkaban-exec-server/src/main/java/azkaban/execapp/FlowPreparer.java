@@ -19,6 +19,7 @@ package azkaban.execapp;
 import azkaban.execapp.metric.ProjectCacheHitRatio;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutorManagerException;
+import azkaban.spi.DependencyFile;
 import azkaban.storage.ProjectStorageManager;
 import azkaban.utils.DependencyTransferManager;
 import azkaban.utils.FileIOUtils;
@@ -30,7 +31,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,17 +54,23 @@ public class FlowPreparer extends AbstractFlowPreparer {
   private final File projectCacheDir;
   // Null if cache clean-up is disabled
   private final Optional<ProjectCacheCleaner> projectCacheCleaner;
+  // Empty if project files are not deduplicated
+  private final Optional<ProjectBlobStore> projectBlobStore;
   private final ProjectCacheHitRatio projectCacheHitRatio;
+  private final ExecMetrics execMetrics;
+  // Project versions being downloaded and installed into the project cache
+  private final ConcurrentMap<ProjectDirectoryMetadata, CompletableFuture<Void>> inFlightInstalls =
+      new ConcurrentHashMap<>();
 
   FlowPreparer(final ProjectStorageManager projectStorageManager,
       final DependencyTransferManager dependencyTransferManager, final File projectsDir,
-      final ProjectCacheCleaner cleaner, final ProjectCacheHitRatio projectCacheHitRatio,
-      final File executionsDir) {
+      final ProjectCacheCleaner cleaner, final ProjectBlobStore blobStore,
+      final ExecMetrics execMetrics, final File executionsDir) {
     super(projectStorageManager, dependencyTransferManager);
 
     Preconditions.checkNotNull(executionsDir);
     Preconditions.checkNotNull(projectsDir);
-    Preconditions.checkNotNull(projectCacheHitRatio);
+    Preconditions.checkNotNull(execMetrics);
 
     Preconditions.checkArgument(projectsDir.exists());
     Preconditions.checkArgument(executionsDir.exists());
@@ -66,64 +78,116 @@ public class FlowPreparer extends AbstractFlowPreparer {
     this.executionsDir = executionsDir;
     this.projectCacheDir = projectsDir;
     this.projectCacheCleaner = Optional.ofNullable(cleaner);
-    this.projectCacheHitRatio = projectCacheHitRatio;
+    this.projectBlobStore = Optional.ofNullable(blobStore);
+    this.execMetrics = execMetrics;
+    this.projectCacheHitRatio = execMetrics.getProjectCacheHitRatio();
   }
 
 
   /**
    * Prepare the flow directory for execution.
    *
+   * <p>Flows of different projects are prepared in parallel. A project version missing from the
+   * project cache is downloaded and installed once, by the first flow needing it, the other flows
+   * of the same project version wait for that download instead of repeating it. The project dir is
+   * referenced in the cache cleaner for the whole preparation, so that it can't be evicted while
+   * it is hard-linked into the execution dir.
+   *
    * @param flow Executable Flow instance.
    */
   @Override
   public void setup(final ExecutableFlow flow) throws ExecutorManagerException {
-    File tempDir = null;
+    Path acquiredDir = null;
     try {
       final ProjectDirectoryMetadata project = new ProjectDirectoryMetadata(
           flow.getProjectId(),
-          flow.getVersion());
+          flow.getVersion(),
+          new File(this.projectCacheDir, generateProjectDirName(flow)));
 
       final long flowPrepStartTime = System.currentTimeMillis();
 
-      tempDir = downloadProjectIfNotExists(project, flow.getExecutionId());
+      if (this.projectCacheCleaner.isPresent()) {
+        this.projectCacheCleaner.get().acquireProjectDir(project.getInstalledDir().toPath());
+        acquiredDir = project.getInstalledDir().toPath();
+      }
 
-      LOGGER.info("Project is setup for execution {}", flow.getExecutionId());
-      // With synchronization, only one thread is allowed to proceed to avoid complicated race
-      // conditions which could arise when multiple threads are downloading/deleting/hard-linking
-      // the same project. But it doesn't prevent multiple executor processes interfering with each
-      // other triggering race conditions. So it's important to operationally make sure that only
-      // one executor process is setting up flow execution against the shared project directory.
-      long criticalSectionStartTime = -1;
-      File execDir = null;
-
-      synchronized (this) {
-        LOGGER.info("Setting up execution dir for {}", flow.getExecutionId());
-        criticalSectionStartTime = System.currentTimeMillis();
-        if (!project.getInstalledDir().exists() && tempDir != null) {
-          // If new project is downloaded and project dir cache clean-up feature is enabled, then
-          // perform clean-up if size of all project dirs exceeds the cache size.
-          this.projectCacheCleaner.ifPresent(cacheCleaner -> cacheCleaner
-                  .deleteProjectDirsIfNecessary(project.getDirSizeInByte()));
-          // Rename temp dir to a proper project directory name.
-          Files.move(tempDir.toPath(), project.getInstalledDir().toPath());
+      final CompletableFuture<Void> install = new CompletableFuture<>();
+      final CompletableFuture<Void> inFlightInstall =
+          this.inFlightInstalls.putIfAbsent(project, install);
+      if (inFlightInstall != null) {
+        LOGGER.info("Project {} is being downloaded for another execution, waiting for it. "
+            + "ExecId: {}", project, flow.getExecutionId());
+        inFlightInstall.get();
+        this.projectCacheHitRatio.markHit();
+      } else {
+        try {
+          installProjectIfNotExists(project, flow.getExecutionId());
+          install.complete(null);
+        } catch (final Exception ex) {
+          install.completeExceptionally(ex);
+          throw ex;
+        } finally {
+          this.inFlightInstalls.remove(project, install);
         }
-
-        final long start = System.currentTimeMillis();
-        execDir = setupExecutionDir(project.getInstalledDir().toPath(), flow);
-        final long end = System.currentTimeMillis();
-        LOGGER.info("Setting up execution dir {} took {} sec(s)", execDir, (end - start) / 1000);
       }
+      LOGGER.info("Project is setup for execution {}", flow.getExecutionId());
 
-      final long flowPrepCompletionTime = System.currentTimeMillis();
-      LOGGER.info("Flow preparation completed in {} sec(s), out of which {} sec(s) was spent inside "
-              + "critical section. [execid: {}, path: {}]",
-          (flowPrepCompletionTime - flowPrepStartTime) / 1000,
-          (flowPrepCompletionTime - criticalSectionStartTime) / 1000,
-          flow.getExecutionId(), execDir.getPath());
+      LOGGER.info("Setting up execution dir for {}", flow.getExecutionId());
+      final long start = System.currentTimeMillis();
+      final File execDir = setupExecutionDir(project.getInstalledDir().toPath(), flow);
+      final long end = System.currentTimeMillis();
+      this.execMetrics.addFlowPrepExecDirTime(end - start);
+      LOGGER.info("Setting up execution dir {} took {} sec(s)", execDir, (end - start) / 1000);
+
+      LOGGER.info("Flow preparation completed in {} sec(s). [execid: {}, path: {}]",
+          (end - flowPrepStartTime) / 1000, flow.getExecutionId(), execDir.getPath());
     } catch (final Exception ex) {
-      FileIOUtils.deleteDirectorySilently(tempDir);
       LOGGER.error("Error in preparing flow execution {}", flow.getExecutionId(), ex);
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
       throw new ExecutorManagerException(ex);
+    } finally {
+      if (acquiredDir != null) {
+        this.projectCacheCleaner.get().releaseProjectDir(acquiredDir);
+      }
+    }
+  }
+
+  /**
+   * Download the project and move it into the project cache, unless it's already cached. Only one
+   * thread at a time runs this for a given project version.
+   */
+  private void installProjectIfNotExists(final ProjectDirectoryMetadata project, final int execId)
+      throws IOException {
+    final long downloadStartTime = System.currentTimeMillis();
+    final File tempDir = downloadProjectIfNotExists(project, execId);
+    if (tempDir == null) {
+      return;
+    }
+    try {
+      final long downloadEndTime = System.currentTimeMillis();
+      this.execMetrics.addFlowPrepDownloadTime(downloadEndTime - downloadStartTime);
+
+      // If new project is downloaded and project dir cache clean-up feature is enabled, then
+      // perform clean-up if size of all project dirs exceeds the cache size. Project dirs in use
+      // are not evicted.
+      if (this.projectCacheCleaner.isPresent()) {
+        this.projectCacheCleaner.get().deleteProjectDirsIfNecessary(project.getDirSizeInByte());
+        this.execMetrics.addFlowPrepCacheCleanupTime(System.currentTimeMillis() - downloadEndTime);
+      }
+
+      // Rename temp dir to a proper project directory name. It doesn't prevent multiple executor
+      // processes interfering with each other, so it's important to operationally make sure that
+      // only one executor process is setting up flow execution against the shared project
+      // directory.
+      final long installStartTime = System.currentTimeMillis();
+      Files.move(tempDir.toPath(), project.getInstalledDir().toPath());
+      this.projectCacheCleaner.ifPresent(cacheCleaner -> cacheCleaner.projectInstalled(project));
+      this.execMetrics.addFlowPrepInstallTime(System.currentTimeMillis() - installStartTime);
+    } catch (final IOException | RuntimeException ex) {
+      FileIOUtils.deleteDirectorySilently(tempDir);
+      throw ex;
     }
   }
 
@@ -146,11 +210,12 @@ public class FlowPreparer extends AbstractFlowPreparer {
    * Update last modified time of the file if it exists.
    *
    * @param path path to the target file
+   * @param time the new last modified time
    */
   @VisibleForTesting
-  void updateLastModifiedTime(final Path path) {
+  void updateLastModifiedTime(final Path path, final FileTime time) {
     try {
-      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      Files.setLastModifiedTime(path, time);
     } catch (final IOException ex) {
       LOGGER.warn("Error when updating last modified time for {}", path, ex);
     }
@@ -160,7 +225,15 @@ public class FlowPreparer extends AbstractFlowPreparer {
    * @return the project directory name of a project
    */
   private String generateProjectDirName(final ProjectDirectoryMetadata proj) {
-    return String.valueOf(proj.getProjectId()) + "." + String.valueOf(proj.getVersion());
+    return generateProjectDirName(proj.getProjectId(), proj.getVersion());
+  }
+
+  private String generateProjectDirName(final ExecutableFlow flow) {
+    return generateProjectDirName(flow.getProjectId(), flow.getVersion());
+  }
+
+  private String generateProjectDirName(final int projectId, final int version) {
+    return String.valueOf(projectId) + "." + String.valueOf(version);
   }
 
   private File createTempDir(final ProjectDirectoryMetadata proj) {
@@ -195,8 +268,11 @@ public class FlowPreparer extends AbstractFlowPreparer {
       // Update last modified time of the file keeping project dir size when the project is
       // accessed. This last modified time will be used to determined least recently used
       // projects when performing project directory clean-up.
+      final FileTime accessTime = FileTime.fromMillis(System.currentTimeMillis());
       updateLastModifiedTime(
-          Paths.get(proj.getInstalledDir().getPath(), PROJECT_DIR_SIZE_FILE_NAME));
+          Paths.get(proj.getInstalledDir().getPath(), PROJECT_DIR_SIZE_FILE_NAME), accessTime);
+      this.projectCacheCleaner.ifPresent(cacheCleaner -> cacheCleaner
+          .projectAccessed(proj.getInstalledDir().toPath(), accessTime));
       return null;
     }
 
@@ -206,9 +282,35 @@ public class FlowPreparer extends AbstractFlowPreparer {
     final File tempDir = createTempDir(proj);
     downloadAndUnzipProject(proj, execId, tempDir);
 
+    if (this.projectBlobStore.isPresent()) {
+      final long start = System.currentTimeMillis();
+      final long dedupedBytes = this.projectBlobStore.get().deduplicate(tempDir);
+      LOGGER.info("Linking project {} files to the blob store found {} byte(s) already stored, "
+              + "took {} msec(s). ExecId: {}", proj, dedupedBytes,
+          System.currentTimeMillis() - start, execId);
+    }
+
     return tempDir;
   }
 
+  /**
+   * Link the startup dependencies found in the blob store instead of downloading them.
+   */
+  @Override
+  protected Set<DependencyFile> provideLocalDependencies(final Set<DependencyFile> depFiles)
+      throws IOException {
+    if (!this.projectBlobStore.isPresent()) {
+      return depFiles;
+    }
+    final Set<DependencyFile> toDownload = new HashSet<>();
+    for (final DependencyFile depFile : depFiles) {
+      if (!this.projectBlobStore.get().linkFromStore(depFile.getSHA1(), depFile.getFile())) {
+        toDownload.add(depFile);
+      }
+    }
+    return toDownload;
+  }
+
   private File createExecDir(final ExecutableFlow flow) {
     final int execId = flow.getExecutionId();
     final File execDir = new File(this.executionsDir, String.valueOf(execId));
@@ -217,7 +319,9 @@ public class FlowPreparer extends AbstractFlowPreparer {
     return execDir;
   }
 
+  @Override
   public void shutdown() {
+    super.shutdown();
     if (projectCacheCleaner.isPresent()) {
       this.projectCacheCleaner.get().shutdown();
     }
@@ -18,6 +18,9 @@ package azkaban.execapp;
 import static azkaban.Constants.ConfigurationKeys.AZKABAN_EVENT_REPORTING_PROPERTIES_TO_PROPAGATE;
 import static azkaban.Constants.ConfigurationKeys.AZKABAN_SERVER_HOST_NAME;
 import static azkaban.Constants.ConfigurationKeys.AZKABAN_WEBSERVER_EXTERNAL_HOSTNAME;
+import static azkaban.Constants.ConfigurationKeys.FLOW_ASYNC_UPDATE_ENABLED;
+import static azkaban.Constants.ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL;
+import static azkaban.Constants.ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_ENABLED;
 import static azkaban.Constants.EventReporterConstants;
 import static azkaban.execapp.ConditionalWorkflowUtils.FAILED;
 import static azkaban.execapp.ConditionalWorkflowUtils.PENDING;
@@ -67,8 +70,8 @@ import azkaban.spi.AzkabanEventReporter;
 import azkaban.spi.EventType;
 import azkaban.spi.ExecutorType;
 import azkaban.utils.JSONUtils;
+import azkaban.utils.Pair;
 import azkaban.utils.Props;
-import azkaban.utils.SwapQueue;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
@@ -92,10 +95,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -119,6 +126,8 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
   // We check update every 5 minutes, just in case things get stuck. But for the
   // most part, we'll be idling.
   private static final long CHECK_WAIT_MS = 5 * 60 * 1000;
+  private static final int DEFAULT_FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL = 20;
+  private static final long FLOW_UPDATE_TERMINATION_WAIT_MS = 60 * 1000;
   private final ExecutableFlow flow;
   // Sync object for queuing
   private final Object mainSyncObj = new Object();
@@ -132,12 +141,16 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
   // Properties map
   private final Props azkabanProps;
   private final Map<String, Props> sharedProps = new HashMap<>();
+  // Copies of the input props of the running flows shared by their jobs, by flow nested id and
+  // shared props source, see getJobParentProps
+  private final Map<String, Map<String, Pair<Props, Props>>> jobParentProps = new HashMap<>();
   private final JobRunnerEventListener listener = new JobRunnerEventListener();
   private final FlowRunnerEventListener flowListener = new FlowRunnerEventListener();
   private final Set<JobRunner> activeJobRunners = Collections
       .newSetFromMap(new ConcurrentHashMap<>());
-  // Thread safe swap queue for finishedExecutions.
-  private final SwapQueue<ExecutableNode> finishedNodes;
+  // Thread safe queue of the finished nodes, the flow runner thread blocks on it for the next
+  // finished node.
+  private final BlockingQueue<ExecutableNode> finishedNodes;
   private final AzkabanEventReporter azkabanEventReporter;
   private final AlerterHolder alerterHolder;
   private Logger logger;
@@ -211,6 +224,17 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
   // Project upload data for events
   private final ProjectFileHandler projectFileHandler;
 
+  // Incremental persistence of the flow, see updateFlow()
+  private final boolean incrementalFlowUpdateEnabled;
+  private final int flowUpdateCompactionInterval;
+  private long lastPersistedUpdateTime = -1;
+  private int numAppendedFlowUpdates = 0;
+
+  // Asynchronous persistence of the flow, see requestFlowUpdate()
+  private final boolean asyncFlowUpdateEnabled;
+  private final AtomicBoolean flowUpdatePending = new AtomicBoolean(false);
+  private volatile ExecutorService flowUpdateExecutor;
+
   /**
    * Constructor. This will create its own ExecutorService for thread pools
    */
@@ -246,8 +270,14 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     this.failureAction = options.getFailureAction();
     this.proxyUsers = flow.getProxyUsers();
     this.executorService = executorService;
-    this.finishedNodes = new SwapQueue<>();
+    this.finishedNodes = new LinkedBlockingQueue<>();
     this.azkabanProps = azkabanProps;
+    this.incrementalFlowUpdateEnabled =
+        azkabanProps.getBoolean(FLOW_INCREMENTAL_UPDATE_ENABLED, false);
+    this.flowUpdateCompactionInterval = azkabanProps.getInt(
+        FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL,
+        DEFAULT_FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL);
+    this.asyncFlowUpdateEnabled = azkabanProps.getBoolean(FLOW_ASYNC_UPDATE_ENABLED, false);
     this.alerterHolder = alerterHolder;
     this.commonMetrics = commonMetrics;
     this.execMetrics = execMetrics;
@@ -305,6 +335,10 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
         this.executorService = Executors.newFixedThreadPool(this.numJobThreads,
             new ThreadFactoryBuilder().setNameFormat("azk-job-pool-%d").build());
       }
+      if (this.asyncFlowUpdateEnabled) {
+        this.flowUpdateExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("azk-flow-update-" + this.execId).setDaemon(true).build());
+      }
       setupFlowExecution();
       this.flow.setStartTime(System.currentTimeMillis());
 
@@ -339,6 +373,7 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
         this.flow.setEndTime(System.currentTimeMillis());
         this.logger.info("Setting end time for flow " + this.execId + " to "
             + System.currentTimeMillis());
+        stopFlowUpdates();
         closeLogger();
         updateFlow();
       } finally {
@@ -449,10 +484,75 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     updateFlow(System.currentTimeMillis());
   }
 
+  /**
+   * Persists the flow. With asynchronous updates enabled, the flow is written by the flow update
+   * thread instead, and the requests made before that write starts are served by the same write.
+   */
+  private void requestFlowUpdate() {
+    final ExecutorService updateExecutor = this.flowUpdateExecutor;
+    if (updateExecutor == null) {
+      updateFlow();
+      return;
+    }
+    if (!this.flowUpdatePending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      updateExecutor.execute(() -> {
+        // Cleared before the write so that the changes made during the write are written again.
+        this.flowUpdatePending.set(false);
+        updateFlow();
+      });
+    } catch (final RejectedExecutionException e) {
+      this.flowUpdatePending.set(false);
+      updateFlow();
+    }
+  }
+
+  /**
+   * Waits for the pending asynchronous update of the flow to be written. The updates requested
+   * afterwards are synchronous.
+   */
+  private void stopFlowUpdates() {
+    final ExecutorService updateExecutor = this.flowUpdateExecutor;
+    if (updateExecutor == null) {
+      return;
+    }
+    this.flowUpdateExecutor = null;
+    updateExecutor.shutdown();
+    try {
+      if (!updateExecutor.awaitTermination(FLOW_UPDATE_TERMINATION_WAIT_MS,
+          TimeUnit.MILLISECONDS)) {
+        this.logger.warn("Timed out waiting for the update of execution " + this.execId);
+      }
+    } catch (final InterruptedException e) {
+      this.logger.warn("Interrupted while waiting for the update of execution " + this.execId);
+    }
+  }
+
+  /**
+   * Persists the flow. With incremental updates enabled, only the nodes that changed since the
+   * previous update are written, and the whole flow is rewritten on the first update, every
+   * flowUpdateCompactionInterval updates and once the flow is finished.
+   */
   private synchronized void updateFlow(final long time) {
     try {
       this.flow.setUpdateTime(time);
-      this.executorLoader.updateExecutableFlow(this.flow);
+      if (!this.incrementalFlowUpdateEnabled) {
+        this.executorLoader.updateExecutableFlow(this.flow);
+      } else if (this.lastPersistedUpdateTime < 0
+          || this.numAppendedFlowUpdates >= this.flowUpdateCompactionInterval
+          || Status.isStatusFinished(this.flow.getStatus())) {
+        this.executorLoader.compactExecutableFlow(this.flow);
+        this.numAppendedFlowUpdates = 0;
+      } else {
+        // Nodes updated in the same millisecond as the previous update are written again,
+        // applying an update twice is harmless.
+        this.executorLoader
+            .appendExecutableFlowUpdate(this.flow, this.lastPersistedUpdateTime - 1);
+        this.numAppendedFlowUpdates++;
+      }
+      this.lastPersistedUpdateTime = time;
     } catch (final ExecutorManagerException e) {
       this.logger.error("Error updating flow.", e);
     }
@@ -532,6 +632,8 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     runReadyJob(this.flow);
     updateFlow();
 
+    // Finished nodes taken from the queue, kept while the flow is paused
+    final List<ExecutableNode> finished = new ArrayList<>();
     while (!this.flowFinished) {
       synchronized (this.mainSyncObj) {
         if (this.flowPaused) {
@@ -541,17 +643,27 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
           }
 
           continue;
-        } else {
-          if (this.retryFailedJobs) {
-            retryAllFailures();
-          } else if (!progressGraph()) {
-            try {
-              this.mainSyncObj.wait(CHECK_WAIT_MS);
-            } catch (final InterruptedException e) {
-            }
-          }
+        } else if (this.retryFailedJobs) {
+          retryAllFailures();
+          continue;
+        }
+
+        this.finishedNodes.drainTo(finished);
+        if (!finished.isEmpty()) {
+          progressGraph(finished);
+          finished.clear();
+          continue;
         }
       }
+
+      // Wakes up as soon as a job finishes. Pause, resume, kill and retry interrupt the wait.
+      try {
+        final ExecutableNode node = this.finishedNodes.poll(CHECK_WAIT_MS, TimeUnit.MILLISECONDS);
+        if (node != null) {
+          finished.add(node);
+        }
+      } catch (final InterruptedException e) {
+      }
     }
 
     this.logger.info("Finishing up flow. Awaiting Termination");
@@ -589,13 +701,11 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     updateFlow();
   }
 
-  private boolean progressGraph() throws IOException {
-    this.finishedNodes.swap();
-
+  private void progressGraph(final List<ExecutableNode> finished) throws IOException {
     // The following nodes are finished, so we'll collect a list of outnodes
     // that are candidates for running next.
     final HashSet<ExecutableNode> nodesToCheck = new HashSet<>();
-    for (final ExecutableNode node : this.finishedNodes) {
+    for (final ExecutableNode node : finished) {
       Set<String> outNodeIds = node.getOutNodes();
       ExecutableFlowBase parentFlow = node.getParentFlow();
 
@@ -642,22 +752,16 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     // Runs candidate jobs. The code will check to see if they are ready to run
     // before
     // Instant kill or skip if necessary.
-    boolean jobsRun = false;
     for (final ExecutableNode node : nodesToCheck) {
       if (notReadyToRun(node.getStatus())) {
         // Really shouldn't get in here.
         continue;
       }
 
-      jobsRun |= runReadyJob(node);
-    }
-
-    if (jobsRun || this.finishedNodes.getSize() > 0) {
-      updateFlow();
-      return true;
+      runReadyJob(node);
     }
 
-    return false;
+    requestFlowUpdate();
   }
 
   private void setFlowFailed(final ExecutableNode node) {
@@ -806,6 +910,7 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
   }
 
   private void finalizeFlow(final ExecutableFlowBase flow) {
+    this.jobParentProps.remove(flow.getNestedId());
     final String id = flow == this.flow ? flow.getNestedId() : "";
 
     // If it's not the starting flow, we'll create set of output props
@@ -893,10 +998,13 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     // The following is the hiearchical ordering of dependency resolution
     // 2. Parent Flow Properties
     final ExecutableFlowBase parentFlow = node.getParentFlow();
+    final Props flowProps;
     if (parentFlow != null) {
-      final Props flowProps = Props.clone(parentFlow.getInputProps());
-      flowProps.setEarliestAncestor(props);
+      // The jobs of the flow share a copy of its properties instead of each cloning them.
+      flowProps = getJobParentProps(parentFlow, node.getPropsSource(), props);
       props = flowProps;
+    } else {
+      flowProps = null;
     }
 
     // 3. Output Properties. The call creates a clone, so we can overwrite it.
@@ -911,6 +1019,9 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     if (jobSource != null) {
       jobSource.setParent(props);
       props = jobSource;
+    } else if (props != null && props == flowProps) {
+      // The job changes its own properties, not the copy shared with the other jobs.
+      props = new Props(props);
     }
 
     if (this.azkabanProps.getBoolean(
@@ -928,6 +1039,32 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     node.setInputProps(props);
   }
 
+  /**
+   * Returns a copy of the input properties of the flow, with the shared properties as their
+   * earliest ancestor. The copy is shared by the jobs of the flow with the same shared properties,
+   * and kept until the flow is finalized. Each level of the copy keeps its source.
+   */
+  private Props getJobParentProps(final ExecutableFlowBase parentFlow,
+      final String sharedPropsSource, final Props sharedProps) {
+    final Props inputProps = parentFlow.getInputProps();
+    final Map<String, Pair<Props, Props>> flowCopies =
+        this.jobParentProps.computeIfAbsent(parentFlow.getNestedId(), id -> new HashMap<>());
+    final String key = sharedProps == null || sharedPropsSource == null ? "" : sharedPropsSource;
+    Pair<Props, Props> copy = flowCopies.get(key);
+    // The input properties are set again when the flow is retried.
+    if (copy == null || copy.getFirst() != inputProps) {
+      final Props flowProps = Props.clone(inputProps);
+      for (Props from = inputProps, to = flowProps; from != null;
+          from = from.getParent(), to = to.getParent()) {
+        to.setSource(from.getSource());
+      }
+      flowProps.setEarliestAncestor(sharedProps);
+      copy = new Pair<>(inputProps, flowProps);
+      flowCopies.put(key, copy);
+    }
+    return copy.getSecond();
+  }
+
   /**
    * @param props This method is to put in any job properties customization before feeding to the
    *              job.
@@ -1228,6 +1365,7 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
 
     jobRunner.setDelayStart(node.getDelayedExecution());
     jobRunner.setLogSettings(this.logger, this.jobLogFileSize, this.jobLogNumFiles);
+    jobRunner.setExecMetrics(this.execMetrics);
     jobRunner.addListener(this.listener);
 
     if (JobCallbackManager.isInitialized()) {
@@ -1720,7 +1858,7 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
     @Override
     public synchronized void handleEvent(final Event event) {
       if (event.getType() == EventType.JOB_STATUS_CHANGED) {
-        updateFlow();
+        requestFlowUpdate();
       } else if (event.getType() == EventType.JOB_FINISHED) {
         final EventData eventData = event.getData();
         final JobRunner jobRunner = (JobRunner) event.getRunner();
@@ -1745,12 +1883,13 @@ public class FlowRunner extends EventHandler<Event> implements Runnable {
           if (FlowRunner.this.flowPaused && eventData.getStatus() == Status.FAILED
               && FlowRunner.this.failureAction == FailureAction.CANCEL_ALL) {
             FlowRunner.this.flowPaused = false;
+            FlowRunner.this.mainSyncObj.notifyAll();
           }
 
-          FlowRunner.this.finishedNodes.add(node);
           FlowRunner.this.activeJobRunners.remove(jobRunner);
           node.getParentFlow().setUpdateTime(System.currentTimeMillis());
-          interrupt();
+          // Wakes up the main thread blocked on the queue.
+          FlowRunner.this.finishedNodes.add(node);
           fireEventListeners(event);
         }
       } else if (event.getType() == EventType.JOB_STARTED) {
@@ -229,7 +229,19 @@ public class FlowRunnerManager implements EventListener<Event>,
     this.jobtypeManager =
         new JobTypeManager(props.getString(AzkabanExecutorServer.JOBTYPE_PLUGIN_DIR,
             Constants.PluginManager.JOBTYPE_DEFAULTDIR), this.globalProps,
-            getClass().getClassLoader(), this.clusterRouter);
+            getClass().getClassLoader(), this.clusterRouter,
+            props.getBoolean(ConfigurationKeys.JOBTYPE_CLASSLOADER_CACHE_ENABLED, false));
+
+    ProjectBlobStore blobStore = null;
+    if (props.getBoolean(ConfigurationKeys.PROJECT_CACHE_DEDUP_ENABLED, false)) {
+      if (ProjectBlobStore.isSupported(this.projectDirectory)) {
+        this.LOGGER.info("Project files in the Project Cache will be deduplicated");
+        blobStore = new ProjectBlobStore(this.projectDirectory);
+      } else {
+        this.LOGGER.warn("Hard links are not supported in the Project Cache, its project files "
+            + "won't be deduplicated");
+      }
+    }
 
     ProjectCacheCleaner cleaner = null;
     this.LOGGER.info("Configuring Project Cache");
@@ -244,7 +256,7 @@ public class FlowRunnerManager implements EventListener<Event>,
           .info("Configuring Cache Cleaner with {} % as threshold", projectCacheSizePercentage);
       cleaner = new ProjectCacheCleaner(this.projectDirectory,
           projectCacheSizePercentage,
-          projectCacheThrottlePercentage);
+          projectCacheThrottlePercentage, blobStore);
       this.LOGGER.info("ProjectCacheCleaner configured.");
     } catch (final UndefinedPropertyException ex) {
       if (projectCacheSizePercentage == 0.0) {
@@ -257,13 +269,14 @@ public class FlowRunnerManager implements EventListener<Event>,
         this.LOGGER
             .info("Property {} not set. Initializing with default value of Throttle Percentage",
                 ConfigurationKeys.PROJECT_CACHE_THROTTLE_PERCENTAGE);
-        cleaner = new ProjectCacheCleaner(this.projectDirectory, projectCacheSizePercentage);
+        cleaner = new ProjectCacheCleaner(this.projectDirectory, projectCacheSizePercentage,
+            ProjectCacheCleaner.DEFAULT_THROTTLE_PERCENTAGE, blobStore);
       }
     }
 
     // Create a flow preparer
     this.flowPreparer = new FlowPreparer(projectStorageManager, this.dependencyTransferManager,
-        this.projectDirectory, cleaner, this.execMetrics.getProjectCacheHitRatio(),
+        this.projectDirectory, cleaner, blobStore, this.execMetrics,
         this.executionDirectory);
 
     this.execMetrics.addFlowRunnerManagerMetrics(this);
@@ -692,6 +705,7 @@ public class FlowRunnerManager implements EventListener<Event>,
             + " is finished. Adding it to recently finished flows list.");
         this.runningFlows.remove(flow.getExecutionId());
         this.deleteExecutionDir(flow.getExecutionId());
+        this.triggerManager.expireTriggers(flow);
       } else if (event.getType() == EventType.FLOW_STARTED) {
         // add flow level SLA checker
         this.triggerManager
@@ -955,6 +969,7 @@ public class FlowRunnerManager implements EventListener<Event>,
     }
     this.executorService.shutdownNow();
     this.triggerManager.shutdown();
+    this.flowPreparer.shutdown();
   }
 
   private boolean isPollDispatchMethodEnabled() {
@@ -87,6 +87,9 @@ public class JobRunner extends EventHandler implements Runnable {
   private File logFile;
   private String attachmentFileName;
   private Job job;
+  // Released once the job is done, the class loader of the job may be shared
+  private JobTypeManager.JobParams jobParams = null;
+  private ExecMetrics execMetrics = null;
   private int executionId = -1;
   // Used by the job to watch and block against another flow
   private Integer pipelineLevel = null;
@@ -185,6 +188,10 @@ public class JobRunner extends EventHandler implements Runnable {
     this.jobLogBackupIndex = numLogBackup;
   }
 
+  public void setExecMetrics(final ExecMetrics execMetrics) {
+    this.execMetrics = execMetrics;
+  }
+
   public Props getProps() {
     return this.props;
   }
@@ -604,6 +611,9 @@ public class JobRunner extends EventHandler implements Runnable {
       throw e;
     } finally {
       Thread.currentThread().setContextClassLoader(this.threadClassLoader);
+      if (this.jobParams != null) {
+        this.jobtypeManager.releaseJobParams(this.jobParams);
+      }
     }
   }
 
@@ -771,6 +781,10 @@ public class JobRunner extends EventHandler implements Runnable {
         long jobCreationStartMillis = System.currentTimeMillis();
         final JobTypeManager.JobParams jobParams = this.jobtypeManager
             .createJobParams(this.jobId, this.props, this.logger);
+        this.jobParams = jobParams;
+        if (this.execMetrics != null) {
+          this.execMetrics.addJobClassLoadTime(jobParams.classLoadTimeMillis);
+        }
         Thread.currentThread().setContextClassLoader(jobParams.contextClassLoader);
         this.job = JobTypeManager.createJob(this.jobId, jobParams, this.logger);
         this.logger.info(String.format("%s creation took %s milliseconds.",
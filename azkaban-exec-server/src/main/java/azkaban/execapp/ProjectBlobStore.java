@@ -0,0 +1,269 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import azkaban.utils.HashUtils;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed store of the files of the projects in the project cache.
+ *
+ * <p>Files are stored under their SHA1 hash, the same hash the startup dependencies are identified
+ * with. The files of a project dir are hard links into the store, so a file shared by several
+ * project versions, or a dependency jar shared by several projects, takes space on disk once. A
+ * blob is no longer used once the store holds its only link. The blobs a project dir links to are
+ * recorded with {@link #getLinkedBlobs(File)} before it's deleted, and removed after by {@link
+ * #removeUnreferencedBlobs(Collection)} if that was their last use.
+ *
+ * <p>All the links to a blob share its content and permissions, and the execution dirs link to
+ * the project dir files in turn. Blobs are therefore made read-only, so a job writing a project
+ * file in place fails instead of changing that file for every project linking to it. A job can
+ * still delete and recreate the file, which only replaces its own link.
+ */
+class ProjectBlobStore {
+
+  // Name of the store dir in the project cache dir. It doesn't match the project dir name pattern.
+  static final String BLOB_STORE_DIR_NAME = "_blobs";
+
+  private static final Logger log = LoggerFactory.getLogger(ProjectBlobStore.class);
+  private static final Set<PosixFilePermission> WRITE_PERMISSIONS = EnumSet.of(
+      PosixFilePermission.OWNER_WRITE, PosixFilePermission.GROUP_WRITE,
+      PosixFilePermission.OTHERS_WRITE);
+
+  private final Path root;
+
+  ProjectBlobStore(final File projectCacheDir) throws IOException {
+    Preconditions.checkArgument(projectCacheDir.exists());
+    this.root = projectCacheDir.toPath().resolve(BLOB_STORE_DIR_NAME);
+    Files.createDirectories(this.root);
+  }
+
+  /**
+   * Checks that the file system of the project cache supports hard links and reading their
+   * count, which the store relies on.
+   */
+  static boolean isSupported(final File projectCacheDir) {
+    Path file = null;
+    Path link = null;
+    try {
+      file = Files.createTempFile(projectCacheDir.toPath(), "_blob-support", null);
+      link = file.resolveSibling(file.getFileName() + ".link");
+      Files.createLink(link, file);
+      return getLinkCount(file) == 2;
+    } catch (final IOException | UnsupportedOperationException | IllegalArgumentException e) {
+      log.warn("Hard links are not supported in {}", projectCacheDir, e);
+      return false;
+    } finally {
+      deleteQuietly(link);
+      deleteQuietly(file);
+    }
+  }
+
+  private static void deleteQuietly(final Path file) {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        log.warn("Error when deleting {}", file, e);
+      }
+    }
+  }
+
+  private Path getBlobPath(final String sha1) {
+    return this.root.resolve(sha1.substring(0, 2)).resolve(sha1);
+  }
+
+  /**
+   * Hard links the blob with the given hash to the target file.
+   *
+   * @return false if the store has no such blob
+   */
+  boolean linkFromStore(final String sha1, final File target) throws IOException {
+    final Path blob = getBlobPath(sha1);
+    if (!Files.exists(blob)) {
+      return false;
+    }
+    Files.createDirectories(target.toPath().getParent());
+    try {
+      makeReadOnly(blob);
+      Files.createLink(target.toPath(), blob);
+      return true;
+    } catch (final NoSuchFileException e) {
+      // Removed as unreferenced in the meantime.
+      return false;
+    }
+  }
+
+  /**
+   * Replaces every file of the project dir by a hard link to the blob with the same content,
+   * adding the content missing from the store.
+   *
+   * @param projectDir the project dir, not yet visible to executions
+   * @return the number of bytes found in the store
+   */
+  long deduplicate(final File projectDir) throws IOException {
+    final List<Path> files;
+    try (final Stream<Path> paths = Files.walk(projectDir.toPath())) {
+      files = paths.filter(Files::isRegularFile)
+          // Its modification time is the project's last access time, it can't be shared.
+          .filter(path -> !path.getFileName().toString()
+              .equals(AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME))
+          .collect(Collectors.toList());
+    }
+    long dedupedBytes = 0;
+    for (final Path file : files) {
+      // Files linked from the store already, such as startup dependencies.
+      if (getLinkCount(file) > 1) {
+        continue;
+      }
+      final String sha1 = HashUtils.SHA1.getHashStr(file.toFile());
+      if (replaceWithBlob(file, sha1)) {
+        dedupedBytes += Files.size(file);
+      }
+    }
+    return dedupedBytes;
+  }
+
+  /**
+   * @return true if the file was replaced by a link to an existing blob, false if it was added
+   * to the store instead
+   */
+  private boolean replaceWithBlob(final Path file, final String sha1) throws IOException {
+    final Path blob = getBlobPath(sha1);
+    if (Files.exists(blob)) {
+      final Path link = file.resolveSibling(file.getFileName() + ".blob");
+      try {
+        makeReadOnly(blob);
+        Files.createLink(link, blob);
+        Files.move(link, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        return true;
+      } catch (final NoSuchFileException e) {
+        // Removed as unreferenced in the meantime, add it again.
+        Files.deleteIfExists(link);
+      }
+    }
+    Files.createDirectories(blob.getParent());
+    makeReadOnly(file);
+    try {
+      Files.createLink(blob, file);
+    } catch (final FileAlreadyExistsException e) {
+      // Added by another project in the meantime, this copy is kept as is.
+    }
+    return false;
+  }
+
+  /**
+   * Finds the blobs the files of the project dir are linked to, to be checked once it's deleted.
+   *
+   * @return the hashes of the blobs, empty if they couldn't be found
+   */
+  Set<String> getLinkedBlobs(final File projectDir) {
+    final Set<String> linkedBlobs = new HashSet<>();
+    try (final Stream<Path> paths = Files.walk(projectDir.toPath())) {
+      for (final Path file : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+        // Files not linked from the store have a single link.
+        if (getLinkCount(file) > 1) {
+          final String sha1 = HashUtils.SHA1.getHashStr(file.toFile());
+          final Path blob = getBlobPath(sha1);
+          if (Files.exists(blob) && Files.isSameFile(blob, file)) {
+            linkedBlobs.add(sha1);
+          }
+        }
+      }
+    } catch (final IOException e) {
+      log.warn("Error when finding the blobs linked from {}", projectDir, e);
+    }
+    return linkedBlobs;
+  }
+
+  /**
+   * Removes the given blobs if no project dir links to them anymore.
+   *
+   * @param sha1s hashes of the blobs
+   */
+  void removeUnreferencedBlobs(final Collection<String> sha1s) {
+    int removed = 0;
+    for (final String sha1 : sha1s) {
+      final Path blob = getBlobPath(sha1);
+      try {
+        if (getLinkCount(blob) == 1) {
+          Files.deleteIfExists(blob);
+          removed++;
+        }
+      } catch (final NoSuchFileException e) {
+        // Removed along with another project dir.
+      } catch (final IOException e) {
+        log.warn("Error when removing unreferenced blob {}", blob, e);
+      }
+    }
+    log.info("Removed {} of {} unreferenced blob(s)", removed, sha1s.size());
+  }
+
+  /**
+   * Removes every blob no project dir links to anymore, such as those whose project dirs were
+   * deleted while the executor was down. Walks the whole store.
+   */
+  void removeAllUnreferencedBlobs() {
+    final long start = System.currentTimeMillis();
+    int removed = 0;
+    try (final Stream<Path> paths = Files.walk(this.root)) {
+      for (final Path blob : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+        if (getLinkCount(blob) == 1) {
+          Files.deleteIfExists(blob);
+          removed++;
+        }
+      }
+    } catch (final IOException e) {
+      log.warn("Error when removing unreferenced blobs from {}", this.root, e);
+    }
+    log.info("Removed {} unreferenced blobs in {} msec(s)", removed,
+        System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Removes the write permissions of the file, and so of every link to it. Blobs added before
+   * they were made read-only are made so when linked again.
+   */
+  private static void makeReadOnly(final Path file) throws IOException {
+    final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+    if (permissions.removeAll(WRITE_PERMISSIONS)) {
+      Files.setPosixFilePermissions(file, permissions);
+    }
+  }
+
+  private static int getLinkCount(final Path file) throws IOException {
+    return (Integer) Files.getAttribute(file, "unix:nlink");
+  }
+}
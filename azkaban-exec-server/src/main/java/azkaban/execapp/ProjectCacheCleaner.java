@@ -26,13 +26,17 @@ import java.io.FilenameFilter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -47,6 +51,11 @@ import org.slf4j.LoggerFactory;
 /**
  * This class is responsible for deleting least recently accessed projects in the shared project
  * cache when there's no room to accommodate a new project.
+ *
+ * <p>The cached projects are kept in an in-memory index ordered by last access time, along with
+ * their total size. The index is built from the cache directory the first time it's needed, and
+ * from then on is kept up to date as projects are installed, accessed and deleted, so that making
+ * room for a new project doesn't rescan the cache directory.
  */
 class ProjectCacheCleaner {
 
@@ -61,21 +70,41 @@ class ProjectCacheCleaner {
   // Number of threads in the cache cleanup service
   private static final int CLEANING_SERVICE_THREAD_NUM = 8;
 
-  private static final double DEFAULT_THROTTLE_PERCENTAGE = 0.92; // 92%
+  static final double DEFAULT_THROTTLE_PERCENTAGE = 0.92; // 92%
 
   // If space in Cache partition goes above this Percentage, incoming request must wait
   // till the current cache cleanup cycle is done
   private double throttlePercentage;
 
-  // Currently cached projects
+  // Currently cached projects, guarded by {@link lruIndex}
   private final Map<Path, ProjectDirectoryMetadata> cachedProjects = new HashMap<>();
 
+  // Currently cached projects ordered from the least to the most recently accessed, guarded by
+  // itself. An entry must be removed before its last access time is updated.
+  private final NavigableSet<ProjectDirectoryMetadata> lruIndex = new TreeSet<>(
+      Comparator.comparing(ProjectDirectoryMetadata::getLastAccessTime)
+          .thenComparing(ProjectDirectoryMetadata::getProjectId)
+          .thenComparing(ProjectDirectoryMetadata::getVersion));
+
+  // Sum of the size of the cached projects, guarded by {@link lruIndex}
+  private long cachedProjectsSizeInBytes = 0;
+
+  // Whether the index was built from the cache directory, guarded by {@link lruIndex}
+  private boolean indexLoaded = false;
+
   // A record of projects under deletion
   private final ConcurrentMap<Path, File> projectsUnderDeletion = new ConcurrentHashMap<>();
 
+  // Number of flow preparations currently using a project dir, guarded by {@link barrier}.
+  // A project dir in use is never picked for deletion.
+  private final Map<Path, Integer> projectDirReferences = new HashMap<>();
+
   // Executor service responsible for cache cleanup
   private final ExecutorService deletionService;
 
+  // Store the project dirs link their files to, null if project files are not deduplicated
+  private final ProjectBlobStore blobStore;
+
   // This is leveraged as a barrier mechanism to stall an incoming
   // request until ongoing cache cleanup cycle is done. This is only necessary if new projects
   // get added very rapidly driving cache space above throttlePercentage
@@ -91,12 +120,22 @@ class ProjectCacheCleaner {
 
   public ProjectCacheCleaner(final File projectCacheDir, final double percentageOfDisk,
       final double throttlePercentage) {
+    this(projectCacheDir, percentageOfDisk, throttlePercentage, null);
+  }
+
+  /**
+   * @param blobStore store the project dirs link their files to, whose unused blobs are removed
+   *                  after project dirs are deleted. Null if project files are not deduplicated.
+   */
+  public ProjectCacheCleaner(final File projectCacheDir, final double percentageOfDisk,
+      final double throttlePercentage, final ProjectBlobStore blobStore) {
     Preconditions.checkNotNull(projectCacheDir);
     Preconditions.checkArgument(projectCacheDir.exists());
     Preconditions.checkArgument(percentageOfDisk > 0 && percentageOfDisk <= 1);
     this.projectCacheDir = projectCacheDir;
     this.percentageOfDisk = percentageOfDisk;
     this.throttlePercentage = throttlePercentage;
+    this.blobStore = blobStore;
 
     log.info("ProjectCacheCleaner constructor called. ProjectCacheDir = {}, thresh-hold = {} %, throttle at {} %",
         projectCacheDir.toPath(), this.percentageOfDisk, this.throttlePercentage);
@@ -107,51 +146,43 @@ class ProjectCacheCleaner {
   }
 
   /**
-   * Get metadata from the OS for the underlying path, lastAccessTime is fetched from the OS
-   * regardless of whether the given project already exists, but the space calculation for a
-   * project directory is only performed one-time.
+   * Get metadata from the OS for the underlying path.
    *
    * @param project path for the project cache. Project filepath encodes projectID & version
    *                within the filename
    *
-   * @return OS Metadata for the given path
+   * @return OS Metadata for the given path, null if it couldn't be loaded
    */
   private ProjectDirectoryMetadata fetchProjectMetadata(final Path project) {
-    ProjectDirectoryMetadata projectDirectoryMetadata = this.cachedProjects.get(project);
-
     try {
-      if (projectDirectoryMetadata == null) {
-        final String fileName = project.getFileName().toString();
-        final int projectId = Integer.parseInt(fileName.split("\\.")[0]);
-        final int versionNum = Integer.parseInt(fileName.split("\\.")[1]);
-        projectDirectoryMetadata = new ProjectDirectoryMetadata(projectId, versionNum, project.toFile());
-
-        /*
-         * Calculate used-space (Equivalent of du command) only if the metadata for
-         * this project was never fetched before. This optimization is important as
-         * recursive space calculation is a very expensive operation.
-         */
-        projectDirectoryMetadata.setDirSizeInByte(
-            AbstractFlowPreparer.calculateDirSizeAndSave(projectDirectoryMetadata.getInstalledDir()));
-      }
-
+      final String fileName = project.getFileName().toString();
+      final int projectId = Integer.parseInt(fileName.split("\\.")[0]);
+      final int versionNum = Integer.parseInt(fileName.split("\\.")[1]);
+      final ProjectDirectoryMetadata projectDirectoryMetadata =
+          new ProjectDirectoryMetadata(projectId, versionNum, project.toFile());
+
+      projectDirectoryMetadata.setDirSizeInByte(
+          AbstractFlowPreparer.calculateDirSizeAndSave(projectDirectoryMetadata.getInstalledDir()));
       projectDirectoryMetadata.setLastAccessTime(
           Files.getLastModifiedTime(Paths.get(projectDirectoryMetadata.getInstalledDir().toString(),
               AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME)));
-
+      return projectDirectoryMetadata;
     } catch (final Exception e) {
       log.warn("Error while loading project dir metadata for project {}",
           project.getFileName(), e);
+      return null;
     }
-    return projectDirectoryMetadata;
   }
 
   /**
-   * Browse Cache root directory to fetch all valid projects and unclean files. If a project
-   * already exists in the cache, don't bother to re-fetch the OS metadata again.
+   * Browse Cache root directory to fetch all valid projects into the index, if not done yet. Must
+   * be called holding the {@link lruIndex} lock.
    */
-  private void loadAllProjects() {
-    final List<Path> projects = new ArrayList<>();
+  private void loadAllProjectsIfNecessary() {
+    if (this.indexLoaded) {
+      return;
+    }
+    final long start = System.currentTimeMillis();
     for (final File project : Objects
         .requireNonNull(this.projectCacheDir.listFiles(new FilenameFilter() {
           String pattern = "[0-9]+\\.[0-9]+";
@@ -162,29 +193,83 @@ class ProjectCacheCleaner {
         }))) {
       if (project.exists() && project.isDirectory() &&
           !projectsUnderDeletion.containsKey(project.toPath())) {
-        ProjectDirectoryMetadata projectDirectoryMetadata = fetchProjectMetadata(project.toPath());
+        final ProjectDirectoryMetadata projectDirectoryMetadata =
+            fetchProjectMetadata(project.toPath());
         if (projectDirectoryMetadata != null) {
-            cachedProjects.put(project.toPath(), projectDirectoryMetadata);
+          addToIndex(projectDirectoryMetadata);
         }
       }
     } // end of for loop
+    this.indexLoaded = true;
+    log.info("Loading {} project dirs metadata completed in {} msecs",
+        this.cachedProjects.size(), System.currentTimeMillis() - start);
+    if (this.blobStore != null) {
+      // Blobs of the project dirs deleted before the index was loaded.
+      this.deletionService.execute(this.blobStore::removeAllUnreferencedBlobs);
+    }
+  }
+
+  private void addToIndex(final ProjectDirectoryMetadata project) {
+    final Path path = project.getInstalledDir().toPath();
+    final ProjectDirectoryMetadata replaced = this.cachedProjects.put(path, project);
+    if (replaced != null) {
+      this.lruIndex.remove(replaced);
+      this.cachedProjectsSizeInBytes -= replaced.getDirSizeInByte();
+    }
+    this.lruIndex.add(project);
+    this.cachedProjectsSizeInBytes += project.getDirSizeInByte();
   }
 
   /**
-   * @return sum of the size of all project dirs
+   * Records a project newly installed in the cache.
+   *
+   * @param project the installed project, with its installed dir and size set
    */
-  private long getProjectDirsTotalSizeInBytes() {
-    long totalSizeInBytes = 0;
-    for (ProjectDirectoryMetadata metadata : cachedProjects.values()) {
-      totalSizeInBytes += metadata.getDirSizeInByte();
+  void projectInstalled(final ProjectDirectoryMetadata project) {
+    Preconditions.checkNotNull(project.getInstalledDir());
+    Preconditions.checkNotNull(project.getDirSizeInByte());
+    final ProjectDirectoryMetadata entry = new ProjectDirectoryMetadata(project.getProjectId(),
+        project.getVersion(), project.getInstalledDir());
+    entry.setDirSizeInByte(project.getDirSizeInByte());
+    entry.setLastAccessTime(FileTime.fromMillis(System.currentTimeMillis()));
+    synchronized (this.lruIndex) {
+      // Before the index is loaded the project is picked up by the directory scan.
+      if (this.indexLoaded) {
+        addToIndex(entry);
+      }
     }
-    return totalSizeInBytes;
   }
 
-  private void addToDeletionQueue(final File toDelete) {
+  /**
+   * Records an access to a cached project, making it the most recently used one.
+   *
+   * @param projectDir the installed dir of the project
+   * @param accessTime the time of the access
+   */
+  void projectAccessed(final Path projectDir, final FileTime accessTime) {
+    synchronized (this.lruIndex) {
+      final ProjectDirectoryMetadata entry = this.cachedProjects.get(projectDir);
+      if (entry != null) {
+        this.lruIndex.remove(entry);
+        entry.setLastAccessTime(accessTime);
+        this.lruIndex.add(entry);
+      }
+    }
+  }
+
+  /**
+   * Adds the project dir to the deletion queue unless it is in use.
+   *
+   * @return true if the project dir was added to the deletion queue
+   */
+  private boolean addToDeletionQueue(final File toDelete) {
     try {
       barrier.lock();
+      if (projectDirReferences.containsKey(toDelete.toPath())) {
+        return false;
+      }
       projectsUnderDeletion.put(toDelete.toPath(), toDelete);
+      return true;
     } finally {
       barrier.unlock();
     }
@@ -194,7 +279,43 @@ class ProjectCacheCleaner {
     try {
       barrier.lock();
       projectsUnderDeletion.remove(toDelete);
-      emptyQCond.signal();
+      emptyQCond.signalAll();
+    } finally {
+      barrier.unlock();
+    }
+  }
+
+  /**
+   * Marks a project dir as in use, so that it is not deleted until {@link
+   * #releaseProjectDir(Path)} is called. If the project dir is being deleted, this blocks till the
+   * deletion is complete.
+   *
+   * @param projectDir project dir in the cache
+   */
+  void acquireProjectDir(final Path projectDir) throws InterruptedException {
+    try {
+      barrier.lock();
+      while (projectsUnderDeletion.containsKey(projectDir)) {
+        log.info("Project dir {} is being deleted. Waiting for the deletion to finish",
+            projectDir);
+        this.emptyQCond.await();
+      }
+      projectDirReferences.merge(projectDir, 1, Integer::sum);
+    } finally {
+      barrier.unlock();
+    }
+  }
+
+  /**
+   * Releases a project dir acquired with {@link #acquireProjectDir(Path)}.
+   *
+   * @param projectDir project dir in the cache
+   */
+  void releaseProjectDir(final Path projectDir) {
+    try {
+      barrier.lock();
+      projectDirReferences
+          .computeIfPresent(projectDir, (dir, count) -> count > 1 ? count - 1 : null);
     } finally {
       barrier.unlock();
     }
@@ -204,39 +325,46 @@ class ProjectCacheCleaner {
    * Submit a project directory for deletion
    *
    * @param toDelete project dir for deletion
+   * @return false if the project dir is in use and was not submitted
    */
   @SuppressWarnings("FutureReturnValueIgnored")
-  private void submitProjectForDeletion(final File toDelete) {
-      addToDeletionQueue(toDelete);
+  private boolean submitProjectForDeletion(final File toDelete) {
+      if (!addToDeletionQueue(toDelete)) {
+        log.info("Project dir {} is in use, skipping its deletion", toDelete);
+        return false;
+      }
       deletionService.submit(() -> {
         log.info("Deleting project dir {} from project cache to free up space", toDelete);
 
         final long start = System.currentTimeMillis();
+        final Set<String> linkedBlobs = this.blobStore != null
+            ? this.blobStore.getLinkedBlobs(toDelete) : Collections.emptySet();
         FileIOUtils.deleteDirectorySilently(toDelete);
         log.info("Deleting project dir {} completed in {} msec(s)", toDelete, System.currentTimeMillis() - start);
+        if (this.blobStore != null) {
+          this.blobStore.removeUnreferencedBlobs(linkedBlobs);
+        }
         removeFromDeletionQueue(toDelete.toPath());
       });
+      return true;
   }
 
   /**
    *
-   * Delete least recently used projects to free up space
+   * Delete least recently used projects to free up space. Must be called holding the {@link
+   * lruIndex} lock.
    *
    * @param sizeToFreeInBytes space to free up
    */
   private void deleteLeastRecentlyUsedProjects(long sizeToFreeInBytes) {
-
-    final List<ProjectDirectoryMetadata> lruList = new ArrayList<>(cachedProjects.values());
-    lruList.sort(Comparator.comparing(ProjectDirectoryMetadata::getLastAccessTime));
-    for (ProjectDirectoryMetadata lruEntry : lruList) {
-      if (sizeToFreeInBytes > 0) {
-        if (lruEntry.getInstalledDir() != null) {
-          cachedProjects.remove(lruEntry.getInstalledDir().toPath());
-          submitProjectForDeletion(lruEntry.getInstalledDir());
-          sizeToFreeInBytes -= lruEntry.getDirSizeInByte();
-        }
-      } else {
-        break;
+    final Iterator<ProjectDirectoryMetadata> lruIterator = this.lruIndex.iterator();
+    while (sizeToFreeInBytes > 0 && lruIterator.hasNext()) {
+      final ProjectDirectoryMetadata lruEntry = lruIterator.next();
+      if (submitProjectForDeletion(lruEntry.getInstalledDir())) {
+        lruIterator.remove();
+        this.cachedProjects.remove(lruEntry.getInstalledDir().toPath());
+        this.cachedProjectsSizeInBytes -= lruEntry.getDirSizeInByte();
+        sizeToFreeInBytes -= lruEntry.getDirSizeInByte();
       }
     }
   }
@@ -278,6 +406,7 @@ class ProjectCacheCleaner {
    * 3. If the occupied bytes > high water mark, lazy (Non-blocking) LRU eviction kicks in
    * 4. If the occupied bytes > throttle water mark, the method will block until LRU eviction is complete.
    * In each case, LRU eviction attempts to keep the occupied space below high water mark.
+   * Project dirs in use by a flow preparation are skipped.
    *
    * @param newProjectSizeInBytes space in bytes the new project will add to the existing cache
    */
@@ -285,36 +414,36 @@ class ProjectCacheCleaner {
     final long cachePartitionSize = this.projectCacheDir.getTotalSpace();
     final long availablePartitionSize = this.projectCacheDir.getUsableSpace();
 
-    final long start = System.currentTimeMillis();
-    loadAllProjects();
-    log.info("Loading {} project dirs metadata completed in {} msecs",
-        cachedProjects.size(), System.currentTimeMillis() - start);
-
-    final long currentCacheSize = getProjectDirsTotalSizeInBytes();
-    final long projectCacheDirCapacity = currentCacheSize + availablePartitionSize;
     boolean throttleAfterDeletion = false;
 
-    final long highWatermark = (long) (projectCacheDirCapacity * this.percentageOfDisk);
-    final long throttleWatermark = (long) (projectCacheDirCapacity * this.throttlePercentage);
+    synchronized (this.lruIndex) {
+      loadAllProjectsIfNecessary();
 
-    long projectedCacheSize = currentCacheSize + newProjectSizeInBytes;
+      final long currentCacheSize = this.cachedProjectsSizeInBytes;
+      final long projectCacheDirCapacity = currentCacheSize + availablePartitionSize;
 
-    log.info("Partition = {} MB, Total Capacity = {} MB, Cache Size = {} MB, Projected Size = {} MB",
-        bytesToMB(cachePartitionSize),
-        bytesToMB(projectCacheDirCapacity),
-        bytesToMB(currentCacheSize),
-        bytesToMB(projectedCacheSize));
-    log.info("High Watermark = {} MB, Throttle Watermark = {} MB",
-        bytesToMB(highWatermark),
-        bytesToMB(throttleWatermark));
+      final long highWatermark = (long) (projectCacheDirCapacity * this.percentageOfDisk);
+      final long throttleWatermark = (long) (projectCacheDirCapacity * this.throttlePercentage);
 
-    if (projectedCacheSize >= throttleWatermark) {
-      throttleAfterDeletion = true;
-    }
+      final long projectedCacheSize = currentCacheSize + newProjectSizeInBytes;
 
-    if (projectedCacheSize >= highWatermark) {
-      log.info("Projected cache size exceeds High Watermark. LRU Eviction will kick in");
-      deleteLeastRecentlyUsedProjects(projectedCacheSize - highWatermark);
+      log.info("Partition = {} MB, Total Capacity = {} MB, Cache Size = {} MB, Projected Size = {} MB",
+          bytesToMB(cachePartitionSize),
+          bytesToMB(projectCacheDirCapacity),
+          bytesToMB(currentCacheSize),
+          bytesToMB(projectedCacheSize));
+      log.info("High Watermark = {} MB, Throttle Watermark = {} MB",
+          bytesToMB(highWatermark),
+          bytesToMB(throttleWatermark));
+
+      if (projectedCacheSize >= throttleWatermark) {
+        throttleAfterDeletion = true;
+      }
+
+      if (projectedCacheSize >= highWatermark) {
+        log.info("Projected cache size exceeds High Watermark. LRU Eviction will kick in");
+        deleteLeastRecentlyUsedProjects(projectedCacheSize - highWatermark);
+      }
     }
 
     if (throttleAfterDeletion) {
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.io.File;
 import java.nio.file.attribute.FileTime;
+import java.util.Objects;
 
 
 public class ProjectDirectoryMetadata {
@@ -66,6 +67,27 @@ public class ProjectDirectoryMetadata {
     this.installedDir = installedDir;
   }
 
+  /**
+   * Two instances are equal if they are for the same project version, regardless of where and
+   * when the project is installed.
+   */
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final ProjectDirectoryMetadata that = (ProjectDirectoryMetadata) o;
+    return this.projectId == that.projectId && this.version == that.version;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.projectId, this.version);
+  }
+
   @Override
   public String toString() {
     return "ProjectVersion{" +
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import com.google.common.base.Preconditions;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import org.apache.log4j.Logger;
+
+/**
+ * Hashed timer wheel running tasks once their delay has elapsed.
+ *
+ * <p>Scheduling and cancelling a task are O(1): they only queue the task, and a single thread
+ * ticking the wheel moves the queued tasks in and out of the wheel buckets. A task due in more
+ * than one turn of the wheel stays in its bucket for as many turns. The tasks are run on the given
+ * executor, not on the ticking thread, and are run up to one tick late.
+ */
+class TimerWheel {
+
+  private static final Logger logger = Logger.getLogger(TimerWheel.class);
+
+  private final long tickMillis;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Executor taskExecutor;
+  // Called with how late each task started running, in milliseconds
+  private final LongConsumer latenessListener;
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final Thread workerThread;
+  private final long startTime;
+  private volatile boolean running = true;
+  // Accessed by the worker thread only
+  private long tick = 0;
+
+  /**
+   * @param tickMillis duration of a tick
+   * @param wheelSize number of buckets of the wheel, rounded up to a power of 2
+   * @param threadName name of the thread ticking the wheel
+   */
+  TimerWheel(final long tickMillis, final int wheelSize, final String threadName,
+      final Executor taskExecutor, final LongConsumer latenessListener) {
+    Preconditions.checkArgument(tickMillis > 0);
+    Preconditions.checkArgument(wheelSize > 0 && wheelSize <= 1 << 30);
+    this.tickMillis = tickMillis;
+    final int size = Integer.highestOneBit(wheelSize - 1) << 1;
+    this.wheel = new Bucket[Math.max(size, 1)];
+    for (int i = 0; i < this.wheel.length; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.mask = this.wheel.length - 1;
+    this.taskExecutor = taskExecutor;
+    this.latenessListener = latenessListener;
+    this.startTime = System.currentTimeMillis();
+    this.workerThread = new Thread(this::run, threadName);
+    this.workerThread.setDaemon(true);
+    this.workerThread.start();
+  }
+
+  /**
+   * Schedules the task to run after the delay.
+   *
+   * @return the handle to cancel the task with
+   */
+  Timeout schedule(final Runnable task, final long delayMillis) {
+    final Timeout timeout =
+        new Timeout(task, System.currentTimeMillis() + Math.max(delayMillis, 0));
+    this.pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stops ticking the wheel, the tasks not run yet are dropped.
+   */
+  void stop() {
+    this.running = false;
+    this.workerThread.interrupt();
+  }
+
+  private void run() {
+    while (this.running) {
+      final long nextTickTime = this.startTime + (this.tick + 1) * this.tickMillis;
+      final long sleepMillis = nextTickTime - System.currentTimeMillis();
+      if (sleepMillis > 0) {
+        try {
+          Thread.sleep(sleepMillis);
+        } catch (final InterruptedException e) {
+          continue;
+        }
+      }
+      removeCancelledTimeouts();
+      addPendingTimeouts();
+      this.wheel[(int) (this.tick & this.mask)].expireTimeouts(System.currentTimeMillis());
+      this.tick++;
+    }
+  }
+
+  private void addPendingTimeouts() {
+    Timeout timeout;
+    while ((timeout = this.pendingTimeouts.poll()) != null) {
+      if (timeout.state.get() != Timeout.ST_INIT) {
+        continue;
+      }
+      final long dueTick = (timeout.deadline - this.startTime) / this.tickMillis;
+      timeout.remainingRounds = (dueTick - this.tick) / this.wheel.length;
+      // A timeout already due is expired by the current tick.
+      final long bucketTick = Math.max(dueTick, this.tick);
+      this.wheel[(int) (bucketTick & this.mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelledTimeouts() {
+    Timeout timeout;
+    while ((timeout = this.cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * Handle of a scheduled task.
+   */
+  class Timeout {
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(ST_INIT);
+    // Accessed by the worker thread only
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout(final Runnable task, final long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it didn't run yet.
+     *
+     * @return true if the task won't run because of this call
+     */
+    boolean cancel() {
+      if (!this.state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+      TimerWheel.this.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    boolean isCancelled() {
+      return this.state.get() == ST_CANCELLED;
+    }
+
+    private void expire() {
+      if (!this.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+      try {
+        TimerWheel.this.taskExecutor.execute(() -> {
+          TimerWheel.this.latenessListener
+              .accept(Math.max(System.currentTimeMillis() - this.deadline, 0));
+          this.task.run();
+        });
+      } catch (final RejectedExecutionException e) {
+        logger.warn("Task due at " + this.deadline + " rejected by the executor", e);
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of the timeouts of a wheel bucket, accessed by the worker thread only.
+   */
+  private static class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(final Timeout timeout) {
+      timeout.bucket = this;
+      if (this.head == null) {
+        this.head = this.tail = timeout;
+      } else {
+        this.tail.next = timeout;
+        timeout.prev = this.tail;
+        this.tail = timeout;
+      }
+    }
+
+    private void remove(final Timeout timeout) {
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      } else {
+        this.head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      } else {
+        this.tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    private void expireTimeouts(final long now) {
+      Timeout timeout = this.head;
+      while (timeout != null) {
+        final Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
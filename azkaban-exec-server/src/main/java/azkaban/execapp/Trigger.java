@@ -18,9 +18,12 @@
 package azkaban.execapp;
 
 import azkaban.execapp.action.KillExecutionAction;
-import azkaban.trigger.Condition;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.ExecutorManagerException;
 import azkaban.trigger.TriggerAction;
 import java.util.List;
+import java.util.function.Predicate;
 import org.apache.log4j.Logger;
 
 
@@ -28,18 +31,24 @@ public class Trigger implements Runnable {
 
   private static final Logger logger = Logger.getLogger(azkaban.execapp.Trigger.class);
   private final int execId;
+  private final String description;
+  private final ExecutorLoader executorLoader;
 
   // condition to trigger actions(ex. flow running longer than X mins)
-  private final Condition triggerCondition;
+  private final Predicate<ExecutableFlow> triggerCondition;
   // condition to expire this trigger(ex. flow finishes before violating SLA)
-  private final Condition expireCondition;
+  private final Predicate<ExecutableFlow> expireCondition;
   private final List<TriggerAction> actions;
 
   public Trigger(final int execId,
-      final Condition triggerCondition,
-      final Condition expireCondition,
+      final String description,
+      final ExecutorLoader executorLoader,
+      final Predicate<ExecutableFlow> triggerCondition,
+      final Predicate<ExecutableFlow> expireCondition,
       final List<TriggerAction> actions) {
     this.execId = execId;
+    this.description = description;
+    this.executorLoader = executorLoader;
     this.triggerCondition = triggerCondition;
     this.expireCondition = expireCondition;
     this.actions = actions;
@@ -47,21 +56,30 @@ public class Trigger implements Runnable {
 
 
   /**
-   * Perform the action if trigger condition is met
+   * Perform the action if trigger condition is met. Both conditions are checked against the flow
+   * fetched once.
    */
   @Override
   public void run() {
     logger.info("Running trigger for " + this);
-    if (isTriggerExpired()) {
+    final ExecutableFlow flow;
+    try {
+      flow = this.executorLoader.fetchExecutableFlow(this.execId);
+    } catch (final ExecutorManagerException e) {
+      logger.error("Can't get executable flow, " + this + " expired", e);
+      return;
+    }
+
+    if (isTriggerExpired(flow)) {
       logger.info(this + " expired");
       return;
     }
 
     logger.info("Check if trigger condition met for " + this);
-    final boolean isTriggerConditionMet = this.triggerCondition.isMet();
+    final boolean isTriggerConditionMet = this.triggerCondition.test(flow);
     logger.info("Trigger condition for execid = " + this.execId + " met? = " + isTriggerConditionMet);
     if (isTriggerConditionMet) {
-      logger.info("Condition " + this.triggerCondition.getExpression() + " met");
+      logger.info("Condition of " + this.description + " met");
       for (final TriggerAction action : this.actions) {
         try {
           if (action instanceof KillExecutionAction) {
@@ -77,12 +95,13 @@ public class Trigger implements Runnable {
   }
 
   /**
-   * Check if the trigger is expired and reset isExpired
+   * Check if the trigger is expired
    *
+   * @param flow the flow of the trigger's execution
    * @return true if trigger is expired
    */
-  public boolean isTriggerExpired() {
-    return this.expireCondition.isMet();
+  public boolean isTriggerExpired(final ExecutableFlow flow) {
+    return this.expireCondition.test(flow);
   }
 
   @Override
@@ -93,8 +112,6 @@ public class Trigger implements Runnable {
       actionsString.append(act.getDescription());
     }
 
-    return "Trigger for execution " + this.execId + " with trigger condition of "
-        + this.triggerCondition.getExpression() + " and expire condition of "
-        + this.expireCondition.getExpression() + actionsString;
+    return "Trigger for execution " + this.execId + " of " + this.description + actionsString;
   }
 }
@@ -19,54 +19,67 @@ package azkaban.execapp;
 import azkaban.DispatchMethod;
 import azkaban.execapp.action.KillExecutionAction;
 import azkaban.execapp.action.KillJobAction;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorLoader;
+import azkaban.metrics.MetricsManager;
 import azkaban.sla.SlaOption;
-import azkaban.trigger.Condition;
-import azkaban.trigger.ConditionChecker;
 import azkaban.trigger.TriggerAction;
 import azkaban.trigger.builtin.SlaAlertAction;
 import azkaban.trigger.builtin.SlaChecker;
+import com.codahale.metrics.Histogram;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.log4j.Logger;
 
 
+/**
+ * Checks the SLAs of the executions running on this executor when they are due.
+ *
+ * <p>SLA triggers are kept in a {@link TimerWheel} and run on a small pool once due. The triggers
+ * of an execution whose SLA is met when the execution finishes are cancelled right away.
+ */
 @Singleton
 public class TriggerManager {
 
+  public static final String SLA_CHECK_LATENESS_HISTOGRAM_NAME = "sla-check-lateness";
+
   private static final int SCHEDULED_THREAD_POOL_SIZE = 4;
+  // SLA durations are in minutes, checking them to the second is accurate enough.
+  private static final long TIMER_WHEEL_TICK_MILLIS = 1000;
+  private static final int TIMER_WHEEL_SIZE = 512;
   private static final Logger logger = Logger.getLogger(TriggerManager.class);
-  private final ScheduledExecutorService scheduledService;
+  private final ExecutorLoader executorLoader;
+  private final ExecutorService slaCheckService;
+  private final TimerWheel timerWheel;
+  private final Histogram slaCheckLatenessHistogram;
+  // Triggers not run yet, by execution id. A set is only accessed within the map's compute methods.
+  private final ConcurrentMap<Integer, Set<ScheduledTrigger>> scheduledTriggers =
+      new ConcurrentHashMap<>();
   private DispatchMethod dispatchMethod;
 
   @Inject
-  public TriggerManager() {
-    this.scheduledService = Executors.newScheduledThreadPool(SCHEDULED_THREAD_POOL_SIZE,
+  public TriggerManager(final ExecutorLoader executorLoader, final MetricsManager metricsManager) {
+    this.executorLoader = executorLoader;
+    this.slaCheckLatenessHistogram =
+        metricsManager.addHistogram(SLA_CHECK_LATENESS_HISTOGRAM_NAME);
+    this.slaCheckService = Executors.newFixedThreadPool(SCHEDULED_THREAD_POOL_SIZE,
         new ThreadFactoryBuilder().setNameFormat("azk-trigger-pool-%d").build());
-  }
-
-  private Condition createCondition(final SlaOption sla, final int execId, final String checkerName,
-      final String checkerMethod) {
-    final SlaChecker slaFailChecker = new SlaChecker(checkerName, sla, execId);
-    final Map<String, ConditionChecker> slaCheckers = new HashMap<>();
-    slaCheckers.put(slaFailChecker.getId(), slaFailChecker);
-    return new Condition(slaCheckers, slaFailChecker.getId() + "." + checkerMethod);
+    this.timerWheel = new TimerWheel(TIMER_WHEEL_TICK_MILLIS, TIMER_WHEEL_SIZE,
+        "azk-trigger-timer", this.slaCheckService, this.slaCheckLatenessHistogram::update);
   }
 
   private List<TriggerAction> createActions(final SlaOption sla, final int execId) {
     final List<TriggerAction> actions = new ArrayList<>();
-    if (sla.hasAlert()) {
-      TriggerAction action = new SlaAlertAction(SlaOption.ACTION_ALERT, sla, execId);
-    }
-
     if (sla.hasAlert()) {
       actions.add(new SlaAlertAction(SlaOption.ACTION_ALERT, sla, execId));
     }
@@ -86,32 +99,90 @@ public class TriggerManager {
     return actions;
   }
 
-  @SuppressWarnings("FutureReturnValueIgnored")
   public void addTrigger(final int execId, final List<SlaOption> slaOptions) {
     for (final SlaOption slaOption : slaOptions) {
-      final Condition triggerCond = createCondition(slaOption, execId, "slaFailChecker",
-          "isSlaFailed()");
-
-      // if whole flow finish before violating sla, just expire the checker
-      final Condition expireCond = createCondition(slaOption, execId, "slaPassChecker", "isSlaPassed"
-          + "()");
+      // The checker keeps the time the SLA is checked at, shared by both conditions.
+      final SlaChecker slaChecker = new SlaChecker("slaChecker", slaOption, execId);
 
       final List<TriggerAction> actions = createActions(slaOption, execId);
-      final Trigger trigger = new Trigger(execId, triggerCond, expireCond, actions);
+      // if whole flow finish before violating sla, just expire the checker
+      final Trigger trigger = new Trigger(execId, slaOption.toString(), this.executorLoader,
+          slaChecker::isSlaFailed, slaChecker::isSlaPassed, actions);
       final Duration duration = slaOption.getDuration();
       final long durationInMillis = duration.toMillis();
 
       logger.info("Adding sla trigger " + slaOption.toString() + " to execution " + execId
           + ", scheduled to trigger in " + durationInMillis / 1000 + " seconds");
-      this.scheduledService.schedule(trigger, durationInMillis, TimeUnit.MILLISECONDS);
+      final ScheduledTrigger scheduledTrigger = new ScheduledTrigger(execId, slaChecker);
+      this.scheduledTriggers.compute(execId, (id, triggers) -> {
+        final Set<ScheduledTrigger> result = triggers == null ? new HashSet<>() : triggers;
+        // Scheduled while holding the map entry, so that it's not unregistered before.
+        scheduledTrigger.timeout = this.timerWheel.schedule(() -> {
+          unregister(scheduledTrigger);
+          trigger.run();
+        }, durationInMillis);
+        result.add(scheduledTrigger);
+        return result;
+      });
     }
   }
 
+  /**
+   * Cancels the triggers of a finished execution whose SLA is met, they would only expire when
+   * run. The triggers of missed SLAs still run when due.
+   *
+   * @param flow the finished flow
+   */
+  public void expireTriggers(final ExecutableFlow flow) {
+    final List<ScheduledTrigger> expired = new ArrayList<>();
+    this.scheduledTriggers.computeIfPresent(flow.getExecutionId(), (id, triggers) -> {
+      for (final ScheduledTrigger scheduledTrigger : triggers) {
+        try {
+          if (scheduledTrigger.slaChecker.isSlaPassed(flow)) {
+            expired.add(scheduledTrigger);
+          }
+        } catch (final RuntimeException e) {
+          logger.warn("Failed to check sla of finished execution " + id
+              + ", its trigger will run when due", e);
+        }
+      }
+      triggers.removeAll(expired);
+      return triggers.isEmpty() ? null : triggers;
+    });
+    for (final ScheduledTrigger scheduledTrigger : expired) {
+      scheduledTrigger.timeout.cancel();
+    }
+    if (!expired.isEmpty()) {
+      logger.info("Expired " + expired.size() + " sla trigger(s) of finished execution "
+          + flow.getExecutionId());
+    }
+  }
+
+  private void unregister(final ScheduledTrigger scheduledTrigger) {
+    this.scheduledTriggers.computeIfPresent(scheduledTrigger.execId, (id, triggers) -> {
+      triggers.remove(scheduledTrigger);
+      return triggers.isEmpty() ? null : triggers;
+    });
+  }
+
   public void setDispatchMethod(final DispatchMethod dispatchMethod) {
     this.dispatchMethod = dispatchMethod;
   }
 
   public void shutdown() {
-    this.scheduledService.shutdownNow();
+    this.timerWheel.stop();
+    this.slaCheckService.shutdownNow();
+  }
+
+  private static class ScheduledTrigger {
+
+    private final int execId;
+    private final SlaChecker slaChecker;
+    private TimerWheel.Timeout timeout;
+
+    private ScheduledTrigger(final int execId, final SlaChecker slaChecker) {
+      this.execId = execId;
+      this.slaChecker = slaChecker;
+    }
   }
 }
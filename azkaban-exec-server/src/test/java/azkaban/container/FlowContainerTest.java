@@ -24,6 +24,7 @@ import azkaban.execapp.AzkabanExecutorServerTest;
 import azkaban.execapp.event.JobCallbackManager;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutorLoader;
+import azkaban.executor.ExecutorManagerException;
 import azkaban.project.ProjectFileHandler;
 import azkaban.project.ProjectLoader;
 import azkaban.spi.AzkabanEventReporter;
@@ -35,6 +36,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -47,6 +53,7 @@ import static azkaban.ServiceProvider.*;
 import static azkaban.container.FlowContainer.*;
 import static azkaban.utils.TestUtils.*;
 import static java.util.Objects.*;
+import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class FlowContainerTest {
@@ -166,4 +173,29 @@ public class FlowContainerTest {
     final JobCallbackManager jobCallbackManager = JobCallbackManager.getInstance();
     assert jobCallbackManager != null;
   }
+
+  /**
+   * Test that a warm pod waits for an execution to be assigned, and that only one execution can
+   * be assigned to it.
+   */
+  @Test
+  public void testAssignExecution() throws Exception {
+    startFlowContainer();
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Integer> execId =
+          executorService.submit(() -> this.flowContainer.waitForExecutionAssignment());
+      assertThatThrownBy(() -> execId.get(100, TimeUnit.MILLISECONDS))
+          .isInstanceOf(TimeoutException.class);
+
+      this.flowContainer.assignExecution(5);
+      assertThat(execId.get(5, TimeUnit.SECONDS)).isEqualTo(5);
+
+      assertThatThrownBy(() -> this.flowContainer.assignExecution(6))
+          .isInstanceOf(ExecutorManagerException.class);
+      assertThat(this.flowContainer.waitForExecutionAssignment()).isEqualTo(5);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
 }
@@ -17,9 +17,9 @@
 
 package azkaban.execapp;
 
-import azkaban.execapp.metric.ProjectCacheHitRatio;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutorManagerException;
+import azkaban.metrics.MetricsManager;
 import azkaban.project.ProjectFileHandler;
 import azkaban.spi.Dependency;
 import azkaban.storage.ProjectStorageManager;
@@ -27,6 +27,7 @@ import azkaban.test.executions.ThinArchiveTestUtils;
 import azkaban.utils.DependencyTransferManager;
 import azkaban.utils.FileIOUtils;
 import azkaban.utils.Utils;
+import com.codahale.metrics.MetricRegistry;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -65,9 +66,10 @@ public class FlowPreparerTest extends FlowPreparerTestBase {
     this.dependencyTransferManager = mock(DependencyTransferManager.class);
 
     this.instance = spy(
-            new FlowPreparer(createMockStorageManager(), this.dependencyTransferManager, this.projectsDir, null,
-                    new ProjectCacheHitRatio(), this.executionsDir));
-    doNothing().when(this.instance).updateLastModifiedTime(any());
+            new FlowPreparer(createMockStorageManager(), this.dependencyTransferManager, this.projectsDir, null, null,
+                    new ExecMetrics(new MetricsManager(new MetricRegistry())),
+                    this.executionsDir));
+    doNothing().when(this.instance).updateLastModifiedTime(any(), any());
   }
 
   @Test
@@ -94,7 +96,7 @@ public class FlowPreparerTest extends FlowPreparerTestBase {
     final Path projectDirSizeFile = Paths.get(proj.getInstalledDir().getPath(),
         AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME);
 
-    verify(this.instance, never()).updateLastModifiedTime(projectDirSizeFile);
+    verify(this.instance, never()).updateLastModifiedTime(eq(projectDirSizeFile), any());
     assertThat(tmp).isNotNull();
     assertThat(tmp.list()).contains(SAMPLE_FLOW_01);
   }
@@ -112,12 +114,12 @@ public class FlowPreparerTest extends FlowPreparerTestBase {
     final Path projectDirSizeFile = Paths.get(proj.getInstalledDir().getPath(),
         AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME);
 
-    verify(this.instance).updateLastModifiedTime(projectDirSizeFile);
+    verify(this.instance).updateLastModifiedTime(eq(projectDirSizeFile), any());
     assertThat(tmp).isNull();
   }
 
   @Test
-  public void testSetupFlowByMultipleThreads() {
+  public void testSetupFlowByMultipleThreads() throws Exception {
     final int threadNum = 4;
 
     final ExecutableFlow[] executableFlows = new ExecutableFlow[]{
@@ -148,6 +150,10 @@ public class FlowPreparerTest extends FlowPreparerTestBase {
       assertTrue(execDir.exists());
       assertTrue(new File(execDir, SAMPLE_FLOW_01).exists());
     }
+
+    // The project is downloaded once, by the first flow, and no temp dir is left behind.
+    verify(this.instance, times(1)).downloadAndUnzipProject(any(), anyInt(), any());
+    assertThat(this.projectsDir.list()).containsExactly(FAT_PROJECT_ID + ".34");
   }
 
   @Test
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutionFlowDao;
+import azkaban.executor.ExecutionFlowUpdatesDao;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.FetchActiveFlowDao;
+import azkaban.executor.JdbcExecutorLoader;
+import azkaban.executor.MysqlNamedLock;
+import azkaban.executor.Status;
+import azkaban.test.Utils;
+import azkaban.utils.Props;
+import java.sql.SQLException;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs flows with incremental updates enabled, persisted in the DB, and checks what the web
+ * server would read while they run and once they are finished.
+ */
+public class FlowRunnerIncrementalUpdateTest extends FlowRunnerTestBase {
+
+  private static DatabaseOperator dbOperator;
+
+  private FlowRunnerTestUtil testUtil;
+  private JdbcExecutorLoader dbLoader;
+  private Props azkabanProps;
+
+  @BeforeClass
+  public static void setUpDB() throws Exception {
+    dbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws Exception {
+    dbOperator.update("DROP ALL OBJECTS");
+    dbOperator.update("SHUTDOWN");
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    this.azkabanProps = new Props();
+    this.azkabanProps.put(ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_ENABLED, "true");
+    // Large enough that the flow is only compacted on the first update and when it finishes.
+    this.azkabanProps.put(ConfigurationKeys.FLOW_INCREMENTAL_UPDATE_COMPACTION_INTERVAL, "1000");
+
+    final ExecutionFlowUpdatesDao flowUpdatesDao =
+        new ExecutionFlowUpdatesDao(dbOperator, this.azkabanProps);
+    this.dbLoader = new JdbcExecutorLoader(
+        new ExecutionFlowDao(dbOperator, mock(MysqlNamedLock.class), flowUpdatesDao), null, null,
+        null, null, null, new FetchActiveFlowDao(dbOperator, flowUpdatesDao), null, null, null);
+
+    this.testUtil = new FlowRunnerTestUtil("exectest1", this.temporaryFolder);
+    // The flow is persisted in the DB, the other calls of the runner are left to the mock.
+    final ExecutorLoader loader = this.testUtil.getExecutorLoader();
+    doAnswer(invocation -> {
+      this.dbLoader.uploadExecutableFlow(invocation.getArgument(0));
+      return null;
+    }).when(loader).uploadExecutableFlow(any());
+    doAnswer(invocation -> {
+      this.dbLoader.updateExecutableFlow(invocation.getArgument(0));
+      return null;
+    }).when(loader).updateExecutableFlow(any());
+    doAnswer(invocation -> {
+      this.dbLoader.appendExecutableFlowUpdate(invocation.getArgument(0),
+          invocation.getArgument(1));
+      return null;
+    }).when(loader).appendExecutableFlowUpdate(any(), anyLong());
+    doAnswer(invocation -> {
+      this.dbLoader.compactExecutableFlow(invocation.getArgument(0));
+      return null;
+    }).when(loader).compactExecutableFlow(any());
+  }
+
+  @Test
+  public void testAppendFetchAndCompact() throws Exception {
+    this.runner = this.testUtil.createFromFlowFile("exec1", this.azkabanProps);
+    final int execId = this.runner.getExecutableFlow().getExecutionId();
+
+    FlowRunnerTestUtil.startThread(this.runner);
+    waitJobsStarted(this.runner, "job3", "job4", "job6");
+
+    // The running flow is read back with the appended updates applied.
+    final ExecutableFlow running = waitForPersistedStatus(execId, "job3", Status.RUNNING);
+    assertThat(running.getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(running.getExecutableNode("job1").getStatus()).isEqualTo(Status.SUCCEEDED);
+    assertThat(running.getExecutableNode("job2").getStatus()).isEqualTo(Status.SUCCEEDED);
+    assertThat(countFlowUpdates(execId)).isGreaterThan(0);
+    final ExecutableFlow unfinished =
+        this.dbLoader.fetchUnfinishedFlows().get(execId).getSecond();
+    assertThat(unfinished.getExecutableNode("job3").getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(unfinished.getExecutableNode("job1").getStatus()).isEqualTo(Status.SUCCEEDED);
+
+    succeedJobs("job3", "job4", "job6");
+    waitForAndAssertFlowStatus(Status.SUCCEEDED);
+    assertThreadShutDown();
+
+    // The finished flow is compacted into flow_data.
+    assertThat(countFlowUpdates(execId)).isEqualTo(0);
+    final ExecutableFlow finished = this.dbLoader.fetchExecutableFlow(execId);
+    assertThat(finished.getStatus()).isEqualTo(Status.SUCCEEDED);
+    for (final String jobId : new String[]{"job1", "job2", "job3", "job4", "job6", "job10"}) {
+      assertThat(finished.getExecutableNode(jobId).getStatus())
+          .isEqualTo(this.runner.getExecutableFlow().getExecutableNode(jobId).getStatus());
+    }
+  }
+
+  private ExecutableFlow waitForPersistedStatus(final int execId, final String jobId,
+      final Status status) throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      final ExecutableFlow flow = this.dbLoader.fetchExecutableFlow(execId);
+      if (flow.getExecutableNode(jobId).getStatus() == status) {
+        return flow;
+      }
+      Thread.sleep(10L);
+    }
+    Assert.fail(jobId + " wasn't persisted with status " + status);
+    return null;
+  }
+
+  private static int countFlowUpdates(final int execId) throws SQLException {
+    return dbOperator.query("SELECT COUNT(*) FROM execution_flow_updates WHERE exec_id=?",
+        rs -> rs.next() ? rs.getInt(1) : 0, execId);
+  }
+}
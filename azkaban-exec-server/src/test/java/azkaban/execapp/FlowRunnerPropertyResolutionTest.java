@@ -30,7 +30,9 @@ import azkaban.project.Project;
 import azkaban.test.executions.ExecutionsTestUtil;
 import azkaban.utils.Props;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Test;
@@ -158,6 +160,12 @@ public class FlowRunnerPropertyResolutionTest extends FlowRunnerTestBase {
     Assert.assertEquals("shared1", job4Props.get("props1"));
     Assert.assertEquals("shared2", job4Props.get("props2"));
     Assert.assertEquals("moo3", job4Props.get("props3"));
+    if (!isAzkabanFlowVersion20) {
+      // The copy of the properties of the embedded flow keeps the source of each level.
+      final String innerFlowSource = nodeMap.get("innerflow").getInputProps().getSource();
+      Assert.assertNotNull(innerFlowSource);
+      Assert.assertTrue(getSources(job4Props).contains(innerFlowSource));
+    }
 
     // Job 3 is a normal job taking props from an embedded flow
     // The priority order should be:
@@ -179,6 +187,14 @@ public class FlowRunnerPropertyResolutionTest extends FlowRunnerTestBase {
     Assert.assertEquals("moo4", job3Props.get("props4"));
   }
 
+  private List<String> getSources(final Props props) {
+    final List<String> sources = new ArrayList<>();
+    for (Props level = props; level != null; level = level.getParent()) {
+      sources.add(level.getSource());
+    }
+    return sources;
+  }
+
   private void createNodeMap(final ExecutableFlowBase flow,
       final Map<String, ExecutableNode> nodeMap) {
     for (final ExecutableNode node : flow.getExecutableNodes()) {
@@ -18,7 +18,10 @@ package azkaban.execapp;
 
 import static org.junit.Assert.assertEquals;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutableFlowBase;
 import azkaban.executor.ExecutableNode;
@@ -321,6 +324,46 @@ public class FlowRunnerTest2 extends FlowRunnerTestBase {
     assertThreadShutDown();
   }
 
+  /**
+   * Tests a flow run with the flow persisted asynchronously, paused and resumed while jobs are
+   * running.
+   */
+  @Test
+  public void testAsyncFlowUpdate() throws Exception {
+    final Props azkabanProps = new Props();
+    azkabanProps.put(ConfigurationKeys.FLOW_ASYNC_UPDATE_ENABLED, "true");
+    final ExecutionOptions options = new ExecutionOptions();
+    options.setFailureAction(FailureAction.FINISH_CURRENTLY_RUNNING);
+    this.runner = this.testUtil.createFromFlowMap("jobf", options, new HashMap<>(),
+        azkabanProps);
+    final ExecutableFlow flow = this.runner.getExecutableFlow();
+
+    FlowRunnerTestUtil.startThread(this.runner);
+    assertStatus("joba", Status.RUNNING);
+    assertStatus("joba1", Status.RUNNING);
+
+    // The jobs finishing while the flow is paused are processed once it is resumed.
+    this.runner.pause("test");
+    InteractiveTestJob.getTestJob("joba").succeedJob();
+    assertStatus("joba", Status.SUCCEEDED);
+    assertStatus("jobb", Status.READY);
+    this.runner.resume("test");
+    assertStatus("jobb:innerJobA", Status.RUNNING);
+    assertStatus("jobc", Status.RUNNING);
+    assertStatus("jobd:innerJobA", Status.RUNNING);
+
+    succeedJobs("jobb:innerJobA");
+    succeedJobs("jobb:innerJobB", "jobb:innerJobC");
+    succeedJobs("jobb:innerFlow", "jobc", "jobd:innerJobA");
+    succeedJobs("jobd:innerFlow2", "joba1");
+    succeedJobs("jobe");
+    succeedJobs("jobf");
+
+    waitForAndAssertFlowStatus(Status.SUCCEEDED);
+    assertThreadShutDown();
+    verify(this.testUtil.getExecutorLoader(), atLeastOnce()).updateExecutableFlow(flow);
+  }
+
   /**
    * Tests a failure with the default FINISH_CURRENTLY_RUNNING. After the first failure, every job
    * that started should complete, and the rest of the jobs should be skipped.
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+
+import azkaban.utils.FileIOUtils;
+import azkaban.utils.HashUtils;
+import java.io.File;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProjectBlobStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private File cacheDir;
+  private ProjectBlobStore blobStore;
+
+  @Before
+  public void setUp() throws Exception {
+    this.cacheDir = this.temporaryFolder.newFolder("projects");
+    this.blobStore = new ProjectBlobStore(this.cacheDir);
+  }
+
+  private File createProjectDir(final String name, final String content) throws Exception {
+    final File dir = new File(this.cacheDir, name);
+    FileUtils.writeStringToFile(new File(dir, "lib/shared.jar"), "shared", UTF_8);
+    FileUtils.writeStringToFile(new File(dir, "flow.job"), content, UTF_8);
+    FileUtils.writeStringToFile(new File(dir, AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME),
+        "100", UTF_8);
+    return dir;
+  }
+
+  private long countBlobs() throws Exception {
+    try (final Stream<Path> paths = Files
+        .walk(this.cacheDir.toPath().resolve(ProjectBlobStore.BLOB_STORE_DIR_NAME))) {
+      return paths.filter(Files::isRegularFile).count();
+    }
+  }
+
+  @Test
+  public void testSameFilesAreLinked() throws Exception {
+    final File v1 = createProjectDir("1.1", "type=command");
+    final File v2 = createProjectDir("1.2", "type=noop");
+
+    assertThat(this.blobStore.deduplicate(v1)).isEqualTo(0);
+    assertThat(this.blobStore.deduplicate(v2)).isEqualTo("shared".length());
+
+    assertThat(Files.isSameFile(new File(v1, "lib/shared.jar").toPath(),
+        new File(v2, "lib/shared.jar").toPath())).isTrue();
+    assertThat(Files.isSameFile(new File(v1, "flow.job").toPath(),
+        new File(v2, "flow.job").toPath())).isFalse();
+    assertThat(FileUtils.readFileToString(new File(v2, "flow.job"), UTF_8))
+        .isEqualTo("type=noop");
+    // The size file is never shared.
+    assertThat(Files.isSameFile(
+        new File(v1, AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME).toPath(),
+        new File(v2, AbstractFlowPreparer.PROJECT_DIR_SIZE_FILE_NAME).toPath())).isFalse();
+    assertThat(countBlobs()).isEqualTo(3);
+  }
+
+  @Test
+  public void testExecutionCannotChangeOtherProjectFiles() throws Exception {
+    final File v1 = createProjectDir("1.1", "type=command");
+    final File v2 = createProjectDir("2.1", "type=noop");
+    this.blobStore.deduplicate(v1);
+    this.blobStore.deduplicate(v2);
+    final File execDir = this.temporaryFolder.newFolder("executions", "1");
+    FileIOUtils.createDeepHardlink(v1, execDir);
+    final Path execFile = new File(execDir, "lib/shared.jar").toPath();
+    final Path otherProjectFile = new File(v2, "lib/shared.jar").toPath();
+
+    assertThat(Files.getPosixFilePermissions(otherProjectFile)).doesNotContain(
+        PosixFilePermission.OWNER_WRITE, PosixFilePermission.GROUP_WRITE,
+        PosixFilePermission.OTHERS_WRITE);
+    // Replacing the file only replaces the link of the execution.
+    Files.delete(execFile);
+    Files.write(execFile, "changed".getBytes(UTF_8));
+    assertThat(FileUtils.readFileToString(otherProjectFile.toFile(), UTF_8)).isEqualTo("shared");
+
+    // Writing in place is denied, unless running as root which ignores the permissions.
+    Files.delete(execFile);
+    Files.createLink(execFile, new File(v1, "lib/shared.jar").toPath());
+    assumeFalse("root".equals(System.getProperty("user.name")));
+    assertThatThrownBy(() -> Files.write(execFile, "changed".getBytes(UTF_8)))
+        .isInstanceOf(AccessDeniedException.class);
+    assertThat(FileUtils.readFileToString(otherProjectFile.toFile(), UTF_8)).isEqualTo("shared");
+  }
+
+  @Test
+  public void testLinkFromStore() throws Exception {
+    this.blobStore.deduplicate(createProjectDir("1.1", "type=command"));
+    final File target = new File(this.cacheDir, "2.1/lib/dep.jar");
+
+    assertThat(this.blobStore.linkFromStore(HashUtils.SHA1.getHashStr("shared"), target))
+        .isTrue();
+    assertThat(FileUtils.readFileToString(target, UTF_8)).isEqualTo("shared");
+    assertThat(this.blobStore.linkFromStore(HashUtils.SHA1.getHashStr("missing"),
+        new File(this.cacheDir, "2.1/lib/missing.jar"))).isFalse();
+  }
+
+  @Test
+  public void testRemoveUnreferencedBlobs() throws Exception {
+    final File v1 = createProjectDir("1.1", "type=command");
+    final File v2 = createProjectDir("1.2", "type=noop");
+    this.blobStore.deduplicate(v1);
+    this.blobStore.deduplicate(v2);
+
+    final Set<String> v1Blobs = this.blobStore.getLinkedBlobs(v1);
+    assertThat(v1Blobs).containsExactlyInAnyOrder(HashUtils.SHA1.getHashStr("shared"),
+        HashUtils.SHA1.getHashStr("type=command"));
+    FileIOUtils.deleteDirectorySilently(v1);
+    this.blobStore.removeUnreferencedBlobs(v1Blobs);
+    assertThat(countBlobs()).isEqualTo(2);
+
+    final Set<String> v2Blobs = this.blobStore.getLinkedBlobs(v2);
+    FileIOUtils.deleteDirectorySilently(v2);
+    this.blobStore.removeUnreferencedBlobs(v2Blobs);
+    assertThat(countBlobs()).isEqualTo(0);
+  }
+
+  @Test
+  public void testRemoveAllUnreferencedBlobs() throws Exception {
+    final File v1 = createProjectDir("1.1", "type=command");
+    final File v2 = createProjectDir("1.2", "type=noop");
+    this.blobStore.deduplicate(v1);
+    this.blobStore.deduplicate(v2);
+
+    // Deleted without recording its blobs.
+    FileIOUtils.deleteDirectorySilently(v1);
+    this.blobStore.removeAllUnreferencedBlobs();
+    assertThat(countBlobs()).isEqualTo(2);
+  }
+
+  @Test
+  public void testIsSupported() throws Exception {
+    assertThat(ProjectBlobStore.isSupported(this.cacheDir)).isTrue();
+    // The probe files are removed.
+    assertThat(this.cacheDir.list()).containsExactly(ProjectBlobStore.BLOB_STORE_DIR_NAME);
+  }
+}
@@ -132,4 +132,37 @@ public class ProjectCacheCleanerTest {
     assertThat(this.cacheDir.list()).hasSize(1);
     assertThat(this.cacheDir.list()).contains("3.1");
   }
+
+  @Test
+  /**
+   * Project dirs in use are not deleted, the next least recently used item is deleted instead.
+   */
+  public void testNotDeletingProjectDirInUse() throws Exception {
+    final ProjectCacheCleaner cleaner = new ProjectCacheCleaner(this.cacheDir, 0.7);
+    final Path inUse = Paths.get(this.cacheDir.toString(), "1.1");
+    cleaner.acquireProjectDir(inUse);
+    cleaner.deleteProjectDirsIfNecessary(2000000);
+    cleaner.finishPendingCleanup();
+    assertThat(this.cacheDir.list()).containsExactlyInAnyOrder("1.1", "3.1");
+
+    cleaner.releaseProjectDir(inUse);
+    cleaner.deleteProjectDirsIfNecessary(2000000);
+    cleaner.finishPendingCleanup();
+    assertThat(this.cacheDir.list()).containsExactly("3.1");
+  }
+
+  @Test
+  /**
+   * Accesses recorded after the index is loaded change the least recently used item.
+   */
+  public void testDeletingLRUItemAfterAccess() {
+    final ProjectCacheCleaner cleaner = new ProjectCacheCleaner(this.cacheDir, 0.7);
+    cleaner.deleteProjectDirsIfNecessary(1);
+    cleaner.projectAccessed(Paths.get(this.cacheDir.toString(), "1.1"),
+        FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+    cleaner.deleteProjectDirsIfNecessary(2000000);
+    cleaner.finishPendingCleanup();
+    assertThat(this.cacheDir.list()).containsExactlyInAnyOrder("1.1", "3.1");
+  }
 }
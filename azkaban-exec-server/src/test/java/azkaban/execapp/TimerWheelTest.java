@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+  private ExecutorService executor;
+  private Queue<Long> lateness;
+  private TimerWheel timerWheel;
+
+  @Before
+  public void setUp() {
+    this.executor = Executors.newSingleThreadExecutor();
+    this.lateness = new ConcurrentLinkedQueue<>();
+    // A turn of the wheel is 80 ms, shorter than some of the delays below.
+    this.timerWheel = new TimerWheel(10, 8, "test-timer", this.executor, this.lateness::add);
+  }
+
+  @After
+  public void tearDown() {
+    this.timerWheel.stop();
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testTasksRunWhenDue() throws Exception {
+    final int numTasks = 20;
+    final CountDownLatch latch = new CountDownLatch(numTasks);
+    final AtomicInteger early = new AtomicInteger();
+    for (int i = 0; i < numTasks; i++) {
+      final long delay = i * 15;
+      final long dueTime = System.currentTimeMillis() + delay;
+      this.timerWheel.schedule(() -> {
+        if (System.currentTimeMillis() < dueTime) {
+          early.incrementAndGet();
+        }
+        latch.countDown();
+      }, delay);
+    }
+
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(early.get()).isEqualTo(0);
+    assertThat(this.lateness).hasSize(numTasks);
+    assertThat(this.lateness).allMatch(late -> late >= 0);
+  }
+
+  @Test
+  public void testCancelledTasksDontRun() throws Exception {
+    final AtomicInteger ran = new AtomicInteger();
+    final TimerWheel.Timeout cancelled = this.timerWheel.schedule(ran::incrementAndGet, 50);
+    final CountDownLatch latch = new CountDownLatch(1);
+    this.timerWheel.schedule(latch::countDown, 200);
+
+    assertThat(cancelled.cancel()).isTrue();
+    assertThat(cancelled.cancel()).isFalse();
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(ran.get()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package azkaban.spi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * The Azkaban LogStorage interface facilitates keeping the logs of finished jobs and flows outside
+ * of the database. The layout of the stored objects is up to the caller, the storage only needs
+ * to put whole files and to read them from an arbitrary offset.
+ *
+ * Note: This is a synchronous interface.
+ */
+public interface LogStorage {
+
+  /**
+   * Put a log file, replacing the object stored with the same key if any.
+   *
+   * @param key The key is a relative path pointing to the log in LogStorage.
+   * @param localFile Read data from a local file
+   */
+  void putLog(String key, File localFile) throws IOException;
+
+  /**
+   * Get an InputStream object for a log, positioned at the given offset.
+   *
+   * @param key The key is a relative path pointing to the log in LogStorage.
+   * @param offset Offset of the first byte to read
+   * @return InputStream for reading the log from the offset.
+   */
+  InputStream getLog(String key, long offset) throws IOException;
+
+  /**
+   * Delete a log from LogStorage.
+   *
+   * @param key The key is a relative path pointing to the log in LogStorage.
+   * @return true if delete was successful. false if there was nothing to delete.
+   */
+  boolean deleteLog(String key);
+}
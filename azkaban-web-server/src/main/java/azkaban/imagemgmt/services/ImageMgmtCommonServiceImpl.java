@@ -29,6 +29,7 @@ import azkaban.imagemgmt.exception.ImageMgmtException;
 import azkaban.imagemgmt.models.ImageRampupPlan;
 import azkaban.imagemgmt.models.ImageVersion;
 import azkaban.imagemgmt.models.ImageVersionUsageData;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -43,14 +44,17 @@ public class ImageMgmtCommonServiceImpl implements ImageMgmtCommonService {
   private static final Logger log = LoggerFactory.getLogger(ImageVersionServiceImpl.class);
 
   private final ImageMgmtCommonDao imageMgmtCommonDao;
+  private final ImageRampupManager imageRampupManager;
   private final Converter<ImageVersionDTO, ImageVersionDTO, ImageVersion> versionConverter;
   private final Converter<ImageRampupPlanRequestDTO, ImageRampupPlanResponseDTO, ImageRampupPlan> rampupPlanConverter;
 
   @Inject
   public ImageMgmtCommonServiceImpl(final ImageMgmtCommonDao imageMgmtCommonDao,
       @Named(IMAGE_VERSION) final Converter versionConverter,
-      @Named(IMAGE_RAMPUP_PLAN) final Converter rampupPlanConverter) {
+      @Named(IMAGE_RAMPUP_PLAN) final Converter rampupPlanConverter,
+      final ImageRampupManager imageRampupManager) {
     this.imageMgmtCommonDao = imageMgmtCommonDao;
+    this.imageRampupManager = imageRampupManager;
     this.versionConverter = versionConverter;
     this.rampupPlanConverter = rampupPlanConverter;
   }
@@ -61,6 +65,7 @@ public class ImageMgmtCommonServiceImpl implements ImageMgmtCommonService {
       throws ImageMgmtException {
     final DeleteResponse deleteResponse = imageMgmtCommonDao.deleteImageVersion(imageType,
         versionId, forceDelete);
+    this.imageRampupManager.invalidateCache();
     // Check if there are errors and data. If present convert to API specific response
     if (deleteResponse.hasErrors() && deleteResponse.getData().isPresent()) {
       final ImageVersionUsageData imageVersionUsageData =
@@ -29,6 +29,7 @@ import azkaban.imagemgmt.exception.ImageMgmtException;
 import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageRampup.StabilityTag;
 import azkaban.imagemgmt.models.ImageRampupPlan;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ValidatorUtils;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -54,12 +55,15 @@ public class ImageRampupServiceImpl implements ImageRampupService {
   private static final Logger log = LoggerFactory.getLogger(ImageRampupServiceImpl.class);
 
   private final ImageRampupDao imageRampupDao;
+  private final ImageRampupManager imageRampupManager;
   private final Converter<ImageRampupPlanRequestDTO, ImageRampupPlanResponseDTO, ImageRampupPlan> converter;
 
   @Inject
   public ImageRampupServiceImpl(final ImageRampupDao imageRampupDao,
-      @Named(IMAGE_RAMPUP_PLAN) final Converter converter) {
+      @Named(IMAGE_RAMPUP_PLAN) final Converter converter,
+      final ImageRampupManager imageRampupManager) {
     this.imageRampupDao = imageRampupDao;
+    this.imageRampupManager = imageRampupManager;
     this.converter = converter;
   }
 
@@ -78,8 +82,10 @@ public class ImageRampupServiceImpl implements ImageRampupService {
     vaidateRampup(imageRampupPlanRequest);
 
     // Invoke DAO method to create rampup plan and rampup details
-    return this.imageRampupDao
+    final int imageRampupPlanId = this.imageRampupDao
         .createImageRampupPlan(this.converter.convertToDataModel(imageRampupPlanRequest));
+    this.imageRampupManager.invalidateCache();
+    return imageRampupPlanId;
   }
 
   @Override
@@ -110,6 +116,7 @@ public class ImageRampupServiceImpl implements ImageRampupService {
       vaidateRampup(imageRampupPlanRequest);
     }
     this.imageRampupDao.updateImageRampupPlan(this.converter.convertToDataModel(imageRampupPlanRequest));
+    this.imageRampupManager.invalidateCache();
   }
 
   /**
@@ -27,6 +27,7 @@ import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageOwnership.Role;
 import azkaban.imagemgmt.models.ImageType;
 import azkaban.imagemgmt.models.ImageType.Deployable;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ValidatorUtils;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -51,12 +52,15 @@ public class ImageTypeServiceImpl implements ImageTypeService {
   private static final Logger log = LoggerFactory.getLogger(ImageTypeServiceImpl.class);
 
   private final ImageTypeDao imageTypeDao;
+  private final ImageRampupManager imageRampupManager;
   private final Converter<ImageTypeDTO, ImageTypeDTO, ImageType> converter;
 
   @Inject
   public ImageTypeServiceImpl(final ImageTypeDao imageTypeDao,
-      @Named(IMAGE_TYPE) final Converter converter) {
+      @Named(IMAGE_TYPE) final Converter converter,
+      final ImageRampupManager imageRampupManager) {
     this.imageTypeDao = imageTypeDao;
+    this.imageRampupManager = imageRampupManager;
     this.converter = converter;
   }
 
@@ -75,7 +79,10 @@ public class ImageTypeServiceImpl implements ImageTypeService {
     }
     // Validate ownership metadata
     validateOwnership(imageType);
-    return this.imageTypeDao.createImageType(this.converter.convertToDataModel(imageType));
+    final int imageTypeId =
+        this.imageTypeDao.createImageType(this.converter.convertToDataModel(imageType));
+    this.imageRampupManager.invalidateCache();
+    return imageTypeId;
   }
 
   /**
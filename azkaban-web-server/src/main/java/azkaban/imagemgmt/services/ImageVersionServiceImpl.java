@@ -28,6 +28,7 @@ import azkaban.imagemgmt.exception.ImageMgmtException;
 import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageVersion;
 import azkaban.imagemgmt.models.ImageVersion.State;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ValidatorUtils;
 import java.util.ArrayList;
 import java.util.List;
@@ -49,12 +50,15 @@ public class ImageVersionServiceImpl implements ImageVersionService {
   private static final Logger log = LoggerFactory.getLogger(ImageVersionServiceImpl.class);
 
   private final ImageVersionDao imageVersionsDao;
+  private final ImageRampupManager imageRampupManager;
   private final Converter<ImageVersionDTO, ImageVersionDTO, ImageVersion> converter;
 
   @Inject
   public ImageVersionServiceImpl(final ImageVersionDao imageVersionsDao,
-      @Named(IMAGE_VERSION) final Converter converter) {
+      @Named(IMAGE_VERSION) final Converter converter,
+      final ImageRampupManager imageRampupManager) {
     this.imageVersionsDao = imageVersionsDao;
+    this.imageRampupManager = imageRampupManager;
     this.converter = converter;
   }
 
@@ -72,8 +76,10 @@ public class ImageVersionServiceImpl implements ImageVersionService {
       throw new ImageMgmtValidationException(ErrorCode.BAD_REQUEST, String.format("Provide valid "
           + "input for creating image version metadata. Error(s): [%s].", errors));
     }
-    return this.imageVersionsDao
+    final int imageVersionId = this.imageVersionsDao
         .createImageVersion(this.converter.convertToDataModel(imageVersion));
+    this.imageRampupManager.invalidateCache();
+    return imageVersionId;
   }
 
   @Override
@@ -94,5 +100,6 @@ public class ImageVersionServiceImpl implements ImageVersionService {
           + "input for creating image version metadata. Error(s): [%s].", errors));
     }
     this.imageVersionsDao.updateImageVersion(this.converter.convertToDataModel(imageVersion));
+    this.imageRampupManager.invalidateCache();
   }
 }
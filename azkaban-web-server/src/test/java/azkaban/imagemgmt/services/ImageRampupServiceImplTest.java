@@ -31,6 +31,7 @@ import azkaban.imagemgmt.dto.ImageRampupPlanResponseDTO;
 import azkaban.imagemgmt.exception.ImageMgmtException;
 import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageRampupPlan;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ConverterUtils;
 import azkaban.utils.JSONUtils;
 import java.io.IOException;
@@ -43,6 +44,7 @@ import org.mockito.ArgumentCaptor;
 public class ImageRampupServiceImplTest {
 
   private ImageRampupDao imageRampupDao;
+  private ImageRampupManager imageRampupManager;
   private ObjectMapper objectMapper;
   private ImageRampupService imageRampupService;
   private ConverterUtils converterUtils;
@@ -51,10 +53,12 @@ public class ImageRampupServiceImplTest {
   @Before
   public void setup() {
     this.objectMapper = new ObjectMapper();
+    this.imageRampupManager = mock(ImageRampupManager.class);
     this.imageRampupDao = mock(ImageRampupDaoImpl.class);
     this.converterUtils = new ConverterUtils(this.objectMapper);
     this.converter = new ImageRampupPlanConverter();
-    this.imageRampupService = new ImageRampupServiceImpl(this.imageRampupDao, this.converter);
+    this.imageRampupService = new ImageRampupServiceImpl(this.imageRampupDao, this.converter,
+        this.imageRampupManager);
   }
 
   @Test
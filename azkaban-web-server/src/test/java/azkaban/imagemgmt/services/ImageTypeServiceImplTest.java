@@ -29,6 +29,7 @@ import azkaban.imagemgmt.dto.ImageTypeDTO;
 import azkaban.imagemgmt.exception.ImageMgmtInvalidInputException;
 import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageType;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ConverterUtils;
 import azkaban.utils.JSONUtils;
 import java.io.IOException;
@@ -41,6 +42,7 @@ import org.mockito.ArgumentCaptor;
 public class ImageTypeServiceImplTest {
 
   private ImageTypeDao imageTypeDao;
+  private ImageRampupManager imageRampupManager;
   private ObjectMapper objectMapper;
   private ImageTypeService imageTypeService;
   private ConverterUtils converterUtils;
@@ -49,10 +51,12 @@ public class ImageTypeServiceImplTest {
   @Before
   public void setup() {
     this.objectMapper = new ObjectMapper();
+    this.imageRampupManager = mock(ImageRampupManager.class);
     this.imageTypeDao = mock(ImageTypeDaoImpl.class);
     this.converterUtils = new ConverterUtils(this.objectMapper);
     this.converter = new ImageTypeConverter();
-    this.imageTypeService = new ImageTypeServiceImpl(this.imageTypeDao, this.converter);
+    this.imageTypeService = new ImageTypeServiceImpl(this.imageTypeDao, this.converter,
+        this.imageRampupManager);
   }
 
   @Test
@@ -31,6 +31,7 @@ import azkaban.imagemgmt.exception.ImageMgmtException;
 import azkaban.imagemgmt.exception.ImageMgmtInvalidInputException;
 import azkaban.imagemgmt.exception.ImageMgmtValidationException;
 import azkaban.imagemgmt.models.ImageVersion;
+import azkaban.imagemgmt.rampup.ImageRampupManager;
 import azkaban.imagemgmt.utils.ConverterUtils;
 import azkaban.utils.JSONUtils;
 import java.io.IOException;
@@ -43,6 +44,7 @@ import org.mockito.ArgumentCaptor;
 public class ImageVersionServiceImplTest {
 
   private ImageVersionDao imageVersionDao;
+  private ImageRampupManager imageRampupManager;
   private ObjectMapper objectMapper;
   private ImageVersionService imageVersionService;
   private ConverterUtils converterUtils;
@@ -51,10 +53,12 @@ public class ImageVersionServiceImplTest {
   @Before
   public void setup() {
     this.objectMapper = new ObjectMapper();
+    this.imageRampupManager = mock(ImageRampupManager.class);
     this.imageVersionDao = mock(ImageVersionDaoImpl.class);
     this.converterUtils = new ConverterUtils(this.objectMapper);
     this.converter = new ImageVersionConverter();
-    this.imageVersionService = new ImageVersionServiceImpl(this.imageVersionDao, this.converter);
+    this.imageVersionService = new ImageVersionServiceImpl(this.imageVersionDao, this.converter,
+        this.imageRampupManager);
   }
 
   @Test
@@ -69,6 +73,7 @@ public class ImageVersionServiceImplTest {
     final ArgumentCaptor<ImageVersion> imageTypeArgumentCaptor = ArgumentCaptor
         .forClass(ImageVersion.class);
     verify(this.imageVersionDao, times(1)).createImageVersion(imageTypeArgumentCaptor.capture());
+    verify(this.imageRampupManager, times(1)).invalidateCache();
     final ImageVersion capturedImageVersion = imageTypeArgumentCaptor.getValue();
     Assert.assertEquals("path_spark_job", capturedImageVersion.getPath());
     Assert.assertEquals("1.1.1", capturedImageVersion.getVersion());
@@ -118,6 +123,7 @@ public class ImageVersionServiceImplTest {
     final ArgumentCaptor<ImageVersion> imageVersionArgumentCaptor = ArgumentCaptor
         .forClass(ImageVersion.class);
     verify(this.imageVersionDao, times(1)).updateImageVersion(imageVersionArgumentCaptor.capture());
+    verify(this.imageRampupManager, times(1)).invalidateCache();
     final ImageVersion imageVersionRequest = imageVersionArgumentCaptor.getValue();
     Assert.assertEquals(11, imageVersionRequest.getId());
     Assert.assertEquals("Good active version", imageVersionRequest.getDescription());